@@ -0,0 +1,347 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import com.mebigfatguy.fbcontrib.collect.Statistics;
+import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
+
+import edu.umd.cs.findbugs.FindBugs2;
+import edu.umd.cs.findbugs.Plugin;
+import edu.umd.cs.findbugs.PluginException;
+import edu.umd.cs.findbugs.Project;
+import edu.umd.cs.findbugs.TextUICommandLine;
+import edu.umd.cs.findbugs.config.CommandLine.HelpRequestedException;
+
+/**
+ * a headless, long running analysis server. It loads SpotBugs and fb-contrib once, and then runs each analysis job it is sent in the same jvm, so that jobs
+ * after the first don't pay for jvm startup, plugin loading, detector table setup, the jdk api index or a cold jit. Only per project state, such as the
+ * collected {@link Statistics}, is reset between jobs.
+ * <p>
+ * Start it with SpotBugs and fb-contrib on the classpath, optionally passing the port to listen on (default 7117, or the fb-contrib.daemon.port property):
+ *
+ * <pre>
+ * java -cp spotbugs.jar:fb-contrib.jar com.mebigfatguy.fbcontrib.FBContribDaemon 7117
+ * </pre>
+ *
+ * On startup the daemon writes a random token to a file only its user can read, ~/.fb-contrib/daemon.token or the fb-contrib.daemon.tokenfile property, and
+ * removes it when it stops. A job is a connection to that port on the loopback interface that sends the token, then the usual SpotBugs command line arguments
+ * one per line, followed by an empty line. Connections that don't start with the token are closed without running anything, so only users who can read the
+ * token file can submit jobs. fb-contrib is already loaded, so -pluginList should not be passed, and options that would exit or read from the daemon's own
+ * console, such as -help, -version, -showPlugins or -xargs, are refused, as are command lines SpotBugs can't parse. The text output of the analysis (or any
+ * -output file) is produced as usual, with console output sent back over the connection, which ends with the line
+ * {@code exit <bugs> <errors> <missing classes>}. Sending the token and then the single line {@code shutdown} stops the daemon. Jobs are run one at a time.
+ */
+public final class FBContribDaemon {
+
+    public static final String PORT_PROPERTY = "fb-contrib.daemon.port";
+    public static final String TOKEN_FILE_PROPERTY = "fb-contrib.daemon.tokenfile";
+    public static final int DEFAULT_PORT = 7117;
+
+    private static final String SHUTDOWN = "shutdown";
+    private static final int TOKEN_BYTES = 32;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** options that make SpotBugs' command line handling exit the jvm, or read the file list from the daemon's standard input */
+    private static final Set<String> REFUSED_OPTIONS = UnmodifiableSet.create("-help", "-h", "-version", "-showPlugins", "-xargs");
+    private static final Set<String> OUTPUT_OPTIONS = UnmodifiableSet.create("-output", "-outputFile");
+
+    private FBContribDaemon() {
+    }
+
+    /**
+     * starts the daemon, and serves jobs until it is sent a shutdown
+     *
+     * @param args
+     *            optionally, the port to listen on
+     * @throws IOException
+     *             if the port can't be listened on, or the token file can't be written
+     * @throws PluginException
+     *             if fb-contrib can't be loaded as a plugin
+     */
+    public static void main(final String[] args) throws IOException, PluginException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT).intValue();
+
+        URL pluginLocation = FBContribDaemon.class.getProtectionDomain().getCodeSource().getLocation();
+        Plugin.addCustomPlugin(pluginLocation, FBContribDaemon.class.getClassLoader());
+
+        Path tokenFile = getTokenFile();
+        byte[] token = writeToken(tokenFile);
+        try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            System.out.println("fb-contrib daemon listening on " + server.getLocalSocketAddress() + ", token in " + tokenFile);
+            boolean running = true;
+            while (running) {
+                try (Socket socket = server.accept()) {
+                    running = serve(socket, token);
+                } catch (IOException e) {
+                    System.err.println("fb-contrib daemon job failed: " + e.getMessage());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tokenFile);
+        }
+    }
+
+    private static Path getTokenFile() {
+        String tokenFile = System.getProperty(TOKEN_FILE_PROPERTY);
+        if ((tokenFile != null) && !tokenFile.isEmpty()) {
+            return Paths.get(tokenFile).toAbsolutePath();
+        }
+        return Paths.get(System.getProperty("user.home"), ".fb-contrib", "daemon.token");
+    }
+
+    /**
+     * creates a new random token, and writes it to a file that only the daemon's user can read, replacing any token of an earlier daemon
+     *
+     * @param tokenFile
+     *            the file to write the token to
+     * @return the bytes of the token, as clients send it
+     * @throws IOException
+     *             if the file can't be written
+     */
+    private static byte[] writeToken(Path tokenFile) throws IOException {
+        byte[] random = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(random);
+        char[] hex = new char[random.length * 2];
+        for (int i = 0; i < random.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(random[i] >> 4) & 0x0F];
+            hex[(2 * i) + 1] = HEX_DIGITS[random[i] & 0x0F];
+        }
+        byte[] token = new String(hex).getBytes(StandardCharsets.UTF_8);
+
+        Path dir = tokenFile.getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Files.deleteIfExists(tokenFile);
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(tokenFile, PosixFilePermissions.asFileAttribute(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)));
+        } else {
+            File file = Files.createFile(tokenFile).toFile();
+            if (!file.setReadable(false, false) || !file.setReadable(true, true) || !file.setWritable(false, false) || !file.setWritable(true, true)) {
+                throw new IOException("Can't restrict the permissions of the daemon token file " + tokenFile);
+            }
+        }
+        Files.write(tokenFile, token);
+        return token;
+    }
+
+    /**
+     * reads one job from a connection and runs it
+     *
+     * @param socket
+     *            the connection from the client
+     * @param token
+     *            the token the client must send first
+     * @return false if the client asked the daemon to shut down
+     * @throws IOException
+     *             if the connection fails
+     */
+    private static boolean serve(Socket socket, byte[] token) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if ((line == null) || !MessageDigest.isEqual(token, line.getBytes(StandardCharsets.UTF_8))) {
+            System.err.println("fb-contrib daemon refused a connection without the token");
+            return true;
+        }
+
+        List<String> jobArgs = new ArrayList<>();
+        line = reader.readLine();
+        while ((line != null) && !line.isEmpty()) {
+            jobArgs.add(line);
+            line = reader.readLine();
+        }
+
+        OutputStream os = socket.getOutputStream();
+        PrintStream out = new PrintStream(os, true, StandardCharsets.UTF_8.name());
+        if ((jobArgs.size() == 1) && SHUTDOWN.equals(jobArgs.get(0))) {
+            out.println("exit 0 0 0");
+            return false;
+        }
+
+        // the text reporter closes its stream when done, which mustn't close the connection
+        PrintStream jobOut = new PrintStream(new UnclosableOutputStream(os), true, StandardCharsets.UTF_8.name());
+        Job job = new Job(jobArgs.toArray(new String[jobArgs.size()]), jobOut);
+        PrintStream oldOut = System.out;
+        PrintStream oldErr = System.err;
+        System.setOut(jobOut);
+        System.setErr(jobOut);
+        try {
+            // a new thread per job, so no thread local state of one project can leak into the next
+            Thread worker = new Thread(job, "fb-contrib daemon job");
+            worker.start();
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            System.setOut(oldOut);
+            System.setErr(oldErr);
+            Statistics.getStatistics().clear();
+        }
+
+        jobOut.flush();
+        out.println("exit " + job.bugCount + ' ' + job.errorCount + ' ' + job.missingClassCount);
+        return true;
+    }
+
+    /**
+     * sets up the engine from a job's command line, as FindBugs.processCommandLine does, but refusing what would make SpotBugs exit the jvm, rather than
+     * exiting
+     *
+     * @param commandLine
+     *            the command line to parse the arguments into
+     * @param args
+     *            the arguments the client sent
+     * @param findBugs
+     *            the engine to configure
+     * @throws IllegalArgumentException
+     *             if the arguments are refused
+     * @throws Exception
+     *             if the engine can't be configured
+     */
+    static void configure(TextUICommandLine commandLine, String[] args, FindBugs2 findBugs) throws Exception {
+        String[] expanded;
+        try {
+            expanded = commandLine.expandOptionFiles(args, true, true);
+        } catch (HelpRequestedException e) {
+            throw new IllegalArgumentException("-help is not supported by the daemon", e);
+        }
+        checkOptions(expanded);
+
+        int argCount;
+        try {
+            argCount = commandLine.parse(expanded);
+        } catch (HelpRequestedException e) {
+            throw new IllegalArgumentException("-help is not supported by the daemon", e);
+        }
+
+        Project project = commandLine.getProject();
+        for (int i = argCount; i < expanded.length; i++) {
+            project.addFile(expanded[i]);
+        }
+        commandLine.handleXArgs();
+        commandLine.configureEngine(findBugs);
+        if (project.getFileCount() == 0) {
+            throw new IllegalArgumentException("No files to be analyzed");
+        }
+    }
+
+    /**
+     * refuses the options SpotBugs' command line handling would exit on, including an output file it couldn't open
+     *
+     * @param args
+     *            the expanded arguments of a job
+     * @throws IllegalArgumentException
+     *             if an option is refused
+     */
+    static void checkOptions(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            int colonPos = arg.indexOf(':');
+            String option = (colonPos >= 0) ? arg.substring(0, colonPos) : arg;
+            if (REFUSED_OPTIONS.contains(option)) {
+                throw new IllegalArgumentException(option + " is not supported by the daemon");
+            }
+            if (OUTPUT_OPTIONS.contains(option) && ((i + 1) < args.length)) {
+                File output = new File(args[i + 1]).getAbsoluteFile();
+                File dir = output.getParentFile();
+                if (output.exists() ? !output.isFile() || !output.canWrite() : (dir == null) || !dir.isDirectory() || !dir.canWrite()) {
+                    throw new IllegalArgumentException("Can't write the output file " + output);
+                }
+            }
+        }
+    }
+
+    /**
+     * one analysis, run on the command line arguments sent by a client
+     */
+    private static final class Job implements Runnable {
+
+        private final String[] args;
+        private final PrintStream out;
+        int bugCount;
+        int errorCount = 1;
+        int missingClassCount;
+
+        Job(String[] args, PrintStream out) {
+            this.args = args;
+            this.out = out;
+        }
+
+        @Override
+        public void run() {
+            try {
+                FindBugs2 findBugs = new FindBugs2();
+                configure(new TextUICommandLine(), args, findBugs);
+                findBugs.execute();
+                bugCount = findBugs.getBugCount();
+                errorCount = findBugs.getErrorCount();
+                missingClassCount = findBugs.getMissingClassCount();
+            } catch (IllegalArgumentException e) {
+                out.println(e.getMessage());
+            } catch (Exception e) {
+                e.printStackTrace(out);
+            }
+        }
+    }
+
+    /**
+     * a stream to the client that flushes rather than closes when closed
+     */
+    private static final class UnclosableOutputStream extends FilterOutputStream {
+
+        UnclosableOutputStream(OutputStream os) {
+            super(os);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
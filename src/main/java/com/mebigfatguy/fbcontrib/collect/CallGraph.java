@@ -0,0 +1,423 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.collect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mebigfatguy.fbcontrib.utils.FQMethod;
+import com.mebigfatguy.fbcontrib.utils.MethodRefIds;
+import com.mebigfatguy.fbcontrib.utils.ToString;
+
+/**
+ * the calls between the methods of all classes seen in the first pass, used to carry state modification and cheapness from callees to callers once the pass
+ * is done. Methods are interned as int ids, and calls are appended as pairs of ids, so recording a call is an array store. The method of an invoke is
+ * resolved by {@link MethodRefIds}, once per constant pool entry of the class being collected. In a sharded analysis, the calls of each slice are saved with
+ * its {@link Shard}, and are propagated through once the shards are merged.
+ * <p>
+ * At the end of the pass the calls are turned into a compressed sparse row table of the callers of each method, and both flags are spread from callees to
+ * callers with a worklist, so each method and each call is looked at once, and no bytecode is read again. A method modifies state if it does directly, or if
+ * it calls a method that does on state it holds: this, an object in a field, or the static state of the collected classes. Calls on parameters and
+ * locals change someone else's state. Nothing is known of methods that weren't collected, so, as {@link Statistics} reports, they are assumed to modify
+ * the object they are called on, and the static ones to modify only static state of their own, which no collected class holds. A method is cheap if it
+ * is cheap by itself, and only calls collected methods that are cheap.
+ * <p>
+ * The cost of a method is its own cost, plus that of each call it makes, times the weight of the call. The own cost already counts the code in the
+ * method's loops {@link #LOOP_FACTOR} times, and calls made in a loop weigh that much too, while calls on paths that end in a throw weigh nothing. The costs
+ * of callees are never multiplied again for loops elsewhere in the caller, so nesting only compounds where loops really nest. To cost recursion, the
+ * methods are split into strongly connected components with Tarjan's algorithm, which finds them callees first, and each member of a component is given
+ * its own cost and that of its calls out of the component, multiplied by the loop factor if the members recurse. I/O, JDBC and reflection are carried to
+ * callers, and to every member of a component.
+ */
+final class CallGraph {
+
+    /**
+     * how many times the code of a loop, or a call made in one, is counted
+     */
+    static final int LOOP_FACTOR = 10;
+
+    private static final int ON_STATE = 1;
+    private static final int ON_RECEIVER = 2;
+    private static final int ON_HELD_RECEIVER = ON_STATE | ON_RECEIVER;
+    private static final int CALLEE_SHIFT = 2;
+    private static final int UNKNOWN_CALL_COST = 10;
+    private static final int TRANSITIVE_FLAGS = MethodInfo.DOES_IO | MethodInfo.DOES_JDBC | MethodInfo.USES_REFLECTION;
+
+    private final Map<FQMethod, Integer> ids = new HashMap<>();
+    private final List<FQMethod> methods = new ArrayList<>();
+    private int[] callers = new int[1024];
+    private int[] callees = new int[1024];
+    private byte[] weights = new byte[1024];
+    private int callCount;
+
+    /**
+     * returns the id of a method, adding it if it hasn't been seen
+     *
+     * @param method
+     *            the fully qualified method
+     * @return the id of the method
+     */
+    int getMethodId(FQMethod method) {
+        Integer id = ids.get(method);
+        if (id == null) {
+            id = Integer.valueOf(methods.size());
+            methods.add(method);
+            ids.put(method, id);
+        }
+        return id.intValue();
+    }
+
+    /**
+     * records a call
+     *
+     * @param caller
+     *            the id of the calling method
+     * @param callee
+     *            the id of the called method
+     * @param onState
+     *            whether the method is static, or called on this or on an object in a field, in which case the caller modifies state if the callee does
+     * @param onReceiver
+     *            whether the method is called on an object, rather than static
+     * @param weight
+     *            how many times the callee's cost counts for the caller: {@link #LOOP_FACTOR} for calls in a loop, 1 for other calls, and 0 for calls on a
+     *            path that ends in a throw
+     */
+    void addCall(int caller, int callee, boolean onState, boolean onReceiver, int weight) {
+        if (callCount == callers.length) {
+            callers = Arrays.copyOf(callers, callCount * 2);
+            callees = Arrays.copyOf(callees, callCount * 2);
+            weights = Arrays.copyOf(weights, callCount * 2);
+        }
+        callers[callCount] = caller;
+        callees[callCount] = (callee << CALLEE_SHIFT) | (onState ? ON_STATE : 0) | (onReceiver ? ON_RECEIVER : 0);
+        weights[callCount] = (byte) weight;
+        callCount++;
+    }
+
+    /**
+     * returns the calls recorded so far, by calling method, so that a {@link Shard} can save them, to be propagated through the calls of all slices once the
+     * shards are merged
+     *
+     * @return the calls made by each calling method
+     */
+    Map<FQMethod, List<Call>> getCalls() {
+        Map<FQMethod, List<Call>> calls = new HashMap<>();
+        for (int c = 0; c < callCount; c++) {
+            FQMethod caller = methods.get(callers[c]);
+            List<Call> callerCalls = calls.get(caller);
+            if (callerCalls == null) {
+                callerCalls = new ArrayList<>();
+                calls.put(caller, callerCalls);
+            }
+            callerCalls.add(new Call(methods.get(callees[c] >>> CALLEE_SHIFT), (callees[c] & ON_STATE) != 0, (callees[c] & ON_RECEIVER) != 0, weights[c]));
+        }
+        return calls;
+    }
+
+    /**
+     * records the calls of a method, as returned by {@link #getCalls()}
+     *
+     * @param caller
+     *            the calling method
+     * @param calls
+     *            the calls it makes
+     */
+    void addCalls(FQMethod caller, List<Call> calls) {
+        int callerId = getMethodId(caller);
+        for (Call call : calls) {
+            addCall(callerId, getMethodId(call.getCallee()), call.isOnState(), call.isOnReceiver(), call.getWeight());
+        }
+    }
+
+    /**
+     * spreads state modification and cheapness from callees to callers, in the method statistics, then forgets the calls. State modification only spreads
+     * along calls on state the caller holds. Methods without statistics are ones that weren't collected; they are assumed to modify state, and are never cheap.
+     *
+     * @param statistics
+     *            the statistics of the collected methods
+     */
+    void propagate(Statistics statistics) {
+        int methodCount = methods.size();
+        MethodInfo[] infos = new MethodInfo[methodCount];
+        for (int m = 0; m < methodCount; m++) {
+            infos[m] = statistics.findMethodStatistics(methods.get(m));
+        }
+
+        // the callers of method m are callersOf[firstCaller[m]] to callersOf[firstCaller[m + 1] - 1]
+        int[] firstCaller = new int[methodCount + 1];
+        for (int c = 0; c < callCount; c++) {
+            firstCaller[(callees[c] >>> CALLEE_SHIFT) + 1]++;
+        }
+        for (int m = 0; m < methodCount; m++) {
+            firstCaller[m + 1] += firstCaller[m];
+        }
+        int[] callersOf = new int[callCount];
+        boolean[] onStateOf = new boolean[callCount];
+        int[] next = Arrays.copyOf(firstCaller, methodCount);
+        for (int c = 0; c < callCount; c++) {
+            int i = next[callees[c] >>> CALLEE_SHIFT]++;
+            callersOf[i] = callers[c];
+            onStateOf[i] = (callees[c] & ON_STATE) != 0;
+        }
+
+        int[] worklist = new int[methodCount];
+
+        int size = 0;
+        for (int m = 0; m < methodCount; m++) {
+            if ((infos[m] != null) && infos[m].getModifiesState()) {
+                worklist[size++] = m;
+            }
+        }
+        for (int c = 0; c < callCount; c++) {
+            MethodInfo callerMi = infos[callers[c]];
+            if (((callees[c] & ON_HELD_RECEIVER) == ON_HELD_RECEIVER) && (infos[callees[c] >>> CALLEE_SHIFT] == null) && (callerMi != null)
+                    && !callerMi.getModifiesState()) {
+                callerMi.setModifiesState(true);
+                worklist[size++] = callers[c];
+            }
+        }
+        while (size > 0) {
+            int m = worklist[--size];
+            for (int i = firstCaller[m]; i < firstCaller[m + 1]; i++) {
+                MethodInfo callerMi = infos[callersOf[i]];
+                if (onStateOf[i] && (callerMi != null) && !callerMi.getModifiesState()) {
+                    callerMi.setModifiesState(true);
+                    worklist[size++] = callersOf[i];
+                }
+            }
+        }
+
+        boolean[] expensive = new boolean[methodCount];
+        for (int m = 0; m < methodCount; m++) {
+            if ((infos[m] == null) || !infos[m].isCheap() || infos[m].getModifiesState()) {
+                expensive[m] = true;
+                worklist[size++] = m;
+            }
+        }
+        for (int c = 0; c < callCount; c++) {
+            int caller = callers[c];
+            if ((caller == (callees[c] >>> CALLEE_SHIFT)) && !expensive[caller]) {
+                // recursion is a loop
+                expensive[caller] = true;
+                worklist[size++] = caller;
+            }
+        }
+        while (size > 0) {
+            int m = worklist[--size];
+            if (infos[m] != null) {
+                infos[m].setCheap(false);
+            }
+            for (int i = firstCaller[m]; i < firstCaller[m + 1]; i++) {
+                int caller = callersOf[i];
+                if (!expensive[caller]) {
+                    expensive[caller] = true;
+                    worklist[size++] = caller;
+                }
+            }
+        }
+
+        propagateCosts(infos);
+        clear();
+    }
+
+    /**
+     * adds the costs, and the I/O, JDBC and reflection flags, of the called methods to their callers, one strongly connected component at a time
+     *
+     * @param infos
+     *            the statistics of each method id, null for methods that weren't collected
+     */
+    private void propagateCosts(MethodInfo[] infos) {
+        int methodCount = infos.length;
+
+        // the callees of method m are calleesOf[firstCallee[m]] to calleesOf[firstCallee[m + 1] - 1]
+        int[] firstCallee = new int[methodCount + 1];
+        for (int c = 0; c < callCount; c++) {
+            firstCallee[callers[c] + 1]++;
+        }
+        for (int m = 0; m < methodCount; m++) {
+            firstCallee[m + 1] += firstCallee[m];
+        }
+        int[] calleesOf = new int[callCount];
+        byte[] weightsOf = new byte[callCount];
+        int[] next = Arrays.copyOf(firstCallee, methodCount);
+        for (int c = 0; c < callCount; c++) {
+            int e = next[callers[c]]++;
+            calleesOf[e] = callees[c] >>> CALLEE_SHIFT;
+            weightsOf[e] = weights[c];
+        }
+
+        int[] order = new int[methodCount];
+        Arrays.fill(order, -1);
+        int[] low = new int[methodCount];
+        int[] component = new int[methodCount];
+        Arrays.fill(component, -1);
+        int[] members = new int[methodCount];
+        int memberCount = 0;
+        int[] path = new int[methodCount];
+        int[] pathEdge = new int[methodCount];
+        int visited = 0;
+        int components = 0;
+
+        for (int root = 0; root < methodCount; root++) {
+            if (order[root] >= 0) {
+                continue;
+            }
+
+            int depth = 0;
+            path[0] = root;
+            pathEdge[0] = firstCallee[root];
+            order[root] = low[root] = visited++;
+            members[memberCount++] = root;
+
+            while (depth >= 0) {
+                int m = path[depth];
+                if (pathEdge[depth] < firstCallee[m + 1]) {
+                    int callee = calleesOf[pathEdge[depth]++];
+                    if (order[callee] < 0) {
+                        depth++;
+                        path[depth] = callee;
+                        pathEdge[depth] = firstCallee[callee];
+                        order[callee] = low[callee] = visited++;
+                        members[memberCount++] = callee;
+                    } else if (component[callee] < 0) {
+                        low[m] = Math.min(low[m], order[callee]);
+                    }
+                    continue;
+                }
+
+                if (low[m] == order[m]) {
+                    int start = memberCount;
+                    do {
+                        start--;
+                        component[members[start]] = components;
+                    } while (members[start] != m);
+                    costComponent(infos, members, start, memberCount, firstCallee, calleesOf, weightsOf, component, components);
+                    memberCount = start;
+                    components++;
+                }
+
+                depth--;
+                if (depth >= 0) {
+                    low[path[depth]] = Math.min(low[path[depth]], low[m]);
+                }
+            }
+        }
+    }
+
+    /**
+     * sets the cost and flags of the members of a strongly connected component, whose callees outside of it are all done. The own costs of the members
+     * already count their loops, so only the weights of calls, and recursion, multiply costs here. Each member is given its own cost and that of the calls it
+     * makes out of the component, as a call of one member doesn't run all of a large component, but any I/O, JDBC or reflection in the component is carried
+     * to all of its members.
+     */
+    private static void costComponent(MethodInfo[] infos, int[] members, int start, int end, int[] firstCallee, int[] calleesOf, byte[] weightsOf,
+            int[] component, int componentId) {
+        long[] costs = new long[end - start];
+        int flags = 0;
+        boolean recursive = (end - start) > 1;
+        for (int i = start; i < end; i++) {
+            int m = members[i];
+            if (infos[m] == null) {
+                continue;
+            }
+            long cost = infos[m].getCost();
+            flags |= infos[m].getCostFlags() & TRANSITIVE_FLAGS;
+
+            for (int e = firstCallee[m]; e < firstCallee[m + 1]; e++) {
+                int callee = calleesOf[e];
+                if (component[callee] == componentId) {
+                    recursive = true;
+                } else if (infos[callee] == null) {
+                    cost += UNKNOWN_CALL_COST * weightsOf[e];
+                } else {
+                    cost += (long) infos[callee].getCost() * weightsOf[e];
+                    flags |= infos[callee].getCostFlags() & TRANSITIVE_FLAGS;
+                }
+                cost = Math.min(cost, MethodInfo.MAX_COST);
+            }
+            costs[i - start] = cost;
+        }
+
+        for (int i = start; i < end; i++) {
+            MethodInfo mi = infos[members[i]];
+            if (mi != null) {
+                mi.setCost(recursive ? Math.min(costs[i - start] * LOOP_FACTOR, MethodInfo.MAX_COST) : costs[i - start]);
+                mi.addCostFlags(flags);
+            }
+        }
+    }
+
+    /**
+     * forgets all methods and calls
+     */
+    void clear() {
+        ids.clear();
+        methods.clear();
+        callers = new int[1024];
+        callees = new int[1024];
+        weights = new byte[1024];
+        callCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        return ToString.build(this);
+    }
+
+    /**
+     * a call to a method, by the fully qualified method, rather than its id, for saving in a {@link Shard}
+     */
+    static final class Call {
+        private final FQMethod callee;
+        private final boolean onState;
+        private final boolean onReceiver;
+        private final int weight;
+
+        Call(FQMethod callee, boolean onState, boolean onReceiver, int weight) {
+            this.callee = callee;
+            this.onState = onState;
+            this.onReceiver = onReceiver;
+            this.weight = weight;
+        }
+
+        FQMethod getCallee() {
+            return callee;
+        }
+
+        boolean isOnState() {
+            return onState;
+        }
+
+        boolean isOnReceiver() {
+            return onReceiver;
+        }
+
+        int getWeight() {
+            return weight;
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+}
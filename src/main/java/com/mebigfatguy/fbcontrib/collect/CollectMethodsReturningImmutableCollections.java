@@ -18,12 +18,14 @@
  */
 package com.mebigfatguy.fbcontrib.collect;
 
+import java.util.BitSet;
 import java.util.Set;
 
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Method;
 
 import com.mebigfatguy.fbcontrib.utils.CollectionUtils;
+import com.mebigfatguy.fbcontrib.utils.MethodRefIds;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -62,6 +64,15 @@ public class CollectMethodsReturningImmutableCollections extends BytecodeScannin
             //@formatter:on
     );
 
+    private static final BitSet IMMUTABLE_PRODUCING_METHOD_IDS = new BitSet();
+
+    static {
+        for (String method : IMMUTABLE_PRODUCING_METHODS) {
+            int dotPos = method.lastIndexOf('.');
+            IMMUTABLE_PRODUCING_METHOD_IDS.set(MethodRefIds.registerMember(method.substring(0, dotPos), method.substring(dotPos + 1)));
+        }
+    }
+
     private BugReporter bugReporter;
     private OpcodeStack stack;
     private String clsName;
@@ -125,10 +136,7 @@ public class CollectMethodsReturningImmutableCollections extends BytecodeScannin
 
             switch (seen) {
                 case INVOKESTATIC: {
-                    String className = getClassConstantOperand();
-                    String methodName = getNameConstantOperand();
-
-                    if (IMMUTABLE_PRODUCING_METHODS.contains(className + '.' + methodName)) {
+                    if (MethodRefIds.isMemberIn(this, IMMUTABLE_PRODUCING_METHOD_IDS)) {
                         seenImmutable = ImmutabilityType.IMMUTABLE;
                         break;
                     }
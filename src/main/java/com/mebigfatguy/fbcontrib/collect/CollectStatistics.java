@@ -18,22 +18,30 @@
  */
 package com.mebigfatguy.fbcontrib.collect;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.bcel.Const;
 import org.apache.bcel.classfile.AnnotationEntry;
 import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.CodeException;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.ChangedLines;
 import com.mebigfatguy.fbcontrib.utils.CollectionUtils;
-import com.mebigfatguy.fbcontrib.utils.QMethod;
+import com.mebigfatguy.fbcontrib.utils.DetectorEvents;
+import com.mebigfatguy.fbcontrib.utils.FQMethod;
+import com.mebigfatguy.fbcontrib.utils.GeneratedClasses;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.MethodRefIds;
+import com.mebigfatguy.fbcontrib.utils.SampledClasses;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
+import com.mebigfatguy.fbcontrib.utils.UnmodifiableList;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
 import com.mebigfatguy.fbcontrib.utils.Values;
 
@@ -44,7 +52,8 @@ import edu.umd.cs.findbugs.OpcodeStack;
 import edu.umd.cs.findbugs.ba.ClassContext;
 
 /**
- * a first pass detector to collect various statistics used in second pass detectors.
+ * a first pass detector to collect various statistics used in second pass detectors. Whether methods modify state, whether they are cheap, and what they
+ * cost, is carried through the calls between all classes once the pass is done, see {@link CallGraph}.
  */
 public class CollectStatistics extends BytecodeScanningDetector implements NonReportingDetector {
     private static final Set<String> COMMON_METHOD_SIG_PREFIXES = UnmodifiableSet.create(
@@ -58,23 +67,59 @@ public class CollectStatistics extends BytecodeScanningDetector implements NonRe
             //@formatter:on
     );
 
+    private static final List<String> IO_PACKAGES = UnmodifiableList.create("java/io/", "java/nio/channels/", "java/nio/file/", "java/net/");
+    private static final Set<String> IN_MEMORY_IO_CLASSES = UnmodifiableSet.create("java/io/ByteArrayInputStream", "java/io/ByteArrayOutputStream",
+            "java/io/CharArrayReader", "java/io/CharArrayWriter", "java/io/StringReader", "java/io/StringWriter");
+    private static final List<String> JDBC_PACKAGES = UnmodifiableList.create("java/sql/", "javax/sql/");
+    private static final Set<String> REFLECTIVE_CLASS_METHODS = UnmodifiableSet.create("forName", "newInstance", "getMethod", "getMethods",
+            "getDeclaredMethod", "getDeclaredMethods", "getField", "getFields", "getDeclaredField", "getDeclaredFields", "getConstructor", "getConstructors",
+            "getDeclaredConstructor", "getDeclaredConstructors");
+
+    private static final int CHEAP_BYTES = 64;
+    private static final int ALLOCATION_COST = 10;
+    private static final int REFLECTION_COST = 100;
+    private static final int IO_COST = 1000;
+    private static final int JDBC_COST = 5000;
+
+    private final CallGraph callGraph = new CallGraph();
     private int numMethodCalls;
+    private int classBytes;
     private boolean modifiesState;
+    private boolean cheap;
+    private int costFlags;
+    private int numAllocations;
+    private long cost;
+    private int[] costByPC = new int[0];
+    private BitSet loopPCs;
+    private BitSet coldPCs;
+    private BitSet blockStarts;
+    private int blockStart;
+    /** the callee id, 1 if static or called on this or a field, plus 2 if called on an object, and the pc of each call of the current method, in triples */
+    private int[] calls = new int[64];
+    private int callCount;
     private boolean classHasAnnotation;
     private OpcodeStack stack;
-    private Map<QMethod, Set<CalledMethod>> selfCallTree;
-    private QMethod curMethod;
+    private int curMethodId;
 
     /**
-     * constructs a CollectStatistics detector which clears the singleton that holds the statistics for all classes parsed in the first pass.
+     * constructs a CollectStatistics detector which clears the singleton that holds the statistics for all classes parsed in the first pass. When reporting
+     * on a slice of a sharded analysis, the statistics are instead seeded from the merged shard, so that calls made from other slices are known. The generated
+     * classes, the change set, the sample and the hot methods of a previous analysis are forgotten as well.
      *
      * @param bugReporter
-     *            unused, but required by reflection contract
+     *            the sync point for bug reporting, whose findings are counted when sampling
      */
-    // required for reflection
-    @SuppressWarnings("PMD.UnusedFormalParameter")
     public CollectStatistics(BugReporter bugReporter) {
-        Statistics.getStatistics().clear();
+        if (Shard.isReporting()) {
+            Shard.loadMergedStatistics(Statistics.getStatistics());
+        } else {
+            Statistics.getStatistics().clear();
+        }
+        GeneratedClasses.clear();
+        ChangedLines.clear();
+        SampledClasses.clear();
+        HotMethods.clear();
+        SampledClasses.observe(bugReporter);
     }
 
     /**
@@ -85,21 +130,23 @@ public class CollectStatistics extends BytecodeScanningDetector implements NonRe
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            AnnotationEntry[] annotations = cls.getAnnotationEntries();
-            classHasAnnotation = !CollectionUtils.isEmpty(annotations);
-            stack = new OpcodeStack();
-            selfCallTree = new HashMap<>();
-            super.visitClassContext(classContext);
-
-            performModifyStateClosure(classContext.getJavaClass());
-
-        } finally {
-            stack = null;
-            selfCallTree = null;
-            curMethod = null;
-        }
+        DetectorEvents.recordClass(this, classContext, () -> {
+            try {
+                classBytes = 0;
+                JavaClass cls = classContext.getJavaClass();
+                AnnotationEntry[] annotations = cls.getAnnotationEntries();
+                classHasAnnotation = !CollectionUtils.isEmpty(annotations);
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+
+                // out of scope classes are still collected, but are classified here, so the skip summary is complete once the first pass is done, the cross
+                // class detectors know which classes to report on, and the classes to sample from are known
+                AnalysisScope.collectClass(classContext, classBytes);
+
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     @Override
@@ -113,8 +160,35 @@ public class CollectStatistics extends BytecodeScanningDetector implements NonRe
             return;
         }
         stack.resetForMethodEntry(this);
-        curMethod = null;
-        super.visitCode(obj);
+        cheap = code.length <= CHEAP_BYTES;
+        costFlags = 0;
+        numAllocations = 0;
+        cost = code.length;
+        if (costByPC.length < code.length) {
+            costByPC = new int[code.length];
+        } else {
+            Arrays.fill(costByPC, 0, code.length, 0);
+        }
+        loopPCs = new BitSet(code.length);
+        coldPCs = new BitSet(code.length);
+        blockStarts = new BitSet(code.length);
+        blockStart = 0;
+        CodeException[] handlers = obj.getExceptionTable();
+        if (handlers != null) {
+            for (CodeException handler : handlers) {
+                blockStarts.set(handler.getHandlerPC());
+            }
+        }
+        callCount = 0;
+        curMethodId = callGraph.getMethodId(new FQMethod(getClassName(), getMethodName(), getMethodSig()));
+        DetectorEvents.Span span = DetectorEvents.beginMethod(this, getClassName(), getMethod());
+        try {
+            super.visitCode(obj);
+        } finally {
+            span.finish();
+        }
+        addLoopedCosts(code.length);
+        classBytes += obj.getLength();
         String clsName = getClassName();
         Method method = getMethod();
         int accessFlags = method.getAccessFlags();
@@ -135,39 +209,36 @@ public class CollectStatistics extends BytecodeScanningDetector implements NonRe
             }
         }
 
-        mi.setModifiesState(modifiesState);
+        mi.setNumAllocations(numAllocations);
+        if (!Shard.isReporting()) {
+            // when reporting on a slice, these were loaded from the merged shard, already carried through the calls of all slices
+            mi.setModifiesState(modifiesState);
+            mi.setCheap(cheap && !modifiesState);
+            mi.setCostFlags(costFlags);
+            mi.setCost(cost);
+        }
     }
 
     @Override
     public void sawOpcode(int seen) {
         try {
+            if (blockStarts.get(getPC())) {
+                blockStart = getPC();
+            }
+
             switch (seen) {
                 case INVOKEVIRTUAL:
                 case INVOKEINTERFACE:
                 case INVOKESPECIAL:
                 case INVOKESTATIC:
-                case INVOKEDYNAMIC:
                     numMethodCalls++;
+                    addCall(seen);
+                    addCallCost();
+                break;
 
-                    if (seen != INVOKESTATIC) {
-                        int numParms = SignatureUtils.getNumParameters(getSigConstantOperand());
-                        if (stack.getStackDepth() > numParms) {
-                            OpcodeStack.Item itm = stack.getStackItem(numParms);
-                            if (itm.getRegisterNumber() == 0) {
-                                Set<CalledMethod> calledMethods;
-
-                                if (curMethod == null) {
-                                    curMethod = new QMethod(getMethodName(), getMethodSig());
-                                    calledMethods = new HashSet<>();
-                                    selfCallTree.put(curMethod, calledMethods);
-                                } else {
-                                    calledMethods = selfCallTree.get(curMethod);
-                                }
-
-                                calledMethods.add(new CalledMethod(new QMethod(getNameConstantOperand(), getSigConstantOperand()), seen == INVOKESPECIAL));
-                            }
-                        }
-                    }
+                case INVOKEDYNAMIC:
+                    numMethodCalls++;
+                    cheap = false;
                 break;
 
                 case PUTSTATIC:
@@ -175,7 +246,54 @@ public class CollectStatistics extends BytecodeScanningDetector implements NonRe
                     modifiesState = true;
                 break;
 
+                case NEW:
+                case NEWARRAY:
+                case ANEWARRAY:
+                case MULTIANEWARRAY:
+                    numAllocations++;
+                    costByPC[getPC()] += ALLOCATION_COST;
+                    cheap = false;
+                break;
+
+                case IASTORE:
+                case LASTORE:
+                case FASTORE:
+                case DASTORE:
+                case AASTORE:
+                case BASTORE:
+                case CASTORE:
+                case SASTORE:
+                case MONITORENTER:
+                    cheap = false;
+                break;
+
+                case ATHROW:
+                    coldPCs.set(blockStart, getPC() + 1);
+                    blockStart = getNextPC();
+                break;
+
+                case TABLESWITCH:
+                case LOOKUPSWITCH:
+                    blockStarts.set(getPC() + getDefaultSwitchOffset());
+                    for (int offset : getSwitchOffsets()) {
+                        blockStarts.set(getPC() + offset);
+                    }
+                    blockStart = getNextPC();
+                break;
+
                 default:
+                    if (isBranch(seen)) {
+                        if (getBranchOffset() < 0) {
+                            cheap = false;
+                            costFlags |= MethodInfo.HAS_LOOPS;
+                            loopPCs.set(getBranchTarget(), getPC() + 1);
+                        } else {
+                            blockStarts.set(getBranchTarget());
+                        }
+                        blockStart = getNextPC();
+                    } else if (isReturn(seen)) {
+                        blockStart = getNextPC();
+                    }
                 break;
             }
         } finally {
@@ -183,95 +301,126 @@ public class CollectStatistics extends BytecodeScanningDetector implements NonRe
         }
     }
 
-    private void performModifyStateClosure(JavaClass cls) {
-        boolean foundNewCall = true;
-        Statistics statistics = Statistics.getStatistics();
-
-        String clsName = cls.getClassName();
-        while (foundNewCall && !selfCallTree.isEmpty()) {
-            foundNewCall = false;
-
-            Iterator<Map.Entry<QMethod, Set<CalledMethod>>> callerIt = selfCallTree.entrySet().iterator();
-            while (callerIt.hasNext()) {
-                Map.Entry<QMethod, Set<CalledMethod>> callerEntry = callerIt.next();
-                QMethod caller = callerEntry.getKey();
-
-                MethodInfo callerMi = statistics.getMethodStatistics(clsName, caller.getMethodName(), caller.getSignature());
-                if (callerMi == null) {
-                    // odd, shouldn't happen
-                    foundNewCall = true;
-                } else if (callerMi.getModifiesState()) {
-                    foundNewCall = true;
-                } else {
-
-                    for (CalledMethod calledMethod : callerEntry.getValue()) {
-
-                        if (calledMethod.isSuper) {
-                            callerMi.setModifiesState(true);
-                            foundNewCall = true;
-                            break;
-                        } else {
-                            MethodInfo calleeMi = statistics.getMethodStatistics(clsName, calledMethod.callee.getMethodName(),
-                                    calledMethod.callee.getSignature());
-                            if (calleeMi == null) {
-                                // a super or sub class probably implements this method so just assume it modifies state
-                                callerMi.setModifiesState(true);
-                                foundNewCall = true;
-                                break;
-                            }
-
-                            if (calleeMi.getModifiesState()) {
-                                callerMi.setModifiesState(true);
-                                foundNewCall = true;
-                                break;
-                            }
-                        }
-                    }
-                }
-
-                if (foundNewCall) {
-                    callerIt.remove();
-                }
+    /**
+     * adds the costs of the method's code and calls to its cost, and records the calls in the call graph, now that the loops of the method are known. What
+     * is in a loop counts {@link CallGraph#LOOP_FACTOR} times, and what is on a straight path that ends in a throw counts only by its bytes, as it runs at
+     * most once.
+     *
+     * @param codeLength
+     *            the number of bytes of the method's code
+     */
+    private void addLoopedCosts(int codeLength) {
+        loopPCs.andNot(coldPCs);
+        cost += (long) loopPCs.cardinality() * (CallGraph.LOOP_FACTOR - 1);
+        for (int pc = 0; pc < codeLength; pc++) {
+            if ((costByPC[pc] != 0) && !coldPCs.get(pc)) {
+                cost += (long) costByPC[pc] * getWeight(pc);
             }
         }
 
-        selfCallTree.clear();
+        for (int c = 0; c < callCount; c += 3) {
+            callGraph.addCall(curMethodId, calls[c], (calls[c + 1] & 1) != 0, (calls[c + 1] & 2) != 0, getWeight(calls[c + 2]));
+        }
     }
 
-    private boolean isAssociationedWithAnnotations(Method m) {
-        if (classHasAnnotation) {
-            return true;
+    private int getWeight(int pc) {
+        if (coldPCs.get(pc)) {
+            return 0;
         }
-
-        return !CollectionUtils.isEmpty(m.getAnnotationEntries());
+        return loopPCs.get(pc) ? CallGraph.LOOP_FACTOR : 1;
     }
 
     /**
-     * represents a method that is called, and whether it is in the super class
+     * records the call of the current invoke instruction, to be added to the call graph at the end of the method. Static calls, and calls on this or on an
+     * object in a field, are marked as such, as only they pass state modification on to the caller, and calls on objects are marked apart from static ones.
+     * Constructors and calls on objects this method allocated are left out, as they only change the new object.
+     *
+     * @param seen
+     *            the invoke opcode
      */
-    static class CalledMethod {
-        private QMethod callee;
-        private boolean isSuper;
+    private void addCall(int seen) {
+        FQMethod calledMethod = MethodRefIds.getInvokedMethod(this);
+        if (calledMethod == null) {
+            return;
+        }
+        int callee = callGraph.getMethodId(calledMethod);
 
-        public CalledMethod(QMethod c, boolean s) {
-            callee = c;
-            isSuper = s;
+        boolean onState = true;
+        if (seen != INVOKESTATIC) {
+            int numParms = SignatureUtils.getNumParameters(getSigConstantOperand());
+            if (stack.getStackDepth() <= numParms) {
+                return;
+            }
+            OpcodeStack.Item itm = stack.getStackItem(numParms);
+            onState = (!getMethod().isStatic() && (itm.getRegisterNumber() == 0)) || (itm.getXField() != null);
+            if (!onState && (itm.isNewlyAllocated() || Values.CONSTRUCTOR.equals(getNameConstantOperand()))) {
+                return;
+            }
         }
 
-        @Override
-        public int hashCode() {
-            return callee.hashCode() & (isSuper ? 0 : 1);
+        if ((callCount + 3) > calls.length) {
+            calls = Arrays.copyOf(calls, calls.length * 2);
         }
+        calls[callCount++] = callee;
+        calls[callCount++] = (onState ? 1 : 0) | ((seen != INVOKESTATIC) ? 2 : 0);
+        calls[callCount++] = getPC();
+    }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (!(obj instanceof CalledMethod)) {
-                return false;
+    /**
+     * adds the cost of the current call to a library method that does I/O, JDBC or reflection, which are much more costly than their code shows, if it has
+     * any
+     */
+    private void addCallCost() {
+        String clsName = getClassConstantOperand();
+        if (isInPackages(clsName, JDBC_PACKAGES)) {
+            costFlags |= MethodInfo.DOES_JDBC;
+            costByPC[getPC()] += JDBC_COST;
+        } else if (isInPackages(clsName, IO_PACKAGES) && !IN_MEMORY_IO_CLASSES.contains(clsName)) {
+            costFlags |= MethodInfo.DOES_IO;
+            costByPC[getPC()] += IO_COST;
+        } else if (clsName.startsWith("java/lang/reflect/")
+                || (Values.SLASHED_JAVA_LANG_CLASS.equals(clsName) && REFLECTIVE_CLASS_METHODS.contains(getNameConstantOperand()))) {
+            costFlags |= MethodInfo.USES_REFLECTION;
+            costByPC[getPC()] += REFLECTION_COST;
+        }
+    }
+
+    private static boolean isInPackages(String clsName, List<String> packages) {
+        for (String pkg : packages) {
+            if (clsName.startsWith(pkg)) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            CalledMethod that = (CalledMethod) obj;
+    /**
+     * implements the visitor to carry state modification and cheapness through the calls between all classes, now that the first pass is done, to report how
+     * many generated classes the reporting detectors will skip, and to save the statistics and calls of this slice, when collecting a shard. The calls are
+     * saved before they are propagated, so that they can be propagated through all slices once the shards are merged, which is done when the merged shard is
+     * loaded, so a reporting slice doesn't propagate again.
+     */
+    @Override
+    public void report() {
+        if (Shard.isReporting()) {
+            callGraph.clear();
+        } else {
+            if (Shard.isCollecting()) {
+                Shard.setCollectedCalls(Statistics.getStatistics(), callGraph);
+            }
+            callGraph.propagate(Statistics.getStatistics());
+        }
+        GeneratedClasses.report();
+        if (Shard.isCollecting()) {
+            Shard.save();
+        }
+    }
 
-            return (isSuper == that.isSuper) && callee.equals(that.callee);
+    private boolean isAssociationedWithAnnotations(Method m) {
+        if (classHasAnnotation) {
+            return true;
         }
+
+        return !CollectionUtils.isEmpty(m.getAnnotationEntries());
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.collect;
+
+import com.mebigfatguy.fbcontrib.utils.SampledClasses;
+
+import edu.umd.cs.findbugs.BugReporter;
+import edu.umd.cs.findbugs.Detector2;
+import edu.umd.cs.findbugs.NonReportingDetector;
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+
+/**
+ * logs the findings of a sampled analysis, extrapolated to all classes. This runs in a pass after all the reporting detectors, only so it knows when they
+ * are done, and so looks at no classes itself.
+ */
+public class EstimateSampledFindings implements Detector2, NonReportingDetector {
+
+    /**
+     * constructs a EstimateSampledFindings detector given the reporter to report bugs on
+     *
+     * @param bugReporter
+     *            unused, but required by reflection contract
+     */
+    // required for reflection
+    @SuppressWarnings("PMD.UnusedFormalParameter")
+    public EstimateSampledFindings(BugReporter bugReporter) {
+    }
+
+    @Override
+    public void visitClass(ClassDescriptor classDescriptor) {
+        // nothing to look at, this only marks the end of the analysis
+    }
+
+    /**
+     * implements the detector to log the sample's estimates, now that all the findings are in
+     */
+    @Override
+    public void finishPass() {
+        SampledClasses.report();
+    }
+
+    @Override
+    public String getDetectorClassName() {
+        return getClass().getName();
+    }
+}
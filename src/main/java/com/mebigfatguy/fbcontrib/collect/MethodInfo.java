@@ -32,12 +32,23 @@ public class MethodInfo {
     public static final int PROTECTED_USE = 4;
     public static final int PACKAGE_USE = 8;
 
+    public static final int HAS_LOOPS = 1;
+    public static final int DOES_IO = 2;
+    public static final int DOES_JDBC = 4;
+    public static final int USES_REFLECTION = 8;
+
+    public static final int MAX_COST = 0xFFFF;
+
     private short numMethodBytes;
     private byte numMethodCalls;
     private byte immutabilityOrdinal;
     private byte declaredAccess;
     private byte isCalledType;
     private boolean modifiesState;
+    private boolean cheap;
+    private byte costFlags;
+    private byte numAllocations;
+    private short cost;
 
     public int getNumBytes() {
         return 0x0000FFFF & numMethodBytes;
@@ -75,6 +86,25 @@ public class MethodInfo {
         }
     }
 
+    /**
+     * returns the raw set of *_USE bits describing how this method was called
+     *
+     * @return the calling access bits
+     */
+    int getCalledType() {
+        return isCalledType;
+    }
+
+    /**
+     * adds raw *_USE bits, as when merging the calls recorded by several analysis shards
+     *
+     * @param calledType
+     *            the calling access bits to add
+     */
+    void addCalledType(int calledType) {
+        isCalledType |= calledType;
+    }
+
     public boolean wasCalled() {
         return (isCalledType & (PUBLIC_USE | PROTECTED_USE | PACKAGE_USE | PRIVATE_USE)) != 0;
     }
@@ -111,6 +141,65 @@ public class MethodInfo {
         this.modifiesState = modifiesState;
     }
 
+    /**
+     * returns whether the method is cheap to call, that is it modifies no state, allocates nothing, has no loops, is short, and only calls collected methods
+     * that are cheap themselves, like most getters. This is only known once the first pass is done.
+     *
+     * @return whether the method is cheap
+     */
+    public boolean isCheap() {
+        return cheap;
+    }
+
+    public void setCheap(boolean cheap) {
+        this.cheap = cheap;
+    }
+
+    /**
+     * returns what makes the method costly: HAS_LOOPS if it has loops itself, and DOES_IO, DOES_JDBC and USES_REFLECTION if it, or a method it calls, does
+     * so. The flags of called methods are only added once the first pass is done.
+     *
+     * @return the HAS_LOOPS, DOES_* and USES_REFLECTION bits of the method
+     */
+    public int getCostFlags() {
+        return costFlags;
+    }
+
+    public boolean hasCostFlags(int flags) {
+        return (costFlags & flags) != 0;
+    }
+
+    public void setCostFlags(int flags) {
+        costFlags = (byte) flags;
+    }
+
+    public void addCostFlags(int flags) {
+        costFlags |= flags;
+    }
+
+    public int getNumAllocations() {
+        return 0x000000FF & numAllocations;
+    }
+
+    public void setNumAllocations(int allocations) {
+        numAllocations = (byte) Math.min(allocations, 255);
+    }
+
+    /**
+     * returns an estimate of what a call of the method costs, in units of about a bytecode instruction, up to MAX_COST. It counts the method's code, its
+     * allocations, its I/O, JDBC and reflection calls, and, once the first pass is done, what the methods it calls cost. What runs in a loop of the method
+     * counts several times, and what only runs on the way to a throw counts by its bytes alone.
+     *
+     * @return the estimated cost of a call
+     */
+    public int getCost() {
+        return 0x0000FFFF & cost;
+    }
+
+    public void setCost(long cost) {
+        this.cost = (short) Math.min(Math.max(cost, 0), MAX_COST);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof MethodInfo)) {
@@ -120,12 +209,14 @@ public class MethodInfo {
         MethodInfo mi = (MethodInfo) o;
 
         return (numMethodBytes == mi.numMethodBytes) && (numMethodCalls == mi.numMethodCalls) && (immutabilityOrdinal == mi.immutabilityOrdinal)
-                && (declaredAccess == mi.declaredAccess) && (isCalledType == mi.isCalledType) && (modifiesState == mi.modifiesState);
+                && (declaredAccess == mi.declaredAccess) && (isCalledType == mi.isCalledType) && (modifiesState == mi.modifiesState)
+                && (cheap == mi.cheap) && (costFlags == mi.costFlags) && (numAllocations == mi.numAllocations) && (cost == mi.cost);
     }
 
     @Override
     public int hashCode() {
-        return numMethodBytes ^ numMethodCalls ^ immutabilityOrdinal ^ declaredAccess ^ isCalledType ^ (modifiesState ? 1 : -1);
+        return numMethodBytes ^ numMethodCalls ^ immutabilityOrdinal ^ declaredAccess ^ isCalledType ^ (modifiesState ? 1 : -1) ^ (cheap ? 2 : -2) ^ costFlags
+                ^ numAllocations ^ cost;
     }
 
     @Override
@@ -0,0 +1,477 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.collect;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.mebigfatguy.fbcontrib.utils.FQMethod;
+import com.mebigfatguy.fbcontrib.utils.ToString;
+
+import edu.umd.cs.findbugs.ba.AnalysisContext;
+
+/**
+ * the global knowledge collected from one slice of the classes of a project, so that a project can be analyzed on several nodes. This is the method
+ * statistics, the calls each method makes, including those to methods of other slices, and the class dependency graph. The state modification, cheapness
+ * and cost of each method are saved as found in its own code, before they are carried through the calls, as a slice can't know what its calls to other
+ * slices do.
+ * <p>
+ * A sharded analysis is run in three steps:
+ * <ol>
+ * <li>each node analyzes its slice (for instance with -onlyAnalyze) with the fb-contrib.shard.out property set to a shard file, running at least
+ * CollectStatistics, CollectMethodsReturningImmutableCollections, OverlyPermissiveMethod and FindClassCircularDependencies. Those detectors report nothing in
+ * this step.</li>
+ * <li>the shard files are merged with {@code java com.mebigfatguy.fbcontrib.collect.Shard merged.shard node1.shard node2.shard ...}. Merging is a set union
+ * of calling access, dependencies, calls, state modification and cost flags, an intersection of cheapness, a maximum of costs, and for immutability, the
+ * type that the shards which know it agree on, or else possibly immutable, so shards can be merged in any order, or in stages.</li>
+ * <li>each node analyzes its slice again with the fb-contrib.shard.in property set to the merged file. The statistics are loaded from it rather than
+ * collected, and state modification, cheapness and cost are carried through the calls of all slices with one {@link CallGraph#propagate(Statistics)}, as
+ * a single node run does once its first pass is done. Detectors that need global knowledge only report the findings that belong to the node's slice.</li>
+ * </ol>
+ * The reports of all nodes together are the reports of a single node run.
+ */
+public final class Shard {
+
+    public static final String SHARD_OUT_PROPERTY = "fb-contrib.shard.out";
+    public static final String SHARD_IN_PROPERTY = "fb-contrib.shard.in";
+
+    private static final int MAGIC = 0x46424353;
+    private static final int FORMAT_VERSION = 4;
+    private static final int CALL_ON_STATE = 1;
+    private static final int CALL_ON_RECEIVER = 2;
+
+    private static Map<String, Set<String>> collectedDependencies;
+    private static Map<FQMethod, MethodInfo> collectedMethods;
+    private static Map<FQMethod, List<CallGraph.Call>> collectedCalls;
+    private static String mergedPath;
+    private static long mergedModified;
+    private static Shard merged;
+
+    private final Map<FQMethod, MethodInfo> methods = new HashMap<>();
+    private final Map<FQMethod, MethodInfo> foreignCalls = new HashMap<>();
+    private final Map<FQMethod, List<CallGraph.Call>> calls = new HashMap<>();
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+
+    private Shard() {
+    }
+
+    /**
+     * returns whether this run is collecting a shard, in which case detectors that need global knowledge don't report
+     *
+     * @return if a shard is being collected
+     */
+    public static boolean isCollecting() {
+        return System.getProperty(SHARD_OUT_PROPERTY) != null;
+    }
+
+    /**
+     * returns whether this run is reporting on a slice, using the global knowledge of a merged shard
+     *
+     * @return if a merged shard is used
+     */
+    public static boolean isReporting() {
+        return !isCollecting() && (System.getProperty(SHARD_IN_PROPERTY) != null);
+    }
+
+    /**
+     * sets the class dependency graph collected for this slice, to be saved with the shard
+     *
+     * @param dependencyGraph
+     *            the dotted class names that each class of the slice depends on
+     */
+    public static synchronized void setCollectedDependencies(Map<String, Set<String>> dependencyGraph) {
+        collectedDependencies = dependencyGraph;
+    }
+
+    /**
+     * sets the calls collected for this slice, to be saved with the shard, along with the statistics of its methods as found in their own code. This is called
+     * before the statistics are carried through the calls of the slice, which would count the calls to other slices as calls to unknown methods.
+     *
+     * @param statistics
+     *            the statistics of the collected methods, not yet propagated
+     * @param callGraph
+     *            the calls made by the collected methods
+     */
+    static synchronized void setCollectedCalls(Statistics statistics, CallGraph callGraph) {
+        collectedMethods = new HashMap<>();
+        for (Map.Entry<FQMethod, MethodInfo> entry : statistics) {
+            collectedMethods.put(entry.getKey(), copy(entry.getValue()));
+        }
+        collectedCalls = callGraph.getCalls();
+    }
+
+    /**
+     * writes what has been collected so far to the shard file. It is called as each contributing detector finishes, and each call writes all that is known,
+     * so the file is complete once the last of them is done.
+     */
+    public static synchronized void save() {
+        Shard shard = new Shard();
+        Statistics statistics = Statistics.getStatistics();
+        for (Map.Entry<FQMethod, MethodInfo> entry : statistics) {
+            MethodInfo mi = copy(entry.getValue());
+            MethodInfo own = (collectedMethods == null) ? null : collectedMethods.get(entry.getKey());
+            if (own != null) {
+                mi.setModifiesState(own.getModifiesState());
+                mi.setCheap(own.isCheap());
+                mi.setCostFlags(own.getCostFlags());
+                mi.setCost(own.getCost());
+            }
+            shard.methods.put(entry.getKey(), mi);
+        }
+        shard.foreignCalls.putAll(statistics.getForeignCallingAccess());
+        if (collectedCalls != null) {
+            shard.calls.putAll(collectedCalls);
+        }
+        if (collectedDependencies != null) {
+            shard.dependencies.putAll(collectedDependencies);
+        }
+
+        File file = new File(System.getProperty(SHARD_OUT_PROPERTY));
+        try {
+            shard.write(file);
+        } catch (IOException e) {
+            AnalysisContext.logError("Failed writing fb-contrib shard " + file, e);
+        }
+    }
+
+    /**
+     * replaces the statistics with those of the merged shard, and carries state modification, cheapness and cost through the calls of all slices
+     *
+     * @param statistics
+     *            the statistics to fill
+     */
+    static void loadMergedStatistics(Statistics statistics) {
+        statistics.clear();
+        Shard shard = getMerged();
+        if (shard != null) {
+            for (Map.Entry<FQMethod, MethodInfo> entry : shard.methods.entrySet()) {
+                statistics.putMethodStatistics(entry.getKey(), copy(entry.getValue()));
+            }
+
+            CallGraph callGraph = new CallGraph();
+            for (Map.Entry<FQMethod, List<CallGraph.Call>> entry : shard.calls.entrySet()) {
+                callGraph.addCalls(entry.getKey(), entry.getValue());
+            }
+            callGraph.propagate(statistics);
+        }
+    }
+
+    /**
+     * returns the class dependency graph of all slices, from the merged shard
+     *
+     * @return the dotted class names that each class depends on
+     */
+    public static Map<String, Set<String>> getMergedDependencies() {
+        Shard shard = getMerged();
+        if (shard == null) {
+            return new HashMap<>();
+        }
+
+        Map<String, Set<String>> graph = new HashMap<>(shard.dependencies.size());
+        for (Map.Entry<String, Set<String>> entry : shard.dependencies.entrySet()) {
+            graph.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+        return graph;
+    }
+
+    private static synchronized Shard getMerged() {
+        String path = System.getProperty(SHARD_IN_PROPERTY);
+        if (path == null) {
+            return null;
+        }
+
+        File file = new File(path);
+        if (!path.equals(mergedPath) || (file.lastModified() != mergedModified)) {
+            try {
+                merged = read(file);
+            } catch (IOException e) {
+                AnalysisContext.logError("Failed reading fb-contrib shard " + path, e);
+                merged = new Shard();
+            }
+            mergedPath = path;
+            mergedModified = file.lastModified();
+        }
+        return merged;
+    }
+
+    /**
+     * merges shard files into one
+     *
+     * @param args
+     *            the merged file to write, followed by the shard files to merge
+     * @throws IOException
+     *             if a shard can't be read, or the merged file can't be written
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java " + Shard.class.getName() + " <merged shard> <shard> ...");
+            System.exit(1);
+        }
+
+        Shard result = new Shard();
+        for (int i = 1; i < args.length; i++) {
+            result.merge(read(new File(args[i])));
+        }
+        result.write(new File(args[0]));
+    }
+
+    /**
+     * adds another shard to this one. Calling access, state modification and cost flags are unioned, as are dependencies, a method is only cheap if all
+     * shards say so, costs are the highest any shard found, a method whose shards disagree on its immutability is possibly immutable, and the calls that
+     * another shard made to methods of this one are folded into those methods. The calls of a method collected by both shards are only kept once, as they
+     * come from the same code.
+     *
+     * @param other
+     *            the shard to add
+     */
+    void merge(Shard other) {
+        for (Map.Entry<FQMethod, MethodInfo> entry : other.methods.entrySet()) {
+            MethodInfo mi = methods.get(entry.getKey());
+            if (mi == null) {
+                methods.put(entry.getKey(), copy(entry.getValue()));
+            } else {
+                union(mi, entry.getValue());
+            }
+        }
+
+        for (Map.Entry<FQMethod, MethodInfo> entry : other.foreignCalls.entrySet()) {
+            MethodInfo mi = foreignCalls.get(entry.getKey());
+            if (mi == null) {
+                foreignCalls.put(entry.getKey(), copy(entry.getValue()));
+            } else {
+                mi.addCalledType(entry.getValue().getCalledType());
+            }
+        }
+
+        for (Map.Entry<FQMethod, List<CallGraph.Call>> entry : other.calls.entrySet()) {
+            if (!calls.containsKey(entry.getKey())) {
+                calls.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+        }
+
+        Iterator<Map.Entry<FQMethod, MethodInfo>> it = foreignCalls.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<FQMethod, MethodInfo> entry = it.next();
+            MethodInfo mi = methods.get(entry.getKey());
+            if (mi != null) {
+                mi.addCalledType(entry.getValue().getCalledType());
+                it.remove();
+            }
+        }
+
+        for (Map.Entry<String, Set<String>> entry : other.dependencies.entrySet()) {
+            Set<String> deps = dependencies.get(entry.getKey());
+            if (deps == null) {
+                deps = new HashSet<>();
+                dependencies.put(entry.getKey(), deps);
+            }
+            deps.addAll(entry.getValue());
+        }
+    }
+
+    private static void union(MethodInfo mi, MethodInfo other) {
+        mi.addCalledType(other.getCalledType());
+        if (other.getModifiesState()) {
+            mi.setModifiesState(true);
+        }
+        if (!other.isCheap()) {
+            mi.setCheap(false);
+        }
+        mi.addCostFlags(other.getCostFlags());
+        mi.setNumAllocations(Math.max(mi.getNumAllocations(), other.getNumAllocations()));
+        mi.setCost(Math.max(mi.getCost(), other.getCost()));
+        mi.setImmutabilityType(mergeImmutability(mi.getImmutabilityType(), other.getImmutabilityType()));
+    }
+
+    /**
+     * returns the immutability of the collections a method returns, from what two shards found, the same in whichever order they are merged. What only one
+     * shard knows is kept, and if the shards disagree, the method returns immutable collections on some paths only, so it is possibly immutable.
+     *
+     * @param imType
+     *            the immutability one shard found
+     * @param otherImType
+     *            the immutability the other shard found
+     * @return the merged immutability
+     */
+    private static ImmutabilityType mergeImmutability(ImmutabilityType imType, ImmutabilityType otherImType) {
+        if ((imType == otherImType) || (otherImType == ImmutabilityType.UNKNOWN)) {
+            return imType;
+        }
+        if (imType == ImmutabilityType.UNKNOWN) {
+            return otherImType;
+        }
+        return ImmutabilityType.POSSIBLY_IMMUTABLE;
+    }
+
+    private static MethodInfo copy(MethodInfo mi) {
+        MethodInfo copy = new MethodInfo();
+        copy.setNumBytes(mi.getNumBytes());
+        copy.setNumMethodCalls(mi.getNumMethodCalls());
+        copy.setDeclaredAccess(mi.getDeclaredAccess());
+        copy.setImmutabilityType(mi.getImmutabilityType());
+        copy.setModifiesState(mi.getModifiesState());
+        copy.setCheap(mi.isCheap());
+        copy.setCostFlags(mi.getCostFlags());
+        copy.setNumAllocations(mi.getNumAllocations());
+        copy.setCost(mi.getCost());
+        copy.addCalledType(mi.getCalledType());
+        return copy;
+    }
+
+    static Shard read(File file) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if ((dis.readInt() != MAGIC) || (dis.readInt() != FORMAT_VERSION)) {
+                throw new IOException("Not an fb-contrib shard: " + file);
+            }
+
+            Shard shard = new Shard();
+            readMethods(dis, shard.methods);
+            readMethods(dis, shard.foreignCalls);
+
+            int callerCount = dis.readInt();
+            for (int c = 0; c < callerCount; c++) {
+                FQMethod caller = readMethod(dis);
+                int callCount = dis.readInt();
+                List<CallGraph.Call> callerCalls = new ArrayList<>(callCount);
+                for (int i = 0; i < callCount; i++) {
+                    FQMethod callee = readMethod(dis);
+                    int flags = dis.readUnsignedByte();
+                    callerCalls.add(new CallGraph.Call(callee, (flags & CALL_ON_STATE) != 0, (flags & CALL_ON_RECEIVER) != 0, dis.readUnsignedByte()));
+                }
+                shard.calls.put(caller, callerCalls);
+            }
+
+            int classCount = dis.readInt();
+            for (int c = 0; c < classCount; c++) {
+                String clsName = dis.readUTF();
+                int depCount = dis.readInt();
+                Set<String> deps = new HashSet<>(depCount);
+                for (int d = 0; d < depCount; d++) {
+                    deps.add(dis.readUTF());
+                }
+                shard.dependencies.put(clsName, deps);
+            }
+            return shard;
+        }
+    }
+
+    void write(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if ((dir != null) && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create directory " + dir);
+        }
+
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(FORMAT_VERSION);
+            writeMethods(dos, methods);
+            writeMethods(dos, foreignCalls);
+
+            dos.writeInt(calls.size());
+            for (Map.Entry<FQMethod, List<CallGraph.Call>> entry : calls.entrySet()) {
+                writeMethod(dos, entry.getKey());
+                dos.writeInt(entry.getValue().size());
+                for (CallGraph.Call call : entry.getValue()) {
+                    writeMethod(dos, call.getCallee());
+                    dos.writeByte((call.isOnState() ? CALL_ON_STATE : 0) | (call.isOnReceiver() ? CALL_ON_RECEIVER : 0));
+                    dos.writeByte(call.getWeight());
+                }
+            }
+
+            dos.writeInt(dependencies.size());
+            for (Map.Entry<String, Set<String>> entry : dependencies.entrySet()) {
+                dos.writeUTF(entry.getKey());
+                dos.writeInt(entry.getValue().size());
+                for (String dep : entry.getValue()) {
+                    dos.writeUTF(dep);
+                }
+            }
+        }
+    }
+
+    private static void readMethods(DataInputStream dis, Map<FQMethod, MethodInfo> methods) throws IOException {
+        int count = dis.readInt();
+        ImmutabilityType[] imTypes = ImmutabilityType.values();
+        for (int i = 0; i < count; i++) {
+            FQMethod key = readMethod(dis);
+
+            MethodInfo mi = new MethodInfo();
+            mi.setNumBytes(dis.readUnsignedShort());
+            mi.setNumMethodCalls(dis.readUnsignedByte());
+            mi.setDeclaredAccess(dis.readByte());
+            mi.setImmutabilityType(imTypes[dis.readUnsignedByte()]);
+            mi.setModifiesState(dis.readBoolean());
+            mi.setCheap(dis.readBoolean());
+            mi.setCostFlags(dis.readUnsignedByte());
+            mi.setNumAllocations(dis.readUnsignedByte());
+            mi.setCost(dis.readUnsignedShort());
+            mi.addCalledType(dis.readUnsignedByte());
+            methods.put(key, mi);
+        }
+    }
+
+    private static void writeMethods(DataOutputStream dos, Map<FQMethod, MethodInfo> methods) throws IOException {
+        dos.writeInt(methods.size());
+        for (Map.Entry<FQMethod, MethodInfo> entry : methods.entrySet()) {
+            writeMethod(dos, entry.getKey());
+
+            MethodInfo mi = entry.getValue();
+            dos.writeShort(mi.getNumBytes());
+            dos.writeByte(mi.getNumMethodCalls());
+            dos.writeByte(mi.getDeclaredAccess());
+            dos.writeByte(mi.getImmutabilityType().ordinal());
+            dos.writeBoolean(mi.getModifiesState());
+            dos.writeBoolean(mi.isCheap());
+            dos.writeByte(mi.getCostFlags());
+            dos.writeByte(mi.getNumAllocations());
+            dos.writeShort(mi.getCost());
+            dos.writeByte(mi.getCalledType());
+        }
+    }
+
+    private static FQMethod readMethod(DataInputStream dis) throws IOException {
+        return new FQMethod(dis.readUTF(), dis.readUTF(), dis.readUTF());
+    }
+
+    private static void writeMethod(DataOutputStream dos, FQMethod method) throws IOException {
+        dos.writeUTF(method.getClassName());
+        dos.writeUTF(method.getMethodName());
+        dos.writeUTF(method.getSignature());
+    }
+
+    @Override
+    public String toString() {
+        return ToString.build(this);
+    }
+}
@@ -31,9 +31,13 @@ import com.mebigfatguy.fbcontrib.utils.ToString;
 public final class Statistics implements Iterable<Map.Entry<FQMethod, MethodInfo>> {
 
     private static Statistics statistics = new Statistics();
-    private static final MethodInfo NOT_FOUND_METHOD_INFO = new MethodInfo();
+    /**
+     * what is known of methods that weren't collected, which is nothing, so they are assumed to modify state, as {@link CallGraph} assumes too
+     */
+    private static final MethodInfo UNCOLLECTED_METHOD_INFO = createUncollectedMethodInfo();
 
     private final Map<FQMethod, MethodInfo> methodStatistics = new HashMap<>();
+    private final Map<FQMethod, MethodInfo> foreignCallingAccess = new HashMap<>();
 
     private Statistics() {
     }
@@ -44,6 +48,13 @@ public final class Statistics implements Iterable<Map.Entry<FQMethod, MethodInfo
 
     public void clear() {
         methodStatistics.clear();
+        foreignCallingAccess.clear();
+    }
+
+    private static MethodInfo createUncollectedMethodInfo() {
+        MethodInfo mi = new MethodInfo();
+        mi.setModifiesState(true);
+        return mi;
     }
 
     public MethodInfo addMethodStatistics(String className, String methodName, String signature, int access, int numBytes, int numMethodCalls) {
@@ -60,14 +71,75 @@ public final class Statistics implements Iterable<Map.Entry<FQMethod, MethodInfo
         return mi;
     }
 
+    /**
+     * returns the statistics of a method. For methods that weren't collected, shared statistics are returned, that say the method modifies state, and
+     * which must not be changed.
+     *
+     * @param className
+     *            the slashed class name of the method
+     * @param methodName
+     *            the name of the method
+     * @param signature
+     *            the signature of the method
+     * @return the statistics of the method
+     */
     public MethodInfo getMethodStatistics(String className, String methodName, String signature) {
         MethodInfo mi = methodStatistics.get(new FQMethod(className, methodName, signature));
         if (mi == null) {
-            return NOT_FOUND_METHOD_INFO;
+            return UNCOLLECTED_METHOD_INFO;
         }
         return mi;
     }
 
+    /**
+     * returns the statistics of a method, if it was collected
+     *
+     * @param method
+     *            the fully qualified method
+     * @return the statistics, or null if the method wasn't collected
+     */
+    MethodInfo findMethodStatistics(FQMethod method) {
+        return methodStatistics.get(method);
+    }
+
+    /**
+     * records how a method is called. Calls to methods that weren't collected are ignored, except when collecting a {@link Shard}, as the method may belong
+     * to another shard's slice of the classes.
+     *
+     * @param className
+     *            the slashed class name of the called method
+     * @param methodName
+     *            the name of the called method
+     * @param signature
+     *            the signature of the called method
+     * @param access
+     *            the access (Const.ACC_*) the call requires
+     */
+    public void addCallingAccess(String className, String methodName, String signature, int access) {
+        FQMethod key = new FQMethod(className, methodName, signature);
+        MethodInfo mi = methodStatistics.get(key);
+        if (mi == null) {
+            if (!Shard.isCollecting()) {
+                return;
+            }
+            mi = foreignCallingAccess.get(key);
+            if (mi == null) {
+                mi = new MethodInfo();
+                foreignCallingAccess.put(key, mi);
+            }
+        }
+
+        mi.addCallingAccess(access);
+    }
+
+    Map<FQMethod, MethodInfo> getForeignCallingAccess() {
+        return foreignCallingAccess;
+    }
+
+    void putMethodStatistics(FQMethod key, MethodInfo mi) {
+        methodStatistics.put(key, mi);
+    }
+
     @Override
     public Iterator<Map.Entry<FQMethod, MethodInfo>> iterator() {
         return methodStatistics.entrySet().iterator();
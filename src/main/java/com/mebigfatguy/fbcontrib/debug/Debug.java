@@ -24,33 +24,54 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+import com.mebigfatguy.fbcontrib.utils.ToString;
+
+/**
+ * a console for debugging detectors, that appends to fb-contrib.txt in the temp directory. Messages are put on a bounded ring, and formatted and written by
+ * a background thread, so the analysis threads neither format nor wait on the file. When the ring is full, messages are dropped rather than waited on, and
+ * counted, and the counts are written to the console. As messages are formatted later, the objects passed in should not change after being logged.
+ * <p>
+ * Detectors may log through a {@link Channel}, which prefixes their messages with the detector's name, and which is off unless the detector is listed in
+ * fb-contrib.debug.detectors, if that is set. The file is fb-contrib.debug.file, if set, and the ring's capacity fb-contrib.debug.capacity. Nothing is opened
+ * or started until the first message is logged.
+ */
 public final class Debug {
 
-    private static PrintStream out;
+    public static final String DEBUG_DETECTORS = "fb-contrib.debug.detectors";
+    public static final String DEBUG_FILE = "fb-contrib.debug.file";
+    public static final String DEBUG_CAPACITY = "fb-contrib.debug.capacity";
 
-    static {
-        try {
-            out = new PrintStream(
-                    new BufferedOutputStream(Files.newOutputStream(Paths.get(System.getProperty("java.io.tmpdir"), "fb-contrib.txt"), StandardOpenOption.APPEND)), false,
-                    StandardCharsets.UTF_8.name());
-            out.println("===== fb-contrib console =====");
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-    }
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long CLOSE_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final int NO_PC = -1;
+
+    private static final Set<String> enabledDetectors = parseDetectors(System.getProperty(DEBUG_DETECTORS));
+    private static final ConcurrentMap<String, Channel> channels = new ConcurrentHashMap<>();
+    private static final Channel console = new Channel(null, true);
 
     private Debug() {
     }
 
     public static void println() {
-        out.println();
+        console.println("");
     }
 
     public static void println(Object x) {
-        out.println(x);
+        console.println(x);
     }
 
     /**
@@ -64,7 +85,253 @@ public final class Debug {
      *            the object to output
      */
     public static void println(int pc, Object obj) {
-        out.printf("[PC:%d] %s%n", Integer.valueOf(pc), obj);
+        console.println(pc, obj);
+    }
+
+    /**
+     * Like printf, but the format is applied by the background writer
+     *
+     * @param format
+     *            the format string
+     * @param args
+     *            the arguments of the format
+     */
+    public static void printf(String format, Object... args) {
+        console.printf(format, args);
     }
 
+    /**
+     * returns the channel through which a detector logs
+     *
+     * @param detector
+     *            the class of the detector
+     * @return the channel for the detector, which is off if fb-contrib.debug.detectors doesn't list it
+     */
+    public static Channel channel(Class<?> detector) {
+        String name = detector.getSimpleName();
+        Channel channel = channels.get(name);
+        if (channel == null) {
+            boolean enabled = (enabledDetectors == null) || enabledDetectors.contains(name) || enabledDetectors.contains(detector.getName());
+            channel = new Channel(name, enabled);
+            Channel existing = channels.putIfAbsent(name, channel);
+            if (existing != null) {
+                channel = existing;
+            }
+        }
+        return channel;
+    }
+
+    private static Set<String> parseDetectors(String detectors) {
+        if (detectors == null) {
+            return null;
+        }
+
+        Set<String> names = new HashSet<>();
+        for (String name : detectors.split(",")) {
+            name = name.trim();
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * the messages of one detector, or of the console itself, which are counted when dropped
+     */
+    public static final class Channel {
+
+        private final String name;
+        private final boolean enabled;
+        private final AtomicLong dropped = new AtomicLong();
+
+        Channel(String name, boolean enabled) {
+            this.name = name;
+            this.enabled = enabled;
+        }
+
+        /**
+         * returns whether messages of this channel are logged, so callers can skip building costly messages
+         *
+         * @return whether the channel is on
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * returns the number of messages of this channel that were dropped, as the ring was full
+         *
+         * @return the dropped count
+         */
+        public long getDropped() {
+            return dropped.get();
+        }
+
+        public void println(Object x) {
+            log(NO_PC, null, x);
+        }
+
+        public void println(int pc, Object obj) {
+            log(pc, null, obj);
+        }
+
+        public void printf(String format, Object... args) {
+            log(NO_PC, format, args);
+        }
+
+        private void log(int pc, String format, Object arg) {
+            if (enabled && !ConsoleWriter.INSTANCE.ring.offer(new Message(this, pc, format, arg))) {
+                dropped.incrementAndGet();
+                ConsoleWriter.INSTANCE.dropped.incrementAndGet();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+
+    /**
+     * a logged message, as yet unformatted
+     */
+    private static final class Message {
+        final Channel channel;
+        final int pc;
+        final String format;
+        final Object arg;
+
+        Message(Channel channel, int pc, String format, Object arg) {
+            this.channel = channel;
+            this.pc = pc;
+            this.format = format;
+            this.arg = arg;
+        }
+
+        String format() {
+            StringBuilder sb = new StringBuilder();
+            if (channel.name != null) {
+                sb.append('[').append(channel.name).append("] ");
+            }
+            if (pc != NO_PC) {
+                sb.append("[PC:").append(pc).append("] ");
+            }
+            try {
+                sb.append((format == null) ? String.valueOf(arg) : String.format(format, (Object[]) arg));
+            } catch (RuntimeException e) {
+                sb.append("<unformattable: ").append(e).append('>');
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+
+    /**
+     * the background thread that writes the messages, which is only started, with its file opened, when the first message is logged
+     */
+    private static final class ConsoleWriter extends Thread {
+
+        static final ConsoleWriter INSTANCE = launch();
+
+        final MessageRing<Message> ring = new MessageRing<>(Integer.getInteger(DEBUG_CAPACITY, DEFAULT_CAPACITY).intValue());
+        final AtomicLong dropped = new AtomicLong();
+        private final PrintStream out;
+        private volatile boolean closing;
+
+        private ConsoleWriter(PrintStream out) {
+            super("fb-contrib-debug");
+            this.out = out;
+            setDaemon(true);
+        }
+
+        private static ConsoleWriter launch() {
+            final ConsoleWriter writer = new ConsoleWriter(open());
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread("fb-contrib-debug-close") {
+                @Override
+                public void run() {
+                    writer.close();
+                }
+            });
+            return writer;
+        }
+
+        private static PrintStream open() {
+            String fileName = System.getProperty(DEBUG_FILE);
+            Path path = (fileName == null) ? Paths.get(System.getProperty("java.io.tmpdir"), "fb-contrib.txt") : Paths.get(fileName);
+            try {
+                PrintStream ps = new PrintStream(new BufferedOutputStream(
+                        Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)), false,
+                        StandardCharsets.UTF_8.name());
+                ps.println("===== fb-contrib console =====");
+                return ps;
+            } catch (IOException e) {
+                System.err.println("fb-contrib: the debug console can't open " + path + ", so it is written to stderr: " + e.getMessage());
+                return System.err;
+            }
+        }
+
+        @Override
+        public void run() {
+            long reportedDrops = 0;
+            boolean unflushed = false;
+            while (true) {
+                Message message = ring.poll();
+                if (message != null) {
+                    out.println(message.format());
+                    unflushed = true;
+                    continue;
+                }
+
+                long drops = dropped.get();
+                if (drops != reportedDrops) {
+                    out.println("===== " + (drops - reportedDrops) + " messages dropped =====");
+                    reportedDrops = drops;
+                    unflushed = true;
+                }
+                if (unflushed) {
+                    out.flush();
+                    unflushed = false;
+                }
+                if (closing) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+        }
+
+        /**
+         * stops the writer once it has written what was logged before, and writes the dropped counts of the channels
+         */
+        void close() {
+            closing = true;
+            LockSupport.unpark(this);
+            try {
+                join(CLOSE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (dropped.get() > 0) {
+                StringBuilder sb = new StringBuilder("===== dropped messages:");
+                List<Channel> all = new ArrayList<>(channels.values());
+                all.add(console);
+                for (Channel channel : all) {
+                    if (channel.getDropped() > 0) {
+                        sb.append(' ').append((channel.name == null) ? "console" : channel.name).append('=').append(channel.getDropped());
+                    }
+                }
+                out.println(sb.append(" =====").toString());
+            }
+            out.flush();
+            if (out != System.err) {
+                out.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.debug;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.mebigfatguy.fbcontrib.utils.ToString;
+
+/**
+ * a bounded, lock free queue that any number of threads may add to, and one thread takes from. Each slot has a sequence number, that tells adders whether
+ * the slot is free for their position, and the taker whether the slot holds the message of its position. Adding to a full ring fails rather than waits, so
+ * the callers never block on the taker.
+ *
+ * @param <T>
+ *            the type of the messages
+ */
+final class MessageRing<T> {
+
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    /**
+     * creates a ring of at least the given capacity, rounded up to a power of two
+     *
+     * @param capacity
+     *            the minimum number of messages the ring holds
+     */
+    MessageRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        slots = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * returns the number of messages the ring holds
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * adds a message, if there is room for it
+     *
+     * @param message
+     *            the message to add
+     * @return whether the message was added, and false if the ring was full
+     */
+    boolean offer(T message) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots[index] = message;
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * takes the oldest message, and must only be called from the one taking thread
+     *
+     * @return the oldest message, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    T poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != (head + 1)) {
+            return null;
+        }
+
+        T message = (T) slots[index];
+        slots[index] = null;
+        sequences.set(index, head + slots.length);
+        head++;
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return ToString.build(this);
+    }
+}
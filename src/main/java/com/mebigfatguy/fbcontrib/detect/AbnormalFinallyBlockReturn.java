@@ -28,6 +28,7 @@ import org.apache.bcel.classfile.ExceptionTable;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.CollectionUtils;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
@@ -66,21 +67,23 @@ public class AbnormalFinallyBlockReturn extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        // TODO: Look at method calls in a finally block to see if they throw
-        // exceptions
-        // : and those exceptions are not caught in the finally block
-        // : Only do it if effort is on, ie: boolean fullAnalysis =
-        // AnalysisContext.currentAnalysisContext().getBoolProperty(FindBugsAnalysisFeatures.INTERPROCEDURAL_ANALYSIS_OF_REFERENCED_CLASSES);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            // TODO: Look at method calls in a finally block to see if they throw
+            // exceptions
+            // : and those exceptions are not caught in the finally block
+            // : Only do it if effort is on, ie: boolean fullAnalysis =
+            // AnalysisContext.currentAnalysisContext().getBoolProperty(FindBugsAnalysisFeatures.INTERPROCEDURAL_ANALYSIS_OF_REFERENCED_CLASSES);
 
-        try {
-            int majorVersion = classContext.getJavaClass().getMajor();
-            if (majorVersion >= MAJOR_1_4) {
-                fbInfo = new ArrayList<>();
-                super.visitClassContext(classContext);
+            try {
+                int majorVersion = classContext.getJavaClass().getMajor();
+                if (majorVersion >= MAJOR_1_4) {
+                    fbInfo = new ArrayList<>();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                fbInfo = null;
             }
-        } finally {
-            fbInfo = null;
-        }
+        });
     }
 
     /**
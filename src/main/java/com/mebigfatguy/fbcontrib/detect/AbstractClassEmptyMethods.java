@@ -27,6 +27,7 @@ import org.apache.bcel.classfile.ConstantString;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.QMethod;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -75,17 +76,19 @@ public class AbstractClassEmptyMethods extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            if (cls.isAbstract()) {
-                interfaceMethods = collectInterfaceMethods(cls);
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                if (cls.isAbstract()) {
+                    interfaceMethods = collectInterfaceMethods(cls);
+                    super.visitClassContext(classContext);
+                }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            } finally {
+                interfaceMethods = null;
             }
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        } finally {
-            interfaceMethods = null;
-        }
+        });
     }
 
     /**
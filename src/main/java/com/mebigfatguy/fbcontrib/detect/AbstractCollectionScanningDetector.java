@@ -22,6 +22,8 @@ import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+
 import edu.umd.cs.findbugs.BugReporter;
 import edu.umd.cs.findbugs.BytecodeScanningDetector;
 import edu.umd.cs.findbugs.OpcodeStack;
@@ -55,16 +57,18 @@ public class AbstractCollectionScanningDetector extends BytecodeScanningDetector
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        if (collectionClass == null) {
-            return;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            if (collectionClass == null) {
+                return;
+            }
 
-        try {
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-        }
+            try {
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     /**
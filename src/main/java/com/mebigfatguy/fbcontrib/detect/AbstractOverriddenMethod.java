@@ -22,6 +22,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 
 import edu.umd.cs.findbugs.BugInstance;
@@ -57,19 +58,21 @@ public class AbstractOverriddenMethod extends PreorderVisitor implements Detecto
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            clsContext = classContext;
-            JavaClass cls = classContext.getJavaClass();
-            if (cls.isInterface())
-                return;
-            superClasses = cls.getSuperClasses();
-            cls.accept(this);
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        } finally {
-            clsContext = null;
-            superClasses = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                clsContext = classContext;
+                JavaClass cls = classContext.getJavaClass();
+                if (cls.isInterface())
+                    return;
+                superClasses = cls.getSuperClasses();
+                cls.accept(this);
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            } finally {
+                clsContext = null;
+                superClasses = null;
+            }
+        });
     }
 
     /**
@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.apache.bcel.classfile.Code;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -64,29 +65,31 @@ public class ArrayBasedCollections extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            mapBugs = new ArrayList<>();
-            setBugs = new ArrayList<>();
-            hasMapComparator = false;
-            hasSetComparator = false;
-            super.visitClassContext(classContext);
-            if (!hasMapComparator) {
-                for (BugInstance bi : mapBugs) {
-                    bugReporter.reportBug(bi);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                mapBugs = new ArrayList<>();
+                setBugs = new ArrayList<>();
+                hasMapComparator = false;
+                hasSetComparator = false;
+                super.visitClassContext(classContext);
+                if (!hasMapComparator) {
+                    for (BugInstance bi : mapBugs) {
+                        bugReporter.reportBug(bi);
+                    }
                 }
-            }
 
-            if (!hasSetComparator) {
-                for (BugInstance bi : setBugs) {
-                    bugReporter.reportBug(bi);
+                if (!hasSetComparator) {
+                    for (BugInstance bi : setBugs) {
+                        bugReporter.reportBug(bi);
+                    }
                 }
+            } finally {
+                stack = null;
+                mapBugs = null;
+                setBugs = null;
             }
-        } finally {
-            stack = null;
-            mapBugs = null;
-            setBugs = null;
-        }
+        });
     }
 
     /**
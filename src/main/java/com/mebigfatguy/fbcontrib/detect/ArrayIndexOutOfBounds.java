@@ -30,6 +30,7 @@ import org.apache.bcel.classfile.ConstantInteger;
 import org.apache.bcel.classfile.Method;
 import org.apache.bcel.generic.Type;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -69,18 +70,20 @@ public class ArrayIndexOutOfBounds extends BytecodeScanningDetector {
 
 	@Override
 	public void visitClassContext(ClassContext classContext) {
-		try {
-			stack = new OpcodeStack();
-			initializedRegs = new BitSet();
-			modifyRegs = new BitSet();
-			nullStoreToLocation = new HashMap<Integer, Integer>();
-			super.visitClassContext(classContext);
-		} finally {
-			stack = null;
-			initializedRegs = null;
-			modifyRegs = null;
-			nullStoreToLocation = null;
-		}
+		AnalysisScope.visitClass(this, classContext, () -> {
+			try {
+				stack = new OpcodeStack();
+				initializedRegs = new BitSet();
+				modifyRegs = new BitSet();
+				nullStoreToLocation = new HashMap<Integer, Integer>();
+				super.visitClassContext(classContext);
+			} finally {
+				stack = null;
+				initializedRegs = null;
+				modifyRegs = null;
+				nullStoreToLocation = null;
+			}
+		});
 	}
 
 	/**
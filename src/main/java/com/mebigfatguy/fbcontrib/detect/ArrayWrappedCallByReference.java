@@ -27,6 +27,7 @@ import org.apache.bcel.Const;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -72,14 +73,16 @@ public class ArrayWrappedCallByReference extends BytecodeScanningDetector {
 	 */
 	@Override
 	public void visitClassContext(ClassContext classContext) {
-		try {
-			stack = new OpcodeStack();
-			wrappers = new HashMap<>(10);
-			super.visitClassContext(classContext);
-		} finally {
-			stack = null;
-			wrappers = null;
-		}
+		AnalysisScope.visitClass(this, classContext, () -> {
+			try {
+				stack = new OpcodeStack();
+				wrappers = new HashMap<>(10);
+				super.visitClassContext(classContext);
+			} finally {
+				stack = null;
+				wrappers = null;
+			}
+		});
 	}
 
 	/**
@@ -33,7 +33,6 @@ import com.mebigfatguy.fbcontrib.utils.Values;
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
 import edu.umd.cs.findbugs.ba.ClassContext;
-import edu.umd.cs.findbugs.bcel.OpcodeStackDetector;
 
 /**
  * Detects use of backport libraries, when the code in question is compiled in a jdk that has the functionality available. Libraries include:
@@ -44,7 +43,7 @@ import edu.umd.cs.findbugs.bcel.OpcodeStackDetector;
  * if you are targeting JDK 1.7 and lower
  * </ul>
  */
-public class BackportReusePublicIdentifiers extends OpcodeStackDetector {
+public class BackportReusePublicIdentifiers extends FusibleOpcodeStackDetector {
 
     private static final List<Backports> BACKPORTS = UnmodifiableList.create(
     // @formatter:off
@@ -67,16 +66,15 @@ public class BackportReusePublicIdentifiers extends OpcodeStackDetector {
     }
 
     /**
-     * overrides the visitor to make sure this is a 'modern' class better than 1.4
+     * overrides the class hook to record the class version, to decide whether the built-in versions are available
      *
      * @param classContext
      *            the currently parsed class
      */
     @Override
-    public void visitClassContext(ClassContext classContext) {
+    protected void startClass(ClassContext classContext) {
         JavaClass cls = classContext.getJavaClass();
         clsVersion = cls.getMajor();
-        super.visitClassContext(classContext);
     }
 
     /**
@@ -88,8 +86,6 @@ public class BackportReusePublicIdentifiers extends OpcodeStackDetector {
      */
     @Override
     public void sawOpcode(int seen) {
-        stack.precomputation(this);
-
         switch (seen) {
             case INVOKESTATIC: {
                 String className = getClassConstantOperand();
@@ -19,10 +19,10 @@
 package com.mebigfatguy.fbcontrib.detect;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,12 +37,18 @@ import org.apache.bcel.classfile.Method;
 
 import com.mebigfatguy.fbcontrib.collect.MethodInfo;
 import com.mebigfatguy.fbcontrib.collect.Statistics;
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.DetectorEvents;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.MethodBudget;
+import com.mebigfatguy.fbcontrib.utils.MethodRefIds;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
+import com.mebigfatguy.fbcontrib.utils.StopOpcodeParsingException;
 import com.mebigfatguy.fbcontrib.utils.TernaryPatcher;
 import com.mebigfatguy.fbcontrib.utils.ToString;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
@@ -89,6 +95,8 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
         //@formatter:on
     );
 
+    private static final BitSet dangerousAssignmentMethodSourceIds = MethodRefIds.registerAll(dangerousAssignmentMethodSources);
+
     private static final Set<Pattern> dangerousAssignmentMethodPatterns = UnmodifiableSet.create(
         //@formatter:off
             Pattern.compile(".*serial.*", Pattern.CASE_INSENSITIVE),
@@ -100,6 +108,7 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
     private static final Set<String> dangerousStoreClassSigs = UnmodifiableSet.create("Ljava/util/concurrent/Future;");
 
     BugReporter bugReporter;
+    private final MethodBudget budget;
     private OpcodeStack stack;
     private BitSet ignoreRegs;
     private ScopeBlock rootScopeBlock;
@@ -108,6 +117,11 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
     private BitSet switchTargets;
     private List<Integer> monitorSyncPCs;
     private boolean dontReport;
+    /**
+     * whether every scope block's children still lie within it. Blocks are only shrunk after children are added to them at monitor exits and catch handlers,
+     * so this is almost always true, and allows searches of the tree to only descend into the one child that could hold a pc.
+     */
+    private boolean scopesNested;
     private boolean sawDup;
     private boolean sawNull;
 
@@ -118,7 +132,8 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public BloatedAssignmentScope(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
+        budget = new MethodBudget(this);
     }
 
     /**
@@ -129,22 +144,32 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            ignoreRegs = new BitSet();
-            tryBlocks = new BitSet();
-            catchHandlers = new BitSet();
-            switchTargets = new BitSet();
-            monitorSyncPCs = new ArrayList<>(5);
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            ignoreRegs = null;
-            tryBlocks = null;
-            catchHandlers = null;
-            switchTargets = null;
-            monitorSyncPCs = null;
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                ignoreRegs = new BitSet();
+                tryBlocks = new BitSet();
+                catchHandlers = new BitSet();
+                switchTargets = new BitSet();
+                monitorSyncPCs = new ArrayList<>(5);
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } finally {
+                ignoreRegs = null;
+                tryBlocks = null;
+                catchHandlers = null;
+                switchTargets = null;
+                monitorSyncPCs = null;
+                stack = null;
+            }
+        });
+    }
+
+    /**
+     * implements the visitor to log the methods that were too expensive to analyze
+     */
+    @Override
+    public void report() {
+        budget.report();
     }
 
     /**
@@ -155,6 +180,11 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
      */
     @Override
     public void visitCode(Code obj) {
+        if (AnalysisScope.skipMethod(getClassContext(), getMethod())) {
+            return;
+        }
+
+        DetectorEvents.Span span = DetectorEvents.beginMethod(this, getClassName(), getMethod());
         try {
 
             ignoreRegs.clear();
@@ -168,6 +198,7 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
                 ignoreRegs.set(parm);
             }
 
+            scopesNested = true;
             rootScopeBlock = new ScopeBlock(0, obj.getLength());
             tryBlocks.clear();
             catchHandlers.clear();
@@ -184,14 +215,22 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
             dontReport = false;
             sawDup = false;
             sawNull = false;
-            super.visitCode(obj);
+            budget.start(getDottedClassName(), method);
+            try {
+                super.visitCode(obj);
+            } catch (StopOpcodeParsingException e) {
+                // over budget, so the scopes are incomplete
+                dontReport = true;
+            }
 
             if (!dontReport) {
-                rootScopeBlock.findBugs(new HashSet<Integer>());
+                rootScopeBlock.collectUsedRegs();
+                rootScopeBlock.findBugs(new BitSet());
             }
 
         } finally {
             rootScopeBlock = null;
+            span.finish();
         }
     }
 
@@ -203,6 +242,7 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
      */
     @Override
     public void sawOpcode(int seen) {
+        budget.charge();
         UserObject uo = null;
         try {
             stack.precomputation(this);
@@ -616,7 +656,8 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
     }
 
     /**
-     * returns the scope block in which this register was assigned, by traversing the scope block tree
+     * returns the scope block in which this register was assigned, by traversing the scope block tree. When a block's children are ordered and don't overlap,
+     * only the last child starting before the pc can hold it, so it is found by binary search, rather than trying each child in turn.
      *
      * @param sb
      *            the scope block to start searching in
@@ -631,10 +672,20 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
         }
 
         if (sb.children != null) {
-            for (ScopeBlock child : sb.children) {
-                ScopeBlock foundSb = findScopeBlock(child, pc);
-                if (foundSb != null) {
-                    return foundSb;
+            if (sb.childrenOrdered) {
+                ScopeBlock child = sb.findLastChildStartingBefore(pc);
+                if (child != null) {
+                    ScopeBlock foundSb = findScopeBlock(child, pc);
+                    if (foundSb != null) {
+                        return foundSb;
+                    }
+                }
+            } else {
+                for (ScopeBlock child : sb.children) {
+                    ScopeBlock foundSb = findScopeBlock(child, pc);
+                    if (foundSb != null) {
+                        return foundSb;
+                    }
                 }
             }
         }
@@ -642,7 +693,8 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
     }
 
     /**
-     * returns an existing scope block that has the same target as the one looked for
+     * returns an existing scope block that has the same target as the one looked for. As with findScopeBlock, ordered children are binary searched, as long as
+     * all blocks still contain their children, otherwise all children need to be searched.
      *
      * @param sb
      *            the scope block to start with
@@ -660,10 +712,20 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
         }
 
         if (sb.children != null) {
-            for (ScopeBlock child : sb.children) {
-                ScopeBlock targetBlock = findScopeBlockWithTarget(child, start, target);
-                if (targetBlock != null) {
-                    return targetBlock;
+            if (sb.childrenOrdered && scopesNested) {
+                ScopeBlock child = sb.findLastChildStartingBefore(start);
+                if (child != null) {
+                    ScopeBlock targetBlock = findScopeBlockWithTarget(child, start, target);
+                    if (targetBlock != null) {
+                        return targetBlock;
+                    }
+                }
+            } else {
+                for (ScopeBlock child : sb.children) {
+                    ScopeBlock targetBlock = findScopeBlockWithTarget(child, start, target);
+                    if (targetBlock != null) {
+                        return targetBlock;
+                    }
                 }
             }
         }
@@ -758,10 +820,14 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
         private boolean isSync;
         private boolean isTry;
         private boolean isCase;
-        private Map<Integer, Integer> loads;
-        private Map<Integer, Integer> stores;
+        private BitSet loads;
+        private RegisterPCTable stores;
         private Map<UserObject, Integer> assocs;
         private List<ScopeBlock> children;
+        /** whether the children are sorted by start, and none overlaps the next */
+        private boolean childrenOrdered;
+        /** the registers loaded or stored in this block or any of its descendants, filled in by collectUsedRegs */
+        private BitSet usedRegsInTree;
 
         /**
          * constructs a new scope block
@@ -784,6 +850,7 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
             stores = null;
             assocs = null;
             children = null;
+            childrenOrdered = true;
         }
 
         /**
@@ -840,6 +907,7 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
          */
         public void setStart(int start) {
             startLocation = start;
+            checkChildrenContained();
         }
 
         /**
@@ -850,6 +918,21 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
          */
         public void setFinish(int finish) {
             finishLocation = finish;
+            checkChildrenContained();
+        }
+
+        /**
+         * clears scopesNested if moving this block's bounds has left any of its children outside of it
+         */
+        private void checkChildrenContained() {
+            if (children != null) {
+                for (ScopeBlock child : children) {
+                    if ((child.startLocation < startLocation) || (child.finishLocation > finishLocation)) {
+                        scopesNested = false;
+                        return;
+                    }
+                }
+            }
         }
 
         public boolean hasChildren() {
@@ -948,10 +1031,10 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
          */
         public void addStore(int reg, int pc, UserObject assocObject) {
             if (stores == null) {
-                stores = new HashMap<>(6);
+                stores = new RegisterPCTable();
             }
 
-            stores.put(Integer.valueOf(reg), Integer.valueOf(pc));
+            stores.put(reg, pc);
 
             if (assocObject != null) {
                 if (assocs == null) {
@@ -972,10 +1055,10 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
                 Integer reg = assocs.remove(assocObject);
                 if (reg != null) {
                     if (loads != null) {
-                        loads.remove(reg);
+                        loads.clear(reg.intValue());
                     }
                     if (stores != null) {
-                        stores.remove(reg);
+                        stores.remove(reg.intValue());
                     }
                 }
             }
@@ -991,10 +1074,10 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
          */
         public void addLoad(int reg, int pc) {
             if (loads == null) {
-                loads = new HashMap<>(10);
+                loads = new BitSet();
             }
 
-            loads.put(Integer.valueOf(reg), Integer.valueOf(pc));
+            loads.set(reg);
         }
 
         /**
@@ -1006,6 +1089,28 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
         public void addChild(ScopeBlock newChild) {
             newChild.parent = this;
 
+            if ((children != null) && childrenOrdered) {
+                int childPos = findFirstChildStartingAtOrAfter(newChild.startLocation) - 1;
+                if (childPos >= 0) {
+                    ScopeBlock child = children.get(childPos);
+                    if (newChild.startLocation < child.finishLocation) {
+                        if (newChild.finishLocation > child.finishLocation) {
+                            newChild.finishLocation = child.finishLocation;
+                        }
+                        child.addChild(newChild);
+                        return;
+                    }
+                }
+
+                int pos = findFirstChildStartingAfter(newChild.startLocation);
+                children.add(pos, newChild);
+                if (((pos > 0) && (children.get(pos - 1).finishLocation > newChild.startLocation))
+                        || ((pos < (children.size() - 1)) && (newChild.finishLocation > children.get(pos + 1).startLocation))) {
+                    childrenOrdered = false;
+                }
+                return;
+            }
+
             if (children != null) {
                 for (ScopeBlock child : children) {
                     if ((newChild.startLocation > child.startLocation) && (newChild.startLocation < child.finishLocation)) {
@@ -1031,6 +1136,46 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
             children.add(newChild);
         }
 
+        /**
+         * returns the child with the highest start that is still before the pc, which, when the children are ordered, is the only child that can contain it
+         *
+         * @param pc
+         *            the pc to look for
+         * @return the child that may contain the pc, or null if all children start at or after it
+         */
+        public ScopeBlock findLastChildStartingBefore(int pc) {
+            int pos = findFirstChildStartingAtOrAfter(pc) - 1;
+            return (pos >= 0) ? children.get(pos) : null;
+        }
+
+        private int findFirstChildStartingAtOrAfter(int pc) {
+            int low = 0;
+            int high = children.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (children.get(mid).startLocation < pc) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int findFirstChildStartingAfter(int pc) {
+            int low = 0;
+            int high = children.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (children.get(mid).startLocation <= pc) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
         /**
          * removes a child from this node
          *
@@ -1050,7 +1195,7 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
                     if ((uo.registerSource == sourceReg) || ((uo.caller instanceof Integer) && (((Integer) uo.caller).intValue() == sourceReg))) {
                         Integer preWrittenFromField = entry.getValue();
                         if ((preWrittenFromField != null) && (stores != null)) {
-                            stores.remove(preWrittenFromField);
+                            stores.remove(preWrittenFromField.intValue());
                         }
                     }
                 }
@@ -1063,33 +1208,31 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
          * @param parentUsedRegs
          *            the set of registers that where used by the parent scope block
          */
-        public void findBugs(Set<Integer> parentUsedRegs) {
+        public void findBugs(BitSet parentUsedRegs) {
             if (isLoop) {
                 return;
             }
 
-            Set<Integer> usedRegs = new HashSet<>(parentUsedRegs);
+            BitSet usedRegs = (BitSet) parentUsedRegs.clone();
             if (stores != null) {
-                usedRegs.addAll(stores.keySet());
+                usedRegs.or(stores.getRegisters());
             }
             if (loads != null) {
-                usedRegs.addAll(loads.keySet());
+                usedRegs.or(loads);
             }
 
             if (stores != null) {
                 if (loads != null) {
-                    stores.keySet().removeAll(loads.keySet());
-                }
-                stores.keySet().removeAll(parentUsedRegs);
-                for (int r = ignoreRegs.nextSetBit(0); r >= 0; r = ignoreRegs.nextSetBit(r + 1)) {
-                    stores.remove(Integer.valueOf(r));
+                    stores.removeAll(loads);
                 }
+                stores.removeAll(parentUsedRegs);
+                stores.removeAll(ignoreRegs);
 
                 if ((children != null) && !stores.isEmpty()) {
-                    for (Map.Entry<Integer, Integer> entry : stores.entrySet()) {
+                    BitSet storeRegs = stores.getRegisters();
+                    for (int reg = storeRegs.nextSetBit(0); reg >= 0; reg = storeRegs.nextSetBit(reg + 1)) {
                         int childUseCount = 0;
                         boolean inIgnoreSB = false;
-                        Integer reg = entry.getKey();
                         for (ScopeBlock child : children) {
                             if (child.usesReg(reg)) {
                                 if (child.isLoop || child.isSync() || child.isTry()) {
@@ -1103,7 +1246,7 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
                             if (appearsToBeUserRegister(reg)) {
                                 bugReporter.reportBug(new BugInstance(BloatedAssignmentScope.this, BugType.BAS_BLOATED_ASSIGNMENT_SCOPE.name(), NORMAL_PRIORITY)
                                         .addClass(BloatedAssignmentScope.this).addMethod(BloatedAssignmentScope.this)
-                                        .addSourceLine(BloatedAssignmentScope.this, entry.getValue().intValue()));
+                                        .addSourceLine(BloatedAssignmentScope.this, stores.get(reg)));
                             }
                         }
                     }
@@ -1137,30 +1280,39 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
         }
 
         /**
-         * returns whether this block either loads or stores into the register in question
-         *
-         * @param reg
-         *            the register to look for loads or stores
+         * records, for this block and all its descendants, the registers that are loaded or stored in the block or its descendants. This is done once, before
+         * findBugs, as findBugs only removes stores from a block before it asks its children about their use of registers.
          *
-         * @return whether the block uses the register
+         * @return the registers used by this block or its descendants
          */
-        public boolean usesReg(Integer reg) {
-            if ((loads != null) && loads.containsKey(reg)) {
-                return true;
+        public BitSet collectUsedRegs() {
+            usedRegsInTree = new BitSet();
+            if (loads != null) {
+                usedRegsInTree.or(loads);
             }
-            if ((stores != null) && stores.containsKey(reg)) {
-                return true;
+            if (stores != null) {
+                usedRegsInTree.or(stores.getRegisters());
             }
 
             if (children != null) {
                 for (ScopeBlock child : children) {
-                    if (child.usesReg(reg)) {
-                        return true;
-                    }
+                    usedRegsInTree.or(child.collectUsedRegs());
                 }
             }
 
-            return false;
+            return usedRegsInTree;
+        }
+
+        /**
+         * returns whether this block or any of its descendants either loads or stores into the register in question
+         *
+         * @param reg
+         *            the register to look for loads or stores
+         *
+         * @return whether the block uses the register
+         */
+        public boolean usesReg(int reg) {
+            return usedRegsInTree.get(reg);
         }
 
         /**
@@ -1170,7 +1322,7 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
             if (parent != null) {
                 if (loads != null) {
                     if (parent.loads != null) {
-                        parent.loads.putAll(loads);
+                        parent.loads.or(loads);
                     } else {
                         parent.loads = loads;
                     }
@@ -1188,6 +1340,54 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
         }
     }
 
+    /**
+     * a map from register to the pc of the last store to it, held as a bit set of registers, and an array of pcs indexed by register, so that neither needs to
+     * be boxed
+     */
+    static class RegisterPCTable {
+        private final BitSet registers = new BitSet();
+        private int[] pcs = new int[8];
+
+        void put(int reg, int pc) {
+            if (reg >= pcs.length) {
+                pcs = Arrays.copyOf(pcs, Math.max(reg + 1, pcs.length * 2));
+            }
+            registers.set(reg);
+            pcs[reg] = pc;
+        }
+
+        int get(int reg) {
+            return pcs[reg];
+        }
+
+        void remove(int reg) {
+            registers.clear(reg);
+        }
+
+        void removeAll(BitSet regs) {
+            registers.andNot(regs);
+        }
+
+        void putAll(RegisterPCTable table) {
+            for (int reg = table.registers.nextSetBit(0); reg >= 0; reg = table.registers.nextSetBit(reg + 1)) {
+                put(reg, table.pcs[reg]);
+            }
+        }
+
+        boolean isEmpty() {
+            return registers.isEmpty();
+        }
+
+        BitSet getRegisters() {
+            return registers;
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+
     public boolean isRiskyMethodCall() {
 
         String clsName = getClassConstantOperand();
@@ -1196,12 +1396,11 @@ public class BloatedAssignmentScope extends BytecodeScanningDetector {
             return true;
         }
 
-        FQMethod key = new FQMethod(clsName, getNameConstantOperand(), getSigConstantOperand());
-        if (dangerousAssignmentMethodSources.contains(key)) {
+        if (MethodRefIds.isMethodIn(this, dangerousAssignmentMethodSourceIds)) {
             return true;
         }
 
-        String sig = key.toFQMethodSignature();
+        String sig = clsName + '.' + getNameConstantOperand() + getSigConstantOperand();
         for (Pattern p : dangerousAssignmentMethodPatterns) {
             Matcher m = p.matcher(sig);
             if (m.matches()) {
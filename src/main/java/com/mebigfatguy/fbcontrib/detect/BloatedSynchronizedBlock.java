@@ -22,13 +22,15 @@ import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.apache.bcel.Const;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Method;
 
 import com.mebigfatguy.fbcontrib.collect.MethodInfo;
 import com.mebigfatguy.fbcontrib.collect.Statistics;
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.CodeProfile;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -63,22 +65,24 @@ public class BloatedSynchronizedBlock extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public BloatedSynchronizedBlock(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
         minSafeCodeLength = Integer.getInteger(BSB_MIN_SAFE_CODE_SIZE, 16).intValue();
     }
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            unsafeAliases = new BitSet();
-            branchInfo = new HashMap<>();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            unsafeAliases = null;
-            branchInfo = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                unsafeAliases = new BitSet();
+                branchInfo = new HashMap<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                unsafeAliases = null;
+                branchInfo = null;
+            }
+        });
     }
 
     /**
@@ -89,8 +93,8 @@ public class BloatedSynchronizedBlock extends BytecodeScanningDetector {
      * @return if the class uses synchronization
      */
     private boolean prescreen(Method method) {
-        BitSet bytecodeSet = getClassContext().getBytecodeSet(method);
-        return (bytecodeSet != null) && (bytecodeSet.get(Const.MONITORENTER));
+        CodeProfile profile = CodeProfile.get(getClassContext(), method);
+        return (profile != null) && profile.contains(MONITORENTER);
     }
 
     /**
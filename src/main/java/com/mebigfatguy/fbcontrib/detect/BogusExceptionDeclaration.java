@@ -27,6 +27,7 @@ import org.apache.bcel.classfile.ExceptionTable;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -93,19 +94,21 @@ public class BogusExceptionDeclaration extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            if ((runtimeExceptionClass != null) && (exceptionClass != null)) {
-                stack = new OpcodeStack();
-                declaredCheckedExceptions = new HashSet<>(6);
-                JavaClass cls = classContext.getJavaClass();
-                classIsFinal = cls.isFinal();
-                classIsAnonymous = cls.isAnonymous();
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                if ((runtimeExceptionClass != null) && (exceptionClass != null)) {
+                    stack = new OpcodeStack();
+                    declaredCheckedExceptions = new HashSet<>(6);
+                    JavaClass cls = classContext.getJavaClass();
+                    classIsFinal = cls.isFinal();
+                    classIsAnonymous = cls.isAnonymous();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                declaredCheckedExceptions = null;
+                stack = null;
             }
-        } finally {
-            declaredCheckedExceptions = null;
-            stack = null;
-        }
+        });
     }
 
     /**
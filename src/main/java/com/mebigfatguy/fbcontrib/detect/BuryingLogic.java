@@ -28,6 +28,7 @@ import org.apache.bcel.classfile.CodeException;
 import org.apache.bcel.classfile.Method;
 import org.apache.bcel.generic.Type;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.CollectionUtils;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
@@ -128,19 +129,21 @@ public class BuryingLogic extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            ifBlocks = new IfBlocks();
-            gotoBranchPCs = new BitSet();
-            casePositions = new BitSet();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            ifBlocks = null;
-            catchPCs = null;
-            gotoBranchPCs = null;
-            casePositions = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                ifBlocks = new IfBlocks();
+                gotoBranchPCs = new BitSet();
+                casePositions = new BitSet();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                ifBlocks = null;
+                catchPCs = null;
+                gotoBranchPCs = null;
+                casePositions = null;
+            }
+        });
     }
 
     @Override
@@ -29,9 +29,11 @@ import java.util.Set;
 import org.apache.bcel.Const;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
 import com.mebigfatguy.fbcontrib.utils.PublicAPI;
+import com.mebigfatguy.fbcontrib.utils.ResultCache;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
@@ -200,7 +202,7 @@ public class CharsetIssues extends BytecodeScanningDetector {
 	 *            the sync of bug reports
 	 */
 	public CharsetIssues(BugReporter bugReporter) {
-		this.bugReporter = bugReporter;
+		this.bugReporter = ResultCache.wrap(this, bugReporter);
 	}
 
 	/**
@@ -212,15 +214,22 @@ public class CharsetIssues extends BytecodeScanningDetector {
 	 */
 	@Override
 	public void visitClassContext(ClassContext classContext) {
-		try {
-			classVersion = classContext.getJavaClass().getMajor();
-			if (classVersion >= Const.MAJOR_1_4) {
-				stack = new OpcodeStack();
-				super.visitClassContext(classContext);
+		AnalysisScope.visitClass(this, classContext, () -> {
+			if (ResultCache.replay(bugReporter, classContext)) {
+				return;
 			}
-		} finally {
-			stack = null;
-		}
+
+			try {
+				classVersion = classContext.getJavaClass().getMajor();
+				if (classVersion >= Const.MAJOR_1_4) {
+					stack = new OpcodeStack();
+					super.visitClassContext(classContext);
+				}
+				ResultCache.store(bugReporter);
+			} finally {
+				stack = null;
+			}
+		});
 	}
 
 	/**
@@ -31,6 +31,7 @@ import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.LineNumberTable;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -104,16 +105,18 @@ public class ClassEnvy extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(final ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            packageName = cls.getPackageName();
-            clsName = cls.getClassName();
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            clsAccessCount = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                packageName = cls.getPackageName();
+                clsName = cls.getClassName();
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                clsAccessCount = null;
+            }
+        });
     }
 
     /**
@@ -27,6 +27,7 @@ import org.apache.bcel.classfile.ExceptionTable;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -74,24 +75,26 @@ public class CloneUsability extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
+        AnalysisScope.visitClass(this, classContext, () -> {
 
-        if (cloneClass == null) {
-            return;
-        }
+            if (cloneClass == null) {
+                return;
+            }
 
-        try {
-            cls = classContext.getJavaClass();
-            if (cls.implementationOf(cloneClass)) {
-                clsName = cls.getClassName();
-                stack = new OpcodeStack();
-                super.visitClassContext(classContext);
+            try {
+                cls = classContext.getJavaClass();
+                if (cls.implementationOf(cloneClass)) {
+                    clsName = cls.getClassName();
+                    stack = new OpcodeStack();
+                    super.visitClassContext(classContext);
+                }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            } finally {
+                cls = null;
+                stack = null;
             }
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        } finally {
-            cls = null;
-            stack = null;
-        }
+        });
     }
 
     /**
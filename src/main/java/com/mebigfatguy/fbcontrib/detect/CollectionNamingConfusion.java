@@ -27,6 +27,7 @@ import org.apache.bcel.classfile.LocalVariable;
 import org.apache.bcel.classfile.LocalVariableTable;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -82,10 +83,12 @@ public class CollectionNamingConfusion extends PreorderVisitor implements Detect
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        if (mapInterface != null) {
-            this.classContext = classContext;
-            classContext.getJavaClass().accept(this);
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            if (mapInterface != null) {
+                this.classContext = classContext;
+                classContext.getJavaClass().accept(this);
+            }
+        });
     }
 
     /**
@@ -27,7 +27,6 @@ import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 import edu.umd.cs.findbugs.OpcodeStack;
 
 /**
@@ -37,7 +36,7 @@ import edu.umd.cs.findbugs.OpcodeStack;
  * new EqualsBuilder().append(this.name, other.name).equals(other);
  * </pre>
  */
-public class CommonsEqualsBuilderToEquals extends BytecodeScanningDetector {
+public class CommonsEqualsBuilderToEquals extends ScopedBytecodeScanningDetector {
 
     private static final String LANG_EQUALS_BUILDER = "Lorg/apache/commons/lang/builder/EqualsBuilder;";
     private static final String LANG3_EQUALS_BUILDER = "Lorg/apache/commons/lang3/builder/EqualsBuilder;";
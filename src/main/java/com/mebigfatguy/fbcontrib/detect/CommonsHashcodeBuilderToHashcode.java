@@ -26,7 +26,6 @@ import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 import edu.umd.cs.findbugs.OpcodeStack;
 
 /**
@@ -37,7 +36,7 @@ import edu.umd.cs.findbugs.OpcodeStack;
  * new HashCodeBuilder().append(this.name).hashCode();
  * </pre>
  */
-public class CommonsHashcodeBuilderToHashcode extends BytecodeScanningDetector {
+public class CommonsHashcodeBuilderToHashcode extends ScopedBytecodeScanningDetector {
 
     private static final String LANG_HASH_CODE_BUILDER = "Lorg/apache/commons/lang/builder/HashCodeBuilder;";
     private static final String LANG3_HASH_CODE_BUILDER = "Lorg/apache/commons/lang3/builder/HashCodeBuilder;";
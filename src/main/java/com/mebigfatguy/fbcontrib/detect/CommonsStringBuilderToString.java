@@ -27,6 +27,7 @@ import java.util.Stack;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.LocalVariable;
 import org.apache.bcel.classfile.LocalVariableTable;
+import org.apache.bcel.classfile.Method;
 
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
@@ -37,7 +38,6 @@ import com.mebigfatguy.fbcontrib.utils.Values;
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
 import edu.umd.cs.findbugs.OpcodeStack.Item;
-import edu.umd.cs.findbugs.bcel.OpcodeStackDetector;
 
 /**
  * Find usage of ToStringBuilder from Apache commons, where the code invokes toString() on the constructed object without invoking append().
@@ -48,7 +48,7 @@ import edu.umd.cs.findbugs.bcel.OpcodeStackDetector;
  * new ToStringBuilder(this).toString();
  * </pre>
  */
-public class CommonsStringBuilderToString extends OpcodeStackDetector {
+public class CommonsStringBuilderToString extends FusibleOpcodeStackDetector {
 
     private static final Set<String> TOSTRINGBUILDER_CTOR_SIGS = UnmodifiableSet.create(
             new SignatureBuilder().withParamTypes(Values.SLASHED_JAVA_LANG_OBJECT).toString(),
@@ -70,10 +70,9 @@ public class CommonsStringBuilderToString extends OpcodeStackDetector {
     }
 
     @Override
-    public void visit(Code obj) {
+    public void visitMethod(Method obj) {
         registerTracker.clear();
         stackTracker.clear();
-        super.visit(obj);
     }
 
     @Override
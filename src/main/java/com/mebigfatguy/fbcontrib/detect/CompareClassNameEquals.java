@@ -30,7 +30,6 @@ import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
 import edu.umd.cs.findbugs.OpcodeStack.CustomUserValue;
 import edu.umd.cs.findbugs.OpcodeStack.Item;
-import edu.umd.cs.findbugs.bcel.OpcodeStackDetector;
 
 /**
  * In a JVM, Two classes are the same class (and consequently the same type) if they are loaded by the same class loader, and they have the same fully qualified
@@ -43,7 +42,7 @@ import edu.umd.cs.findbugs.bcel.OpcodeStackDetector;
  *
  */
 @CustomUserValue
-public class CompareClassNameEquals extends OpcodeStackDetector {
+public class CompareClassNameEquals extends FusibleOpcodeStackDetector {
     private boolean flag = false;
     private final BugReporter bugReporter;
 
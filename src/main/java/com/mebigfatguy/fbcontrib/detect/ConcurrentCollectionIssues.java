@@ -26,6 +26,7 @@ import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.Values;
 
@@ -81,18 +82,19 @@ public class ConcurrentCollectionIssues extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-
-        try {
-            if ((collectionClass == null) || (mapClass == null)) {
-                return;
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                if ((collectionClass == null) || (mapClass == null)) {
+                    return;
+                }
+                stack = new OpcodeStack();
+                fieldUserValues = new HashMap<>();
+                classContext.getJavaClass().accept(this);
+            } finally {
+                fieldUserValues = null;
+                stack = null;
             }
-            stack = new OpcodeStack();
-            fieldUserValues = new HashMap<>();
-            classContext.getJavaClass().accept(this);
-        } finally {
-            fieldUserValues = null;
-            stack = null;
-        }
+        });
     }
 
     /**
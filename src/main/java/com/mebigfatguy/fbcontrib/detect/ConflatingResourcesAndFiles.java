@@ -20,6 +20,7 @@ package com.mebigfatguy.fbcontrib.detect;
 
 import org.apache.bcel.classfile.Code;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -59,12 +60,14 @@ public class ConflatingResourcesAndFiles extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     /**
@@ -24,6 +24,7 @@ import java.util.Map;
 
 import org.apache.bcel.classfile.Code;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
@@ -152,12 +153,14 @@ public class ConflictingTimeUnits extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     /**
@@ -27,6 +27,7 @@ import java.util.Set;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
@@ -79,29 +80,31 @@ public class ConfusingAutoboxedOverloading extends PreorderVisitor implements De
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        JavaClass cls = classContext.getJavaClass();
+        AnalysisScope.visitClass(this, classContext, () -> {
+            JavaClass cls = classContext.getJavaClass();
 
-        if (cls.isClass() && (cls.getMajor() >= JDK15_MAJOR)) {
+            if (cls.isClass() && (cls.getMajor() >= JDK15_MAJOR)) {
 
-            Map<String, Set<String>> methodInfo = new HashMap<>();
-            populateMethodInfo(cls, methodInfo);
+                Map<String, Set<String>> methodInfo = new HashMap<>();
+                populateMethodInfo(cls, methodInfo);
 
-            Method[] methods = cls.getMethods();
-            for (Method m : methods) {
-                String name = m.getName();
-                String signature = m.getSignature();
-
-                Set<String> sigs = methodInfo.get(name);
-                if (sigs != null) {
-                    for (String sig : sigs) {
-                        if (confusingSignatures(sig, signature)) {
-                            bugReporter.reportBug(new BugInstance(this, BugType.CAO_CONFUSING_AUTOBOXED_OVERLOADING.name(), NORMAL_PRIORITY)
-                                    .addClass(cls.getClassName()).addString(name + signature).addString(name + sig));
+                Method[] methods = cls.getMethods();
+                for (Method m : methods) {
+                    String name = m.getName();
+                    String signature = m.getSignature();
+
+                    Set<String> sigs = methodInfo.get(name);
+                    if (sigs != null) {
+                        for (String sig : sigs) {
+                            if (confusingSignatures(sig, signature)) {
+                                bugReporter.reportBug(new BugInstance(this, BugType.CAO_CONFUSING_AUTOBOXED_OVERLOADING.name(), NORMAL_PRIORITY)
+                                        .addClass(cls.getClassName()).addString(name + signature).addString(name + sig));
+                            }
                         }
                     }
                 }
             }
-        }
+        });
     }
 
     /**
@@ -30,6 +30,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -89,14 +90,16 @@ public class ConfusingFunctionSemantics extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            possibleParmRegs = new HashMap<>(10);
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            possibleParmRegs = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                possibleParmRegs = new HashMap<>(10);
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                possibleParmRegs = null;
+            }
+        });
     }
 
     /**
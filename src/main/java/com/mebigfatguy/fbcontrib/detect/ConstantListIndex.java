@@ -29,6 +29,7 @@ import org.apache.bcel.classfile.ConstantInteger;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
@@ -112,19 +113,21 @@ public class ConstantListIndex extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            if ((invocationHandlerClass != null) && classContext.getJavaClass().implementationOf(invocationHandlerClass)) {
-                return;
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                if ((invocationHandlerClass != null) && classContext.getJavaClass().implementationOf(invocationHandlerClass)) {
+                    return;
+                }
+                iConst0Looped = new BitSet();
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            } finally {
+                iConst0Looped = null;
+                stack = null;
             }
-            iConst0Looped = new BitSet();
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        } finally {
-            iConst0Looped = null;
-            stack = null;
-        }
+        });
     }
 
     /**
@@ -25,6 +25,7 @@ import org.apache.bcel.classfile.Constant;
 import org.apache.bcel.classfile.ConstantClass;
 import org.apache.bcel.classfile.ConstantString;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
@@ -72,14 +73,16 @@ public class ContainsBasedConditional extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            switchLocs = new BitSet();
-            super.visitClassContext(classContext);
-        } finally {
-            switchLocs = null;
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                switchLocs = new BitSet();
+                super.visitClassContext(classContext);
+            } finally {
+                switchLocs = null;
+                stack = null;
+            }
+        });
     }
 
     @Override
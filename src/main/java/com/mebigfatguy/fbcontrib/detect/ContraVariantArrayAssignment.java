@@ -31,7 +31,6 @@ import com.mebigfatguy.fbcontrib.utils.Values;
 
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 import edu.umd.cs.findbugs.OpcodeStack;
 
 /**
@@ -54,7 +53,7 @@ import edu.umd.cs.findbugs.OpcodeStack;
  * reported with high priority.
  *
  */
-public class ContraVariantArrayAssignment extends BytecodeScanningDetector {
+public class ContraVariantArrayAssignment extends ScopedBytecodeScanningDetector {
     private final BugReporter bugReporter;
     private final OpcodeStack stack;
 
@@ -37,6 +37,7 @@ import org.apache.bcel.generic.LDC2_W;
 import org.apache.bcel.generic.ReferenceType;
 import org.apache.bcel.generic.Type;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.StopOpcodeParsingException;
@@ -84,35 +85,37 @@ public class CopiedOverriddenMethod extends BytecodeScanningDetector {
 	 */
 	@Override
 	public void visitClassContext(ClassContext clsContext) {
-		try {
-			JavaClass cls = clsContext.getJavaClass();
-			String superName = cls.getSuperclassName();
-			if (!Values.DOTTED_JAVA_LANG_OBJECT.equals(superName)) {
-				this.classContext = clsContext;
-				superclassCode = new HashMap<>();
-				JavaClass superCls = cls.getSuperClass();
-				childPoolGen = new ConstantPoolGen(cls.getConstantPool());
-				parentPoolGen = new ConstantPoolGen(superCls.getConstantPool());
-				Method[] methods = superCls.getMethods();
-				for (Method m : methods) {
-					String methodName = m.getName();
-					if ((m.isPublic() || m.isProtected()) && !m.isAbstract() && !m.isSynthetic()
-							&& !Values.CONSTRUCTOR.equals(methodName)
-							&& !Values.STATIC_INITIALIZER.equals(methodName)) {
-						String methodInfo = methodName + ':' + m.getSignature();
-						superclassCode.put(methodInfo, new CodeInfo(m.getCode(), m.getAccessFlags()));
+		AnalysisScope.visitClass(this, clsContext, () -> {
+			try {
+				JavaClass cls = clsContext.getJavaClass();
+				String superName = cls.getSuperclassName();
+				if (!Values.DOTTED_JAVA_LANG_OBJECT.equals(superName)) {
+					this.classContext = clsContext;
+					superclassCode = new HashMap<>();
+					JavaClass superCls = cls.getSuperClass();
+					childPoolGen = new ConstantPoolGen(cls.getConstantPool());
+					parentPoolGen = new ConstantPoolGen(superCls.getConstantPool());
+					Method[] methods = superCls.getMethods();
+					for (Method m : methods) {
+						String methodName = m.getName();
+						if ((m.isPublic() || m.isProtected()) && !m.isAbstract() && !m.isSynthetic()
+								&& !Values.CONSTRUCTOR.equals(methodName)
+								&& !Values.STATIC_INITIALIZER.equals(methodName)) {
+							String methodInfo = methodName + ':' + m.getSignature();
+							superclassCode.put(methodInfo, new CodeInfo(m.getCode(), m.getAccessFlags()));
+						}
 					}
+					cls.accept(this);
 				}
-				cls.accept(this);
+			} catch (ClassNotFoundException cnfe) {
+				bugReporter.reportMissingClass(cnfe);
+			} finally {
+				superclassCode = null;
+				this.classContext = null;
+				childPoolGen = null;
+				parentPoolGen = null;
 			}
-		} catch (ClassNotFoundException cnfe) {
-			bugReporter.reportMissingClass(cnfe);
-		} finally {
-			superclassCode = null;
-			this.classContext = null;
-			childPoolGen = null;
-			parentPoolGen = null;
-		}
+		});
 	}
 
 	/**
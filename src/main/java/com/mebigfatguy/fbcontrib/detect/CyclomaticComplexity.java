@@ -24,6 +24,7 @@ import java.util.Iterator;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 
 import edu.umd.cs.findbugs.BugInstance;
@@ -69,12 +70,14 @@ public class CyclomaticComplexity extends PreorderVisitor implements Detector {
      */
     @Override
     public void visitClassContext(final ClassContext context) {
-        try {
-            classContext = context;
-            classContext.getJavaClass().accept(this);
-        } finally {
-            classContext = null;
-        }
+        AnalysisScope.visitClass(this, context, () -> {
+            try {
+                classContext = context;
+                classContext.getJavaClass().accept(this);
+            } finally {
+                classContext = null;
+            }
+        });
     }
 
     /**
@@ -24,17 +24,17 @@ import java.util.Set;
 
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 
 /**
  * Looks for inefficient comparison of Date objects using two comparisons when one would do.
  */
-public class DateComparison extends BytecodeScanningDetector {
+public class DateComparison extends ScopedBytecodeScanningDetector {
     enum State {
         SAW_NOTHING, SAW_LOAD1_1, SAW_LOAD1_2, SAW_CMP1, SAW_IFNE, SAW_LOAD2_1, SAW_LOAD2_2, SAW_CMP2
     }
@@ -63,7 +63,7 @@ public class DateComparison extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public DateComparison(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
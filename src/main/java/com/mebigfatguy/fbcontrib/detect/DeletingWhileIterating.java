@@ -35,6 +35,7 @@ import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.LocalVariable;
 import org.apache.bcel.classfile.LocalVariableTable;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.CodeByteUtils;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
@@ -136,21 +137,23 @@ public class DeletingWhileIterating extends AbstractCollectionScanningDetector {
 	 */
 	@Override
 	public void visitClassContext(ClassContext classContext) {
-		if ((collectionClass == null) || (iteratorClass == null)) {
-			return;
-		}
+		AnalysisScope.visitClass(this, classContext, () -> {
+			if ((collectionClass == null) || (iteratorClass == null)) {
+				return;
+			}
 
-		try {
-			collectionGroups = new ArrayList<>();
-			groupToIterator = new HashMap<>();
-			loops = new HashMap<>(10);
-			super.visitClassContext(classContext);
-		} finally {
-			collectionGroups = null;
-			groupToIterator = null;
-			loops = null;
-			endOfScopes = null;
-		}
+			try {
+				collectionGroups = new ArrayList<>();
+				groupToIterator = new HashMap<>();
+				loops = new HashMap<>(10);
+				super.visitClassContext(classContext);
+			} finally {
+				collectionGroups = null;
+				groupToIterator = null;
+				loops = null;
+				endOfScopes = null;
+			}
+		});
 	}
 
 	/**
@@ -27,6 +27,7 @@ import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -69,23 +70,25 @@ public class DeprecatedTypesafeEnumPattern extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext context) {
-        try {
-            JavaClass cls = context.getJavaClass();
-            if (!cls.isEnum() && (cls.getMajor() >= Const.MAJOR_1_5)) {
-                Method[] methods = cls.getMethods();
-                for (Method m : methods) {
-                    if (Values.CONSTRUCTOR.equals(m.getName()) && !m.isPrivate()) {
-                        return;
+        AnalysisScope.visitClass(this, context, () -> {
+            try {
+                JavaClass cls = context.getJavaClass();
+                if (!cls.isEnum() && (cls.getMajor() >= Const.MAJOR_1_5)) {
+                    Method[] methods = cls.getMethods();
+                    for (Method m : methods) {
+                        if (Values.CONSTRUCTOR.equals(m.getName()) && !m.isPrivate()) {
+                            return;
+                        }
                     }
+                    firstEnumPC = 0;
+                    enumCount = 0;
+                    enumConstNames = new HashSet<String>(10);
+                    super.visitClassContext(context);
                 }
-                firstEnumPC = 0;
-                enumCount = 0;
-                enumConstNames = new HashSet<String>(10);
-                super.visitClassContext(context);
+            } finally {
+                enumConstNames = null;
             }
-        } finally {
-            enumConstNames = null;
-        }
+        });
     }
 
     /**
@@ -26,7 +26,9 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.QMethod;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -86,7 +88,7 @@ public class DubiousListCollection extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public DubiousListCollection(final BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
@@ -97,21 +99,23 @@ public class DubiousListCollection extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(final ClassContext classContext) {
-        JavaClass cls = classContext.getJavaClass();
-        Field[] flds = cls.getFields();
-        for (Field f : flds) {
-            String sig = f.getSignature();
-            if (sig.startsWith(Values.SIG_QUALIFIED_CLASS_PREFIX)) {
-                if (sig.startsWith("Ljava/util/") && sig.endsWith("List;")) {
-                    fieldsReported.put(f.getName(), new FieldInfo());
+        AnalysisScope.visitClass(this, classContext, () -> {
+            JavaClass cls = classContext.getJavaClass();
+            Field[] flds = cls.getFields();
+            for (Field f : flds) {
+                String sig = f.getSignature();
+                if (sig.startsWith(Values.SIG_QUALIFIED_CLASS_PREFIX)) {
+                    if (sig.startsWith("Ljava/util/") && sig.endsWith("List;")) {
+                        fieldsReported.put(f.getName(), new FieldInfo());
+                    }
                 }
             }
-        }
 
-        if (!fieldsReported.isEmpty()) {
-            super.visitClassContext(classContext);
-            reportBugs();
-        }
+            if (!fieldsReported.isEmpty()) {
+                super.visitClassContext(classContext);
+                reportBugs();
+            }
+        });
     }
 
     /**
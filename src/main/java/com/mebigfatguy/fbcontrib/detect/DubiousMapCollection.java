@@ -27,6 +27,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -95,23 +96,26 @@ public class DubiousMapCollection extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(ClassContext classContext) {
+        AnalysisScope.visitClass(this, classContext, () -> {
 
-        if ((mapInterface == null) || (propertiesClass == null)) {
-            return;
-        }
+            if ((mapInterface == null) || (propertiesClass == null)) {
+                return;
+            }
 
-        try {
-            stack = new OpcodeStack();
-            mapFields = new HashMap<>();
-            super.visitClassContext(classContext);
+            try {
+                stack = new OpcodeStack();
+                mapFields = new HashMap<>();
+                super.visitClassContext(classContext);
 
-            for (FieldAnnotation mapField : mapFields.values()) {
-                bugReporter.reportBug(new BugInstance(this, BugType.DMC_DUBIOUS_MAP_COLLECTION.toString(), NORMAL_PRIORITY).addClass(this).addField(mapField));
+                for (FieldAnnotation mapField : mapFields.values()) {
+                    bugReporter.reportBug(new BugInstance(this, BugType.DMC_DUBIOUS_MAP_COLLECTION.toString(), NORMAL_PRIORITY).addClass(this)
+                            .addField(mapField));
+                }
+            } finally {
+                mapFields = null;
+                stack = null;
             }
-        } finally {
-            mapFields = null;
-            stack = null;
-        }
+        });
     }
 
     @Override
@@ -22,7 +22,9 @@ import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.Values;
 
@@ -62,7 +64,7 @@ public class DubiousSetOfCollections extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public DubiousSetOfCollections(final BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
@@ -73,16 +75,18 @@ public class DubiousSetOfCollections extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext clsContext) {
-        try {
-            if ((collectionCls == null) || (setCls == null) || (mapCls == null)) {
-                return;
-            }
+        AnalysisScope.visitClass(this, clsContext, () -> {
+            try {
+                if ((collectionCls == null) || (setCls == null) || (mapCls == null)) {
+                    return;
+                }
 
-            stack = new OpcodeStack();
-            super.visitClassContext(clsContext);
-        } finally {
-            stack = null;
-        }
+                stack = new OpcodeStack();
+                super.visitClassContext(clsContext);
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     /**
@@ -42,6 +42,7 @@ import org.apache.bcel.classfile.LocalVariableTable;
 import org.apache.bcel.classfile.Method;
 import org.apache.bcel.generic.Type;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -97,14 +98,16 @@ public class ExceptionSoftening extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            if (runtimeClass != null) {
-                stack = new OpcodeStack();
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                if (runtimeClass != null) {
+                    stack = new OpcodeStack();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                stack = null;
             }
-        } finally {
-            stack = null;
-        }
+        });
     }
 
     /**
@@ -0,0 +1,437 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.bcel.Repository;
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.LocalVariable;
+import org.apache.bcel.classfile.LocalVariableTable;
+import org.apache.bcel.classfile.Method;
+import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.ConstantPushInstruction;
+import org.apache.bcel.generic.IRETURN;
+import org.apache.bcel.generic.Instruction;
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.InvokeInstruction;
+import org.apache.bcel.generic.LDC;
+
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.QMethod;
+import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
+import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
+import com.mebigfatguy.fbcontrib.utils.ToString;
+import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
+import com.mebigfatguy.fbcontrib.utils.Values;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.BugReporter;
+import edu.umd.cs.findbugs.BytecodeScanningDetector;
+import edu.umd.cs.findbugs.OpcodeStack;
+import edu.umd.cs.findbugs.ba.ClassContext;
+import edu.umd.cs.findbugs.ba.XField;
+
+/**
+ * looks for hash based maps and sets whose keys have a hashCode method that is either very expensive, such as java.net.URL which does a DNS lookup, a
+ * collection which iterates all its elements, or a class that uses Arrays.deepHashCode, or is degenerate, returning a constant, which puts all keys in one
+ * bucket, and turns lookups into linear scans. This combines the concerns of DubiousSetOfCollections, DubiousMapCollection and MethodReturnsConstant into one
+ * finding, naming the map or set involved.
+ */
+public class ExpensiveHashKey extends BytecodeScanningDetector {
+
+    enum KeyProblem {
+        DNS_LOOKUP("does a DNS lookup to resolve the host", HIGH_PRIORITY),
+        CONSTANT("returns a constant, putting all keys in the same bucket", HIGH_PRIORITY),
+        COLLECTION("iterates every element of the collection", NORMAL_PRIORITY),
+        DEEP_ARRAY("walks the whole array graph with Arrays.deepHashCode", NORMAL_PRIORITY),
+        COLLECTION_FIELD("iterates every element of a collection field", NORMAL_PRIORITY);
+
+        private final String description;
+        private final int priority;
+
+        KeyProblem(String description, int priority) {
+            this.description = description;
+            this.priority = priority;
+        }
+
+        String getDescription() {
+            return description;
+        }
+
+        int getPriority() {
+            return priority;
+        }
+    }
+
+    enum ReceiverKind {
+        HASHED, UNHASHED, UNKNOWN
+    }
+
+    private static final Set<String> HASHED_CLASSES = UnmodifiableSet.create(
+    //@formatter:off
+            "java/util/Map",
+            "java/util/Set",
+            "java/util/HashMap",
+            "java/util/HashSet",
+            "java/util/LinkedHashMap",
+            "java/util/LinkedHashSet",
+            "java/util/Hashtable",
+            "java/util/concurrent/ConcurrentMap",
+            "java/util/concurrent/ConcurrentHashMap"
+    //@formatter:on
+    );
+
+    /** the concrete classes, and their subclasses, that hash their keys, for checking receivers that are more specific than the invoked interface */
+    private static final Set<String> CONCRETE_HASHED_CLASSES = UnmodifiableSet.create(
+    //@formatter:off
+            "java.util.HashMap",
+            "java.util.HashSet",
+            "java.util.Hashtable",
+            "java.util.concurrent.ConcurrentHashMap"
+    //@formatter:on
+    );
+
+    private static final Set<QMethod> KEYED_METHODS = UnmodifiableSet.create(
+    //@formatter:off
+            new QMethod("get", SignatureBuilder.SIG_OBJECT_TO_OBJECT),
+            new QMethod("getOrDefault", SignatureBuilder.SIG_TWO_OBJECTS_TO_OBJECT),
+            new QMethod("put", SignatureBuilder.SIG_TWO_OBJECTS_TO_OBJECT),
+            new QMethod("putIfAbsent", SignatureBuilder.SIG_TWO_OBJECTS_TO_OBJECT),
+            new QMethod("containsKey", SignatureBuilder.SIG_OBJECT_TO_BOOLEAN),
+            new QMethod("remove", SignatureBuilder.SIG_OBJECT_TO_OBJECT),
+            new QMethod("computeIfAbsent", "(Ljava/lang/Object;Ljava/util/function/Function;)Ljava/lang/Object;"),
+            new QMethod("computeIfPresent", "(Ljava/lang/Object;Ljava/util/function/BiFunction;)Ljava/lang/Object;"),
+            new QMethod("compute", "(Ljava/lang/Object;Ljava/util/function/BiFunction;)Ljava/lang/Object;"),
+            new QMethod("merge", "(Ljava/lang/Object;Ljava/lang/Object;Ljava/util/function/BiFunction;)Ljava/lang/Object;"),
+            new QMethod("add", SignatureBuilder.SIG_OBJECT_TO_BOOLEAN),
+            new QMethod("contains", SignatureBuilder.SIG_OBJECT_TO_BOOLEAN),
+            new QMethod("remove", SignatureBuilder.SIG_OBJECT_TO_BOOLEAN)
+    //@formatter:on
+    );
+
+    private static JavaClass collectionCls;
+    private static JavaClass mapCls;
+
+    static {
+        try {
+            collectionCls = Repository.lookupClass(Values.SLASHED_JAVA_UTIL_COLLECTION);
+            mapCls = Repository.lookupClass(Values.SLASHED_JAVA_UTIL_MAP);
+        } catch (ClassNotFoundException cnfe) {
+            // no bugReporter yet, so ignore
+        }
+    }
+
+    private final BugReporter bugReporter;
+    private OpcodeStack stack;
+    /** the problem found with each key class's hashCode, or null if it is fine, so each class is only examined once */
+    private Map<String, KeyProblem> keyProblems;
+    private Set<ReportedKey> reportedKeys;
+
+    /**
+     * constructs a EHK detector given the reporter to report bugs on
+     *
+     * @param bugReporter
+     *            the sync of bug reports
+     */
+    public ExpensiveHashKey(BugReporter bugReporter) {
+        this.bugReporter = HotMethods.wrap(bugReporter);
+    }
+
+    /**
+     * implements the visitor to create and tear down the opcode stack and key caches, as long as the collection classes could be loaded
+     *
+     * @param clsContext
+     *            the context object of the currently parsed class
+     */
+    @Override
+    public void visitClassContext(ClassContext clsContext) {
+        AnalysisScope.visitClass(this, clsContext, () -> {
+            try {
+                if ((collectionCls == null) || (mapCls == null)) {
+                    return;
+                }
+
+                stack = new OpcodeStack();
+                keyProblems = new HashMap<>();
+                reportedKeys = new HashSet<>();
+                super.visitClassContext(clsContext);
+            } finally {
+                stack = null;
+                keyProblems = null;
+                reportedKeys = null;
+            }
+        });
+    }
+
+    /**
+     * implements the visitor to reset the opcode stack and reported keys
+     *
+     * @param obj
+     *            the currently parsed code block
+     */
+    @Override
+    public void visitCode(Code obj) {
+        stack.resetForMethodEntry(this);
+        reportedKeys.clear();
+        super.visitCode(obj);
+    }
+
+    /**
+     * implements the visitor to look for keyed calls on hash based maps and sets, where the key has a bad hashCode
+     *
+     * @param seen
+     *            the currently parsed opcode
+     */
+    @Override
+    public void sawOpcode(int seen) {
+        try {
+            stack.precomputation(this);
+
+            if (((seen == INVOKEINTERFACE) || (seen == INVOKEVIRTUAL)) && HASHED_CLASSES.contains(getClassConstantOperand())) {
+                String signature = getSigConstantOperand();
+                if (KEYED_METHODS.contains(new QMethod(getNameConstantOperand(), signature))) {
+                    int numParms = SignatureUtils.getNumParameters(signature);
+                    if (stack.getStackDepth() > numParms) {
+                        checkKey(stack.getStackItem(numParms - 1), stack.getStackItem(numParms), getClassConstantOperand().endsWith("Set"));
+                    }
+                }
+            }
+        } catch (ClassNotFoundException cnfe) {
+            bugReporter.reportMissingClass(cnfe);
+        } finally {
+            stack.sawOpcode(this, seen);
+        }
+    }
+
+    private void checkKey(OpcodeStack.Item keyItem, OpcodeStack.Item collectionItem, boolean isSet) throws ClassNotFoundException {
+        String keySig = keyItem.getSignature();
+        if (!keySig.startsWith(Values.SIG_QUALIFIED_CLASS_PREFIX)) {
+            return;
+        }
+
+        String keyClsName = SignatureUtils.trimSignature(keySig);
+        if (Values.SLASHED_JAVA_LANG_OBJECT.equals(keyClsName) || Values.SLASHED_JAVA_LANG_STRING.equals(keyClsName)) {
+            return;
+        }
+
+        KeyProblem problem = getKeyProblem(keyClsName);
+        if ((problem == null) || ((problem == KeyProblem.COLLECTION) && isSet)) {
+            // sets of collections are reported by DubiousSetOfCollections
+            return;
+        }
+
+        ReceiverKind receiverKind = getReceiverKind(collectionItem);
+        if (receiverKind == ReceiverKind.UNHASHED) {
+            return;
+        }
+
+        int priority = problem.getPriority();
+        if (receiverKind == ReceiverKind.UNKNOWN) {
+            // a Map or Set interface may be a TreeMap, TreeSet or ConcurrentSkipListMap, which never call hashCode
+            priority++;
+        }
+
+        String collectionName = getCollectionName(collectionItem);
+        if (reportedKeys.add(new ReportedKey(collectionName, keyClsName))) {
+            bugReporter.reportBug(new BugInstance(this, BugType.EHK_EXPENSIVE_HASH_KEY.name(), priority).addClass(this).addMethod(this)
+                    .addSourceLine(this).addString(keyClsName.replace('/', '.')).addString(collectionName).addString(problem.getDescription()));
+        }
+    }
+
+    /**
+     * determines whether the map or set is known to hash its keys, from the type of the receiver on the stack, which is the allocated type when the
+     * collection was created in this method, and the declared type otherwise
+     *
+     * @param collectionItem
+     *            the stack item of the map or set
+     * @return whether the receiver is a hash based collection, a collection that doesn't hash its keys, or only known by its interface
+     */
+    private static ReceiverKind getReceiverKind(OpcodeStack.Item collectionItem) throws ClassNotFoundException {
+        String sig = collectionItem.getSignature();
+        if (!sig.startsWith(Values.SIG_QUALIFIED_CLASS_PREFIX)) {
+            return ReceiverKind.UNKNOWN;
+        }
+
+        JavaClass cls = Repository.lookupClass(SignatureUtils.trimSignature(sig));
+        if (cls.isInterface()) {
+            return ReceiverKind.UNKNOWN;
+        }
+
+        if (CONCRETE_HASHED_CLASSES.contains(cls.getClassName())) {
+            return ReceiverKind.HASHED;
+        }
+
+        for (JavaClass superCls : cls.getSuperClasses()) {
+            if (CONCRETE_HASHED_CLASSES.contains(superCls.getClassName())) {
+                return ReceiverKind.HASHED;
+            }
+        }
+
+        return ReceiverKind.UNHASHED;
+    }
+
+    private KeyProblem getKeyProblem(String keyClsName) throws ClassNotFoundException {
+        if (keyProblems.containsKey(keyClsName)) {
+            return keyProblems.get(keyClsName);
+        }
+
+        KeyProblem problem = null;
+        if ("java/net/URL".equals(keyClsName)) {
+            problem = KeyProblem.DNS_LOOKUP;
+        } else if (!keyClsName.startsWith("java/lang/")) {
+            JavaClass keyCls = Repository.lookupClass(keyClsName);
+            if (keyCls.implementationOf(collectionCls) || keyCls.implementationOf(mapCls)) {
+                problem = KeyProblem.COLLECTION;
+            } else if (!keyClsName.startsWith("java/")) {
+                problem = examineHashCode(keyCls);
+            }
+        }
+
+        keyProblems.put(keyClsName, problem);
+        return problem;
+    }
+
+    /**
+     * looks at the hashCode method of a key class, or the closest superclass that defines one, for a constant return, or calls that hash deep structures
+     *
+     * @param keyCls
+     *            the class of the key
+     * @return the problem with the hashCode method, or null if none was found
+     */
+    private KeyProblem examineHashCode(JavaClass keyCls) throws ClassNotFoundException {
+        JavaClass cls = keyCls;
+        while ((cls != null) && !Values.DOTTED_JAVA_LANG_OBJECT.equals(cls.getClassName())) {
+            for (Method m : cls.getMethods()) {
+                if ("hashCode".equals(m.getName()) && SignatureBuilder.SIG_VOID_TO_INT.equals(m.getSignature())) {
+                    return examineHashCodeBody(m, cls.getConstantPool());
+                }
+            }
+            cls = cls.getSuperClass();
+        }
+
+        return null;
+    }
+
+    private KeyProblem examineHashCodeBody(Method hashCode, ConstantPool pool) throws ClassNotFoundException {
+        Code code = hashCode.getCode();
+        if (code == null) {
+            return null;
+        }
+
+        InstructionHandle[] handles = new InstructionList(code.getCode()).getInstructionHandles();
+        if ((handles.length == 2) && (handles[1].getInstruction() instanceof IRETURN)) {
+            Instruction first = handles[0].getInstruction();
+            if ((first instanceof ConstantPushInstruction) || (first instanceof LDC)) {
+                return KeyProblem.CONSTANT;
+            }
+        }
+
+        ConstantPoolGen cpg = new ConstantPoolGen(pool);
+        for (InstructionHandle handle : handles) {
+            Instruction ins = handle.getInstruction();
+            if (ins instanceof InvokeInstruction) {
+                InvokeInstruction invoke = (InvokeInstruction) ins;
+                String clsName = invoke.getReferenceType(cpg).toString();
+                String methodName = invoke.getMethodName(cpg);
+                if ("java.util.Arrays".equals(clsName) && "deepHashCode".equals(methodName)) {
+                    return KeyProblem.DEEP_ARRAY;
+                }
+
+                if ("hashCode".equals(methodName) && clsName.startsWith("java.util.")) {
+                    JavaClass calledCls = Repository.lookupClass(clsName);
+                    if (calledCls.implementationOf(collectionCls) || calledCls.implementationOf(mapCls)) {
+                        return KeyProblem.COLLECTION_FIELD;
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * returns a name for the map or set being accessed, from the field or local variable holding it
+     *
+     * @param collectionItem
+     *            the stack item of the map or set
+     * @return the name of the field or variable, or a description if it can't be determined
+     */
+    private String getCollectionName(OpcodeStack.Item collectionItem) {
+        XField field = collectionItem.getXField();
+        if (field != null) {
+            return field.getName();
+        }
+
+        int reg = collectionItem.getRegisterNumber();
+        if (reg >= 0) {
+            LocalVariableTable lvt = getMethod().getLocalVariableTable();
+            if (lvt != null) {
+                LocalVariable lv = lvt.getLocalVariable(reg, getPC());
+                if (lv != null) {
+                    return lv.getName();
+                }
+            }
+            return "local " + reg;
+        }
+
+        return "a computed collection";
+    }
+
+    /**
+     * the collection and key class pair that has been reported in the current method
+     */
+    static class ReportedKey {
+        private final String collectionName;
+        private final String keyClsName;
+
+        ReportedKey(String collectionName, String keyClsName) {
+            this.collectionName = collectionName;
+            this.keyClsName = keyClsName;
+        }
+
+        @Override
+        public int hashCode() {
+            return collectionName.hashCode() ^ keyClsName.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ReportedKey)) {
+                return false;
+            }
+
+            ReportedKey that = (ReportedKey) o;
+            return collectionName.equals(that.collectionName) && keyClsName.equals(that.keyClsName);
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+}
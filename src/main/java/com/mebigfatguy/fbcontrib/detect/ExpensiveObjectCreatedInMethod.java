@@ -0,0 +1,300 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.bcel.classfile.Code;
+
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.Loops;
+import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
+import com.mebigfatguy.fbcontrib.utils.Values;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.BugReporter;
+import edu.umd.cs.findbugs.BytecodeScanningDetector;
+import edu.umd.cs.findbugs.OpcodeStack;
+import edu.umd.cs.findbugs.OpcodeStack.CustomUserValue;
+import edu.umd.cs.findbugs.ba.ClassContext;
+
+/**
+ * looks for methods that create instances of heavyweight objects that are costly to build, but are thread safe (or at least reusable) once built, such as
+ * ObjectMapper, JAXBContext, DateTimeFormatter or Pattern. When these objects are built from constant information each time a method is called, the cost of
+ * building them is paid over and over again, where a static field or injected singleton would suffice.
+ */
+@CustomUserValue
+public class ExpensiveObjectCreatedInMethod extends BytecodeScanningDetector {
+
+    public static final String EOCM_CONSTRUCTORS_USER_KEY = "fbcontrib.EOCM.constructors";
+    public static final String EOCM_FACTORIES_USER_KEY = "fbcontrib.EOCM.factories";
+
+    /**
+     * classes whose construction is expensive, in slashed form. User additions are supplied as a comma separated list of classes.
+     */
+    private static Set<String> expensiveConstructors = new HashSet<>();
+
+    static {
+        expensiveConstructors.add("com/fasterxml/jackson/databind/ObjectMapper");
+        expensiveConstructors.add("com/fasterxml/jackson/dataformat/xml/XmlMapper");
+        expensiveConstructors.add("com/fasterxml/jackson/core/JsonFactory");
+        expensiveConstructors.add("org/codehaus/jackson/map/ObjectMapper");
+        expensiveConstructors.add("com/google/gson/Gson");
+        expensiveConstructors.add("com/google/gson/GsonBuilder");
+        expensiveConstructors.add("okhttp3/OkHttpClient");
+        expensiveConstructors.add("org/apache/http/impl/client/DefaultHttpClient");
+        expensiveConstructors.add("org/springframework/web/client/RestTemplate");
+        expensiveConstructors.add("javax/script/ScriptEngineManager");
+
+        String userProp = System.getProperty(EOCM_CONSTRUCTORS_USER_KEY);
+        if (userProp != null) {
+            String[] userClasses = userProp.split("\\s*,\\s*");
+            for (String cls : userClasses) {
+                expensiveConstructors.add(cls.replace('.', '/'));
+            }
+        }
+    }
+
+    /**
+     * static factory methods that build expensive objects, keyed by slashed class name. User additions are supplied as a comma separated list of
+     * class.method entries, like "java/util/regex/Pattern.compile".
+     */
+    private static Map<String, Set<String>> expensiveFactories = new HashMap<>();
+
+    static {
+        addFactory("java/util/regex/Pattern", "compile");
+        addFactory("java/time/format/DateTimeFormatter", "ofPattern");
+        addFactory("java/security/MessageDigest", "getInstance");
+        addFactory("javax/crypto/Cipher", "getInstance");
+        addFactory("javax/xml/bind/JAXBContext", "newInstance");
+        addFactory("javax/xml/parsers/DocumentBuilderFactory", "newInstance");
+        addFactory("javax/xml/parsers/SAXParserFactory", "newInstance");
+        addFactory("javax/xml/transform/TransformerFactory", "newInstance");
+        addFactory("javax/xml/xpath/XPathFactory", "newInstance");
+        addFactory("javax/xml/stream/XMLInputFactory", "newInstance");
+        addFactory("javax/xml/stream/XMLOutputFactory", "newInstance");
+        addFactory("javax/xml/validation/SchemaFactory", "newInstance");
+        addFactory("javax/validation/Validation", "buildDefaultValidatorFactory");
+        addFactory("java/net/http/HttpClient", "newHttpClient");
+        addFactory("org/apache/http/impl/client/HttpClients", "createDefault");
+        addFactory("org/apache/http/impl/client/HttpClients", "createSystem");
+        addFactory("org/apache/http/impl/client/HttpClients", "createMinimal");
+
+        String userProp = System.getProperty(EOCM_FACTORIES_USER_KEY);
+        if (userProp != null) {
+            String[] userFactories = userProp.split("\\s*,\\s*");
+            for (String factory : userFactories) {
+                int dotPos = factory.lastIndexOf('.');
+                if (dotPos > 0) {
+                    addFactory(factory.substring(0, dotPos).replace('.', '/'), factory.substring(dotPos + 1));
+                }
+            }
+        }
+    }
+
+    private static void addFactory(String clsName, String methodName) {
+        Set<String> methods = expensiveFactories.get(clsName);
+        if (methods == null) {
+            methods = new HashSet<>();
+            expensiveFactories.put(clsName, methods);
+        }
+        methods.add(methodName);
+    }
+
+    private final BugReporter bugReporter;
+    private OpcodeStack stack;
+    /** allocation pc, description of what was allocated */
+    private Map<Integer, String> allocations;
+    private Loops loops;
+
+    /**
+     * constructs a EOCM detector given the reporter to report bugs on
+     *
+     * @param bugReporter
+     *            the sync of bug reports
+     */
+    public ExpensiveObjectCreatedInMethod(BugReporter bugReporter) {
+        this.bugReporter = HotMethods.wrap(bugReporter);
+    }
+
+    /**
+     * implements the visitor to create and clear the stack, allocation and loop collections
+     *
+     * @param classContext
+     *            the context object of the currently parsed class
+     */
+    @Override
+    public void visitClassContext(ClassContext classContext) {
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                allocations = new LinkedHashMap<>();
+                loops = new Loops();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                allocations = null;
+                loops = null;
+            }
+        });
+    }
+
+    /**
+     * implements the visitor to skip constructors and static initializers, where one time allocations are expected, and to report on allocations that never
+     * escape the method once the method has been scanned
+     *
+     * @param obj
+     *            the context object of the currently parsed code block
+     */
+    @Override
+    public void visitCode(Code obj) {
+        String methodName = getMethodName();
+        if (Values.CONSTRUCTOR.equals(methodName) || Values.STATIC_INITIALIZER.equals(methodName)) {
+            return;
+        }
+
+        stack.resetForMethodEntry(this);
+        allocations.clear();
+        loops.clear();
+        super.visitCode(obj);
+
+        for (Map.Entry<Integer, String> entry : allocations.entrySet()) {
+            int pc = entry.getKey().intValue();
+            bugReporter.reportBug(
+                    new BugInstance(this, BugType.EOCM_EXPENSIVE_OBJECT_CREATED_IN_METHOD.name(), loops.isInLoop(pc) ? HIGH_PRIORITY : NORMAL_PRIORITY)
+                            .addClass(this).addMethod(this).addString(entry.getValue()).addSourceLine(this, pc));
+        }
+    }
+
+    /**
+     * implements the visitor to look for creation of expensive objects from constant arguments, and to forget about those objects that are stored in fields,
+     * arrays or returned, as those are presumably being cached.
+     *
+     * @param seen
+     *            the opcode of the currently parsed instruction
+     */
+    @Override
+    public void sawOpcode(int seen) {
+        Integer allocationPC = null;
+        try {
+            stack.precomputation(this);
+
+            switch (seen) {
+                case INVOKESPECIAL:
+                    if (Values.CONSTRUCTOR.equals(getNameConstantOperand())) {
+                        String clsName = getClassConstantOperand();
+                        if (expensiveConstructors.contains(clsName) && hasConstantArguments()) {
+                            allocationPC = Integer.valueOf(getPC());
+                            allocations.put(allocationPC, "new " + clsName.replace('/', '.') + "()");
+                        }
+                    }
+                    processEscape();
+                break;
+
+                case INVOKESTATIC:
+                    Set<String> factories = expensiveFactories.get(getClassConstantOperand());
+                    if ((factories != null) && factories.contains(getNameConstantOperand()) && hasConstantArguments()) {
+                        allocationPC = Integer.valueOf(getPC());
+                        allocations.put(allocationPC, getClassConstantOperand().replace('/', '.') + '.' + getNameConstantOperand() + "(...)");
+                    }
+                    processEscape();
+                break;
+
+                case INVOKEVIRTUAL:
+                case INVOKEINTERFACE:
+                case INVOKEDYNAMIC:
+                    processEscape();
+                break;
+
+                case PUTFIELD:
+                case PUTSTATIC:
+                case AASTORE:
+                case ARETURN:
+                    if (stack.getStackDepth() > 0) {
+                        removeAllocation(stack.getStackItem(0));
+                    }
+                break;
+
+                default:
+                    loops.sawOpcode(this, seen);
+                break;
+            }
+        } finally {
+            stack.sawOpcode(this, seen);
+            if ((allocationPC != null) && (stack.getStackDepth() > 0)) {
+                OpcodeStack.Item itm = stack.getStackItem(0);
+                itm.setUserValue(allocationPC);
+            }
+        }
+    }
+
+    /**
+     * determines whether all the arguments to the method about to be called are constants, or static fields, so that the result of the call would be the same
+     * every time it is made.
+     *
+     * @return whether the arguments are all constant
+     */
+    private boolean hasConstantArguments() {
+        int numParameters = SignatureUtils.getNumParameters(getSigConstantOperand());
+        if (stack.getStackDepth() < numParameters) {
+            return false;
+        }
+
+        for (int i = 0; i < numParameters; i++) {
+            OpcodeStack.Item itm = stack.getStackItem(i);
+            if (itm.getConstant() == null) {
+                if ((itm.getXField() == null) || !itm.getXField().isStatic() || !itm.getXField().isFinal()) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * looks for expensive objects passed to methods that store them, like setters and map puts, as the allocation is then probably being cached somewhere.
+     */
+    private void processEscape() {
+        String methodName = getNameConstantOperand();
+        if (!Values.CONSTRUCTOR.equals(methodName) && !methodName.startsWith("set") && !methodName.startsWith("put") && !methodName.startsWith("add")) {
+            return;
+        }
+
+        int numParameters = SignatureUtils.getNumParameters(getSigConstantOperand());
+        if (stack.getStackDepth() >= numParameters) {
+            for (int i = 0; i < numParameters; i++) {
+                removeAllocation(stack.getStackItem(i));
+            }
+        }
+    }
+
+    private void removeAllocation(OpcodeStack.Item itm) {
+        Integer allocationPC = (Integer) itm.getUserValue();
+        if (allocationPC != null) {
+            allocations.remove(allocationPC);
+        }
+    }
+}
@@ -46,8 +46,11 @@ import org.apache.bcel.generic.InstructionHandle;
 import org.apache.bcel.generic.ObjectType;
 import org.apache.bcel.generic.ReferenceType;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.MethodBudget;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
+import com.mebigfatguy.fbcontrib.utils.StopOpcodeParsingException;
 import com.mebigfatguy.fbcontrib.utils.ToString;
 import com.mebigfatguy.fbcontrib.utils.Values;
 
@@ -68,6 +71,7 @@ import edu.umd.cs.findbugs.ba.Edge;
  */
 public class FieldCouldBeLocal extends BytecodeScanningDetector {
     private final BugReporter bugReporter;
+    private final MethodBudget budget;
     private ClassContext clsContext;
     private Map<String, FieldInfo> localizableFields;
     private CFG cfg;
@@ -85,6 +89,7 @@ public class FieldCouldBeLocal extends BytecodeScanningDetector {
      */
     public FieldCouldBeLocal(BugReporter bugReporter) {
         this.bugReporter = bugReporter;
+        budget = new MethodBudget(this);
     }
 
     /**
@@ -95,50 +100,60 @@ public class FieldCouldBeLocal extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            localizableFields = new HashMap<>();
-            visitedBlocks = new BitSet();
-            clsContext = classContext;
-            clsName = clsContext.getJavaClass().getClassName();
-            clsSig = SignatureUtils.classToSignature(clsName);
-            JavaClass cls = classContext.getJavaClass();
-            Field[] fields = cls.getFields();
-            ConstantPool cp = classContext.getConstantPoolGen().getConstantPool();
-
-            for (Field f : fields) {
-                if (!f.isStatic() && !f.isVolatile() && (f.getName().indexOf('$') < 0) && f.isPrivate()) {
-                    FieldAnnotation fa = new FieldAnnotation(cls.getClassName(), f.getName(), f.getSignature(), false);
-                    boolean hasExternalAnnotation = false;
-                    for (AnnotationEntry entry : f.getAnnotationEntries()) {
-                        ConstantUtf8 cutf = (ConstantUtf8) cp.getConstant(entry.getTypeIndex());
-                        if (!cutf.getBytes().startsWith("java")) {
-                            hasExternalAnnotation = true;
-                            break;
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                localizableFields = new HashMap<>();
+                visitedBlocks = new BitSet();
+                clsContext = classContext;
+                clsName = clsContext.getJavaClass().getClassName();
+                clsSig = SignatureUtils.classToSignature(clsName);
+                JavaClass cls = classContext.getJavaClass();
+                Field[] fields = cls.getFields();
+                ConstantPool cp = classContext.getConstantPoolGen().getConstantPool();
+
+                for (Field f : fields) {
+                    if (!f.isStatic() && !f.isVolatile() && (f.getName().indexOf('$') < 0) && f.isPrivate()) {
+                        FieldAnnotation fa = new FieldAnnotation(cls.getClassName(), f.getName(), f.getSignature(), false);
+                        boolean hasExternalAnnotation = false;
+                        for (AnnotationEntry entry : f.getAnnotationEntries()) {
+                            ConstantUtf8 cutf = (ConstantUtf8) cp.getConstant(entry.getTypeIndex());
+                            if (!cutf.getBytes().startsWith("java")) {
+                                hasExternalAnnotation = true;
+                                break;
+                            }
                         }
+                        localizableFields.put(f.getName(), new FieldInfo(fa, hasExternalAnnotation));
                     }
-                    localizableFields.put(f.getName(), new FieldInfo(fa, hasExternalAnnotation));
                 }
-            }
 
-            if (!localizableFields.isEmpty()) {
-                buildMethodFieldModifiers(classContext);
-                super.visitClassContext(classContext);
-                for (FieldInfo fi : localizableFields.values()) {
-                    FieldAnnotation fa = fi.getFieldAnnotation();
-                    SourceLineAnnotation sla = fi.getSrcLineAnnotation();
-                    BugInstance bug = new BugInstance(this, BugType.FCBL_FIELD_COULD_BE_LOCAL.name(), NORMAL_PRIORITY).addClass(this).addField(fa);
-                    if (sla != null) {
-                        bug.addSourceLine(sla);
+                if (!localizableFields.isEmpty()) {
+                    buildMethodFieldModifiers(classContext);
+                    super.visitClassContext(classContext);
+                    for (FieldInfo fi : localizableFields.values()) {
+                        FieldAnnotation fa = fi.getFieldAnnotation();
+                        SourceLineAnnotation sla = fi.getSrcLineAnnotation();
+                        BugInstance bug = new BugInstance(this, BugType.FCBL_FIELD_COULD_BE_LOCAL.name(), NORMAL_PRIORITY).addClass(this).addField(fa);
+                        if (sla != null) {
+                            bug.addSourceLine(sla);
+                        }
+                        bugReporter.reportBug(bug);
                     }
-                    bugReporter.reportBug(bug);
                 }
+            } finally {
+                localizableFields = null;
+                visitedBlocks = null;
+                clsContext = null;
+                methodFieldModifiers = null;
             }
-        } finally {
-            localizableFields = null;
-            visitedBlocks = null;
-            clsContext = null;
-            methodFieldModifiers = null;
-        }
+        });
+    }
+
+    /**
+     * implements the visitor to log the methods that were too expensive to analyze
+     */
+    @Override
+    public void report() {
+        budget.report();
     }
 
     /**
@@ -160,8 +175,9 @@ public class FieldCouldBeLocal extends BytecodeScanningDetector {
             BasicBlock bb = cfg.getEntry();
             Set<String> uncheckedFields = new HashSet<>(localizableFields.keySet());
             visitedBlocks.clear();
+            budget.start(clsName, obj);
             checkBlock(bb, uncheckedFields);
-        } catch (CFGBuilderException cbe) {
+        } catch (CFGBuilderException | StopOpcodeParsingException e) {
             localizableFields.clear();
         } finally {
             cfg = null;
@@ -241,6 +257,7 @@ public class FieldCouldBeLocal extends BytecodeScanningDetector {
 
             InstructionIterator ii = bb.instructionIterator();
             while ((bState.getUncheckedFieldSize() > 0) && ii.hasNext()) {
+                budget.charge();
                 InstructionHandle ih = ii.next();
                 Instruction ins = ih.getInstruction();
                 if (ins instanceof FieldInstruction) {
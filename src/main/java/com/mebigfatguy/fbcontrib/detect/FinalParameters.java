@@ -31,6 +31,7 @@ import org.apache.bcel.classfile.LocalVariable;
 import org.apache.bcel.classfile.LocalVariableTable;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -78,8 +79,10 @@ public class FinalParameters extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        srcInited = false;
-        super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            srcInited = false;
+            super.visitClassContext(classContext);
+        });
     }
 
     /**
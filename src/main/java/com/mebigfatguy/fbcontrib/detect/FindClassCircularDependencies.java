@@ -24,6 +24,8 @@ import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,7 +34,10 @@ import org.apache.bcel.classfile.ConstantClass;
 import org.apache.bcel.classfile.ElementValue;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.collect.Shard;
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.DetectorEvents;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.ToString;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -40,6 +45,7 @@ import com.mebigfatguy.fbcontrib.utils.Values;
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
 import edu.umd.cs.findbugs.BytecodeScanningDetector;
+import edu.umd.cs.findbugs.ba.ClassContext;
 import edu.umd.cs.findbugs.internalAnnotations.DottedClassName;
 
 /**
@@ -50,6 +56,7 @@ public class FindClassCircularDependencies extends BytecodeScanningDetector {
 
     private static final Pattern ARRAY_PATTERN = Pattern.compile("\\[+(L.*)");
     private Map<String, Set<String>> dependencyGraph = null;
+    private Set<String> sliceClasses;
     private BugReporter bugReporter;
     private String clsName;
 
@@ -62,11 +69,29 @@ public class FindClassCircularDependencies extends BytecodeScanningDetector {
     public FindClassCircularDependencies(BugReporter bugReporter) {
         this.bugReporter = bugReporter;
         this.dependencyGraph = new HashMap<>();
+        this.sliceClasses = new HashSet<>();
+    }
+
+    /**
+     * implements the visitor to collect the dependencies of every class, unless only a sample of the classes is being analyzed, as a loop can't be found
+     * from a sample
+     *
+     * @param classContext
+     *            the context object of the currently parsed class
+     */
+    @Override
+    public void visitClassContext(ClassContext classContext) {
+        if (!AnalysisScope.skipCrossClass(this)) {
+            DetectorEvents.recordClass(this, classContext, () -> super.visitClassContext(classContext));
+        }
     }
 
     @Override
     public void visit(JavaClass obj) {
         clsName = obj.getClassName();
+        if (Shard.isReporting()) {
+            sliceClasses.add(clsName);
+        }
     }
 
     @Override
@@ -164,33 +189,92 @@ public class FindClassCircularDependencies extends BytecodeScanningDetector {
         return innerClass.startsWith(outerClass) && (innerClass.indexOf('$') >= 0);
     }
 
+    /**
+     * finds and reports the loops in the dependency graph. The graph is walked in class name order, so that the loops found don't depend on the order the
+     * classes were visited in. When collecting a shard, the graph is saved instead, and when reporting on a slice, loops are found in the merged graph of all
+     * slices, but only those starting at a class of this slice are reported.
+     */
     @Override
     public void report() {
-        removeDependencyLeaves();
-
-        LoopFinder lf = new LoopFinder();
-
-        while (!dependencyGraph.isEmpty()) {
-            String className = dependencyGraph.keySet().iterator().next();
-            Set<String> loop = lf.findLoop(dependencyGraph, className);
-            boolean pruneLeaves;
-            if (loop != null) {
-                BugInstance bug = new BugInstance(this, BugType.FCCD_FIND_CLASS_CIRCULAR_DEPENDENCY.name(), NORMAL_PRIORITY);
-                for (String loopCls : loop) {
-                    bug.addClass(loopCls);
+        if (AnalysisScope.skipCrossClass(this)) {
+            return;
+        }
+
+        DetectorEvents.Span span = DetectorEvents.beginReport(this);
+        try {
+            if (Shard.isCollecting()) {
+                Shard.setCollectedDependencies(dependencyGraph);
+                Shard.save();
+                dependencyGraph = new HashMap<>();
+                return;
+            }
+
+            boolean reportingSlice = Shard.isReporting();
+            Map<String, Set<String>> sortedGraph = new TreeMap<>();
+            addSorted(sortedGraph, dependencyGraph);
+            if (reportingSlice) {
+                addSorted(sortedGraph, Shard.getMergedDependencies());
+            }
+            dependencyGraph = sortedGraph;
+
+            removeDependencyLeaves();
+
+            LoopFinder lf = new LoopFinder();
+
+            while (!dependencyGraph.isEmpty()) {
+                String className = dependencyGraph.keySet().iterator().next();
+                Set<String> loop = lf.findLoop(dependencyGraph, className);
+                boolean pruneLeaves;
+                if (loop != null) {
+                    if ((!reportingSlice || sliceClasses.contains(className)) && isInScope(loop)) {
+                        BugInstance bug = new BugInstance(this, BugType.FCCD_FIND_CLASS_CIRCULAR_DEPENDENCY.name(), NORMAL_PRIORITY);
+                        for (String loopCls : loop) {
+                            bug.addClass(loopCls);
+                        }
+                        bugReporter.reportBug(bug);
+                    }
+                    pruneLeaves = removeLoopLinks(loop);
+                } else {
+                    dependencyGraph.remove(className);
+                    pruneLeaves = true;
+                }
+                if (pruneLeaves) {
+                    removeDependencyLeaves();
                 }
-                bugReporter.reportBug(bug);
-                pruneLeaves = removeLoopLinks(loop);
-            } else {
-                dependencyGraph.remove(className);
-                pruneLeaves = true;
             }
-            if (pruneLeaves) {
-                removeDependencyLeaves();
+
+            dependencyGraph = new HashMap<>();
+            sliceClasses.clear();
+        } finally {
+            span.finish();
+        }
+    }
+
+    /**
+     * returns whether a loop should be reported, which it is when any of its classes is in scope, so that a change to any class of a cycle reports it
+     *
+     * @param loop
+     *            the classes of the loop
+     * @return whether any class of the loop is in scope
+     */
+    private static boolean isInScope(Set<String> loop) {
+        for (String loopCls : loop) {
+            if (!AnalysisScope.skipReport(loopCls)) {
+                return true;
             }
         }
+        return false;
+    }
 
-        dependencyGraph.clear();
+    private static void addSorted(Map<String, Set<String>> sortedGraph, Map<String, Set<String>> graph) {
+        for (Map.Entry<String, Set<String>> entry : graph.entrySet()) {
+            Set<String> dependencies = sortedGraph.get(entry.getKey());
+            if (dependencies == null) {
+                dependencies = new TreeSet<>();
+                sortedGraph.put(entry.getKey(), dependencies);
+            }
+            dependencies.addAll(entry.getValue());
+        }
     }
 
     private boolean isStaticChild(String child, String parent) {
@@ -31,13 +31,12 @@ import com.mebigfatguy.fbcontrib.utils.Values;
 
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 
 /**
  * looks for methods that use floating point indexes for loops. Since floating point math is inprecise, rounding errors will occur each time through the loop
  * causing hard to find problems. It is usually better to use integer indexing, and calculating the correct floating point value from the index.
  */
-public class FloatingPointLoops extends BytecodeScanningDetector {
+public class FloatingPointLoops extends ScopedBytecodeScanningDetector {
     enum State {
         SAW_LOAD, SAW_CMPX, SAW_IFX, SAW_STORE
     }
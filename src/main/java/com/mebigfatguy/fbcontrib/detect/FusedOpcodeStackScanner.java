@@ -0,0 +1,266 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.Method;
+
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.DetectorEvents;
+import com.mebigfatguy.fbcontrib.utils.StopOpcodeParsingException;
+
+import edu.umd.cs.findbugs.OpcodeStack;
+import edu.umd.cs.findbugs.ba.AnalysisContext;
+import edu.umd.cs.findbugs.ba.ClassContext;
+import edu.umd.cs.findbugs.bcel.OpcodeStackDetector;
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+
+/**
+ * drives all {@link FusibleOpcodeStackDetector}s of an analysis pass over a class with one walk of each method's bytecode, and one shared OpcodeStack. This is
+ * not a registered detector; fusible detectors enlist with the scanner of their thread when constructed, and the first of them to visit a class has the
+ * scanner scan it for all of them.
+ */
+final class FusedOpcodeStackScanner extends OpcodeStackDetector {
+
+    static final String FUSED_PROPERTY = "fb-contrib.fused";
+
+    private static final ThreadLocal<FusedOpcodeStackScanner> threadScanner = new ThreadLocal<>();
+
+    private final List<FusibleOpcodeStackDetector> participants = new ArrayList<>();
+    private final List<FusibleOpcodeStackDetector> classParticipants = new ArrayList<>();
+    private final List<FusibleOpcodeStackDetector> methodParticipants = new ArrayList<>();
+    private ClassDescriptor scannedClass;
+    private OpcodeStack boundStack;
+
+    /**
+     * adds a detector to the scanner of the current thread, if fusing is enabled
+     *
+     * @param detector
+     *            the newly constructed fusible detector
+     */
+    static void enlist(FusibleOpcodeStackDetector detector) {
+        if (!Boolean.getBoolean(FUSED_PROPERTY)) {
+            return;
+        }
+
+        FusedOpcodeStackScanner scanner = threadScanner.get();
+        if (scanner == null) {
+            scanner = new FusedOpcodeStackScanner();
+            threadScanner.set(scanner);
+        }
+        scanner.participants.add(detector);
+    }
+
+    /**
+     * returns the scanner that drives a detector, if any
+     *
+     * @param detector
+     *            the fusible detector
+     * @return the scanner of this thread if the detector is enlisted with it, otherwise null
+     */
+    static FusedOpcodeStackScanner getScanner(FusibleOpcodeStackDetector detector) {
+        FusedOpcodeStackScanner scanner = threadScanner.get();
+        return ((scanner != null) && scanner.participants.contains(detector)) ? scanner : null;
+    }
+
+    /**
+     * removes a detector from the scanner of this thread, once it has finished its pass
+     *
+     * @param detector
+     *            the fusible detector that is reporting
+     */
+    static void release(FusibleOpcodeStackDetector detector) {
+        FusedOpcodeStackScanner scanner = threadScanner.get();
+        if (scanner != null) {
+            scanner.participants.remove(detector);
+            if (scanner.participants.isEmpty()) {
+                threadScanner.remove();
+            }
+        }
+    }
+
+    /**
+     * scans a class for all enlisted detectors, unless it already has been scanned for them
+     *
+     * @param classContext
+     *            the context object of the class to scan
+     */
+    void scanClass(ClassContext classContext) {
+        ClassDescriptor descriptor = classContext.getClassDescriptor();
+        if (descriptor.equals(scannedClass)) {
+            return;
+        }
+        scannedClass = descriptor;
+
+        DetectorEvents.Span span = DetectorEvents.beginClass(this, classContext);
+        try {
+            for (FusibleOpcodeStackDetector participant : participants) {
+                participant.bind(this);
+                try {
+                    participant.startClass(classContext);
+                    classParticipants.add(participant);
+                } catch (RuntimeException e) {
+                    logFailure(participant, e);
+                }
+            }
+
+            if (!classParticipants.isEmpty()) {
+                super.visitClassContext(classContext);
+            }
+        } finally {
+            for (FusibleOpcodeStackDetector participant : participants) {
+                try {
+                    participant.endClass(classContext);
+                } catch (RuntimeException e) {
+                    logFailure(participant, e);
+                } finally {
+                    participant.bind(null);
+                }
+            }
+            classParticipants.clear();
+            methodParticipants.clear();
+            boundStack = null;
+            span.finish();
+        }
+    }
+
+    /**
+     * overrides the visitor to leave out methods that are out of the analysis scope, such as those a change doesn't touch
+     *
+     * @param method
+     *            the method about to be visited
+     */
+    @Override
+    public void doVisitMethod(Method method) {
+        if (!AnalysisScope.skipMethod(getClassContext(), method)) {
+            DetectorEvents.Span span = DetectorEvents.beginMethod(this, getClassName(), method);
+            try {
+                super.doVisitMethod(method);
+            } finally {
+                span.finish();
+            }
+        }
+    }
+
+    /**
+     * implements the visitor to pass the method on to each participant
+     *
+     * @param obj
+     *            the currently parsed method
+     */
+    @Override
+    public void visitMethod(Method obj) {
+        for (int i = classParticipants.size() - 1; i >= 0; i--) {
+            FusibleOpcodeStackDetector participant = classParticipants.get(i);
+            try {
+                participant.visitMethod(obj);
+            } catch (RuntimeException e) {
+                logFailure(participant, e);
+                classParticipants.remove(i);
+            }
+        }
+    }
+
+    /**
+     * implements the visitor to collect the participants that want to see this code, and to skip the walk when there are none
+     *
+     * @param obj
+     *            the code block of the currently parsed method
+     * @return whether any participant wants to see this code
+     */
+    @Override
+    public boolean shouldVisitCode(Code obj) {
+        methodParticipants.clear();
+        for (int i = classParticipants.size() - 1; i >= 0; i--) {
+            FusibleOpcodeStackDetector participant = classParticipants.get(i);
+            try {
+                if (participant.shouldVisitCode(obj)) {
+                    methodParticipants.add(0, participant);
+                }
+            } catch (RuntimeException e) {
+                logFailure(participant, e);
+                classParticipants.remove(i);
+            }
+        }
+        return !methodParticipants.isEmpty();
+    }
+
+    /**
+     * overrides the visitor to stop the walk once no participant is interested in the rest of the method
+     *
+     * @param obj
+     *            the code block of the currently parsed method
+     */
+    @Override
+    public void visit(Code obj) {
+        try {
+            super.visit(obj);
+        } catch (StopOpcodeParsingException e) {
+            // no participants left for this method
+        }
+    }
+
+    /**
+     * implements the visitor to hand the opcode to each participant that is still scanning this method
+     *
+     * @param seen
+     *            the currently parsed opcode
+     */
+    @Override
+    public void sawOpcode(int seen) {
+        if (stack != boundStack) {
+            boundStack = stack;
+            for (FusibleOpcodeStackDetector participant : classParticipants) {
+                participant.setSharedStack(stack);
+            }
+        }
+
+        for (int i = 0; i < methodParticipants.size(); i++) {
+            FusibleOpcodeStackDetector participant = methodParticipants.get(i);
+            try {
+                participant.sawOpcode(seen);
+            } catch (StopOpcodeParsingException e) {
+                methodParticipants.remove(i--);
+            } catch (RuntimeException e) {
+                logFailure(participant, e);
+                methodParticipants.remove(i--);
+                classParticipants.remove(participant);
+            }
+        }
+
+        if (methodParticipants.isEmpty()) {
+            throw new StopOpcodeParsingException();
+        }
+    }
+
+    /**
+     * records a participant failure the way FindBugs records a failing detector; the participant is dropped for the rest of the class
+     *
+     * @param participant
+     *            the detector that failed
+     * @param e
+     *            the failure
+     */
+    private void logFailure(FusibleOpcodeStackDetector participant, RuntimeException e) {
+        AnalysisContext.logError("Exception analyzing " + scannedClass.toDottedClassName() + " using detector " + participant.getClass().getName(), e);
+    }
+}
@@ -0,0 +1,482 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import java.util.Set;
+
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.CodeException;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.DetectorEvents;
+
+import edu.umd.cs.findbugs.OpcodeStack;
+import edu.umd.cs.findbugs.ba.ClassContext;
+import edu.umd.cs.findbugs.ba.XClass;
+import edu.umd.cs.findbugs.ba.XField;
+import edu.umd.cs.findbugs.ba.XMethod;
+import edu.umd.cs.findbugs.bcel.OpcodeStackDetector;
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+import edu.umd.cs.findbugs.classfile.FieldDescriptor;
+import edu.umd.cs.findbugs.classfile.MethodDescriptor;
+
+/**
+ * a base class for OpcodeStackDetectors that only read the opcode stack, and so can share one stack simulation with other such detectors. By default this
+ * behaves exactly as an OpcodeStackDetector. When the system property fb-contrib.fused is true, all fusible detectors of an analysis pass are driven by one
+ * {@link FusedOpcodeStackScanner}, that walks each method once, and calls each detector's sawOpcode in turn. While being driven, the visitor state getters of
+ * this detector answer for the shared walk, and the stack field refers to the shared stack.
+ * <p>
+ * In fused mode a detector only sees {@link #startClass(ClassContext)}, {@link #visitMethod(Method)}, {@link #shouldVisitCode(Code)}, {@link #sawOpcode(int)}
+ * and {@link #endClass(ClassContext)}, so per class and per method state must be set up there, and not in visitClassContext, visitCode or visit(Code).
+ * Fusible detectors must not keep user values on stack items, as the items are shared, and the stack drops a user value where two paths that disagree on
+ * any detector's value meet. Detectors annotated with CustomUserValue are never fused, as they need their own jump info.
+ */
+public abstract class FusibleOpcodeStackDetector extends OpcodeStackDetector {
+
+    private FusedOpcodeStackScanner driver;
+
+    /**
+     * constructs a fusible detector, enlisting it with this thread's scanner when fusing is enabled
+     */
+    protected FusibleOpcodeStackDetector() {
+        if (!isUsingCustomUserValue()) {
+            FusedOpcodeStackScanner.enlist(this);
+        }
+    }
+
+    /**
+     * implements the visitor to either scan the class standalone, or to have the shared scanner scan it once for all enlisted detectors
+     *
+     * @param classContext
+     *            the context object of the currently parsed class
+     */
+    @Override
+    public final void visitClassContext(ClassContext classContext) {
+        FusedOpcodeStackScanner scanner = FusedOpcodeStackScanner.getScanner(this);
+        if (scanner != null) {
+            if (!AnalysisScope.skipClass(classContext)) {
+                scanner.scanClass(classContext);
+            }
+            return;
+        }
+
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                startClass(classContext);
+                super.visitClassContext(classContext);
+            } finally {
+                endClass(classContext);
+            }
+        });
+    }
+
+    /**
+     * overrides the visitor to leave out methods that are out of the analysis scope, such as those a change doesn't touch
+     *
+     * @param method
+     *            the method about to be visited
+     */
+    @Override
+    public void doVisitMethod(Method method) {
+        if (!AnalysisScope.skipMethod(getClassContext(), method)) {
+            DetectorEvents.Span span = DetectorEvents.beginMethod(this, getClassName(), method);
+            try {
+                super.doVisitMethod(method);
+            } finally {
+                span.finish();
+            }
+        }
+    }
+
+    /**
+     * called before any method of a class is scanned
+     *
+     * @param classContext
+     *            the context object of the class about to be scanned
+     */
+    protected void startClass(ClassContext classContext) {
+        // default does nothing
+    }
+
+    /**
+     * called after all methods of a class have been scanned, even if the scan failed
+     *
+     * @param classContext
+     *            the context object of the class that was scanned
+     */
+    protected void endClass(ClassContext classContext) {
+        // default does nothing
+    }
+
+    /**
+     * implements the detector to release this detector from the shared scanner. Subclasses that override this must call super.report().
+     */
+    @Override
+    public void report() {
+        FusedOpcodeStackScanner.release(this);
+    }
+
+    /**
+     * binds this detector to the shared scanner for the duration of a fused class scan
+     *
+     * @param scanner
+     *            the scanner driving this detector, or null to unbind
+     */
+    void bind(FusedOpcodeStackScanner scanner) {
+        driver = scanner;
+        if (scanner == null) {
+            stack = null;
+        }
+    }
+
+    /**
+     * points this detector at the shared stack of the method being scanned
+     *
+     * @param sharedStack
+     *            the stack of the shared scanner
+     */
+    void setSharedStack(OpcodeStack sharedStack) {
+        stack = sharedStack;
+    }
+
+    @Override
+    public ClassDescriptor getClassDescriptorOperand() {
+        return (driver == null) ? super.getClassDescriptorOperand() : driver.getClassDescriptorOperand();
+    }
+
+    @Override
+    public XClass getXClassOperand() {
+        return (driver == null) ? super.getXClassOperand() : driver.getXClassOperand();
+    }
+
+    @Override
+    public boolean isMethodCall() {
+        return (driver == null) ? super.isMethodCall() : driver.isMethodCall();
+    }
+
+    @Override
+    public MethodDescriptor getMethodDescriptorOperand() {
+        return (driver == null) ? super.getMethodDescriptorOperand() : driver.getMethodDescriptorOperand();
+    }
+
+    @Override
+    public XMethod getXMethodOperand() {
+        return (driver == null) ? super.getXMethodOperand() : driver.getXMethodOperand();
+    }
+
+    @Override
+    public FieldDescriptor getFieldDescriptorOperand() {
+        return (driver == null) ? super.getFieldDescriptorOperand() : driver.getFieldDescriptorOperand();
+    }
+
+    @Override
+    public XField getXFieldOperand() {
+        return (driver == null) ? super.getXFieldOperand() : driver.getXFieldOperand();
+    }
+
+    @Override
+    public String getDottedClassConstantOperand() {
+        return (driver == null) ? super.getDottedClassConstantOperand() : driver.getDottedClassConstantOperand();
+    }
+
+    @Override
+    @Deprecated
+    public String getRefConstantOperand() {
+        return (driver == null) ? super.getRefConstantOperand() : driver.getRefConstantOperand();
+    }
+
+    @Override
+    public String getNameConstantOperand() {
+        return (driver == null) ? super.getNameConstantOperand() : driver.getNameConstantOperand();
+    }
+
+    @Override
+    public String getSigConstantOperand() {
+        return (driver == null) ? super.getSigConstantOperand() : driver.getSigConstantOperand();
+    }
+
+    @Override
+    public String getClassConstantOperand() {
+        return (driver == null) ? super.getClassConstantOperand() : driver.getClassConstantOperand();
+    }
+
+    @Override
+    public String getStringConstantOperand() {
+        return (driver == null) ? super.getStringConstantOperand() : driver.getStringConstantOperand();
+    }
+
+    @Override
+    public Constant getConstantRefOperand() {
+        return (driver == null) ? super.getConstantRefOperand() : driver.getConstantRefOperand();
+    }
+
+    @Override
+    public boolean isRegisterLoad() {
+        return (driver == null) ? super.isRegisterLoad() : driver.isRegisterLoad();
+    }
+
+    @Override
+    public boolean isRegisterStore() {
+        return (driver == null) ? super.isRegisterStore() : driver.isRegisterStore();
+    }
+
+    @Override
+    public int getRegisterOperand() {
+        return (driver == null) ? super.getRegisterOperand() : driver.getRegisterOperand();
+    }
+
+    @Override
+    public int getIntConstant() {
+        return (driver == null) ? super.getIntConstant() : driver.getIntConstant();
+    }
+
+    @Override
+    public long getLongConstant() {
+        return (driver == null) ? super.getLongConstant() : driver.getLongConstant();
+    }
+
+    @Override
+    public int getBranchOffset() {
+        return (driver == null) ? super.getBranchOffset() : driver.getBranchOffset();
+    }
+
+    @Override
+    public int getBranchTarget() {
+        return (driver == null) ? super.getBranchTarget() : driver.getBranchTarget();
+    }
+
+    @Override
+    public int getBranchFallThrough() {
+        return (driver == null) ? super.getBranchFallThrough() : driver.getBranchFallThrough();
+    }
+
+    @Override
+    public int getDefaultSwitchOffset() {
+        return (driver == null) ? super.getDefaultSwitchOffset() : driver.getDefaultSwitchOffset();
+    }
+
+    @Override
+    public boolean getRefFieldIsStatic() {
+        return (driver == null) ? super.getRefFieldIsStatic() : driver.getRefFieldIsStatic();
+    }
+
+    @Override
+    public int getPC() {
+        return (driver == null) ? super.getPC() : driver.getPC();
+    }
+
+    @Override
+    public int getPrevOpcode(int offset) {
+        return (driver == null) ? super.getPrevOpcode(offset) : driver.getPrevOpcode(offset);
+    }
+
+    @Override
+    public boolean isWideOpcode() {
+        return (driver == null) ? super.isWideOpcode() : driver.isWideOpcode();
+    }
+
+    @Override
+    public int[] getSwitchOffsets() {
+        return (driver == null) ? super.getSwitchOffsets() : driver.getSwitchOffsets();
+    }
+
+    @Override
+    public int[] getSwitchLabels() {
+        return (driver == null) ? super.getSwitchLabels() : driver.getSwitchLabels();
+    }
+
+    @Override
+    public int getMaxPC() {
+        return (driver == null) ? super.getMaxPC() : driver.getMaxPC();
+    }
+
+    @Override
+    public int getCodeByte(int offset) {
+        return (driver == null) ? super.getCodeByte(offset) : driver.getCodeByte(offset);
+    }
+
+    @Override
+    public int getOpcode() {
+        return (driver == null) ? super.getOpcode() : driver.getOpcode();
+    }
+
+    @Override
+    public boolean atCatchBlock() {
+        return (driver == null) ? super.atCatchBlock() : driver.atCatchBlock();
+    }
+
+    @Override
+    public int getNextPC() {
+        return (driver == null) ? super.getNextPC() : driver.getNextPC();
+    }
+
+    @Override
+    public int getNextOpcode() {
+        return (driver == null) ? super.getNextOpcode() : driver.getNextOpcode();
+    }
+
+    @Override
+    public int getNextCodeByte(int offset) {
+        return (driver == null) ? super.getNextCodeByte(offset) : driver.getNextCodeByte(offset);
+    }
+
+    @Override
+    public Code getCode() {
+        return (driver == null) ? super.getCode() : driver.getCode();
+    }
+
+    @Override
+    public Set<String> getSurroundingCaughtExceptions(int pc) {
+        return (driver == null) ? super.getSurroundingCaughtExceptions(pc) : driver.getSurroundingCaughtExceptions(pc);
+    }
+
+    @Override
+    public Set<String> getSurroundingCaughtExceptions(int pc, int maxTryBlockSize) {
+        return (driver == null) ? super.getSurroundingCaughtExceptions(pc, maxTryBlockSize) : driver.getSurroundingCaughtExceptions(pc, maxTryBlockSize);
+    }
+
+    @Override
+    public int getSizeOfSurroundingTryBlock(int pc) {
+        return (driver == null) ? super.getSizeOfSurroundingTryBlock(pc) : driver.getSizeOfSurroundingTryBlock(pc);
+    }
+
+    @Override
+    public int getSizeOfSurroundingTryBlock(String vmNameOfExceptionClass, int pc) {
+        return (driver == null) ? super.getSizeOfSurroundingTryBlock(vmNameOfExceptionClass, pc) : driver.getSizeOfSurroundingTryBlock(vmNameOfExceptionClass, pc);
+    }
+
+    @Override
+    public CodeException getSurroundingTryBlock(int pc) {
+        return (driver == null) ? super.getSurroundingTryBlock(pc) : driver.getSurroundingTryBlock(pc);
+    }
+
+    @Override
+    public CodeException getSurroundingTryBlock(String vmNameOfExceptionClass, int pc) {
+        return (driver == null) ? super.getSurroundingTryBlock(vmNameOfExceptionClass, pc) : driver.getSurroundingTryBlock(vmNameOfExceptionClass, pc);
+    }
+
+    @Override
+    public boolean amVisitingMainMethod() {
+        return (driver == null) ? super.amVisitingMainMethod() : driver.amVisitingMainMethod();
+    }
+
+    @Override
+    public XClass getXClass() {
+        return (driver == null) ? super.getXClass() : driver.getXClass();
+    }
+
+    @Override
+    public ClassDescriptor getClassDescriptor() {
+        return (driver == null) ? super.getClassDescriptor() : driver.getClassDescriptor();
+    }
+
+    @Override
+    public XMethod getXMethod() {
+        return (driver == null) ? super.getXMethod() : driver.getXMethod();
+    }
+
+    @Override
+    public MethodDescriptor getMethodDescriptor() {
+        return (driver == null) ? super.getMethodDescriptor() : driver.getMethodDescriptor();
+    }
+
+    @Override
+    public ConstantPool getConstantPool() {
+        return (driver == null) ? super.getConstantPool() : driver.getConstantPool();
+    }
+
+    @Override
+    public String getClassName() {
+        return (driver == null) ? super.getClassName() : driver.getClassName();
+    }
+
+    @Override
+    public String getDottedClassName() {
+        return (driver == null) ? super.getDottedClassName() : driver.getDottedClassName();
+    }
+
+    @Override
+    public String getPackageName() {
+        return (driver == null) ? super.getPackageName() : driver.getPackageName();
+    }
+
+    @Override
+    public String getSourceFile() {
+        return (driver == null) ? super.getSourceFile() : driver.getSourceFile();
+    }
+
+    @Override
+    public String getSuperclassName() {
+        return (driver == null) ? super.getSuperclassName() : driver.getSuperclassName();
+    }
+
+    @Override
+    public String getDottedSuperclassName() {
+        return (driver == null) ? super.getDottedSuperclassName() : driver.getDottedSuperclassName();
+    }
+
+    @Override
+    public JavaClass getThisClass() {
+        return (driver == null) ? super.getThisClass() : driver.getThisClass();
+    }
+
+    @Override
+    public String getFullyQualifiedMethodName() {
+        return (driver == null) ? super.getFullyQualifiedMethodName() : driver.getFullyQualifiedMethodName();
+    }
+
+    @Override
+    public boolean visitingMethod() {
+        return (driver == null) ? super.visitingMethod() : driver.visitingMethod();
+    }
+
+    @Override
+    public Method getMethod() {
+        return (driver == null) ? super.getMethod() : driver.getMethod();
+    }
+
+    @Override
+    public String getMethodName() {
+        return (driver == null) ? super.getMethodName() : driver.getMethodName();
+    }
+
+    @Override
+    public int getNumberMethodArguments() {
+        return (driver == null) ? super.getNumberMethodArguments() : driver.getNumberMethodArguments();
+    }
+
+    @Override
+    public String getMethodSig() {
+        return (driver == null) ? super.getMethodSig() : driver.getMethodSig();
+    }
+
+    @Override
+    public String getDottedMethodSig() {
+        return (driver == null) ? super.getDottedMethodSig() : driver.getDottedMethodSig();
+    }
+
+    @Override
+    public ClassContext getClassContext() {
+        return (driver == null) ? super.getClassContext() : driver.getClassContext();
+    }
+}
@@ -32,6 +32,7 @@ import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.ToString;
@@ -84,24 +85,25 @@ public class HangingExecutors extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        localHEDetector.visitClassContext(classContext);
-        try {
-            hangingFieldCandidates = new HashMap<>();
-            exemptExecutors = new HashMap<>();
-            parseFieldsForHangingCandidates(classContext);
-
-            if (!hangingFieldCandidates.isEmpty()) {
-                stack = new OpcodeStack();
-                super.visitClassContext(classContext);
-
-                reportHangingExecutorFieldBugs();
+        AnalysisScope.visitClass(this, classContext, () -> {
+            localHEDetector.visitClassContext(classContext);
+            try {
+                hangingFieldCandidates = new HashMap<>();
+                exemptExecutors = new HashMap<>();
+                parseFieldsForHangingCandidates(classContext);
+
+                if (!hangingFieldCandidates.isEmpty()) {
+                    stack = new OpcodeStack();
+                    super.visitClassContext(classContext);
+
+                    reportHangingExecutorFieldBugs();
+                }
+            } finally {
+                stack = null;
+                hangingFieldCandidates = null;
+                exemptExecutors = null;
             }
-        } finally {
-            stack = null;
-            hangingFieldCandidates = null;
-            exemptExecutors = null;
-        }
-
+        });
     }
 
     private void parseFieldsForHangingCandidates(ClassContext classContext) {
@@ -25,8 +25,11 @@ import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.ResultCache;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -83,7 +86,7 @@ public class IOIssues extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public IOIssues(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = ResultCache.wrap(this, HotMethods.wrap(bugReporter));
 
         try {
             readerClass = Repository.lookupClass("java.io.Reader");
@@ -101,14 +104,20 @@ public class IOIssues extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext clsContext) {
+        AnalysisScope.visitClass(this, clsContext, () -> {
+            if (ResultCache.replay(bugReporter, clsContext)) {
+                return;
+            }
 
-        try {
-            stack = new OpcodeStack();
-            clsVersion = clsContext.getJavaClass().getMajor();
-            super.visitClassContext(clsContext);
-        } finally {
-            stack = null;
-        }
+            try {
+                stack = new OpcodeStack();
+                clsVersion = clsContext.getJavaClass().getMajor();
+                super.visitClassContext(clsContext);
+                ResultCache.store(bugReporter);
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     /**
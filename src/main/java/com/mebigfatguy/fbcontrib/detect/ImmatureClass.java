@@ -13,6 +13,7 @@ import org.apache.bcel.classfile.LocalVariableTable;
 import org.apache.bcel.classfile.Method;
 
 import com.mebigfatguy.fbcontrib.collect.Statistics;
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -58,86 +59,88 @@ public class ImmatureClass extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        JavaClass cls = classContext.getJavaClass();
-        fieldStatus = FieldStatus.NONE;
+        AnalysisScope.visitClass(this, classContext, () -> {
+            JavaClass cls = classContext.getJavaClass();
+            fieldStatus = FieldStatus.NONE;
 
-        String packageName = cls.getPackageName();
-        if (packageName.isEmpty()) {
-            bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_NO_PACKAGE.name(), LOW_PRIORITY).addClass(cls));
-        }
+            String packageName = cls.getPackageName();
+            if (packageName.isEmpty()) {
+                bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_NO_PACKAGE.name(), LOW_PRIORITY).addClass(cls));
+            }
 
-        if (!packageName.equals(packageName.toLowerCase(Locale.ENGLISH))) {
-            bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_UPPER_PACKAGE.name(), LOW_PRIORITY).addClass(cls));
-        }
+            if (!packageName.equals(packageName.toLowerCase(Locale.ENGLISH))) {
+                bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_UPPER_PACKAGE.name(), LOW_PRIORITY).addClass(cls));
+            }
 
-        String simpleClassName = cls.getClassName();
-        int dotPos = simpleClassName.lastIndexOf('.');
-        if (dotPos >= 0) {
-            simpleClassName = simpleClassName.substring(dotPos + 1);
-        }
-        if (!Character.isUpperCase(simpleClassName.charAt(0)) && !simpleClassName.contains("$") && !PACKAGE_INFO.equals(simpleClassName)) {
-            bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_LOWER_CLASS.name(), LOW_PRIORITY).addClass(cls));
-        }
+            String simpleClassName = cls.getClassName();
+            int dotPos = simpleClassName.lastIndexOf('.');
+            if (dotPos >= 0) {
+                simpleClassName = simpleClassName.substring(dotPos + 1);
+            }
+            if (!Character.isUpperCase(simpleClassName.charAt(0)) && !simpleClassName.contains("$") && !PACKAGE_INFO.equals(simpleClassName)) {
+                bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_LOWER_CLASS.name(), LOW_PRIORITY).addClass(cls));
+            }
 
-        if ((!cls.isAbstract()) && (!cls.isEnum()) && !cls.getClassName().contains("$") && !isTestClass(cls)) {
+            if ((!cls.isAbstract()) && (!cls.isEnum()) && !cls.getClassName().contains("$") && !isTestClass(cls)) {
 
-            try {
-                boolean clsHasRuntimeAnnotation = classHasRuntimeVisibleAnnotation(cls);
-                if (clsHasRuntimeAnnotation) {
-                    classIsJPAEntity = classIsJPAEntity(cls);
-                } else {
-                    classIsJPAEntity = false;
-                }
-                HEStatus heStatus = HEStatus.UNKNOWN;
+                try {
+                    boolean clsHasRuntimeAnnotation = classHasRuntimeVisibleAnnotation(cls);
+                    if (clsHasRuntimeAnnotation) {
+                        classIsJPAEntity = classIsJPAEntity(cls);
+                    } else {
+                        classIsJPAEntity = false;
+                    }
+                    HEStatus heStatus = HEStatus.UNKNOWN;
 
-                checkIDEGeneratedParmNames(cls);
+                    checkIDEGeneratedParmNames(cls);
 
-                for (Field f : cls.getFields()) {
-                    if (!f.isStatic() && !f.isSynthetic()) {
+                    for (Field f : cls.getFields()) {
+                        if (!f.isStatic() && !f.isSynthetic()) {
 
-                        boolean fieldHasRuntimeAnnotation = fieldHasRuntimeVisibleAnnotation(f);
-                        if (!fieldHasRuntimeAnnotation) {
-                            /* only report one of these, so as not to flood the report */
-                            if (!classIsJPAEntity && !hasMethodInHierarchy(cls, Values.TOSTRING, SignatureBuilder.SIG_VOID_TO_STRING)) {
-                                bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_NO_TOSTRING.name(), LOW_PRIORITY).addClass(cls));
-                                heStatus = HEStatus.NOT_NEEDED;
-                                break;
-                            }
-                            if (heStatus != HEStatus.NOT_NEEDED) {
-                                String fieldSig = f.getSignature();
-                                if (fieldSig.startsWith(Values.SIG_QUALIFIED_CLASS_PREFIX)) {
-                                    if (!fieldSig.startsWith("Ljava")) {
-                                        JavaClass fieldClass = Repository.lookupClass(SignatureUtils.trimSignature(fieldSig));
-                                        if (!hasMethodInHierarchy(fieldClass, "equals", SignatureBuilder.SIG_OBJECT_TO_BOOLEAN)) {
+                            boolean fieldHasRuntimeAnnotation = fieldHasRuntimeVisibleAnnotation(f);
+                            if (!fieldHasRuntimeAnnotation) {
+                                /* only report one of these, so as not to flood the report */
+                                if (!classIsJPAEntity && !hasMethodInHierarchy(cls, Values.TOSTRING, SignatureBuilder.SIG_VOID_TO_STRING)) {
+                                    bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_NO_TOSTRING.name(), LOW_PRIORITY).addClass(cls));
+                                    heStatus = HEStatus.NOT_NEEDED;
+                                    break;
+                                }
+                                if (heStatus != HEStatus.NOT_NEEDED) {
+                                    String fieldSig = f.getSignature();
+                                    if (fieldSig.startsWith(Values.SIG_QUALIFIED_CLASS_PREFIX)) {
+                                        if (!fieldSig.startsWith("Ljava")) {
+                                            JavaClass fieldClass = Repository.lookupClass(SignatureUtils.trimSignature(fieldSig));
+                                            if (!hasMethodInHierarchy(fieldClass, "equals", SignatureBuilder.SIG_OBJECT_TO_BOOLEAN)) {
+                                                heStatus = HEStatus.NOT_NEEDED;
+                                            }
+                                        } else if (!fieldSig.startsWith("Ljava/lang/") && !fieldSig.startsWith("Ljava/util/")) {
                                             heStatus = HEStatus.NOT_NEEDED;
                                         }
-                                    } else if (!fieldSig.startsWith("Ljava/lang/") && !fieldSig.startsWith("Ljava/util/")) {
-                                        heStatus = HEStatus.NOT_NEEDED;
+                                    } else if (!fieldSig.startsWith(Values.SIG_ARRAY_PREFIX)) {
+                                        heStatus = HEStatus.NEEDED;
                                     }
-                                } else if (!fieldSig.startsWith(Values.SIG_ARRAY_PREFIX)) {
-                                    heStatus = HEStatus.NEEDED;
                                 }
+                            } else {
+                                heStatus = HEStatus.NOT_NEEDED;
                             }
-                        } else {
-                            heStatus = HEStatus.NOT_NEEDED;
                         }
                     }
-                }
 
-                if (!clsHasRuntimeAnnotation && (heStatus == HEStatus.NEEDED)) {
-                    if (!hasMethodInHierarchy(cls, "equals", SignatureBuilder.SIG_OBJECT_TO_BOOLEAN)) {
-                        bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_NO_EQUALS.name(), LOW_PRIORITY).addClass(cls));
-                    } else if (!hasMethodInHierarchy(cls, "hashCode", SignatureBuilder.SIG_VOID_TO_INT)) {
-                        bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_NO_HASHCODE.name(), LOW_PRIORITY).addClass(cls));
+                    if (!clsHasRuntimeAnnotation && (heStatus == HEStatus.NEEDED)) {
+                        if (!hasMethodInHierarchy(cls, "equals", SignatureBuilder.SIG_OBJECT_TO_BOOLEAN)) {
+                            bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_NO_EQUALS.name(), LOW_PRIORITY).addClass(cls));
+                        } else if (!hasMethodInHierarchy(cls, "hashCode", SignatureBuilder.SIG_VOID_TO_INT)) {
+                            bugReporter.reportBug(new BugInstance(this, BugType.IMC_IMMATURE_CLASS_NO_HASHCODE.name(), LOW_PRIORITY).addClass(cls));
+                        }
                     }
-                }
 
-            } catch (ClassNotFoundException cnfe) {
-                bugReporter.reportMissingClass(cnfe);
+                } catch (ClassNotFoundException cnfe) {
+                    bugReporter.reportMissingClass(cnfe);
+                }
             }
-        }
 
-        super.visitClassContext(classContext);
+            super.visitClassContext(classContext);
+        });
     }
 
     @Override
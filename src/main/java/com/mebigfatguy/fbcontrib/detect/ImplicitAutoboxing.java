@@ -0,0 +1,526 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.Attribute;
+import org.apache.bcel.classfile.BootstrapMethod;
+import org.apache.bcel.classfile.BootstrapMethods;
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantCP;
+import org.apache.bcel.classfile.ConstantInvokeDynamic;
+import org.apache.bcel.classfile.ConstantMethodHandle;
+import org.apache.bcel.classfile.ConstantNameAndType;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.JavaClass;
+
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.LoopLocation;
+import com.mebigfatguy.fbcontrib.utils.Loops;
+import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
+import com.mebigfatguy.fbcontrib.utils.ToString;
+import com.mebigfatguy.fbcontrib.utils.Values;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.BugReporter;
+import edu.umd.cs.findbugs.BytecodeScanningDetector;
+import edu.umd.cs.findbugs.OpcodeStack;
+import edu.umd.cs.findbugs.OpcodeStack.CustomUserValue;
+import edu.umd.cs.findbugs.ba.ClassContext;
+import edu.umd.cs.findbugs.ba.XField;
+
+/**
+ * looks for implicit autoboxing that the compiler inserts on hot paths. This includes loops that repeatedly unbox and rebox values pulled from generic
+ * collections, map based counters of the form map.put(k, map.get(k) + 1), and Comparator.comparing calls whose key extractor returns a primitive, and so boxes
+ * on every comparison.
+ */
+@CustomUserValue
+public class ImplicitAutoboxing extends BytecodeScanningDetector {
+
+    /**
+     * wrapper classes whose valueOf allocates for most values. Boolean and Byte are left out, as all their values are cached.
+     */
+    private static final Map<String, String> BOXED_CLASSES = new HashMap<>();
+
+    static {
+        BOXED_CLASSES.put(Values.SLASHED_JAVA_LANG_CHARACTER, Values.SIG_PRIMITIVE_CHAR);
+        BOXED_CLASSES.put(Values.SLASHED_JAVA_LANG_SHORT, Values.SIG_PRIMITIVE_SHORT);
+        BOXED_CLASSES.put(Values.SLASHED_JAVA_LANG_INTEGER, Values.SIG_PRIMITIVE_INT);
+        BOXED_CLASSES.put(Values.SLASHED_JAVA_LANG_LONG, Values.SIG_PRIMITIVE_LONG);
+        BOXED_CLASSES.put(Values.SLASHED_JAVA_LANG_FLOAT, Values.SIG_PRIMITIVE_FLOAT);
+        BOXED_CLASSES.put(Values.SLASHED_JAVA_LANG_DOUBLE, Values.SIG_PRIMITIVE_DOUBLE);
+    }
+
+    /**
+     * opcodes that may appear between unboxing a map value and reboxing it, in a counter increment
+     */
+    private static final BitSet COUNTER_ARITHMETIC = new BitSet();
+
+    static {
+        COUNTER_ARITHMETIC.set(Const.ICONST_M1, Const.ICONST_5 + 1);
+        COUNTER_ARITHMETIC.set(Const.LCONST_0);
+        COUNTER_ARITHMETIC.set(Const.LCONST_1);
+        COUNTER_ARITHMETIC.set(Const.BIPUSH);
+        COUNTER_ARITHMETIC.set(Const.SIPUSH);
+        COUNTER_ARITHMETIC.set(Const.LDC);
+        COUNTER_ARITHMETIC.set(Const.LDC_W);
+        COUNTER_ARITHMETIC.set(Const.LDC2_W);
+        COUNTER_ARITHMETIC.set(Const.ILOAD);
+        COUNTER_ARITHMETIC.set(Const.LLOAD);
+        COUNTER_ARITHMETIC.set(Const.ILOAD_0, Const.ILOAD_3 + 1);
+        COUNTER_ARITHMETIC.set(Const.LLOAD_0, Const.LLOAD_3 + 1);
+        COUNTER_ARITHMETIC.set(Const.IADD);
+        COUNTER_ARITHMETIC.set(Const.LADD);
+        COUNTER_ARITHMETIC.set(Const.ISUB);
+        COUNTER_ARITHMETIC.set(Const.LSUB);
+        COUNTER_ARITHMETIC.set(Const.I2L);
+    }
+
+    private static final String SIG_FUNCTION_TO_COMPARATOR = "(Ljava/util/function/Function;)Ljava/util/Comparator;";
+    private static final String SIG_MAP_GET = "(Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final String SIG_MAP_GET_OR_DEFAULT = "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final String SIG_MAP_PUT = "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;";
+
+    enum PrimitiveKey {
+        INT("Int"), LONG("Long"), DOUBLE("Double");
+
+        private final String suffix;
+
+        PrimitiveKey(String suffix) {
+            this.suffix = suffix;
+        }
+
+        String getSuffix() {
+            return suffix;
+        }
+    };
+
+    private static final Map<String, PrimitiveKey> PRIMITIVE_KEYS = new HashMap<>();
+
+    static {
+        PRIMITIVE_KEYS.put(Values.SIG_PRIMITIVE_INT, PrimitiveKey.INT);
+        PRIMITIVE_KEYS.put(Values.SIG_PRIMITIVE_SHORT, PrimitiveKey.INT);
+        PRIMITIVE_KEYS.put(Values.SIG_PRIMITIVE_CHAR, PrimitiveKey.INT);
+        PRIMITIVE_KEYS.put(Values.SIG_PRIMITIVE_BYTE, PrimitiveKey.INT);
+        PRIMITIVE_KEYS.put(Values.SIG_PRIMITIVE_LONG, PrimitiveKey.LONG);
+        PRIMITIVE_KEYS.put(Values.SIG_PRIMITIVE_FLOAT, PrimitiveKey.DOUBLE);
+        PRIMITIVE_KEYS.put(Values.SIG_PRIMITIVE_DOUBLE, PrimitiveKey.DOUBLE);
+    }
+
+    private final BugReporter bugReporter;
+    private OpcodeStack stack;
+    private JavaClass cls;
+    private BitSet boxPCs;
+    private BitSet unboxPCs;
+    private List<Integer> counterPCs;
+    private Loops loops;
+    private MapAccess pendingCounter;
+    private int pendingUnboxPC;
+
+    /**
+     * constructs a IAB detector given the reporter to report bugs on
+     *
+     * @param bugReporter
+     *            the sync of bug reports
+     */
+    public ImplicitAutoboxing(BugReporter bugReporter) {
+        this.bugReporter = HotMethods.wrap(bugReporter);
+    }
+
+    /**
+     * implements the visitor to create and tear down the opcode stack and location collections
+     *
+     * @param clsContext
+     *            the context object of the currently parsed class
+     */
+    @Override
+    public void visitClassContext(ClassContext clsContext) {
+        AnalysisScope.visitClass(this, clsContext, () -> {
+            try {
+                cls = clsContext.getJavaClass();
+                stack = new OpcodeStack();
+                boxPCs = new BitSet();
+                unboxPCs = new BitSet();
+                counterPCs = new ArrayList<>();
+                loops = new Loops();
+                super.visitClassContext(clsContext);
+            } finally {
+                cls = null;
+                stack = null;
+                boxPCs = null;
+                unboxPCs = null;
+                counterPCs = null;
+                loops = null;
+            }
+        });
+    }
+
+    /**
+     * implements the visitor to reset the opcode stack and collections, and report the map counters and the loops that box and unbox that were found
+     *
+     * @param obj
+     *            the currently parsed code block
+     */
+    @Override
+    public void visitCode(Code obj) {
+        stack.resetForMethodEntry(this);
+        boxPCs.clear();
+        unboxPCs.clear();
+        counterPCs.clear();
+        loops.clear();
+        pendingCounter = null;
+        super.visitCode(obj);
+
+        for (Integer pc : counterPCs) {
+            bugReporter.reportBug(new BugInstance(this, BugType.IAB_BOXED_MAP_COUNTER.name(), loops.isInLoop(pc.intValue()) ? HIGH_PRIORITY : NORMAL_PRIORITY)
+                    .addClass(this).addMethod(this).addSourceLine(this, pc.intValue()));
+        }
+
+        reportBoxingLoops();
+    }
+
+    /**
+     * implements the visitor to record where boxing and unboxing occurs, and to track map values and primitive key extractors through the opcode stack
+     *
+     * @param seen
+     *            the currently parsed opcode
+     */
+    @Override
+    public void sawOpcode(int seen) {
+        Object userValue = null;
+        MapAccess counter = pendingCounter;
+        pendingCounter = null;
+
+        try {
+            switch (seen) {
+                case INVOKEVIRTUAL:
+                    processUnbox();
+                    userValue = processMapCall();
+                break;
+
+                case INVOKEINTERFACE:
+                    userValue = processMapCall();
+                    if (userValue == null) {
+                        processComparing("thenComparing");
+                    }
+                break;
+
+                case INVOKESTATIC:
+                    userValue = processBox(counter);
+                    processComparing("comparing");
+                break;
+
+                case INVOKEDYNAMIC:
+                    userValue = processInvokeDynamic();
+                break;
+
+                default:
+                    loops.sawOpcode(this, seen);
+                    if (COUNTER_ARITHMETIC.get(seen)) {
+                        pendingCounter = counter;
+                    }
+                break;
+            }
+        } finally {
+            stack.sawOpcode(this, seen);
+            if ((userValue != null) && (stack.getStackDepth() > 0)) {
+                OpcodeStack.Item itm = stack.getStackItem(0);
+                itm.setUserValue(userValue);
+            }
+        }
+    }
+
+    /**
+     * records calls to xxxValue on a wrapper, and if the wrapper came out of a map, remembers it as the possible start of a counter increment
+     */
+    private void processUnbox() {
+        String clsName = getClassConstantOperand();
+        String primitiveSig = BOXED_CLASSES.get(clsName);
+        if ((primitiveSig == null) || !getNameConstantOperand().endsWith("Value") || !getSigConstantOperand().startsWith("()")) {
+            return;
+        }
+
+        unboxPCs.set(getPC());
+        if (stack.getStackDepth() > 0) {
+            OpcodeStack.Item itm = stack.getStackItem(0);
+            Object uv = itm.getUserValue();
+            if (uv instanceof MapAccess) {
+                pendingCounter = (MapAccess) uv;
+                pendingUnboxPC = getPC();
+            }
+        }
+    }
+
+    /**
+     * records calls to valueOf(primitive) on a wrapper, and marks the boxed value as a counter if it was computed directly from an unboxed map value
+     *
+     * @param counter
+     *            the map access whose value was just unboxed, or null
+     * @return the user value to place on the boxed result
+     */
+    private Object processBox(MapAccess counter) {
+        String clsName = getClassConstantOperand();
+        String primitiveSig = BOXED_CLASSES.get(clsName);
+        if ((primitiveSig == null) || !"valueOf".equals(getNameConstantOperand())) {
+            return null;
+        }
+
+        String signature = getSigConstantOperand();
+        if (!signature.equals('(' + primitiveSig + ')' + Values.SIG_QUALIFIED_CLASS_PREFIX + clsName + ';')) {
+            return null;
+        }
+
+        boxPCs.set(getPC());
+        if (counter != null) {
+            return new BoxedCounter(counter, pendingUnboxPC, getPC());
+        }
+
+        return null;
+    }
+
+    /**
+     * tags the results of Map.get and Map.getOrDefault with the map and key they were read with, and looks for put calls that store a counter computed from
+     * the same map and key
+     *
+     * @return the user value to place on the result of the call
+     */
+    private Object processMapCall() {
+        String clsName = getClassConstantOperand();
+        if (!clsName.endsWith("Map")) {
+            return null;
+        }
+
+        String methodName = getNameConstantOperand();
+        String signature = getSigConstantOperand();
+
+        if ("get".equals(methodName) && SIG_MAP_GET.equals(signature)) {
+            if (stack.getStackDepth() > 1) {
+                return new MapAccess(stack.getStackItem(1), stack.getStackItem(0));
+            }
+        } else if ("getOrDefault".equals(methodName) && SIG_MAP_GET_OR_DEFAULT.equals(signature)) {
+            if (stack.getStackDepth() > 2) {
+                return new MapAccess(stack.getStackItem(2), stack.getStackItem(1));
+            }
+        } else if ("put".equals(methodName) && SIG_MAP_PUT.equals(signature) && (stack.getStackDepth() > 2)) {
+            Object uv = stack.getStackItem(0).getUserValue();
+            if (uv instanceof BoxedCounter) {
+                BoxedCounter bc = (BoxedCounter) uv;
+                if (bc.getAccess().matches(stack.getStackItem(2), stack.getStackItem(1))) {
+                    counterPCs.add(Integer.valueOf(getPC()));
+                    unboxPCs.clear(bc.getUnboxPC());
+                    boxPCs.clear(bc.getBoxPC());
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * looks for Comparator.comparing(Function) or thenComparing(Function) where the function is a method reference that returns a primitive
+     *
+     * @param methodName
+     *            the name of the comparing method that would box the key
+     */
+    private void processComparing(String methodName) {
+        if (!Values.SLASHED_JAVA_UTIL_COMPARATOR.equals(getClassConstantOperand()) || !methodName.equals(getNameConstantOperand())
+                || !SIG_FUNCTION_TO_COMPARATOR.equals(getSigConstantOperand()) || (stack.getStackDepth() == 0)) {
+            return;
+        }
+
+        Object uv = stack.getStackItem(0).getUserValue();
+        if (uv instanceof PrimitiveKey) {
+            bugReporter.reportBug(new BugInstance(this, BugType.IAB_BOXING_COMPARATOR_KEY.name(), NORMAL_PRIORITY).addClass(this).addMethod(this)
+                    .addSourceLine(this).addString(methodName + ((PrimitiveKey) uv).getSuffix()));
+        }
+    }
+
+    /**
+     * looks for lambda metafactory calls that build a Function out of a method that returns a primitive
+     *
+     * @return the kind of primitive the function boxes, or null
+     */
+    private PrimitiveKey processInvokeDynamic() {
+        if (!"apply".equals(getNameConstantOperand()) || !getSigConstantOperand().endsWith(")Ljava/util/function/Function;")) {
+            return null;
+        }
+
+        ConstantInvokeDynamic id = (ConstantInvokeDynamic) getConstantRefOperand();
+        BootstrapMethod bm = getBootstrapMethod(id.getBootstrapMethodAttrIndex());
+        if (bm == null) {
+            return null;
+        }
+
+        ConstantPool pool = getConstantPool();
+        for (int arg : bm.getBootstrapArguments()) {
+            Constant c = pool.getConstant(arg);
+            if (c instanceof ConstantMethodHandle) {
+                Constant ref = pool.getConstant(((ConstantMethodHandle) c).getReferenceIndex());
+                if (!(ref instanceof ConstantCP)) {
+                    return null;
+                }
+                ConstantNameAndType nat = (ConstantNameAndType) pool.getConstant(((ConstantCP) ref).getNameAndTypeIndex());
+                return PRIMITIVE_KEYS.get(SignatureUtils.getReturnSignature(nat.getSignature(pool)));
+            }
+        }
+
+        return null;
+    }
+
+    private BootstrapMethod getBootstrapMethod(int bootstrapIndex) {
+        for (Attribute a : cls.getAttributes()) {
+            if (a instanceof BootstrapMethods) {
+                BootstrapMethod[] methods = ((BootstrapMethods) a).getBootstrapMethods();
+                if (bootstrapIndex < methods.length) {
+                    return methods[bootstrapIndex];
+                }
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * reports each loop that both unboxes and boxes, along with the number of box/unbox pairs it performs per iteration. Loops are processed from innermost
+     * out, so that a conversion is only counted against the tightest loop it is in.
+     */
+    private void reportBoxingLoops() {
+        if (boxPCs.isEmpty() || unboxPCs.isEmpty()) {
+            return;
+        }
+
+        for (LoopLocation loop : loops.getInnerFirst()) {
+            BitSet loopBoxes = boxPCs.get(loop.getStartPC(), loop.getEndPC() + 1);
+            BitSet loopUnboxes = unboxPCs.get(loop.getStartPC(), loop.getEndPC() + 1);
+            boxPCs.clear(loop.getStartPC(), loop.getEndPC() + 1);
+            unboxPCs.clear(loop.getStartPC(), loop.getEndPC() + 1);
+
+            int pairs = Math.min(loopBoxes.cardinality(), loopUnboxes.cardinality());
+            if (pairs > 0) {
+                bugReporter.reportBug(new BugInstance(this, BugType.IAB_BOX_UNBOX_IN_LOOP.name(), NORMAL_PRIORITY).addClass(this).addMethod(this)
+                        .addSourceLine(this, loop.getStartPC() + loopBoxes.nextSetBit(0)).addInt(pairs));
+            }
+        }
+    }
+
+    /**
+     * describes the map and key a value was read from, as the register or field holding the map, and the register or constant used as the key
+     */
+    static class MapAccess {
+        private final int mapReg;
+        private final XField mapField;
+        private final int keyReg;
+        private final Object keyConstant;
+
+        MapAccess(OpcodeStack.Item mapItem, OpcodeStack.Item keyItem) {
+            mapReg = mapItem.getRegisterNumber();
+            mapField = mapItem.getXField();
+            keyReg = keyItem.getRegisterNumber();
+            keyConstant = keyItem.getConstant();
+        }
+
+        boolean matches(OpcodeStack.Item mapItem, OpcodeStack.Item keyItem) {
+            boolean sameMap = ((mapReg >= 0) && (mapReg == mapItem.getRegisterNumber())) || ((mapField != null) && mapField.equals(mapItem.getXField()));
+            if (!sameMap) {
+                return false;
+            }
+
+            return ((keyReg >= 0) && (keyReg == keyItem.getRegisterNumber())) || ((keyConstant != null) && keyConstant.equals(keyItem.getConstant()));
+        }
+
+        @Override
+        public int hashCode() {
+            return mapReg ^ (keyReg << 8) ^ Objects.hashCode(mapField) ^ Objects.hashCode(keyConstant);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MapAccess)) {
+                return false;
+            }
+
+            MapAccess that = (MapAccess) o;
+            return (mapReg == that.mapReg) && (keyReg == that.keyReg) && Objects.equals(mapField, that.mapField)
+                    && Objects.equals(keyConstant, that.keyConstant);
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+
+    /**
+     * a wrapper that was boxed from arithmetic on an unboxed map value
+     */
+    static class BoxedCounter {
+        private final MapAccess access;
+        private final int unboxPC;
+        private final int boxPC;
+
+        BoxedCounter(MapAccess access, int unboxPC, int boxPC) {
+            this.access = access;
+            this.unboxPC = unboxPC;
+            this.boxPC = boxPC;
+        }
+
+        MapAccess getAccess() {
+            return access;
+        }
+
+        int getUnboxPC() {
+            return unboxPC;
+        }
+
+        int getBoxPC() {
+            return boxPC;
+        }
+
+        @Override
+        public int hashCode() {
+            return access.hashCode() ^ unboxPC ^ (boxPC << 16);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BoxedCounter)) {
+                return false;
+            }
+
+            BoxedCounter that = (BoxedCounter) o;
+            return (unboxPC == that.unboxPC) && (boxPC == that.boxPC) && access.equals(that.access);
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+}
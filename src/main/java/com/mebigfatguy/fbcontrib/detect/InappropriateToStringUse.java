@@ -25,6 +25,7 @@ import java.util.Set;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -94,15 +95,17 @@ public class InappropriateToStringUse extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            toStringRegisters = new HashMap<>();
-            packageName = classContext.getJavaClass().getPackageName();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            toStringRegisters = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                toStringRegisters = new HashMap<>();
+                packageName = classContext.getJavaClass().getPackageName();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                toStringRegisters = null;
+            }
+        });
     }
 
     /**
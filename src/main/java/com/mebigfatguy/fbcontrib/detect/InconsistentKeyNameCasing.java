@@ -27,6 +27,8 @@ import java.util.Map;
 
 import org.apache.bcel.classfile.Code;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.DetectorEvents;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.ToString;
@@ -91,12 +93,18 @@ public class InconsistentKeyNameCasing extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
+        if (AnalysisScope.skipCrossClass(this)) {
+            return;
         }
+
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     /**
@@ -160,28 +168,37 @@ public class InconsistentKeyNameCasing extends BytecodeScanningDetector {
      */
     @Override
     public void report() {
-        for (Map.Entry<KeyType, Map<String, Map<String, List<SourceInfo>>>> entry : parmInfo.entrySet()) {
-            KeyType type = entry.getKey();
-            Map<String, Map<String, List<SourceInfo>>> typeMap = entry.getValue();
-
-            for (Map<String, List<SourceInfo>> parmCaseInfo : typeMap.values()) {
-                if (parmCaseInfo.size() > 1) {
-                    BugInstance bi = new BugInstance(this, type.getDescription(), NORMAL_PRIORITY);
-
-                    for (Map.Entry<String, List<SourceInfo>> sourceInfos : parmCaseInfo.entrySet()) {
-                        for (SourceInfo sourceInfo : sourceInfos.getValue()) {
-                            bi.addClass(sourceInfo.clsName);
-                            bi.addMethod(sourceInfo.clsName, sourceInfo.methodName, sourceInfo.signature, sourceInfo.isStatic);
-                            bi.addSourceLine(sourceInfo.srcLine);
-                            bi.addString(sourceInfos.getKey());
+        if (AnalysisScope.skipCrossClass(this)) {
+            return;
+        }
+
+        DetectorEvents.Span span = DetectorEvents.beginReport(this);
+        try {
+            for (Map.Entry<KeyType, Map<String, Map<String, List<SourceInfo>>>> entry : parmInfo.entrySet()) {
+                KeyType type = entry.getKey();
+                Map<String, Map<String, List<SourceInfo>>> typeMap = entry.getValue();
+
+                for (Map<String, List<SourceInfo>> parmCaseInfo : typeMap.values()) {
+                    if (parmCaseInfo.size() > 1) {
+                        BugInstance bi = new BugInstance(this, type.getDescription(), NORMAL_PRIORITY);
+
+                        for (Map.Entry<String, List<SourceInfo>> sourceInfos : parmCaseInfo.entrySet()) {
+                            for (SourceInfo sourceInfo : sourceInfos.getValue()) {
+                                bi.addClass(sourceInfo.clsName);
+                                bi.addMethod(sourceInfo.clsName, sourceInfo.methodName, sourceInfo.signature, sourceInfo.isStatic);
+                                bi.addSourceLine(sourceInfo.srcLine);
+                                bi.addString(sourceInfos.getKey());
+                            }
                         }
-                    }
 
-                    bugReporter.reportBug(bi);
+                        bugReporter.reportBug(bi);
+                    }
                 }
             }
+            parmInfo.clear();
+        } finally {
+            span.finish();
         }
-        parmInfo.clear();
     }
 
     /**
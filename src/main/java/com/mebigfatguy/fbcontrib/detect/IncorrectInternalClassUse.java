@@ -25,6 +25,7 @@ import org.apache.bcel.classfile.ConstantClass;
 import org.apache.bcel.classfile.ConstantPool;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.ToString;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
@@ -97,21 +98,23 @@ public class IncorrectInternalClassUse implements Detector {
      */
     @Override
     public void visitClassContext(ClassContext context) {
-        JavaClass cls = context.getJavaClass();
-        if (!isInternal(cls.getClassName())) {
-            ConstantPool pool = cls.getConstantPool();
-            int numItems = pool.getLength();
-            for (int i = 0; i < numItems; i++) {
-                Constant c = pool.getConstant(i);
-                if (c instanceof ConstantClass) {
-                    String clsName = ((ConstantClass) c).getBytes(pool);
-                    if (isInternal(clsName)) {
-                        bugReporter.reportBug(
-                                new BugInstance(this, BugType.IICU_INCORRECT_INTERNAL_CLASS_USE.name(), NORMAL_PRIORITY).addClass(cls).addString(clsName));
+        AnalysisScope.visitClass(this, context, () -> {
+            JavaClass cls = context.getJavaClass();
+            if (!isInternal(cls.getClassName())) {
+                ConstantPool pool = cls.getConstantPool();
+                int numItems = pool.getLength();
+                for (int i = 0; i < numItems; i++) {
+                    Constant c = pool.getConstant(i);
+                    if (c instanceof ConstantClass) {
+                        String clsName = ((ConstantClass) c).getBytes(pool);
+                        if (isInternal(clsName)) {
+                            bugReporter.reportBug(
+                                    new BugInstance(this, BugType.IICU_INCORRECT_INTERNAL_CLASS_USE.name(), NORMAL_PRIORITY).addClass(cls).addString(clsName));
+                        }
                     }
                 }
             }
-        }
+        });
     }
 
     /**
@@ -18,12 +18,23 @@
  */
 package com.mebigfatguy.fbcontrib.detect;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Constant;
 import org.apache.bcel.classfile.ConstantString;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.LoopLocation;
+import com.mebigfatguy.fbcontrib.utils.Loops;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
+import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.TernaryPatcher;
@@ -39,7 +50,11 @@ import edu.umd.cs.findbugs.ba.ClassContext;
 import edu.umd.cs.findbugs.ba.XMethod;
 
 /**
- * looks for appending strings inside of calls to StringBuffer or StringBuilder append.
+ * looks for appending strings inside of calls to StringBuffer or StringBuilder append. Also looks for strings that are built up by indy string concatenation in
+ * a loop, which StringConcatenation doesn't see, and for StringBuffers or StringBuilders that are filled with fixed length pieces in a counted loop without
+ * being presized, where the needed size could have been computed up front. The builder must be allocated before the counted loop that fills it, as only then
+ * does that loop's bound give its size; this includes a builder allocated in an outer loop, such as one per row, and filled by an inner counted loop. A
+ * builder allocated and filled within a single iteration grows by that iteration's appends alone, whatever the loop's bound.
  */
 @CustomUserValue
 public class InefficientStringBuffering extends BytecodeScanningDetector {
@@ -51,6 +66,21 @@ public class InefficientStringBuffering extends BytecodeScanningDetector {
     private BugReporter bugReporter;
     private OpcodeStack stack;
     private boolean sawLDCEmpty;
+    private Loops loops;
+    /** end pcs of the loops that are controlled by a comparison against an array length or collection size */
+    private BitSet countedLoops;
+    /** forward comparison branches against an array length or collection size, target, pc */
+    private Map<Integer, Integer> intCompareBranches;
+    /** int registers that hold an array length or collection size */
+    private BitSet sizeRegisters;
+    private List<Integer> concatStores;
+    /** register, pc of the allocation of a StringBuilder that wasn't presized */
+    private Map<Integer, Integer> unsizedBuilders;
+    private List<AppendLocation> unsizedAppends;
+    private int unsizedBuilderPC;
+    /** allocation pc of the unsized StringBuilder of the last append, so that chained appends can be attributed to it, or -1 */
+    private int lastAppendAllocationPC;
+    private int concatRegister;
 
     /**
      * constructs a ISB detector given the reporter to report bugs on
@@ -59,7 +89,7 @@ public class InefficientStringBuffering extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public InefficientStringBuffering(final BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
@@ -70,16 +100,32 @@ public class InefficientStringBuffering extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                loops = new Loops();
+                countedLoops = new BitSet();
+                sizeRegisters = new BitSet();
+                intCompareBranches = new HashMap<>();
+                concatStores = new ArrayList<>();
+                unsizedBuilders = new HashMap<>();
+                unsizedAppends = new ArrayList<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                loops = null;
+                countedLoops = null;
+                sizeRegisters = null;
+                intCompareBranches = null;
+                concatStores = null;
+                unsizedBuilders = null;
+                unsizedAppends = null;
+            }
+        });
     }
 
     /**
-     * implements the visitor to create and clear the stack
+     * implements the visitor to create and clear the stack, and to report on string building done in loops
      *
      * @param obj
      *            the context object of the currently parsed code block
@@ -89,13 +135,53 @@ public class InefficientStringBuffering extends BytecodeScanningDetector {
         if (obj.getCode() != null) {
             stack.resetForMethodEntry(this);
             sawLDCEmpty = false;
+            loops.clear();
+            countedLoops.clear();
+            sizeRegisters.clear();
+            intCompareBranches.clear();
+            concatStores.clear();
+            unsizedBuilders.clear();
+            unsizedAppends.clear();
+            unsizedBuilderPC = -1;
+            lastAppendAllocationPC = -1;
+            concatRegister = -1;
             super.visitCode(obj);
+
+            for (Integer storePC : concatStores) {
+                if (loops.isInLoop(storePC.intValue())) {
+                    bugReporter.reportBug(new BugInstance(this, BugType.ISB_STRING_CONCATENATION_IN_LOOP.name(), NORMAL_PRIORITY).addClass(this).addMethod(this)
+                            .addSourceLine(this, storePC.intValue()));
+                }
+            }
+
+            // allocation pc -> whether every append to the builder in a loop is of a fixed length in a counted loop. Only loops entered after the
+            // allocation count, as the builder is started over on each pass of a loop it is allocated in
+            Map<Integer, Boolean> sizeableAllocations = new HashMap<>();
+            for (AppendLocation append : unsizedAppends) {
+                LoopLocation loop = loops.getInnermostLoop(append.appendPC);
+                if ((loop != null) && (loop.getStartPC() > append.allocationPC)) {
+                    boolean sizeable = append.fixedLength && countedLoops.get(loop.getEndPC());
+                    Boolean wasSizeable = sizeableAllocations.get(Integer.valueOf(append.allocationPC));
+                    sizeableAllocations.put(Integer.valueOf(append.allocationPC), Boolean.valueOf(sizeable && ((wasSizeable == null) || wasSizeable.booleanValue())));
+                }
+            }
+
+            for (Map.Entry<Integer, Boolean> entry : sizeableAllocations.entrySet()) {
+                if (entry.getValue().booleanValue()) {
+                    bugReporter.reportBug(new BugInstance(this, BugType.ISB_UNSIZED_BUILDER_FILLED_IN_LOOP.name(), LOW_PRIORITY).addClass(this)
+                            .addMethod(this).addSourceLine(this, entry.getKey().intValue()));
+                }
+            }
         }
     }
 
     @Override
     public void sawOpcode(final int seen) {
         ISBUserValue userValue = null;
+        int builderPC = unsizedBuilderPC;
+        unsizedBuilderPC = -1;
+        int concatReg = concatRegister;
+        concatRegister = -1;
 
         try {
             stack.precomputation(this);
@@ -108,12 +194,21 @@ public class InefficientStringBuffering extends BytecodeScanningDetector {
                 }
                 userValue = sawInvokeVirtual();
 
+            } else if (seen == INVOKEDYNAMIC) {
+                sawInvokeDynamic();
             } else if ((seen == GOTO) || (seen == GOTO_W)) {
                 int depth = stack.getStackDepth();
                 for (int i = 0; i < depth; i++) {
                     OpcodeStack.Item itm = stack.getStackItem(i);
                     itm.setUserValue(null);
                 }
+                sawBranch(seen);
+            } else if (OpcodeUtils.isBranch(seen)) {
+                sawBranch(seen);
+            } else if (OpcodeUtils.isAStore(seen)) {
+                sawAStore(seen, builderPC, concatReg);
+            } else if (OpcodeUtils.isIStore(seen)) {
+                sizeRegisters.set(RegisterUtils.getStoreReg(this, seen), (stack.getStackDepth() > 0) && isSize(stack.getStackItem(0)));
             } else if ((seen == LDC) || (seen == LDC_W)) {
                 Constant c = getConstantRefOperand();
                 if (c instanceof ConstantString) {
@@ -150,6 +245,12 @@ public class InefficientStringBuffering extends BytecodeScanningDetector {
                 OpcodeStack.Item itm = getStringBufferItemAt(1);
                 if (itm != null) {
                     userValue = (ISBUserValue) itm.getUserValue();
+
+                    int allocationPC = getUnsizedAllocationPC(itm);
+                    if (allocationPC >= 0) {
+                        unsizedAppends.add(new AppendLocation(allocationPC, getPC(), isFixedLengthAppend()));
+                    }
+                    lastAppendAllocationPC = allocationPC;
                 }
 
                 if (stack.getStackDepth() > 0) {
@@ -228,6 +329,8 @@ public class InefficientStringBuffering extends BytecodeScanningDetector {
                 OpcodeStack.Item itm = getStringBufferItemAt(2);
                 if (itm != null) {
                     userValue = new ISBUserValue(AppendType.NESTED);
+                } else {
+                    unsizedBuilderPC = getPC();
                 }
             } else if (SignatureBuilder.SIG_STRING_TO_VOID.equals(signature) && (stack.getStackDepth() > 0)) {
                 OpcodeStack.Item itm = stack.getStackItem(0);
@@ -250,6 +353,130 @@ public class InefficientStringBuffering extends BytecodeScanningDetector {
         return userValue;
     }
 
+    /**
+     * returns where the unsized StringBuilder that is appended to was allocated, either as it was loaded from its register, or as it was returned by a
+     * previous append to it, as in sb.append(a).append(b)
+     *
+     * @param itm
+     *            the StringBuilder that is appended to
+     * @return the pc of the allocation, or -1 if the builder isn't a known unsized one
+     */
+    private int getUnsizedAllocationPC(OpcodeStack.Item itm) {
+        int reg = itm.getRegisterNumber();
+        if (reg >= 0) {
+            Integer allocationPC = unsizedBuilders.get(Integer.valueOf(reg));
+            return (allocationPC == null) ? -1 : allocationPC.intValue();
+        }
+
+        XMethod m = itm.getReturnValueOf();
+        if ((m != null) && "append".equals(m.getName())) {
+            return lastAppendAllocationPC;
+        }
+        return -1;
+    }
+
+    /**
+     * returns whether the current append call adds a piece of a fixed length, that is a char or a constant string
+     *
+     * @return whether the appended piece has a fixed length
+     */
+    private boolean isFixedLengthAppend() {
+        String signature = getSigConstantOperand();
+        if (signature.startsWith("(C)")) {
+            return true;
+        }
+
+        return signature.startsWith(SignatureBuilder.PARAM_STRING) && (stack.getStackDepth() > 0) && (stack.getStackItem(0).getConstant() instanceof String);
+    }
+
+    /**
+     * handles string concatenation done with indy string concat, as in s = s + x, by remembering the register of the first string concatenated, so that a store
+     * back to that register can be found. Concatenation done with StringBuilder chains is left to StringConcatenation.
+     */
+    private void sawInvokeDynamic() {
+        String methodName = getNameConstantOperand();
+        if (!"makeConcatWithConstants".equals(methodName) && !"makeConcat".equals(methodName)) {
+            return;
+        }
+
+        int numParms = SignatureUtils.getNumParameters(getSigConstantOperand());
+        if ((numParms > 0) && (stack.getStackDepth() >= numParms)) {
+            OpcodeStack.Item itm = stack.getStackItem(numParms - 1);
+            if (Values.SIG_JAVA_LANG_STRING.equals(itm.getSignature())) {
+                concatRegister = itm.getRegisterNumber();
+            }
+        }
+    }
+
+    /**
+     * returns whether an int on the stack is an array length or a collection size, and so gives a loop bound that is known before the loop is entered. An
+     * array length can only be the item just computed, as that isn't otherwise recorded on the item.
+     *
+     * @param itm
+     *            the int on the stack
+     * @return whether the int is a length or size
+     */
+    private boolean isSize(OpcodeStack.Item itm) {
+        int reg = itm.getRegisterNumber();
+        if (reg >= 0) {
+            return sizeRegisters.get(reg);
+        }
+
+        XMethod m = itm.getReturnValueOf();
+        if (m != null) {
+            return "size".equals(m.getName()) || "length".equals(m.getName());
+        }
+
+        return (itm == stack.getStackItem(0)) && (getPrevOpcode(1) == ARRAYLENGTH);
+    }
+
+    /**
+     * records loops, and the forward comparisons against a length or size that may be the tests of counted loops
+     *
+     * @param seen
+     *            the currently parsed branch opcode
+     */
+    private void sawBranch(final int seen) {
+        boolean isIntCompare = (seen >= IF_ICMPEQ) && (seen <= IF_ICMPLE) && (stack.getStackDepth() > 1)
+                && (isSize(stack.getStackItem(0)) || isSize(stack.getStackItem(1)));
+        LoopLocation loop = loops.sawOpcode(this, seen);
+        if (loop == null) {
+            if (isIntCompare) {
+                intCompareBranches.put(Integer.valueOf(getBranchTarget()), Integer.valueOf(getPC()));
+            }
+        } else if ((seen == GOTO) || (seen == GOTO_W)) {
+            Integer testPC = intCompareBranches.get(Integer.valueOf(getNextPC()));
+            if ((testPC != null) && (testPC.intValue() >= loop.getStartPC())) {
+                countedLoops.set(loop.getEndPC());
+            }
+        } else if (isIntCompare) {
+            countedLoops.set(loop.getEndPC());
+        }
+    }
+
+    /**
+     * looks for strings that are concatenated and stored back into the register they were loaded from, and for unsized StringBuilders stored to registers
+     *
+     * @param seen
+     *            the currently parsed store opcode
+     * @param builderPC
+     *            the pc of a just allocated unsized StringBuilder, or -1
+     * @param concatReg
+     *            the register of the first string of a just done indy concatenation, or -1
+     */
+    private void sawAStore(final int seen, int builderPC, int concatReg) {
+        Integer reg = Integer.valueOf(RegisterUtils.getAStoreReg(this, seen));
+        if (builderPC >= 0) {
+            unsizedBuilders.put(reg, Integer.valueOf(builderPC));
+        } else {
+            unsizedBuilders.remove(reg);
+        }
+
+        if ((concatReg >= 0) && (concatReg == reg.intValue())) {
+            concatStores.add(Integer.valueOf(getPC()));
+        }
+    }
+
     private OpcodeStack.Item getStringBufferItemAt(int depth) {
         if (stack.getStackDepth() > depth) {
             OpcodeStack.Item itm = stack.getStackItem(depth);
@@ -305,4 +532,24 @@ public class InefficientStringBuffering extends BytecodeScanningDetector {
         }
 
     }
+
+    /**
+     * holds the location of an append to an unsized StringBuilder, where that builder was allocated, and whether the appended piece has a fixed length
+     */
+    static class AppendLocation {
+        int allocationPC;
+        int appendPC;
+        boolean fixedLength;
+
+        AppendLocation(int allocPC, int appPC, boolean isFixedLength) {
+            allocationPC = allocPC;
+            appendPC = appPC;
+            fixedLength = isFixedLength;
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
 }
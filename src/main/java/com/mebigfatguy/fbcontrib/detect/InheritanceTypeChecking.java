@@ -24,6 +24,7 @@ import java.util.Set;
 
 import org.apache.bcel.classfile.Code;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -62,12 +63,14 @@ public class InheritanceTypeChecking extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            ifStatements = new HashSet<IfStatement>();
-            super.visitClassContext(classContext);
-        } finally {
-            ifStatements = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                ifStatements = new HashSet<IfStatement>();
+                super.visitClassContext(classContext);
+            } finally {
+                ifStatements = null;
+            }
+        });
     }
 
     /**
@@ -27,6 +27,7 @@ import org.apache.bcel.classfile.Method;
 import org.apache.bcel.classfile.ParameterAnnotationEntry;
 import org.apache.bcel.generic.Type;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
@@ -111,18 +112,20 @@ public class JAXRSIssues extends PreorderVisitor implements Detector {
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        JavaClass cls = classContext.getJavaClass();
-        pathOnClass = "";
-        hasClassConsumes = false;
-        for (AnnotationEntry entry : cls.getAnnotationEntries()) {
-            if ("Ljavax/ws/rs/Consumes;".equals(entry.getAnnotationType())) {
-                hasClassConsumes = true;
-            } else if ("Ljavax/ws/rs/Path;".equals(entry.getAnnotationType())) {
-                pathOnClass = getDefaultAnnotationValue(entry);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            JavaClass cls = classContext.getJavaClass();
+            pathOnClass = "";
+            hasClassConsumes = false;
+            for (AnnotationEntry entry : cls.getAnnotationEntries()) {
+                if ("Ljavax/ws/rs/Consumes;".equals(entry.getAnnotationType())) {
+                    hasClassConsumes = true;
+                } else if ("Ljavax/ws/rs/Path;".equals(entry.getAnnotationType())) {
+                    pathOnClass = getDefaultAnnotationValue(entry);
+                }
             }
-        }
 
-        cls.accept(this);
+            cls.accept(this);
+        });
     }
 
     @Override
@@ -0,0 +1,402 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.bcel.classfile.Code;
+
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.LoopLocation;
+import com.mebigfatguy.fbcontrib.utils.Loops;
+import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
+import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
+import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
+import com.mebigfatguy.fbcontrib.utils.ToString;
+import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.BugReporter;
+import edu.umd.cs.findbugs.BytecodeScanningDetector;
+import edu.umd.cs.findbugs.OpcodeStack;
+import edu.umd.cs.findbugs.OpcodeStack.CustomUserValue;
+import edu.umd.cs.findbugs.ba.ClassContext;
+
+/**
+ * looks for jdbc code that moves data a row or a statement at a time, where the driver could do it in bulk. This includes executing updates in a loop
+ * instead of batching them, preparing the same statement on every iteration of a loop, iterating result sets of unrestricted queries with the driver's
+ * default fetch size, and looking up result set columns by name for every row. It uses the statement classes of {@link SQLInLoop}.
+ */
+@CustomUserValue
+public class JDBCThroughputIssues extends BytecodeScanningDetector {
+
+    private static final String CONNECTION_CLASS = "java/sql/Connection";
+    private static final String RESULT_SET_CLASS = "java/sql/ResultSet";
+
+    private static final Set<String> UPDATE_METHODS = UnmodifiableSet.create("executeUpdate", "executeLargeUpdate");
+    private static final Set<String> PREPARE_METHODS = UnmodifiableSet.create("prepareStatement", "prepareCall");
+
+    /**
+     * clauses that bound the number of rows a query returns
+     */
+    private static final String[] ROW_LIMITING_CLAUSES = { " where ", " limit ", " fetch first ", " fetch next ", "rownum", " top " };
+
+    /**
+     * the number of columns looked up by name per row, at which the lookups are reported at normal priority
+     */
+    private static final int NORMAL_COLUMN_LOOKUPS = 5;
+
+    private final BugReporter bugReporter;
+    private OpcodeStack stack;
+    private Loops loops;
+    private List<Integer> updatePCs;
+    private BitSet batchPCs;
+    private List<PrepareCall> preparePCs;
+    private List<RowIteration> rowIterations;
+    private BitSet columnLookupPCs;
+    private Map<Integer, String> registerSQL;
+    private boolean setsFetchSize;
+
+    /**
+     * constructs a JTI detector given the reporter to report bugs on
+     *
+     * @param bugReporter
+     *            the sync of bug reports
+     */
+    public JDBCThroughputIssues(BugReporter bugReporter) {
+        this.bugReporter = HotMethods.wrap(bugReporter);
+    }
+
+    /**
+     * implements the visitor to create and tear down the opcode stack and location collections
+     *
+     * @param classContext
+     *            the context object of the currently parsed class
+     */
+    @Override
+    public void visitClassContext(ClassContext classContext) {
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                loops = new Loops();
+                updatePCs = new ArrayList<>();
+                batchPCs = new BitSet();
+                preparePCs = new ArrayList<>();
+                rowIterations = new ArrayList<>();
+                columnLookupPCs = new BitSet();
+                registerSQL = new HashMap<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                loops = null;
+                updatePCs = null;
+                batchPCs = null;
+                preparePCs = null;
+                rowIterations = null;
+                columnLookupPCs = null;
+                registerSQL = null;
+            }
+        });
+    }
+
+    /**
+     * implements the visitor to reset the opcode stack and collections, and report the jdbc calls that were found in loops
+     *
+     * @param obj
+     *            the currently parsed code block
+     */
+    @Override
+    public void visitCode(Code obj) {
+        stack.resetForMethodEntry(this);
+        loops.clear();
+        updatePCs.clear();
+        batchPCs.clear();
+        preparePCs.clear();
+        rowIterations.clear();
+        columnLookupPCs.clear();
+        registerSQL.clear();
+        setsFetchSize = false;
+        super.visitCode(obj);
+
+        if (!loops.isEmpty()) {
+            reportUpdates();
+            reportPrepares();
+            reportRowIterations();
+        }
+    }
+
+    /**
+     * implements the visitor to collect the positions of jdbc calls and loops, and to tag statements and result sets with the sql they run
+     *
+     * @param seen
+     *            the opcode of the currently parsed instruction
+     */
+    @Override
+    public void sawOpcode(int seen) {
+        String sql = null;
+        boolean tagResult = false;
+
+        try {
+            if (seen == INVOKEINTERFACE) {
+                String clsName = getClassConstantOperand();
+                String methodName = getNameConstantOperand();
+                String signature = getSigConstantOperand();
+
+                if (SQLInLoop.queryClasses.contains(clsName)) {
+                    if (UPDATE_METHODS.contains(methodName)) {
+                        updatePCs.add(Integer.valueOf(getPC()));
+                    } else if ("addBatch".equals(methodName)) {
+                        batchPCs.set(getPC());
+                    } else if ("setFetchSize".equals(methodName)) {
+                        setsFetchSize = true;
+                    } else if ("executeQuery".equals(methodName)) {
+                        sql = getSQL(signature);
+                        tagResult = true;
+                    }
+                } else if (CONNECTION_CLASS.equals(clsName)) {
+                    if (PREPARE_METHODS.contains(methodName) && signature.startsWith("(Ljava/lang/String;")) {
+                        sql = getSQLArgument(SignatureUtils.getNumParameters(signature) - 1);
+                        preparePCs.add(new PrepareCall(getPC(), sql != null));
+                        tagResult = true;
+                    }
+                } else if (RESULT_SET_CLASS.equals(clsName)) {
+                    if ("next".equals(methodName) && "()Z".equals(signature)) {
+                        rowIterations.add(new RowIteration(getPC(), getSQLArgument(0)));
+                    } else if ("setFetchSize".equals(methodName)) {
+                        setsFetchSize = true;
+                    } else if (methodName.startsWith("get") && signature.startsWith("(Ljava/lang/String;")) {
+                        columnLookupPCs.set(getPC());
+                    }
+                }
+            } else if (OpcodeUtils.isAStore(seen)) {
+                Integer reg = Integer.valueOf(RegisterUtils.getAStoreReg(this, seen));
+                String storedSQL = getSQLArgument(0);
+                if (storedSQL == null) {
+                    registerSQL.remove(reg);
+                } else {
+                    registerSQL.put(reg, storedSQL);
+                }
+            } else {
+                loops.sawOpcode(this, seen);
+            }
+        } finally {
+            stack.sawOpcode(this, seen);
+            if (tagResult && (sql != null) && (stack.getStackDepth() > 0)) {
+                stack.getStackItem(0).setUserValue(new SQLText(sql));
+            }
+        }
+    }
+
+    /**
+     * returns the sql an executeQuery call runs, either its argument, or the sql the prepared statement it is called on was prepared with
+     *
+     * @param signature
+     *            the signature of executeQuery
+     * @return the sql text, or null if it isn't known
+     */
+    private String getSQL(String signature) {
+        return getSQLArgument(signature.startsWith("(Ljava/lang/String;") ? 0 : SignatureUtils.getNumParameters(signature));
+    }
+
+    /**
+     * returns the sql text held by a stack item, as either a string constant or the tag of a statement or result set. As tags don't survive the merging of
+     * stacks at the top of loops, the sql of statements and result sets stored in registers is remembered too.
+     *
+     * @param depth
+     *            the depth of the item on the stack
+     * @return the sql text, or null if it isn't known
+     */
+    private String getSQLArgument(int depth) {
+        if (stack.getStackDepth() <= depth) {
+            return null;
+        }
+
+        OpcodeStack.Item itm = stack.getStackItem(depth);
+        Object constant = itm.getConstant();
+        if (constant instanceof String) {
+            return (String) constant;
+        }
+
+        Object uv = itm.getUserValue();
+        if (uv instanceof SQLText) {
+            return ((SQLText) uv).getSQL();
+        }
+
+        int reg = itm.getRegisterNumber();
+        return (reg >= 0) ? registerSQL.get(Integer.valueOf(reg)) : null;
+    }
+
+    /**
+     * reports updates executed in loops that don't also batch statements
+     */
+    private void reportUpdates() {
+        for (Integer pc : updatePCs) {
+            LoopLocation loop = loops.getInnermostLoop(pc.intValue());
+            if ((loop != null) && !loop.isAnyInLoop(batchPCs)) {
+                bugReporter.reportBug(new BugInstance(this, BugType.JTI_EXECUTE_UPDATE_IN_LOOP.name(), NORMAL_PRIORITY).addClass(this).addMethod(this)
+                        .addSourceLine(this, pc.intValue()));
+            }
+        }
+    }
+
+    /**
+     * reports statements prepared in loops, at normal priority when the same constant sql is prepared each time, and low when the sql is built in the loop
+     */
+    private void reportPrepares() {
+        for (PrepareCall prepare : preparePCs) {
+            if (loops.isInLoop(prepare.getPC())) {
+                bugReporter.reportBug(new BugInstance(this, BugType.JTI_PREPARE_STATEMENT_IN_LOOP.name(),
+                        prepare.isConstantSQL() ? NORMAL_PRIORITY : LOW_PRIORITY).addClass(this).addMethod(this).addSourceLine(this, prepare.getPC()));
+            }
+        }
+    }
+
+    /**
+     * reports loops over result sets that look up columns by name, and, if the method never sets a fetch size, loops over result sets. The latter are
+     * reported at normal priority only when the query is known to have no clause that limits the rows it returns.
+     */
+    private void reportRowIterations() {
+        BitSet reportedLoops = new BitSet();
+        for (RowIteration iteration : rowIterations) {
+            LoopLocation loop = loops.getInnermostLoop(iteration.getPC());
+            if ((loop == null) || reportedLoops.get(loop.getStartPC())) {
+                continue;
+            }
+            reportedLoops.set(loop.getStartPC());
+
+            int lookups = columnLookupPCs.get(loop.getStartPC(), loop.getEndPC() + 1).cardinality();
+            if (lookups > 0) {
+                bugReporter.reportBug(new BugInstance(this, BugType.JTI_COLUMN_LOOKUP_BY_NAME_IN_LOOP.name(),
+                        (lookups >= NORMAL_COLUMN_LOOKUPS) ? NORMAL_PRIORITY : LOW_PRIORITY).addClass(this).addMethod(this)
+                                .addSourceLine(this, columnLookupPCs.nextSetBit(loop.getStartPC())).addInt(lookups));
+            }
+
+            if (!setsFetchSize) {
+                String sql = iteration.getSQL();
+                int priority = ((sql != null) && !limitsRows(sql)) ? NORMAL_PRIORITY : LOW_PRIORITY;
+                BugInstance bug = new BugInstance(this, BugType.JTI_DEFAULT_FETCH_SIZE.name(), priority).addClass(this).addMethod(this).addSourceLine(this,
+                        iteration.getPC());
+                if (sql != null) {
+                    bug.addString(sql);
+                }
+                bugReporter.reportBug(bug);
+            }
+        }
+    }
+
+    private static boolean limitsRows(String sql) {
+        String normalized = ' ' + sql.toLowerCase(Locale.ENGLISH).replaceAll("\\s+", " ") + ' ';
+        for (String clause : ROW_LIMITING_CLAUSES) {
+            if (normalized.contains(clause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * the sql text a statement was prepared with, or a result set was queried with
+     */
+    static class SQLText {
+        private final String sql;
+
+        SQLText(String sql) {
+            this.sql = sql;
+        }
+
+        String getSQL() {
+            return sql;
+        }
+
+        @Override
+        public int hashCode() {
+            return sql.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof SQLText) && sql.equals(((SQLText) o).sql);
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+
+    /**
+     * a call to prepareStatement or prepareCall
+     */
+    static class PrepareCall {
+        private final int pc;
+        private final boolean constantSQL;
+
+        PrepareCall(int pc, boolean constantSQL) {
+            this.pc = pc;
+            this.constantSQL = constantSQL;
+        }
+
+        int getPC() {
+            return pc;
+        }
+
+        boolean isConstantSQL() {
+            return constantSQL;
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+
+    /**
+     * a call to ResultSet.next, with the sql the result set was queried with, if known
+     */
+    static class RowIteration {
+        private final int pc;
+        private final String sql;
+
+        RowIteration(int pc, String sql) {
+            this.pc = pc;
+            this.sql = sql;
+        }
+
+        int getPC() {
+            return pc;
+        }
+
+        String getSQL() {
+            return sql;
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Map;
 import org.apache.bcel.classfile.Method;
 import org.apache.bcel.generic.Type;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -66,11 +67,13 @@ public class JDBCVendorReliance extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        stack = new OpcodeStack();
-        jdbcLocals = new HashMap<>();
-        super.visitClassContext(classContext);
-        stack = null;
-        jdbcLocals = null;
+        AnalysisScope.visitClass(this, classContext, () -> {
+            stack = new OpcodeStack();
+            jdbcLocals = new HashMap<>();
+            super.visitClassContext(classContext);
+            stack = null;
+            jdbcLocals = null;
+        });
     }
 
     /**
@@ -36,6 +36,7 @@ import org.apache.bcel.classfile.FieldOrMethod;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
@@ -118,27 +119,29 @@ public class JPAIssues extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext clsContext) {
-        try {
-            cls = clsContext.getJavaClass();
-            catalogClass(cls);
+        AnalysisScope.visitClass(this, clsContext, () -> {
+            try {
+                cls = clsContext.getJavaClass();
+                catalogClass(cls);
 
-            if (isEntity) {
-                if (hasHCEquals && hasId && hasGeneratedValue) {
-                    bugReporter.reportBug(new BugInstance(this, BugType.JPAI_HC_EQUALS_ON_MANAGED_ENTITY.name(), LOW_PRIORITY).addClass(cls));
-                }
-                if (hasEagerOneToMany && !hasFetch) {
-                    bugReporter.reportBug(new BugInstance(this, BugType.JPAI_INEFFICIENT_EAGER_FETCH.name(), LOW_PRIORITY).addClass(cls));
+                if (isEntity) {
+                    if (hasHCEquals && hasId && hasGeneratedValue) {
+                        bugReporter.reportBug(new BugInstance(this, BugType.JPAI_HC_EQUALS_ON_MANAGED_ENTITY.name(), LOW_PRIORITY).addClass(cls));
+                    }
+                    if (hasEagerOneToMany && !hasFetch) {
+                        bugReporter.reportBug(new BugInstance(this, BugType.JPAI_INEFFICIENT_EAGER_FETCH.name(), LOW_PRIORITY).addClass(cls));
+                    }
                 }
-            }
 
-            if (!transactionalMethods.isEmpty()) {
-                stack = new OpcodeStack();
-                super.visitClassContext(clsContext);
+                if (!transactionalMethods.isEmpty()) {
+                    stack = new OpcodeStack();
+                    super.visitClassContext(clsContext);
+                }
+            } finally {
+                transactionalMethods = null;
+                stack = null;
             }
-        } finally {
-            transactionalMethods = null;
-            stack = null;
-        }
+        });
     }
 
     /**
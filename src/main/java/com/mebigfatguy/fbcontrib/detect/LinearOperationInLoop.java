@@ -0,0 +1,529 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.bcel.classfile.Code;
+
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.LoopLocation;
+import com.mebigfatguy.fbcontrib.utils.Loops;
+import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
+import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
+import com.mebigfatguy.fbcontrib.utils.ToString;
+import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
+import com.mebigfatguy.fbcontrib.utils.Values;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.BugReporter;
+import edu.umd.cs.findbugs.BytecodeScanningDetector;
+import edu.umd.cs.findbugs.MethodAnnotation;
+import edu.umd.cs.findbugs.OpcodeStack;
+import edu.umd.cs.findbugs.ba.ClassContext;
+
+/**
+ * looks for calls in loops whose cost grows with the size of the collection or string they are made on, so that the loop as a whole is quadratic. This
+ * includes searching or removing from lists and queues by value, using the front of an array backed list as a queue, indexing into a LinkedList, taking the
+ * size of a concurrent queue that counts its nodes, and rescanning a string by repeatedly replacing it with a substring of itself. Calls are classified by
+ * the receiver's concrete type when the opcode stack knows it, and otherwise by the declared type of the call.
+ */
+public class LinearOperationInLoop extends BytecodeScanningDetector {
+
+    /**
+     * collections whose contains, indexOf and remove(Object) walk the elements
+     */
+    private static final Set<String> LINEAR_SEARCH_CLASSES = UnmodifiableSet.create(
+    // @formatter:off
+        Values.SLASHED_JAVA_UTIL_LIST,
+        "java/util/ArrayList",
+        "java/util/LinkedList",
+        "java/util/Vector",
+        "java/util/Stack",
+        "java/util/AbstractList",
+        "java/util/AbstractSequentialList",
+        "java/util/concurrent/CopyOnWriteArrayList",
+        Values.SLASHED_JAVA_UTIL_QUEUE,
+        "java/util/Deque",
+        "java/util/ArrayDeque",
+        "java/util/PriorityQueue",
+        "java/util/concurrent/ConcurrentLinkedQueue",
+        "java/util/concurrent/ConcurrentLinkedDeque",
+        "java/util/concurrent/LinkedBlockingQueue",
+        "java/util/concurrent/LinkedBlockingDeque",
+        "java/util/concurrent/ArrayBlockingQueue",
+        "java/util/concurrent/PriorityBlockingQueue",
+        "java/util/concurrent/LinkedTransferQueue"
+    // @formatter:on
+    );
+
+    /**
+     * lists that shift all their elements when the first one is added or removed. A list whose concrete type isn't known is most likely an ArrayList
+     */
+    private static final Set<String> ARRAY_LIST_CLASSES = UnmodifiableSet.create(
+    // @formatter:off
+        Values.SLASHED_JAVA_UTIL_LIST,
+        "java/util/ArrayList",
+        "java/util/Vector",
+        "java/util/Stack",
+        "java/util/concurrent/CopyOnWriteArrayList"
+    // @formatter:on
+    );
+
+    private static final String LINKED_LIST_CLASS = "java/util/LinkedList";
+
+    /**
+     * marks the int stack items that hold the size of a collection, or one less than it, as indexes at the ends of a linked list are reached directly
+     */
+    enum SizeValue {
+        SIZE, LAST_INDEX
+    }
+
+    /**
+     * queues whose size() counts the nodes one at a time
+     */
+    private static final Set<String> COUNTING_QUEUE_CLASSES = UnmodifiableSet.create(
+    // @formatter:off
+        "java/util/concurrent/ConcurrentLinkedQueue",
+        "java/util/concurrent/ConcurrentLinkedDeque",
+        "java/util/concurrent/LinkedTransferQueue"
+    // @formatter:on
+    );
+
+    /**
+     * declared types that say nothing about the cost of their operations, so that a more specific type from the opcode stack is preferred
+     */
+    private static final Set<String> INTERFACE_CLASSES = UnmodifiableSet.create(Values.SLASHED_JAVA_UTIL_COLLECTION, Values.SLASHED_JAVA_UTIL_LIST,
+            Values.SLASHED_JAVA_UTIL_QUEUE, "java/util/Deque", "java/util/AbstractList", "java/util/AbstractSequentialList");
+
+    private static final Set<String> KNOWN_CLASSES = new HashSet<>();
+
+    static {
+        KNOWN_CLASSES.addAll(LINEAR_SEARCH_CLASSES);
+        KNOWN_CLASSES.addAll(COUNTING_QUEUE_CLASSES);
+        KNOWN_CLASSES.add(Values.SLASHED_JAVA_UTIL_COLLECTION);
+    }
+
+    private static final Set<String> SEARCH_SIGNATURES = UnmodifiableSet.create("(Ljava/lang/Object;)Z", "(Ljava/lang/Object;)I");
+    private static final Set<String> SEARCH_METHODS = UnmodifiableSet.create("contains", "indexOf", "lastIndexOf");
+    private static final String SIG_REMOVE_OBJECT = "(Ljava/lang/Object;)Z";
+    private static final String SIG_REMOVE_INDEX = "(I)Ljava/lang/Object;";
+    private static final String SIG_ADD_INDEX = "(ILjava/lang/Object;)V";
+    private static final String SIG_SET_INDEX = "(ILjava/lang/Object;)Ljava/lang/Object;";
+    private static final Set<String> STRING_SEARCH_METHODS = UnmodifiableSet.create("indexOf", "lastIndexOf");
+    private static final Set<String> SUBSTRING_SIGNATURES = UnmodifiableSet.create("(I)Ljava/lang/String;", "(II)Ljava/lang/String;");
+
+    private final BugReporter bugReporter;
+    private OpcodeStack stack;
+    private List<LinearCall> calls;
+    private Loops loops;
+    private BitSet iterationPCs;
+    private Map<Integer, BitSet> otherStores;
+    private Map<Integer, BitSet> stringSearches;
+    private LinearCall pendingSubstring;
+
+    /**
+     * constructs a LOIL detector given the reporter to report bugs on
+     *
+     * @param bugReporter
+     *            the sync of bug reports
+     */
+    public LinearOperationInLoop(BugReporter bugReporter) {
+        this.bugReporter = HotMethods.wrap(bugReporter);
+    }
+
+    /**
+     * implements the visitor to create and tear down the opcode stack and location collections
+     *
+     * @param classContext
+     *            the context object of the currently parsed class
+     */
+    @Override
+    public void visitClassContext(ClassContext classContext) {
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                calls = new ArrayList<>();
+                loops = new Loops();
+                iterationPCs = new BitSet();
+                otherStores = new HashMap<>();
+                stringSearches = new HashMap<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                calls = null;
+                loops = null;
+                iterationPCs = null;
+                otherStores = null;
+                stringSearches = null;
+            }
+        });
+    }
+
+    /**
+     * implements the visitor to reset the opcode stack and collections, and report the linear calls that were found in loops
+     *
+     * @param obj
+     *            the currently parsed code block
+     */
+    @Override
+    public void visitCode(Code obj) {
+        stack.resetForMethodEntry(this);
+        calls.clear();
+        loops.clear();
+        iterationPCs.clear();
+        otherStores.clear();
+        stringSearches.clear();
+        pendingSubstring = null;
+        super.visitCode(obj);
+
+        if (!calls.isEmpty() && !loops.isEmpty()) {
+            reportLinearCalls();
+        }
+    }
+
+    /**
+     * implements the visitor to classify method calls by the cost of their receiver's type, and to record loops, and where loops step through collections or
+     * arrays
+     *
+     * @param seen
+     *            the currently parsed opcode
+     */
+    @Override
+    public void sawOpcode(int seen) {
+        LinearCall substring = pendingSubstring;
+        pendingSubstring = null;
+        SizeValue sizeValue = null;
+
+        try {
+            switch (seen) {
+                case INVOKEINTERFACE:
+                case INVOKEVIRTUAL:
+                    processCall();
+                    if ("size".equals(getNameConstantOperand()) && "()I".equals(getSigConstantOperand())) {
+                        sizeValue = SizeValue.SIZE;
+                    }
+                break;
+
+                case ISUB:
+                    if ((stack.getStackDepth() > 1) && isOne(stack.getStackItem(0)) && (stack.getStackItem(1).getUserValue() == SizeValue.SIZE)) {
+                        sizeValue = SizeValue.LAST_INDEX;
+                    }
+                break;
+
+                case AALOAD:
+                case BALOAD:
+                case CALOAD:
+                case SALOAD:
+                case IALOAD:
+                case LALOAD:
+                case FALOAD:
+                case DALOAD:
+                    iterationPCs.set(getPC());
+                break;
+
+                case ASTORE:
+                case ASTORE_0:
+                case ASTORE_1:
+                case ASTORE_2:
+                case ASTORE_3:
+                    processStore(seen, substring);
+                break;
+
+                default:
+                    loops.sawOpcode(this, seen);
+                break;
+            }
+        } finally {
+            stack.sawOpcode(this, seen);
+            if ((sizeValue != null) && (stack.getStackDepth() > 0)) {
+                stack.getStackItem(0).setUserValue(sizeValue);
+            }
+        }
+    }
+
+    /**
+     * classifies a call by its receiver, recording calls whose cost is linear in the size of the receiver, and calls that step through a collection
+     */
+    private void processCall() {
+        String clsName = getClassConstantOperand();
+        String methodName = getNameConstantOperand();
+        String signature = getSigConstantOperand();
+
+        if (Values.SLASHED_JAVA_LANG_STRING.equals(clsName)) {
+            processStringCall(methodName, signature);
+            return;
+        }
+
+        if ("next".equals(methodName) && "java/util/Iterator".equals(clsName)) {
+            iterationPCs.set(getPC());
+            return;
+        }
+
+        int numArgs = SignatureUtils.getNumParameters(signature);
+        String receiver = getReceiverClass(clsName, numArgs);
+        if (receiver == null) {
+            return;
+        }
+
+        BugType bugType = null;
+        if (SEARCH_METHODS.contains(methodName) && SEARCH_SIGNATURES.contains(signature)) {
+            if (LINEAR_SEARCH_CLASSES.contains(receiver)) {
+                bugType = BugType.LOIL_LINEAR_SEARCH_IN_LOOP;
+            }
+        } else if ("remove".equals(methodName)) {
+            if (SIG_REMOVE_OBJECT.equals(signature)) {
+                if (LINEAR_SEARCH_CLASSES.contains(receiver)) {
+                    bugType = BugType.LOIL_LINEAR_REMOVE_IN_LOOP;
+                }
+            } else if (SIG_REMOVE_INDEX.equals(signature)) {
+                if (ARRAY_LIST_CLASSES.contains(receiver) && isZero(stack.getStackItem(0))) {
+                    bugType = BugType.LOIL_ARRAY_LIST_USED_AS_QUEUE;
+                } else if (LINKED_LIST_CLASS.equals(receiver) && !isEndIndex(stack.getStackItem(0))) {
+                    bugType = BugType.LOIL_LINKED_LIST_INDEXED_IN_LOOP;
+                }
+            }
+        } else if ("add".equals(methodName) && SIG_ADD_INDEX.equals(signature)) {
+            if (ARRAY_LIST_CLASSES.contains(receiver) && isZero(stack.getStackItem(1))) {
+                bugType = BugType.LOIL_ARRAY_LIST_USED_AS_QUEUE;
+            }
+        } else if ("get".equals(methodName) && "(I)Ljava/lang/Object;".equals(signature)) {
+            iterationPCs.set(getPC());
+            if (LINKED_LIST_CLASS.equals(receiver) && !isEndIndex(stack.getStackItem(0))) {
+                bugType = BugType.LOIL_LINKED_LIST_INDEXED_IN_LOOP;
+            }
+        } else if ("set".equals(methodName) && SIG_SET_INDEX.equals(signature)) {
+            if (LINKED_LIST_CLASS.equals(receiver) && !isEndIndex(stack.getStackItem(1))) {
+                bugType = BugType.LOIL_LINKED_LIST_INDEXED_IN_LOOP;
+            }
+        } else if ("size".equals(methodName) && "()I".equals(signature) && COUNTING_QUEUE_CLASSES.contains(receiver)) {
+            bugType = BugType.LOIL_COUNTING_QUEUE_SIZE_IN_LOOP;
+        }
+
+        if (bugType != null) {
+            calls.add(new LinearCall(bugType, getPC(), MethodAnnotation.fromCalledMethod(this), receiver, -1));
+        }
+    }
+
+    /**
+     * records searches of strings held in registers, and substring calls that may replace the string they are called on
+     *
+     * @param methodName
+     *            the name of the String method called
+     * @param signature
+     *            the signature of the String method called
+     */
+    private void processStringCall(String methodName, String signature) {
+        boolean isSubstring = "substring".equals(methodName) && SUBSTRING_SIGNATURES.contains(signature);
+        if (!isSubstring && !STRING_SEARCH_METHODS.contains(methodName)) {
+            return;
+        }
+
+        int numArgs = SignatureUtils.getNumParameters(signature);
+        if (stack.getStackDepth() <= numArgs) {
+            return;
+        }
+
+        int reg = stack.getStackItem(numArgs).getRegisterNumber();
+        if (reg < 0) {
+            return;
+        }
+
+        if (isSubstring) {
+            pendingSubstring = new LinearCall(BugType.LOIL_STRING_RESCAN_IN_LOOP, getPC(), MethodAnnotation.fromCalledMethod(this),
+                    Values.SLASHED_JAVA_LANG_STRING, reg);
+        } else {
+            getPCs(stringSearches, reg).set(getPC());
+        }
+    }
+
+    /**
+     * records stores to reference registers, noting the ones that replace a string with a substring of itself
+     *
+     * @param seen
+     *            the store opcode
+     * @param substring
+     *            the substring call made just before this store, or null
+     */
+    private void processStore(int seen, LinearCall substring) {
+        int reg = RegisterUtils.getAStoreReg(this, seen);
+        if ((substring != null) && (substring.getRegister() == reg)) {
+            calls.add(substring);
+            return;
+        }
+
+        getPCs(otherStores, reg).set(getPC());
+    }
+
+    private static BitSet getPCs(Map<Integer, BitSet> pcsByRegister, int reg) {
+        Integer r = Integer.valueOf(reg);
+        BitSet pcs = pcsByRegister.get(r);
+        if (pcs == null) {
+            pcs = new BitSet();
+            pcsByRegister.put(r, pcs);
+        }
+        return pcs;
+    }
+
+    /**
+     * returns the type of the receiver of the current call that decides its cost, which is the type of the receiver on the stack when it is known, and more
+     * specific than the declared type of the call
+     *
+     * @param clsName
+     *            the declared class of the call
+     * @param numArgs
+     *            the number of arguments of the call
+     * @return the slashed name of the receiver's type, or null if the cost of its operations isn't known
+     */
+    private String getReceiverClass(String clsName, int numArgs) {
+        if (!KNOWN_CLASSES.contains(clsName) || (stack.getStackDepth() <= numArgs)) {
+            return null;
+        }
+
+        if (INTERFACE_CLASSES.contains(clsName)) {
+            String itemSig = stack.getStackItem(numArgs).getSignature();
+            if (itemSig.startsWith(Values.SIG_QUALIFIED_CLASS_PREFIX)) {
+                String itemClass = SignatureUtils.trimSignature(itemSig);
+                if (KNOWN_CLASSES.contains(itemClass) && !INTERFACE_CLASSES.contains(itemClass)) {
+                    return itemClass;
+                }
+            }
+        }
+
+        return clsName;
+    }
+
+    /**
+     * returns whether an int is a literal 0. A value loaded from a register is not trusted, as a loop index still holds its initial value of 0 on the
+     * opcode stack when the loop is first entered
+     *
+     * @param itm
+     *            the stack item of the int
+     * @return whether the item is the constant 0
+     */
+    private static boolean isZero(OpcodeStack.Item itm) {
+        Object constant = itm.getConstant();
+        return (itm.getRegisterNumber() < 0) && (constant instanceof Integer) && (((Integer) constant).intValue() == 0);
+    }
+
+    private static boolean isOne(OpcodeStack.Item itm) {
+        Object constant = itm.getConstant();
+        return (constant instanceof Integer) && (((Integer) constant).intValue() == 1);
+    }
+
+    /**
+     * returns whether an index is the first or last element of a list, which a linked list reaches without walking its nodes. As with isZero, an index
+     * loaded from a register is not trusted, as a loop running down from the end holds its initial value on the opcode stack when first entered
+     *
+     * @param itm
+     *            the stack item of the index
+     * @return whether the index is the constant 0, or the list's size less one
+     */
+    private static boolean isEndIndex(OpcodeStack.Item itm) {
+        return isZero(itm) || ((itm.getRegisterNumber() < 0) && (itm.getUserValue() == SizeValue.LAST_INDEX));
+    }
+
+    /**
+     * reports the linear calls that are made in loops. Searches are reported at normal priority when the loop steps through a collection or array, as that
+     * is the quadratic pattern, and at low priority otherwise. A string rescan is only reported if nothing else is stored in the string's register in the
+     * loop, as otherwise each iteration works on a new string, and at normal priority only when the loop also searches the string, rather than just strips a
+     * prefix or suffix from it.
+     */
+    private void reportLinearCalls() {
+        for (LinearCall call : calls) {
+            LoopLocation loop = loops.getInnermostLoop(call.getPC());
+            if (loop == null) {
+                continue;
+            }
+
+            int priority = NORMAL_PRIORITY;
+            BugType bugType = call.getBugType();
+            if ((bugType == BugType.LOIL_LINEAR_SEARCH_IN_LOOP) || (bugType == BugType.LOIL_LINEAR_REMOVE_IN_LOOP)) {
+                if (!loop.isAnyInLoop(iterationPCs)) {
+                    priority = LOW_PRIORITY;
+                }
+            } else if (bugType == BugType.LOIL_STRING_RESCAN_IN_LOOP) {
+                Integer reg = Integer.valueOf(call.getRegister());
+                if (loop.isAnyInLoop(otherStores.get(reg))) {
+                    continue;
+                }
+                if (!loop.isAnyInLoop(stringSearches.get(reg))) {
+                    priority = LOW_PRIORITY;
+                }
+            } else if ((bugType == BugType.LOIL_ARRAY_LIST_USED_AS_QUEUE) && Values.SLASHED_JAVA_UTIL_LIST.equals(call.getReceiver())) {
+                priority = LOW_PRIORITY;
+            }
+
+            bugReporter.reportBug(new BugInstance(this, bugType.name(), priority).addClass(this).addMethod(this).addSourceLine(this, call.getPC())
+                    .addMethod(call.getCalledMethod()).describe(MethodAnnotation.METHOD_CALLED).addString(call.getReceiver().replace('/', '.')));
+        }
+    }
+
+    /**
+     * a call whose cost is linear in the size of its receiver
+     */
+    static class LinearCall {
+        private final BugType bugType;
+        private final int pc;
+        private final MethodAnnotation calledMethod;
+        private final String receiver;
+        private final int register;
+
+        LinearCall(BugType bugType, int pc, MethodAnnotation calledMethod, String receiver, int register) {
+            this.bugType = bugType;
+            this.pc = pc;
+            this.calledMethod = calledMethod;
+            this.receiver = receiver;
+            this.register = register;
+        }
+
+        BugType getBugType() {
+            return bugType;
+        }
+
+        int getPC() {
+            return pc;
+        }
+
+        MethodAnnotation getCalledMethod() {
+            return calledMethod;
+        }
+
+        String getReceiver() {
+            return receiver;
+        }
+
+        int getRegister() {
+            return register;
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+}
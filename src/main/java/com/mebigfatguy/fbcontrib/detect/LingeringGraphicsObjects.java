@@ -26,8 +26,10 @@ import java.util.Set;
 
 import org.apache.bcel.classfile.Code;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.TernaryPatcher;
@@ -69,7 +71,7 @@ public class LingeringGraphicsObjects extends BytecodeScanningDetector {
     private Map<Integer, Integer> graphicsRegs; // reg->pc
 
     public LingeringGraphicsObjects(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
@@ -79,14 +81,16 @@ public class LingeringGraphicsObjects extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            graphicsRegs = new HashMap<Integer, Integer>(5);
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            graphicsRegs = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                graphicsRegs = new HashMap<Integer, Integer>(5);
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                graphicsRegs = null;
+            }
+        });
     }
 
     /**
@@ -23,10 +23,11 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
-import org.apache.bcel.Const;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.CodeProfile;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
@@ -57,6 +58,9 @@ public class ListIndexedIterating extends BytecodeScanningDetector {
         FIND_LOOP_STAGE, FIND_BUG_STAGE
     }
 
+    private static final BitSet requiredOps = CodeProfile.opcodes(IINC, INVOKEINTERFACE);
+    private static final BitSet gotoOps = CodeProfile.opcodes(GOTO, GOTO_W);
+
     private BugReporter bugReporter;
     private OpcodeStack stack;
     private Set<ForLoop> possibleForLoops;
@@ -83,26 +87,28 @@ public class ListIndexedIterating extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            possibleForLoops = new HashSet<>();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            possibleForLoops = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                possibleForLoops = new HashSet<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                possibleForLoops = null;
+            }
+        });
     }
 
     /**
-     * looks for methods that contain a IINC and GOTO or GOTO_W opcodes
+     * looks for methods that contain a loop, with IINC, INVOKEINTERFACE and GOTO or GOTO_W opcodes
      *
      * @param method
      *            the context object of the current method
-     * @return if the class uses synchronization
+     * @return if the method may index through a list in a loop
      */
     private boolean prescreen(Method method) {
-        BitSet bytecodeSet = getClassContext().getBytecodeSet(method);
-        return (bytecodeSet != null) && (bytecodeSet.get(Const.IINC)) && (bytecodeSet.get(Const.GOTO) || bytecodeSet.get(Const.GOTO_W));
+        CodeProfile profile = CodeProfile.get(getClassContext(), method);
+        return (profile != null) && profile.containsAll(requiredOps) && profile.containsAny(gotoOps) && profile.hasBackwardBranch();
     }
 
     /**
@@ -114,7 +120,7 @@ public class ListIndexedIterating extends BytecodeScanningDetector {
     @Override
     public void visitCode(final Code obj) {
         Method m = getMethod();
-        if (prescreen(m)) {
+        if (!AnalysisScope.skipMethod(getClassContext(), m) && prescreen(m)) {
             sawListSize = false;
 
             stack.resetForMethodEntry(this);
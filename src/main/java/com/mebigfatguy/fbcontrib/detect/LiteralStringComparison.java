@@ -26,6 +26,7 @@ import org.apache.bcel.Const;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.ToString;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -73,14 +74,16 @@ public class LiteralStringComparison extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            lookupSwitches = new ArrayList<>();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            lookupSwitches = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                lookupSwitches = new ArrayList<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                lookupSwitches = null;
+            }
+        });
     }
 
     /**
@@ -32,6 +32,7 @@ import java.util.Set;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.TernaryPatcher;
@@ -90,15 +91,17 @@ abstract class LocalTypeDetector extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            suspectLocals = new HashMap<>();
-            classVersion = classContext.getJavaClass().getMajor();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            suspectLocals = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                suspectLocals = new HashMap<>();
+                classVersion = classContext.getJavaClass().getMajor();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                suspectLocals = null;
+            }
+        });
     }
 
     /**
@@ -32,8 +32,11 @@ import org.apache.bcel.classfile.ConstantUtf8;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
+import com.mebigfatguy.fbcontrib.utils.ResultCache;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.TernaryPatcher;
@@ -101,7 +104,7 @@ public class LoggerOddities extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public LoggerOddities(final BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = ResultCache.wrap(this, HotMethods.wrap(bugReporter));
 
         try {
             throwableClass = Repository.lookupClass(Values.SLASHED_JAVA_LANG_THROWABLE);
@@ -119,13 +122,20 @@ public class LoggerOddities extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            nameOfThisClass = SignatureUtils.getNonAnonymousPortion(classContext.getJavaClass().getClassName());
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            if (ResultCache.replay(bugReporter, classContext)) {
+                return;
+            }
+
+            try {
+                stack = new OpcodeStack();
+                nameOfThisClass = SignatureUtils.getNonAnonymousPortion(classContext.getJavaClass().getClassName());
+                super.visitClassContext(classContext);
+                ResultCache.store(bugReporter);
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     /**
@@ -36,6 +36,7 @@ import org.apache.bcel.classfile.LocalVariable;
 import org.apache.bcel.classfile.LocalVariableTable;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.CollectionUtils;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
@@ -96,19 +97,21 @@ public class LostExceptionStackTrace extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            if ((throwableClass != null) && !isPre14Class(classContext.getJavaClass())) {
-                stack = new OpcodeStack();
-                catchInfos = new HashSet<>();
-                exReg = new HashMap<>();
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                if ((throwableClass != null) && !isPre14Class(classContext.getJavaClass())) {
+                    stack = new OpcodeStack();
+                    catchInfos = new HashSet<>();
+                    exReg = new HashMap<>();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                stack = null;
+                catchInfos = null;
+                exceptions = null;
+                exReg = null;
             }
-        } finally {
-            stack = null;
-            catchInfos = null;
-            exceptions = null;
-            exReg = null;
-        }
+        });
     }
 
     /**
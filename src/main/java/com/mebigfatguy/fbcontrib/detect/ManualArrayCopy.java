@@ -23,31 +23,25 @@ import java.util.BitSet;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.CodeProfile;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 
 /**
  * looks for methods that copy data from one array to another using a loop. It is better performing to use System.arraycopy to do such copying as this is a
  * native method.
  */
-public class ManualArrayCopy extends BytecodeScanningDetector {
+public class ManualArrayCopy extends ScopedBytecodeScanningDetector {
     enum State {
         SAW_NOTHING, SAW_ICMP, SAW_ARRAY1_LOAD, SAW_ARRAY1_INDEX, SAW_ARRAY2_LOAD, SAW_ARRAY2_INDEX, SAW_ELEM_LOAD, SAW_ELEM_STORE
     }
 
-    private static final BitSet arrayLoadOps = new BitSet();
-
-    static {
-        arrayLoadOps.set(AALOAD);
-        arrayLoadOps.set(BALOAD);
-        arrayLoadOps.set(CALOAD);
-        arrayLoadOps.set(SALOAD);
-        arrayLoadOps.set(IALOAD);
-        arrayLoadOps.set(LALOAD);
-        arrayLoadOps.set(DALOAD);
-        arrayLoadOps.set(FALOAD);
-    }
+    private static final BitSet arrayLoadOps = CodeProfile.opcodes(AALOAD, BALOAD, CALOAD, SALOAD, IALOAD, LALOAD, DALOAD, FALOAD);
+    private static final BitSet arrayStoreOps = CodeProfile.opcodes(AASTORE, BASTORE, CASTORE, SASTORE, IASTORE, LASTORE, DASTORE, FASTORE);
+    private static final BitSet loopTestOps = CodeProfile.opcodes(IF_ICMPGE, IF_ICMPGT);
 
     private final BugReporter bugReporter;
     private State state;
@@ -61,19 +55,20 @@ public class ManualArrayCopy extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public ManualArrayCopy(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
-     * looks for methods that contain array load opcodes
+     * looks for methods that contain a loop with array load and store opcodes, an index increment, and the index test
      *
      * @param method
      *            the context object of the current method
-     * @return if the class loads array contents
+     * @return if the method may copy array contents in a loop
      */
     private boolean prescreen(Method method) {
-        BitSet bytecodeSet = getClassContext().getBytecodeSet(method);
-        return (bytecodeSet != null) && bytecodeSet.intersects(arrayLoadOps);
+        CodeProfile profile = CodeProfile.get(getClassContext(), method);
+        return (profile != null) && profile.contains(IINC) && profile.containsAny(arrayLoadOps) && profile.containsAny(arrayStoreOps)
+                && profile.containsAny(loopTestOps) && profile.hasBackwardBranch();
     }
 
     /**
@@ -84,7 +79,8 @@ public class ManualArrayCopy extends BytecodeScanningDetector {
      */
     @Override
     public void visitCode(Code obj) {
-        if (prescreen(getMethod())) {
+        Method m = getMethod();
+        if (!AnalysisScope.skipMethod(getClassContext(), m) && prescreen(m)) {
             state = State.SAW_NOTHING;
             super.visitCode(obj);
         }
@@ -28,6 +28,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.StopOpcodeParsingException;
@@ -74,16 +75,18 @@ public class MethodReturnsConstant extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            registerConstants = new HashMap<>();
-            overloadedMethods = collectOverloadedMethods(classContext.getJavaClass());
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            registerConstants = null;
-            overloadedMethods = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                registerConstants = new HashMap<>();
+                overloadedMethods = collectOverloadedMethods(classContext.getJavaClass());
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                registerConstants = null;
+                overloadedMethods = null;
+            }
+        });
     }
 
     /**
@@ -24,6 +24,7 @@ import java.util.Map;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 
 import edu.umd.cs.findbugs.BugInstance;
@@ -56,36 +57,38 @@ public class MisleadingOverloadModel extends PreorderVisitor implements Detector
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        JavaClass cls = classContext.getJavaClass();
-        String clsName = cls.getClassName();
-        Method[] methods = cls.getMethods();
-        Map<String, MethodFoundType> declMethods = new HashMap<>(methods.length);
-        for (Method m : methods) {
-            String methodName = m.getName();
-            boolean report;
-            MethodFoundType newType;
-            if (m.isStatic()) {
-                report = declMethods.get(methodName) == MethodFoundType.Instance;
-                if (report) {
-                    newType = MethodFoundType.Both;
+        AnalysisScope.visitClass(this, classContext, () -> {
+            JavaClass cls = classContext.getJavaClass();
+            String clsName = cls.getClassName();
+            Method[] methods = cls.getMethods();
+            Map<String, MethodFoundType> declMethods = new HashMap<>(methods.length);
+            for (Method m : methods) {
+                String methodName = m.getName();
+                boolean report;
+                MethodFoundType newType;
+                if (m.isStatic()) {
+                    report = declMethods.get(methodName) == MethodFoundType.Instance;
+                    if (report) {
+                        newType = MethodFoundType.Both;
+                    } else {
+                        newType = MethodFoundType.Static;
+                    }
                 } else {
-                    newType = MethodFoundType.Static;
+                    report = declMethods.get(m.getName()) == MethodFoundType.Static;
+                    if (report) {
+                        newType = MethodFoundType.Both;
+                    } else {
+                        newType = MethodFoundType.Instance;
+                    }
                 }
-            } else {
-                report = declMethods.get(m.getName()) == MethodFoundType.Static;
+
+                declMethods.put(methodName, newType);
                 if (report) {
-                    newType = MethodFoundType.Both;
-                } else {
-                    newType = MethodFoundType.Instance;
+                    bugReporter.reportBug(new BugInstance(this, BugType.MOM_MISLEADING_OVERLOAD_MODEL.name(), NORMAL_PRIORITY).addClass(cls)
+                            .addMethod(XFactory.createXMethod(clsName, m)).addString(methodName));
                 }
             }
-
-            declMethods.put(methodName, newType);
-            if (report) {
-                bugReporter.reportBug(new BugInstance(this, BugType.MOM_MISLEADING_OVERLOAD_MODEL.name(), NORMAL_PRIORITY).addClass(cls)
-                        .addMethod(XFactory.createXMethod(clsName, m)).addString(methodName));
-            }
-        }
+        });
     }
 
     /** implements the visitor to do nothing */
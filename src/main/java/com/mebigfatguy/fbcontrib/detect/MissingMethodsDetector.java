@@ -25,6 +25,7 @@ import java.util.Map;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Field;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -65,29 +66,31 @@ public abstract class MissingMethodsDetector extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            String clsName = classContext.getJavaClass().getClassName();
-            isInnerClass = clsName.contains("$");
-
-            clsSignature = SignatureUtils.classToSignature(clsName);
-            stack = new OpcodeStack();
-            localSpecialObjects = new HashMap<>();
-            fieldSpecialObjects = new HashMap<>();
-            super.visitClassContext(classContext);
-
-            if (!isInnerClass && !fieldSpecialObjects.isEmpty()) {
-
-                for (Map.Entry<String, String> entry : fieldSpecialObjects.entrySet()) {
-                    String fieldName = entry.getKey();
-                    String signature = entry.getValue();
-                    bugReporter.reportBug(makeFieldBugInstance().addClass(this).addField(clsName, fieldName, signature, false));
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                String clsName = classContext.getJavaClass().getClassName();
+                isInnerClass = clsName.contains("$");
+
+                clsSignature = SignatureUtils.classToSignature(clsName);
+                stack = new OpcodeStack();
+                localSpecialObjects = new HashMap<>();
+                fieldSpecialObjects = new HashMap<>();
+                super.visitClassContext(classContext);
+
+                if (!isInnerClass && !fieldSpecialObjects.isEmpty()) {
+
+                    for (Map.Entry<String, String> entry : fieldSpecialObjects.entrySet()) {
+                        String fieldName = entry.getKey();
+                        String signature = entry.getValue();
+                        bugReporter.reportBug(makeFieldBugInstance().addClass(this).addField(clsName, fieldName, signature, false));
+                    }
                 }
+            } finally {
+                stack = null;
+                localSpecialObjects = null;
+                fieldSpecialObjects = null;
             }
-        } finally {
-            stack = null;
-            localSpecialObjects = null;
-            fieldSpecialObjects = null;
-        }
+        });
     }
 
     @Override
@@ -27,6 +27,7 @@ import org.apache.bcel.classfile.Code;
 import com.mebigfatguy.fbcontrib.collect.ImmutabilityType;
 import com.mebigfatguy.fbcontrib.collect.MethodInfo;
 import com.mebigfatguy.fbcontrib.collect.Statistics;
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.CollectionUtils;
 import com.mebigfatguy.fbcontrib.utils.QMethod;
@@ -84,12 +85,14 @@ public class ModifyingUnmodifiableCollection extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext context) {
-        try {
-            stack = new OpcodeStack();
-            super.visitClassContext(context);
-        } finally {
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, context, () -> {
+            try {
+                stack = new OpcodeStack();
+                super.visitClassContext(context);
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     /**
@@ -19,13 +19,16 @@
  */
 package com.mebigfatguy.fbcontrib.detect;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.bcel.classfile.Code;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
+import com.mebigfatguy.fbcontrib.utils.MethodRefIds;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.ToString;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
@@ -41,6 +44,9 @@ import edu.umd.cs.findbugs.ba.ClassContext;
  */
 public class MoreDumbMethods extends BytecodeScanningDetector {
     private final static Map<FQMethod, ReportInfo> dumbMethods = new HashMap<>();
+    private final static Map<FQMethod, ReportInfo> secureRandomMethods = new HashMap<>();
+    private static final BitSet dumbMethodIds;
+    private static final BitSet secureRandomMethodIds;
 
     private static final Set<ReportInfo> assertableReports = UnmodifiableSet.create(new ReportInfo("MDM_LOCK_ISLOCKED", LOW_PRIORITY));
 
@@ -138,10 +144,22 @@ public class MoreDumbMethods extends BytecodeScanningDetector {
                 new ReportInfo("MDM_STRING_BYTES_ENCODING", NORMAL_PRIORITY));
         dumbMethods.put(new FQMethod("java/util/Locale", "setDefault", new SignatureBuilder().withParamTypes("java/util/Locale").toString()),
                 new ReportInfo("MDM_SETDEFAULTLOCALE", NORMAL_PRIORITY));
+
+        //
+        // SecureRandom checks, only for classes targeting 1.5 or less
+        //
+        secureRandomMethods.put(new FQMethod("java/security/SecureRandom", Values.CONSTRUCTOR, SignatureBuilder.SIG_VOID_TO_VOID),
+                new ReportInfo("MDM_SECURERANDOM", LOW_PRIORITY));
+        secureRandomMethods.put(new FQMethod("java/security/SecureRandom", Values.CONSTRUCTOR, byteArrayToVoid), new ReportInfo("MDM_SECURERANDOM", LOW_PRIORITY));
+        secureRandomMethods.put(new FQMethod("java/security/SecureRandom", "getSeed", intToByteArray), new ReportInfo("MDM_SECURERANDOM", LOW_PRIORITY));
+
+        dumbMethodIds = MethodRefIds.registerAll(dumbMethods.keySet());
+        secureRandomMethodIds = MethodRefIds.registerAll(secureRandomMethods.keySet());
     }
 
     private final BugReporter bugReporter;
 
+    private boolean checkSecureRandom;
     private boolean sawAssertionDisabled;
     private int assertionEnd;
 
@@ -157,18 +175,10 @@ public class MoreDumbMethods extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        if (classContext.getJavaClass().getMajor() <= MAJOR_1_5) {
-            dumbMethods.put(new FQMethod("java/security/SecureRandom", Values.CONSTRUCTOR, SignatureBuilder.SIG_VOID_TO_VOID),
-                    new ReportInfo("MDM_SECURERANDOM", LOW_PRIORITY));
-            dumbMethods.put(new FQMethod("java/security/SecureRandom", Values.CONSTRUCTOR, byteArrayToVoid), new ReportInfo("MDM_SECURERANDOM", LOW_PRIORITY));
-            dumbMethods.put(new FQMethod("java/security/SecureRandom", "getSeed", intToByteArray), new ReportInfo("MDM_SECURERANDOM", LOW_PRIORITY));
-        } else {
-            dumbMethods.remove(new FQMethod("java/security/SecureRandom", Values.CONSTRUCTOR, SignatureBuilder.SIG_VOID_TO_VOID));
-            dumbMethods.remove(new FQMethod("java/security/SecureRandom", Values.CONSTRUCTOR, byteArrayToVoid));
-            dumbMethods.remove(new FQMethod("java/security/SecureRandom", "getSeed", intToByteArray));
-        }
-
-        super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            checkSecureRandom = classContext.getJavaClass().getMajor() <= MAJOR_1_5;
+            super.visitClassContext(classContext);
+        });
     }
 
     @Override
@@ -182,7 +192,7 @@ public class MoreDumbMethods extends BytecodeScanningDetector {
     public void sawOpcode(int seen) {
 
         if ((seen == INVOKEVIRTUAL) || (seen == INVOKEINTERFACE) || (seen == INVOKESPECIAL) || (seen == INVOKESTATIC)) {
-            final ReportInfo info = dumbMethods.get(getFQMethod());
+            final ReportInfo info = getReportInfo(MethodRefIds.getMethodId(this));
             if ((info != null) && ((assertionEnd < getPC()) || !assertableReports.contains(info))) {
                 reportBug(info);
             }
@@ -198,11 +208,20 @@ public class MoreDumbMethods extends BytecodeScanningDetector {
         sawAssertionDisabled = false;
     }
 
-    private FQMethod getFQMethod() {
-        final String className = getClassConstantOperand();
-        final String methodName = getNameConstantOperand();
-        final String methodSig = getSigConstantOperand();
-        return new FQMethod(className, methodName, methodSig);
+    private ReportInfo getReportInfo(int methodId) {
+        if (methodId == MethodRefIds.NONE) {
+            return null;
+        }
+
+        if (dumbMethodIds.get(methodId)) {
+            return dumbMethods.get(MethodRefIds.getMethod(methodId));
+        }
+
+        if (checkSecureRandom && secureRandomMethodIds.get(methodId)) {
+            return secureRandomMethods.get(MethodRefIds.getMethod(methodId));
+        }
+
+        return null;
     }
 
     private void reportBug(ReportInfo info) {
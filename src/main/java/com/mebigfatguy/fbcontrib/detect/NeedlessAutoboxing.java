@@ -26,6 +26,7 @@ import org.apache.bcel.Const;
 import org.apache.bcel.classfile.Method;
 
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.ToString;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -33,12 +34,11 @@ import com.mebigfatguy.fbcontrib.utils.Values;
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
 import edu.umd.cs.findbugs.ba.ClassContext;
-import edu.umd.cs.findbugs.bcel.OpcodeStackDetector;
 
 /**
  * Looks for methods that pass a primitive wrapper class object, to the same classes Constructor.
  */
-public class NeedlessAutoboxing extends OpcodeStackDetector {
+public class NeedlessAutoboxing extends FusibleOpcodeStackDetector {
     enum State {
         SEEN_NOTHING, SEEN_VALUE, SEEN_VALUEOFSTRING, SEEN_PARSE, SEEN_CTOR, SEEN_VALUEOFPRIMITIVE, SEEN_ICONST, SEEN_GETSTATIC
     }
@@ -93,17 +93,17 @@ public class NeedlessAutoboxing extends OpcodeStackDetector {
      *            the sync of bug reports
      */
     public NeedlessAutoboxing(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     @Override
-    public void visitClassContext(ClassContext classContext) {
-        try {
-            ternaryPCs = new BitSet();
-            super.visitClassContext(classContext);
-        } finally {
-            ternaryPCs = null;
-        }
+    protected void startClass(ClassContext classContext) {
+        ternaryPCs = new BitSet();
+    }
+
+    @Override
+    protected void endClass(ClassContext classContext) {
+        ternaryPCs = null;
     }
 
     @Override
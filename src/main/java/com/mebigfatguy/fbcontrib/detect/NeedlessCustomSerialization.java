@@ -22,6 +22,7 @@ import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 
@@ -70,14 +71,16 @@ public class NeedlessCustomSerialization extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            if ((serializableClass != null) && cls.implementationOf(serializableClass)) {
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                if ((serializableClass != null) && cls.implementationOf(serializableClass)) {
+                    super.visitClassContext(classContext);
+                }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
             }
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        }
+        });
     }
 
     /**
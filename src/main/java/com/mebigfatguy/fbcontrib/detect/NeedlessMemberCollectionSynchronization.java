@@ -27,7 +27,9 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.TernaryPatcher;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
@@ -93,7 +95,7 @@ public class NeedlessMemberCollectionSynchronization extends BytecodeScanningDet
      *            the sync of bug reports
      */
     public NeedlessMemberCollectionSynchronization(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
@@ -104,26 +106,28 @@ public class NeedlessMemberCollectionSynchronization extends BytecodeScanningDet
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            if ((collectionClass != null) && (mapClass != null)) {
-                collectionFields = new HashMap<>();
-                aliases = new HashMap<>();
-                stack = new OpcodeStack();
-                JavaClass cls = classContext.getJavaClass();
-                className = cls.getClassName();
-                super.visitClassContext(classContext);
-                for (FieldInfo fi : collectionFields.values()) {
-                    if (fi.isSynchronized()) {
-                        bugReporter.reportBug(new BugInstance(this, BugType.NMCS_NEEDLESS_MEMBER_COLLECTION_SYNCHRONIZATION.name(), NORMAL_PRIORITY)
-                                .addClass(this).addField(fi.getFieldAnnotation()));
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                if ((collectionClass != null) && (mapClass != null)) {
+                    collectionFields = new HashMap<>();
+                    aliases = new HashMap<>();
+                    stack = new OpcodeStack();
+                    JavaClass cls = classContext.getJavaClass();
+                    className = cls.getClassName();
+                    super.visitClassContext(classContext);
+                    for (FieldInfo fi : collectionFields.values()) {
+                        if (fi.isSynchronized()) {
+                            bugReporter.reportBug(new BugInstance(this, BugType.NMCS_NEEDLESS_MEMBER_COLLECTION_SYNCHRONIZATION.name(), NORMAL_PRIORITY)
+                                    .addClass(this).addField(fi.getFieldAnnotation()));
+                        }
                     }
                 }
+            } finally {
+                collectionFields = null;
+                aliases = null;
+                stack = null;
             }
-        } finally {
-            collectionFields = null;
-            aliases = null;
-            stack = null;
-        }
+        });
     }
 
     /**
@@ -28,12 +28,11 @@ import com.mebigfatguy.fbcontrib.utils.Values;
 
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 
 /**
  * looks for method calls to collection classes where the method is not defined by the Collections interface, and an equivalent method exists in the interface.
  */
-public class NonCollectionMethodUse extends BytecodeScanningDetector {
+public class NonCollectionMethodUse extends ScopedBytecodeScanningDetector {
     private static final Set<FQMethod> oldMethods = UnmodifiableSet.create(new FQMethod("java/util/Hashtable", "contains", SignatureBuilder.SIG_OBJECT_TO_BOOLEAN),
             new FQMethod("java/util/Hashtable", "elements", new SignatureBuilder().withReturnType("java/util/Enumeration").toString()),
             new FQMethod("java/util/Hashtable", "keys", new SignatureBuilder().withReturnType("java/util/Enumeration").toString()),
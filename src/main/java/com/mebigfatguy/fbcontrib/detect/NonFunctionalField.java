@@ -22,6 +22,7 @@ import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 
 import edu.umd.cs.findbugs.BugInstance;
@@ -64,21 +65,23 @@ public class NonFunctionalField extends PreorderVisitor implements Detector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            if ((serializableClass != null) && (cls.implementationOf(serializableClass))) {
-                Field[] fields = cls.getFields();
-                setupVisitorForClass(cls);
-                for (Field f : fields) {
-                    if (!f.isStatic() && f.isFinal() && f.isTransient()) {
-                        bugReporter.reportBug(new BugInstance(this, BugType.NFF_NON_FUNCTIONAL_FIELD.name(), Priorities.NORMAL_PRIORITY).addClass(this)
-                                .addField(cls.getClassName(), f.getName(), f.getSignature(), f.getAccessFlags()));
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                if ((serializableClass != null) && (cls.implementationOf(serializableClass))) {
+                    Field[] fields = cls.getFields();
+                    setupVisitorForClass(cls);
+                    for (Field f : fields) {
+                        if (!f.isStatic() && f.isFinal() && f.isTransient()) {
+                            bugReporter.reportBug(new BugInstance(this, BugType.NFF_NON_FUNCTIONAL_FIELD.name(), Priorities.NORMAL_PRIORITY).addClass(this)
+                                    .addField(cls.getClassName(), f.getName(), f.getSignature(), f.getAccessFlags()));
+                        }
                     }
                 }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
             }
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        }
+        });
     }
 
     /**
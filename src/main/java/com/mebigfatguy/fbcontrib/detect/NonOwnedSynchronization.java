@@ -26,6 +26,7 @@ import org.apache.bcel.Const;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -66,14 +67,16 @@ public class NonOwnedSynchronization extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            regPriorities = new HashMap<>();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            regPriorities = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                regPriorities = new HashMap<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                regPriorities = null;
+            }
+        });
     }
 
     /**
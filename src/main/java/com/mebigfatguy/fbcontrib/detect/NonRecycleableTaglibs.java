@@ -27,6 +27,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.QMethod;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -82,30 +83,32 @@ public class NonRecycleableTaglibs extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            JavaClass[] superClasses = cls.getSuperClasses();
-            for (JavaClass superCls : superClasses) {
-                if (tagClasses.contains(superCls.getClassName())) {
-                    attributes = getAttributes(cls);
-
-                    if (!attributes.isEmpty()) {
-                        methodWrites = new HashMap<>();
-                        fieldAnnotations = new HashMap<>();
-                        super.visitClassContext(classContext);
-                        reportBugs();
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                JavaClass[] superClasses = cls.getSuperClasses();
+                for (JavaClass superCls : superClasses) {
+                    if (tagClasses.contains(superCls.getClassName())) {
+                        attributes = getAttributes(cls);
+
+                        if (!attributes.isEmpty()) {
+                            methodWrites = new HashMap<>();
+                            fieldAnnotations = new HashMap<>();
+                            super.visitClassContext(classContext);
+                            reportBugs();
+                        }
+                        break;
                     }
-                    break;
                 }
-            }
 
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        } finally {
-            attributes = null;
-            methodWrites = null;
-            fieldAnnotations = null;
-        }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            } finally {
+                attributes = null;
+                methodWrites = null;
+                fieldAnnotations = null;
+            }
+        });
     }
 
     /**
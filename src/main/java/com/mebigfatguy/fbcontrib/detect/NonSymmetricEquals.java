@@ -28,7 +28,9 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.DetectorEvents;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 
 import edu.umd.cs.findbugs.BugInstance;
@@ -66,12 +68,18 @@ public class NonSymmetricEquals extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
+        if (AnalysisScope.skipCrossClass(this)) {
+            return;
         }
+
+        DetectorEvents.recordClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     /**
@@ -148,24 +156,36 @@ public class NonSymmetricEquals extends BytecodeScanningDetector {
      */
     @Override
     public void report() {
-        for (Map.Entry<String, Map<String, BugInstance>> thisEntry : possibleBugs.entrySet()) {
-
-            Map<String, BugInstance> equalsClassesMap = thisEntry.getValue();
-            for (Map.Entry<String, BugInstance> equalsEntry : equalsClassesMap.entrySet()) {
-                String equalsCls = equalsEntry.getKey();
+        if (AnalysisScope.skipCrossClass(this)) {
+            return;
+        }
 
-                Map<String, BugInstance> reverseEqualsClassMap = possibleBugs.get(equalsCls);
-                if (reverseEqualsClassMap == null) {
-                    bugReporter.reportBug(equalsClassesMap.values().iterator().next());
-                    break;
+        DetectorEvents.Span span = DetectorEvents.beginReport(this);
+        try {
+            for (Map.Entry<String, Map<String, BugInstance>> thisEntry : possibleBugs.entrySet()) {
+                if (AnalysisScope.skipReport(thisEntry.getKey())) {
+                    continue;
                 }
 
-                if (!reverseEqualsClassMap.containsKey(thisEntry.getKey())) {
-                    bugReporter.reportBug(equalsClassesMap.values().iterator().next());
-                    break;
+                Map<String, BugInstance> equalsClassesMap = thisEntry.getValue();
+                for (Map.Entry<String, BugInstance> equalsEntry : equalsClassesMap.entrySet()) {
+                    String equalsCls = equalsEntry.getKey();
+
+                    Map<String, BugInstance> reverseEqualsClassMap = possibleBugs.get(equalsCls);
+                    if (reverseEqualsClassMap == null) {
+                        bugReporter.reportBug(equalsClassesMap.values().iterator().next());
+                        break;
+                    }
+
+                    if (!reverseEqualsClassMap.containsKey(thisEntry.getKey())) {
+                        bugReporter.reportBug(equalsClassesMap.values().iterator().next());
+                        break;
+                    }
                 }
             }
+            possibleBugs.clear();
+        } finally {
+            span.finish();
         }
-        possibleBugs.clear();
     }
 }
@@ -32,6 +32,7 @@ import org.apache.bcel.classfile.ConstantUtf8;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
 import com.mebigfatguy.fbcontrib.utils.ToString;
@@ -107,19 +108,21 @@ public class OptionalIssues extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        currentClass = classContext.getJavaClass();
-
-        if (currentClass.getMajor() >= Const.MAJOR_1_8) {
-            try {
-                stack = new OpcodeStack();
-                activeStackOps = new ArrayDeque<>();
-                super.visitClassContext(classContext);
-            } finally {
-                activeStackOps = null;
-                stack = null;
+        AnalysisScope.visitClass(this, classContext, () -> {
+            currentClass = classContext.getJavaClass();
+
+            if (currentClass.getMajor() >= Const.MAJOR_1_8) {
+                try {
+                    stack = new OpcodeStack();
+                    activeStackOps = new ArrayDeque<>();
+                    super.visitClassContext(classContext);
+                } finally {
+                    activeStackOps = null;
+                    stack = null;
+                }
             }
-        }
-        currentClass = null;
+            currentClass = null;
+        });
     }
 
     /**
@@ -25,6 +25,7 @@ import java.util.Set;
 
 import org.apache.bcel.classfile.Code;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -71,16 +72,18 @@ public class OrphanedDOMNode extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            nodeCreations = new HashMap<>();
-            nodeStores = new HashMap<>();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            nodeCreations = null;
-            nodeStores = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                nodeCreations = new HashMap<>();
+                nodeStores = new HashMap<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                nodeCreations = null;
+                nodeStores = null;
+            }
+        });
     }
 
     /**
@@ -39,8 +39,11 @@ import org.apache.bcel.classfile.Method;
 import org.apache.bcel.classfile.ParameterAnnotationEntry;
 import org.apache.bcel.generic.Type;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.CollectionUtils;
+import com.mebigfatguy.fbcontrib.utils.DetectorEvents;
+import com.mebigfatguy.fbcontrib.utils.MethodBudget;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
@@ -68,6 +71,7 @@ public class OverlyConcreteParameter extends BytecodeScanningDetector {
             "com.fasterxml.jackson.databind.JsonDeserializer");
 
     private final BugReporter bugReporter;
+    private final MethodBudget budget;
     private JavaClass[] constrainingClasses;
     private Map<Integer, Map<JavaClass, List<MethodInfo>>> parameterDefiners;
     private BitSet usedParameters;
@@ -86,6 +90,7 @@ public class OverlyConcreteParameter extends BytecodeScanningDetector {
      */
     public OverlyConcreteParameter(final BugReporter bugReporter) {
         this.bugReporter = bugReporter;
+        budget = new MethodBudget(this);
         try {
             objectClass = Repository.lookupClass(Values.SLASHED_JAVA_LANG_OBJECT);
         } catch (ClassNotFoundException cnfe) {
@@ -102,28 +107,38 @@ public class OverlyConcreteParameter extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            cls = classContext.getJavaClass();
-
-            if (!isaConversionClass(cls)) {
-                JavaClass[] infs = cls.getAllInterfaces();
-                JavaClass[] sups = cls.getSuperClasses();
-                constrainingClasses = new JavaClass[infs.length + sups.length];
-                System.arraycopy(infs, 0, constrainingClasses, 0, infs.length);
-                System.arraycopy(sups, 0, constrainingClasses, infs.length, sups.length);
-                parameterDefiners = new HashMap<>();
-                usedParameters = new BitSet();
-                stack = new OpcodeStack();
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                cls = classContext.getJavaClass();
+
+                if (!isaConversionClass(cls)) {
+                    JavaClass[] infs = cls.getAllInterfaces();
+                    JavaClass[] sups = cls.getSuperClasses();
+                    constrainingClasses = new JavaClass[infs.length + sups.length];
+                    System.arraycopy(infs, 0, constrainingClasses, 0, infs.length);
+                    System.arraycopy(sups, 0, constrainingClasses, infs.length, sups.length);
+                    parameterDefiners = new HashMap<>();
+                    usedParameters = new BitSet();
+                    stack = new OpcodeStack();
+                    super.visitClassContext(classContext);
+                }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            } finally {
+                constrainingClasses = null;
+                parameterDefiners = null;
+                usedParameters = null;
+                stack = null;
             }
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        } finally {
-            constrainingClasses = null;
-            parameterDefiners = null;
-            usedParameters = null;
-            stack = null;
-        }
+        });
+    }
+
+    /**
+     * implements the visitor to log the methods that were too expensive to analyze
+     */
+    @Override
+    public void report() {
+        budget.report();
     }
 
     /**
@@ -178,7 +193,7 @@ public class OverlyConcreteParameter extends BytecodeScanningDetector {
     @Override
     public void visitCode(final Code obj) {
         try {
-            if (methodSignatureIsConstrained) {
+            if (methodSignatureIsConstrained || AnalysisScope.skipMethod(getClassContext(), getMethod())) {
                 return;
             }
 
@@ -206,13 +221,19 @@ public class OverlyConcreteParameter extends BytecodeScanningDetector {
             usedParameters.clear();
             stack.resetForMethodEntry(this);
 
-            if (buildParameterDefiners()) {
-                try {
-                    super.visitCode(obj);
-                    reportBugs();
-                } catch (StopOpcodeParsingException e) {
-                    // no more possible parameter definers
+            DetectorEvents.Span span = DetectorEvents.beginMethod(this, getClassName(), m);
+            try {
+                if (buildParameterDefiners()) {
+                    budget.start(getDottedClassName(), m);
+                    try {
+                        super.visitCode(obj);
+                        reportBugs();
+                    } catch (StopOpcodeParsingException e) {
+                        // no more possible parameter definers, or over budget
+                    }
                 }
+            } finally {
+                span.finish();
             }
         } catch (ClassNotFoundException cnfe) {
             bugReporter.reportMissingClass(cnfe);
@@ -228,6 +249,7 @@ public class OverlyConcreteParameter extends BytecodeScanningDetector {
      */
     @Override
     public void sawOpcode(final int seen) {
+        budget.charge();
 
         try {
             stack.precomputation(this);
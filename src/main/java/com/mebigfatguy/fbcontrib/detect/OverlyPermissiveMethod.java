@@ -19,7 +19,9 @@
 package com.mebigfatguy.fbcontrib.detect;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.bcel.Const;
 import org.apache.bcel.Repository;
@@ -40,8 +42,11 @@ import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
 import com.mebigfatguy.fbcontrib.collect.MethodInfo;
+import com.mebigfatguy.fbcontrib.collect.Shard;
 import com.mebigfatguy.fbcontrib.collect.Statistics;
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.DetectorEvents;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -74,6 +79,7 @@ public class OverlyPermissiveMethod extends BytecodeScanningDetector {
 	private JavaClass cls;
 	private String callingPackage;
 	private String callingClass;
+	private Set<String> sliceClasses;
 
 	/**
 	 * constructs a OPM detector given the reporter to report bugs on
@@ -83,21 +89,31 @@ public class OverlyPermissiveMethod extends BytecodeScanningDetector {
 	 */
 	public OverlyPermissiveMethod(BugReporter bugReporter) {
 		this.bugReporter = bugReporter;
+		sliceClasses = new HashSet<>();
 	}
 
 	@Override
 	public void visitClassContext(ClassContext classContext) {
-		try {
-			cls = classContext.getJavaClass();
-			ClassDescriptor cd = classContext.getClassDescriptor();
-			callingClass = cd.getClassName();
-			callingPackage = cd.getPackageName();
-			stack = new OpcodeStack();
-			super.visitClassContext(classContext);
-		} finally {
-			callingPackage = null;
-			stack = null;
+		if (AnalysisScope.skipCrossClass(this)) {
+			return;
 		}
+
+		DetectorEvents.recordClass(this, classContext, () -> {
+			try {
+				cls = classContext.getJavaClass();
+				ClassDescriptor cd = classContext.getClassDescriptor();
+				callingClass = cd.getClassName();
+				callingPackage = cd.getPackageName();
+				if (Shard.isReporting()) {
+					sliceClasses.add(callingClass);
+				}
+				stack = new OpcodeStack();
+				super.visitClassContext(classContext);
+			} finally {
+				callingPackage = null;
+				stack = null;
+			}
+		});
 	}
 
 	@Override
@@ -107,8 +123,7 @@ public class OverlyPermissiveMethod extends BytecodeScanningDetector {
 		String sig = m.getSignature();
 
 		if (isAssumedPublic(methodName)) {
-			MethodInfo mi = Statistics.getStatistics().getMethodStatistics(cls.getClassName(), methodName, sig);
-			mi.addCallingAccess(Const.ACC_PUBLIC);
+			Statistics.getStatistics().addCallingAccess(cls.getClassName(), methodName, sig, Const.ACC_PUBLIC);
 		} else if (!hasRuntimeAnnotations(m) && !isGetterSetter(methodName, sig)) {
 			stack.resetForMethodEntry(this);
 			super.visitCode(obj);
@@ -127,37 +142,35 @@ public class OverlyPermissiveMethod extends BytecodeScanningDetector {
 			case INVOKESPECIAL: {
 				String calledClass = getClassConstantOperand();
 				String sig = getSigConstantOperand();
-				MethodInfo mi = Statistics.getStatistics().getMethodStatistics(calledClass, getNameConstantOperand(),
-						sig);
-				if (mi != null) {
-					if (seen == INVOKEINTERFACE) {
-						mi.addCallingAccess(Const.ACC_PUBLIC);
+				int access;
+				if (seen == INVOKEINTERFACE) {
+					access = Const.ACC_PUBLIC;
+				} else {
+					String calledPackage;
+					int slashPos = calledClass.lastIndexOf('/');
+					if (slashPos >= 0) {
+						calledPackage = calledClass.substring(0, slashPos);
 					} else {
-						String calledPackage;
-						int slashPos = calledClass.lastIndexOf('/');
-						if (slashPos >= 0) {
-							calledPackage = calledClass.substring(0, slashPos);
-						} else {
-							calledPackage = "";
-						}
-						boolean sameClass = calledClass.equals(callingClass);
-						boolean samePackage = calledPackage.equals(callingPackage);
+						calledPackage = "";
+					}
+					boolean sameClass = calledClass.equals(callingClass);
+					boolean samePackage = calledPackage.equals(callingPackage);
 
-						if (sameClass) {
-							mi.addCallingAccess(Const.ACC_PRIVATE);
-						} else if (samePackage) {
-							mi.addCallingAccess(0);
+					if (sameClass) {
+						access = Const.ACC_PRIVATE;
+					} else if (samePackage) {
+						access = 0;
+					} else {
+						if (seen == INVOKESTATIC) {
+							access = Const.ACC_PUBLIC;
+						} else if (isCallingOnThis(sig)) {
+							access = Const.ACC_PROTECTED;
 						} else {
-							if (seen == INVOKESTATIC) {
-								mi.addCallingAccess(Const.ACC_PUBLIC);
-							} else if (isCallingOnThis(sig)) {
-								mi.addCallingAccess(Const.ACC_PROTECTED);
-							} else {
-								mi.addCallingAccess(Const.ACC_PUBLIC);
-							}
+							access = Const.ACC_PUBLIC;
 						}
 					}
 				}
+				Statistics.getStatistics().addCallingAccess(calledClass, getNameConstantOperand(), sig, access);
 			}
 				break;
 
@@ -176,8 +189,7 @@ public class OverlyPermissiveMethod extends BytecodeScanningDetector {
 								.getConstant(ref.getNameAndTypeIndex());
 						String sig = ((ConstantUtf8) pool.getConstant(nameAndType.getSignatureIndex())).getBytes();
 						String name = ((ConstantUtf8) pool.getConstant(nameAndType.getNameIndex())).getBytes();
-						MethodInfo mi = Statistics.getStatistics().getMethodStatistics(clz, name, sig);
-						mi.addCallingAccess(Const.ACC_PUBLIC);
+						Statistics.getStatistics().addCallingAccess(clz, name, sig, Const.ACC_PUBLIC);
 					}
 
 				}
@@ -250,48 +262,70 @@ public class OverlyPermissiveMethod extends BytecodeScanningDetector {
 
 	/**
 	 * after collecting all method calls, build a report of all methods that have
-	 * been called, but in a way that is less permissive then is defined.
+	 * been called, but in a way that is less permissive then is defined. When
+	 * collecting a shard, the calls are saved instead, and when reporting on a
+	 * slice, only the methods of the slice's classes are reported.
 	 */
 	@Override
 	public void report() {
-		for (Map.Entry<FQMethod, MethodInfo> entry : Statistics.getStatistics()) {
-			MethodInfo mi = entry.getValue();
+		if (AnalysisScope.skipCrossClass(this)) {
+			return;
+		}
 
-			int declaredAccess = mi.getDeclaredAccess();
-			if ((declaredAccess & Const.ACC_PRIVATE) != 0) {
-				continue;
+		DetectorEvents.Span span = DetectorEvents.beginReport(this);
+		try {
+			if (Shard.isCollecting()) {
+				Shard.save();
+				return;
 			}
 
-			if (mi.wasCalledPublicly() || !mi.wasCalled()) {
-				continue;
-			}
+			boolean reportingSlice = Shard.isReporting();
+			for (Map.Entry<FQMethod, MethodInfo> entry : Statistics.getStatistics()) {
+				String methodClsName = entry.getKey().getClassName();
+				if ((reportingSlice && !sliceClasses.contains(methodClsName)) || AnalysisScope.skipReport(methodClsName)) {
+					continue;
+				}
 
-			FQMethod key = entry.getKey();
+				MethodInfo mi = entry.getValue();
 
-			String methodName = key.getMethodName();
-			if (isGetterSetter(methodName, key.getSignature())) {
-				continue;
-			}
+				int declaredAccess = mi.getDeclaredAccess();
+				if ((declaredAccess & Const.ACC_PRIVATE) != 0) {
+					continue;
+				}
+
+				if (mi.wasCalledPublicly() || !mi.wasCalled()) {
+					continue;
+				}
+
+				FQMethod key = entry.getKey();
+
+				String methodName = key.getMethodName();
+				if (isGetterSetter(methodName, key.getSignature())) {
+					continue;
+				}
 
-			if (isOverlyPermissive(declaredAccess)) {
-				try {
-					String clsName = key.getClassName();
-					if (!isDerived(Repository.lookupClass(clsName), key)) {
+				if (isOverlyPermissive(declaredAccess)) {
+					try {
+						String clsName = key.getClassName();
+						if (!isDerived(Repository.lookupClass(clsName), key)) {
 
-						BugInstance bi = new BugInstance(this, BugType.OPM_OVERLY_PERMISSIVE_METHOD.name(),
-								LOW_PRIORITY).addClass(clsName).addMethod(clsName, key.getMethodName(),
-										key.getSignature(), (declaredAccess & Const.ACC_STATIC) != 0);
+							BugInstance bi = new BugInstance(this, BugType.OPM_OVERLY_PERMISSIVE_METHOD.name(),
+									LOW_PRIORITY).addClass(clsName).addMethod(clsName, key.getMethodName(),
+											key.getSignature(), (declaredAccess & Const.ACC_STATIC) != 0);
 
-						String descr = String.format("- Method declared %s but could be declared %s",
-								getDeclaredAccessValue(declaredAccess), getRequiredAccessValue(mi));
-						bi.addString(descr);
+							String descr = String.format("- Method declared %s but could be declared %s",
+									getDeclaredAccessValue(declaredAccess), getRequiredAccessValue(mi));
+							bi.addString(descr);
 
-						bugReporter.reportBug(bi);
+							bugReporter.reportBug(bi);
+						}
+					} catch (ClassNotFoundException cnfe) {
+						bugReporter.reportMissingClass(cnfe);
 					}
-				} catch (ClassNotFoundException cnfe) {
-					bugReporter.reportMissingClass(cnfe);
 				}
 			}
+		} finally {
+			span.finish();
 		}
 	}
 
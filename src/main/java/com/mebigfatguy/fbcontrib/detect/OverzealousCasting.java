@@ -33,7 +33,6 @@ import com.mebigfatguy.fbcontrib.utils.Values;
 
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 import edu.umd.cs.findbugs.FieldAnnotation;
 
 /**
@@ -41,7 +40,7 @@ import edu.umd.cs.findbugs.FieldAnnotation;
  * value is assigned to a class or interface higher up in the inheritance chain.
  * You only need to cast to that class or interface.
  */
-public class OverzealousCasting extends BytecodeScanningDetector {
+public class OverzealousCasting extends ScopedBytecodeScanningDetector {
     enum State {
         SAW_NOTHING, SAW_NEXT, SAW_CHECKCAST
     }
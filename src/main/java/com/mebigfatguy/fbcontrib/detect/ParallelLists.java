@@ -27,6 +27,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -60,32 +61,34 @@ public class ParallelLists extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(final ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-
-            listFields = new HashSet<>();
-            Field[] flds = cls.getFields();
-            for (Field f : flds) {
-                String sig = f.getSignature();
-                if (sig.startsWith(Values.SIG_QUALIFIED_CLASS_PREFIX)) {
-                    sig = SignatureUtils.trimSignature(sig);
-                    if (sig.startsWith("java/util/") && sig.endsWith("List")) {
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+
+                listFields = new HashSet<>();
+                Field[] flds = cls.getFields();
+                for (Field f : flds) {
+                    String sig = f.getSignature();
+                    if (sig.startsWith(Values.SIG_QUALIFIED_CLASS_PREFIX)) {
+                        sig = SignatureUtils.trimSignature(sig);
+                        if (sig.startsWith("java/util/") && sig.endsWith("List")) {
+                            listFields.add(f.getName());
+                        }
+                    } else if (sig.startsWith(Values.SIG_ARRAY_PREFIX) && !sig.startsWith(Values.SIG_ARRAY_OF_ARRAYS_PREFIX)) {
                         listFields.add(f.getName());
                     }
-                } else if (sig.startsWith(Values.SIG_ARRAY_PREFIX) && !sig.startsWith(Values.SIG_ARRAY_OF_ARRAYS_PREFIX)) {
-                    listFields.add(f.getName());
                 }
-            }
 
-            if (!listFields.isEmpty()) {
-                stack = new OpcodeStack();
-                indexToFieldMap = new HashMap<>();
-                super.visitClassContext(classContext);
+                if (!listFields.isEmpty()) {
+                    stack = new OpcodeStack();
+                    indexToFieldMap = new HashMap<>();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                stack = null;
+                indexToFieldMap = null;
             }
-        } finally {
-            stack = null;
-            indexToFieldMap = null;
-        }
+        });
     }
 
     /**
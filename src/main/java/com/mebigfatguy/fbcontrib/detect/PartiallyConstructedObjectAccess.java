@@ -29,6 +29,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.StopOpcodeParsingException;
@@ -69,21 +70,23 @@ public class PartiallyConstructedObjectAccess extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(final ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            if (!cls.isFinal()) {
-                stack = new OpcodeStack();
-                methodToCalledMethods = new HashMap<>();
-                super.visitClassContext(classContext);
-
-                if (!methodToCalledMethods.isEmpty()) {
-                    reportChainedMethods();
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                if (!cls.isFinal()) {
+                    stack = new OpcodeStack();
+                    methodToCalledMethods = new HashMap<>();
+                    super.visitClassContext(classContext);
+
+                    if (!methodToCalledMethods.isEmpty()) {
+                        reportChainedMethods();
+                    }
                 }
+            } finally {
+                stack = null;
+                methodToCalledMethods = null;
             }
-        } finally {
-            stack = null;
-            methodToCalledMethods = null;
-        }
+        });
     }
 
     @Override
@@ -28,6 +28,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.StopOpcodeParsingException;
 
@@ -56,44 +57,46 @@ public class PoorMansEnum extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            if (cls.getMajor() >= Const.MAJOR_1_5) {
-                fieldValues = new HashMap<>();
-                nameToField = new HashMap<>();
-                for (Field f : cls.getFields()) {
-                    if (f.isPrivate() && !f.isSynthetic()) {
-                        String fieldName = f.getName();
-                        fieldValues.put(fieldName, null);
-                        nameToField.put(fieldName, f);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                if (cls.getMajor() >= Const.MAJOR_1_5) {
+                    fieldValues = new HashMap<>();
+                    nameToField = new HashMap<>();
+                    for (Field f : cls.getFields()) {
+                        if (f.isPrivate() && !f.isSynthetic()) {
+                            String fieldName = f.getName();
+                            fieldValues.put(fieldName, null);
+                            nameToField.put(fieldName, f);
+                        }
                     }
-                }
-                if (!fieldValues.isEmpty()) {
-                    stack = new OpcodeStack();
-                    firstFieldUse = new HashMap<>();
+                    if (!fieldValues.isEmpty()) {
+                        stack = new OpcodeStack();
+                        firstFieldUse = new HashMap<>();
 
-                    try {
-                        super.visitClassContext(classContext);
+                        try {
+                            super.visitClassContext(classContext);
 
-                        for (Map.Entry<String, Set<Object>> fieldInfo : fieldValues.entrySet()) {
-                            Set<Object> values = fieldInfo.getValue();
-                            if ((values != null) && (values.size() >= 3)) {
-                                String fieldName = fieldInfo.getKey();
-                                bugReporter.reportBug(new BugInstance(this, BugType.PME_POOR_MANS_ENUM.name(), NORMAL_PRIORITY).addClass(this)
-                                        .addField(XFactory.createXField(cls, nameToField.get(fieldName))).addSourceLine(firstFieldUse.get(fieldName)));
+                            for (Map.Entry<String, Set<Object>> fieldInfo : fieldValues.entrySet()) {
+                                Set<Object> values = fieldInfo.getValue();
+                                if ((values != null) && (values.size() >= 3)) {
+                                    String fieldName = fieldInfo.getKey();
+                                    bugReporter.reportBug(new BugInstance(this, BugType.PME_POOR_MANS_ENUM.name(), NORMAL_PRIORITY).addClass(this)
+                                            .addField(XFactory.createXField(cls, nameToField.get(fieldName))).addSourceLine(firstFieldUse.get(fieldName)));
+                                }
                             }
+                        } catch (StopOpcodeParsingException e) {
+                            // no fields left
                         }
-                    } catch (StopOpcodeParsingException e) {
-                        // no fields left
                     }
                 }
+            } finally {
+                fieldValues = null;
+                nameToField = null;
+                firstFieldUse = null;
+                stack = null;
             }
-        } finally {
-            fieldValues = null;
-            nameToField = null;
-            firstFieldUse = null;
-            stack = null;
-        }
+        });
     }
 
     @Override
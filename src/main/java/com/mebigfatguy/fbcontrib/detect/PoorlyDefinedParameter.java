@@ -36,13 +36,12 @@ import com.mebigfatguy.fbcontrib.utils.Values;
 
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 
 /**
  * looks for non derivable method that declare parameters and then cast those parameters to more specific types in the method. This is misleading and dangerous
  * as you are not documenting through parameter types what is necessary for these parameters to function correctly.
  */
-public class PoorlyDefinedParameter extends BytecodeScanningDetector {
+public class PoorlyDefinedParameter extends ScopedBytecodeScanningDetector {
     enum State {
         SAW_NOTHING, SAW_LOAD, SAW_CHECKCAST
     }
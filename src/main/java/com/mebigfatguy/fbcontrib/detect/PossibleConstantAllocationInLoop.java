@@ -28,7 +28,9 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.LocalVariable;
 import org.apache.bcel.classfile.LocalVariableTable;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -65,23 +67,25 @@ public class PossibleConstantAllocationInLoop extends BytecodeScanningDetector {
     private int nextTernaryTarget;
 
     public PossibleConstantAllocationInLoop(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            allocations = new HashMap<>();
-            storedAllocations = new HashMap<>();
-            switchInfos = new ArrayList<>();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            allocations = null;
-            storedAllocations = null;
-            switchInfos = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                allocations = new HashMap<>();
+                storedAllocations = new HashMap<>();
+                switchInfos = new ArrayList<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                allocations = null;
+                storedAllocations = null;
+                switchInfos = null;
+            }
+        });
     }
 
     @Override
@@ -29,6 +29,7 @@ import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.StopOpcodeParsingException;
@@ -93,27 +94,29 @@ public class PossibleMemoryBloat extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            bloatableCandidates = new HashMap<>();
-            bloatableFields = new HashMap<>();
-            threadLocalNonStaticFields = new HashSet<>();
-            parseFields(classContext);
-
-            if (!bloatableCandidates.isEmpty()) {
-                stack = new OpcodeStack();
-                super.visitClassContext(classContext);
-
-                reportMemoryBloatBugs();
-                reportThreadLocalBugs();
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                bloatableCandidates = new HashMap<>();
+                bloatableFields = new HashMap<>();
+                threadLocalNonStaticFields = new HashSet<>();
+                parseFields(classContext);
+
+                if (!bloatableCandidates.isEmpty()) {
+                    stack = new OpcodeStack();
+                    super.visitClassContext(classContext);
+
+                    reportMemoryBloatBugs();
+                    reportThreadLocalBugs();
+                }
+            } catch (StopOpcodeParsingException e) {
+                // no more bloatable candidates
+            } finally {
+                stack = null;
+                bloatableCandidates = null;
+                bloatableFields = null;
+                threadLocalNonStaticFields = null;
             }
-        } catch (StopOpcodeParsingException e) {
-            // no more bloatable candidates
-        } finally {
-            stack = null;
-            bloatableCandidates = null;
-            bloatableFields = null;
-            threadLocalNonStaticFields = null;
-        }
+        });
     }
 
     private void reportThreadLocalBugs() {
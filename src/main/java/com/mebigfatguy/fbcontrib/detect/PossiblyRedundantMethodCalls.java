@@ -33,8 +33,11 @@ import org.apache.bcel.classfile.LineNumberTable;
 
 import com.mebigfatguy.fbcontrib.collect.MethodInfo;
 import com.mebigfatguy.fbcontrib.collect.Statistics;
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.MethodRefIds;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.ToString;
@@ -63,6 +66,8 @@ public class PossiblyRedundantMethodCalls extends BytecodeScanningDetector {
     public static final String PRMC_HIGH_METHODCALLS = "fbcontrib.PRMC.highmethodcalls";
     public static final String PRMC_NORMAL_BYTECOUNT = "fbcontrib.PRMC.normalbytecount";
     public static final String PRMC_NORMAL_METHODCALLS = "fbcontrib.PRMC.normalmethodcalls";
+    public static final String PRMC_HIGH_COST = "fbcontrib.PRMC.highcost";
+    public static final String PRMC_NORMAL_COST = "fbcontrib.PRMC.normalcost";
 
     /**
      * a collection of names that are to be checked against a currently parsed method, to see if that method is risky to be called redundant. The contents are
@@ -77,6 +82,8 @@ public class PossiblyRedundantMethodCalls extends BytecodeScanningDetector {
     private static int highMethodCallLimit = 10;
     private static int normalByteCountLimit = 50;
     private static int normalMethodCallLimit = 4;
+    private static int highCostLimit = 20000;
+    private static int normalCostLimit = 5000;
 
     static {
         riskyMethodNameContents.add("next");
@@ -129,6 +136,14 @@ public class PossiblyRedundantMethodCalls extends BytecodeScanningDetector {
         if (prop != null) {
             normalMethodCallLimit = prop.intValue();
         }
+        prop = Integer.getInteger(PRMC_HIGH_COST);
+        if (prop != null) {
+            highCostLimit = prop.intValue();
+        }
+        prop = Integer.getInteger(PRMC_NORMAL_COST);
+        if (prop != null) {
+            normalCostLimit = prop.intValue();
+        }
     }
 
     private static Set<String> riskyClassNames = new HashSet<>();
@@ -174,6 +189,8 @@ public class PossiblyRedundantMethodCalls extends BytecodeScanningDetector {
     // @formatter:on
     );
 
+    private static final BitSet commonMethodIds = MethodRefIds.registerAll(commonMethods);
+
     private final BugReporter bugReporter;
     private OpcodeStack stack = null;
     private Map<Integer, MethodCall> localMethodCalls = null;
@@ -188,7 +205,7 @@ public class PossiblyRedundantMethodCalls extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public PossiblyRedundantMethodCalls(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
@@ -199,20 +216,22 @@ public class PossiblyRedundantMethodCalls extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            localMethodCalls = new HashMap<>();
-            fieldMethodCalls = new HashMap<>();
-            staticMethodCalls = new HashMap<>();
-            branchTargets = new BitSet();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            localMethodCalls = null;
-            fieldMethodCalls = null;
-            staticMethodCalls = null;
-            branchTargets = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                localMethodCalls = new HashMap<>();
+                fieldMethodCalls = new HashMap<>();
+                staticMethodCalls = new HashMap<>();
+                branchTargets = new BitSet();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                localMethodCalls = null;
+                fieldMethodCalls = null;
+                staticMethodCalls = null;
+                branchTargets = null;
+            }
+        });
     }
 
     /**
@@ -225,6 +244,10 @@ public class PossiblyRedundantMethodCalls extends BytecodeScanningDetector {
      */
     @Override
     public void visitCode(Code obj) {
+        if (AnalysisScope.skipMethod(getClassContext(), getMethod())) {
+            return;
+        }
+
         stack.resetForMethodEntry(this);
         localMethodCalls.clear();
         fieldMethodCalls.clear();
@@ -324,6 +347,7 @@ public class PossiblyRedundantMethodCalls extends BytecodeScanningDetector {
                         mc = localMethodCalls.get(Integer.valueOf(reg));
                         MethodInfo mi = Statistics.getStatistics().getMethodStatistics(className, getNameConstantOperand(), signature);
                         if ((mi != null) && mi.getModifiesState()) {
+                            localMethodCalls.remove(Integer.valueOf(reg));
                             clearFieldMethods(String.valueOf(reg));
                             return;
                         }
@@ -372,7 +396,7 @@ public class PossiblyRedundantMethodCalls extends BytecodeScanningDetector {
                     if (mc != null) {
                         if (!signature.endsWith(Values.SIG_VOID) && methodName.equals(mc.getName()) && signature.equals(mc.getSignature())
                                 && !isRiskyName(className, methodName)
-                                && !commonMethods.contains(new FQMethod(getClassConstantOperand(), methodName, signature))) {
+                                && !MethodRefIds.isMethodIn(this, commonMethodIds)) {
                             Object[] parms = mc.getParms();
                             if (Arrays.equals(parms, parmConstants)) {
                                 int ln = getLineNumber(pc);
@@ -435,7 +459,8 @@ public class PossiblyRedundantMethodCalls extends BytecodeScanningDetector {
     }
 
     /**
-     * returns the bug priority based on metrics about the method
+     * returns the bug priority based on metrics about the method, its size and calls, and its estimated cost, which counts what it calls, and whether it
+     * loops or does I/O, so that repeating a short call that does a lot ranks as high as repeating a long one
      *
      * @param methodName
      *            TODO
@@ -448,11 +473,11 @@ public class PossiblyRedundantMethodCalls extends BytecodeScanningDetector {
             return LOW_PRIORITY;
         }
 
-        if ((mi.getNumBytes() >= highByteCountLimit) || (mi.getNumMethodCalls() >= highMethodCallLimit)) {
+        if ((mi.getNumBytes() >= highByteCountLimit) || (mi.getNumMethodCalls() >= highMethodCallLimit) || (mi.getCost() >= highCostLimit)) {
             return HIGH_PRIORITY;
         }
 
-        if ((mi.getNumBytes() >= normalByteCountLimit) || (mi.getNumMethodCalls() >= normalMethodCallLimit)) {
+        if ((mi.getNumBytes() >= normalByteCountLimit) || (mi.getNumMethodCalls() >= normalMethodCallLimit) || (mi.getCost() >= normalCostLimit)) {
             return NORMAL_PRIORITY;
         }
 
@@ -29,7 +29,9 @@ import java.util.Set;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.CodeException;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.ToString;
@@ -66,7 +68,7 @@ public class PresizeCollections extends BytecodeScanningDetector {
 	private List<CodeRange> optionalRanges;
 
 	public PresizeCollections(BugReporter bugReporter) {
-		this.bugReporter = bugReporter;
+		this.bugReporter = HotMethods.wrap(bugReporter);
 	}
 
 	/**
@@ -77,20 +79,22 @@ public class PresizeCollections extends BytecodeScanningDetector {
 	 */
 	@Override
 	public void visitClassContext(ClassContext classContext) {
-		try {
-			stack = new OpcodeStack();
-			storeToAllocNumber = new HashMap<>();
-			allocLocation = new HashMap<>();
-			allocToAddPCs = new HashMap<>();
-			optionalRanges = new ArrayList<>();
-			super.visitClassContext(classContext);
-		} finally {
-			stack = null;
-			storeToAllocNumber = null;
-			allocLocation = null;
-			allocToAddPCs = null;
-			optionalRanges = null;
-		}
+		AnalysisScope.visitClass(this, classContext, () -> {
+			try {
+				stack = new OpcodeStack();
+				storeToAllocNumber = new HashMap<>();
+				allocLocation = new HashMap<>();
+				allocToAddPCs = new HashMap<>();
+				optionalRanges = new ArrayList<>();
+				super.visitClassContext(classContext);
+			} finally {
+				stack = null;
+				storeToAllocNumber = null;
+				allocLocation = null;
+				allocToAddPCs = null;
+				optionalRanges = null;
+			}
+		});
 	}
 
 	/**
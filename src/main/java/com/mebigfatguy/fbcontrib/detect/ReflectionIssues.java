@@ -21,6 +21,7 @@ package com.mebigfatguy.fbcontrib.detect;
 import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
 import com.mebigfatguy.fbcontrib.utils.QMethod;
@@ -55,9 +56,11 @@ public class ReflectionIssues extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(ClassContext clsContext) {
-        if (ACCESSIBLE_OBJECT_CLASS != null) {
-            super.visitClassContext(clsContext);
-        }
+        AnalysisScope.visitClass(this, clsContext, () -> {
+            if (ACCESSIBLE_OBJECT_CLASS != null) {
+                super.visitClassContext(clsContext);
+            }
+        });
     }
 
     @Override
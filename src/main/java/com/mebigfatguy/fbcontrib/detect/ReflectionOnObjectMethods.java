@@ -26,6 +26,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
@@ -79,23 +80,25 @@ public class ReflectionOnObjectMethods extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            localClassTypes = new HashMap<Integer, String[]>();
-            fieldClassTypes = new HashMap<String, String[]>();
-            JavaClass cls = classContext.getJavaClass();
-            Method staticInit = findStaticInitializer(cls);
-            if (staticInit != null) {
-                setupVisitorForClass(cls);
-                doVisitMethod(staticInit);
-            }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                localClassTypes = new HashMap<Integer, String[]>();
+                fieldClassTypes = new HashMap<String, String[]>();
+                JavaClass cls = classContext.getJavaClass();
+                Method staticInit = findStaticInitializer(cls);
+                if (staticInit != null) {
+                    setupVisitorForClass(cls);
+                    doVisitMethod(staticInit);
+                }
 
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            localClassTypes = null;
-            fieldClassTypes = null;
-        }
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                localClassTypes = null;
+                fieldClassTypes = null;
+            }
+        });
     }
 
     /**
@@ -26,6 +26,7 @@ import org.apache.bcel.classfile.ExceptionTable;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.Values;
 
@@ -74,9 +75,11 @@ public class RuntimeExceptionDeclared extends PreorderVisitor implements Detecto
      */
     @Override
     public void visitClassContext(final ClassContext classContext) {
-        if (runtimeExceptionClass != null) {
-            classContext.getJavaClass().accept(this);
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            if (runtimeExceptionClass != null) {
+                classContext.getJavaClass().accept(this);
+            }
+        });
     }
 
     /**
@@ -24,8 +24,10 @@ import java.util.Set;
 
 import org.apache.bcel.classfile.Code;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
-import com.mebigfatguy.fbcontrib.utils.ToString;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.Loops;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
 
 import edu.umd.cs.findbugs.BugInstance;
@@ -40,7 +42,7 @@ import edu.umd.cs.findbugs.ba.ClassContext;
  * the keys for all the queries previously needed in the loop.
  */
 public class SQLInLoop extends BytecodeScanningDetector {
-    private static final Set<String> queryClasses = UnmodifiableSet.create(
+    static final Set<String> queryClasses = UnmodifiableSet.create(
         "java/sql/Statement",
         "java/sql/PreparedStatement",
         "java/sql/CallableStatement"
@@ -51,7 +53,7 @@ public class SQLInLoop extends BytecodeScanningDetector {
 
     private final BugReporter bugReporter;
     List<Integer> queryLocations;
-    List<LoopLocation> loops;
+    Loops loops;
 
     /**
      * constructs a SIL detector given the reporter to report bugs on
@@ -60,7 +62,7 @@ public class SQLInLoop extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public SQLInLoop(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
@@ -72,14 +74,16 @@ public class SQLInLoop extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            queryLocations = new ArrayList<Integer>();
-            loops = new ArrayList<LoopLocation>();
-            super.visitClassContext(classContext);
-        } finally {
-            queryLocations = null;
-            loops = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                queryLocations = new ArrayList<Integer>();
+                loops = new Loops();
+                super.visitClassContext(classContext);
+            } finally {
+                queryLocations = null;
+                loops = null;
+            }
+        });
     }
 
     /**
@@ -95,12 +99,9 @@ public class SQLInLoop extends BytecodeScanningDetector {
         loops.clear();
         super.visitCode(obj);
         for (Integer qLoc : queryLocations) {
-            for (LoopLocation lLoc : loops) {
-                if (lLoc.isInLoop(qLoc.intValue())) {
-                    bugReporter.reportBug(new BugInstance(this, BugType.SIL_SQL_IN_LOOP.name(), NORMAL_PRIORITY).addClass(this).addMethod(this)
-                            .addSourceLine(this, qLoc.intValue()));
-                    break;
-                }
+            if (loops.isInLoop(qLoc.intValue())) {
+                bugReporter.reportBug(new BugInstance(this, BugType.SIL_SQL_IN_LOOP.name(), NORMAL_PRIORITY).addClass(this).addMethod(this)
+                        .addSourceLine(this, qLoc.intValue()));
             }
         }
     }
@@ -119,34 +120,8 @@ public class SQLInLoop extends BytecodeScanningDetector {
 
             if (queryClasses.contains(clsName) && queryMethods.contains(methodName))
                 queryLocations.add(Integer.valueOf(getPC()));
-        } else if ((seen == GOTO) || (seen == GOTO_W)) {
-            int branchTarget = getBranchTarget();
-            int pc = getPC();
-            if (branchTarget < pc) {
-                loops.add(new LoopLocation(branchTarget, pc));
-            }
-        }
-    }
-
-    /**
-     * holds the start and end position of a loop
-     */
-    private static class LoopLocation {
-        private final int startPC;
-        private final int endPC;
-
-        LoopLocation(int start, int end) {
-            startPC = start;
-            endPC = end;
-        }
-
-        boolean isInLoop(int pc) {
-            return (pc >= startPC) && (pc <= endPC);
-        }
-
-        @Override
-        public String toString() {
-            return ToString.build(this);
+        } else {
+            loops.sawOpcode(this, seen);
         }
     }
 }
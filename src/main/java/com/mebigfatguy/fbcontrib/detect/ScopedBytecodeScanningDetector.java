@@ -0,0 +1,42 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+
+import edu.umd.cs.findbugs.BytecodeScanningDetector;
+import edu.umd.cs.findbugs.ba.ClassContext;
+
+/**
+ * a base class for BytecodeScanningDetectors that set nothing up per class, which leaves out the classes that are out of the analysis scope. Detectors that
+ * set up per class state override visitClassContext instead, and do their work on a class in {@link AnalysisScope#visitClass}.
+ */
+public abstract class ScopedBytecodeScanningDetector extends BytecodeScanningDetector {
+
+    /**
+     * implements the visitor to only scan classes that are in the analysis scope
+     *
+     * @param classContext
+     *            the context object of the currently parsed class
+     */
+    @Override
+    public final void visitClassContext(ClassContext classContext) {
+        AnalysisScope.visitClass(this, classContext, () -> super.visitClassContext(classContext));
+    }
+}
@@ -28,6 +28,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -163,28 +164,30 @@ public class Section508Compliance extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            if ((jcomponentClass != null) && (accessibleClass != null)) {
-                JavaClass cls = classContext.getJavaClass();
-                if (cls.instanceOf(jcomponentClass) && !cls.implementationOf(accessibleClass)) {
-                    bugReporter.reportBug(new BugInstance(this, BugType.S508C_NON_ACCESSIBLE_JCOMPONENT.name(), NORMAL_PRIORITY).addClass(cls));
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                if ((jcomponentClass != null) && (accessibleClass != null)) {
+                    JavaClass cls = classContext.getJavaClass();
+                    if (cls.instanceOf(jcomponentClass) && !cls.implementationOf(accessibleClass)) {
+                        bugReporter.reportBug(new BugInstance(this, BugType.S508C_NON_ACCESSIBLE_JCOMPONENT.name(), NORMAL_PRIORITY).addClass(cls));
+                    }
                 }
-            }
 
-            stack = new OpcodeStack();
-            fieldLabels = new HashSet<>();
-            localLabels = new HashMap<>();
-            super.visitClassContext(classContext);
-            for (XField fa : fieldLabels) {
-                bugReporter.reportBug(new BugInstance(this, BugType.S508C_NO_SETLABELFOR.name(), NORMAL_PRIORITY).addClass(this).addField(fa));
+                stack = new OpcodeStack();
+                fieldLabels = new HashSet<>();
+                localLabels = new HashMap<>();
+                super.visitClassContext(classContext);
+                for (XField fa : fieldLabels) {
+                    bugReporter.reportBug(new BugInstance(this, BugType.S508C_NO_SETLABELFOR.name(), NORMAL_PRIORITY).addClass(this).addField(fa));
+                }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            } finally {
+                stack = null;
+                fieldLabels = null;
+                localLabels = null;
             }
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        } finally {
-            stack = null;
-            fieldLabels = null;
-            localLabels = null;
-        }
+        });
     }
 
     /**
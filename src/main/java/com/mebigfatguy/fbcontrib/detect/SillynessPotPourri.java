@@ -43,8 +43,10 @@ import org.apache.bcel.classfile.LocalVariable;
 import org.apache.bcel.classfile.LocalVariableTable;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.CodeByteUtils;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.QMethod;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -133,7 +135,7 @@ public class SillynessPotPourri extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public SillynessPotPourri(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
         toStringClasses = new HashSet<>();
     }
 
@@ -146,20 +148,22 @@ public class SillynessPotPourri extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            lastPCs = new int[4];
-            branchTargets = new HashMap<>();
-            trimLocations = new HashMap<>();
-            isInterface = classContext.getJavaClass().isInterface();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            lastPCs = null;
-            branchTargets = null;
-            trimLocations = null;
-            staticConstants = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                lastPCs = new int[4];
+                branchTargets = new HashMap<>();
+                trimLocations = new HashMap<>();
+                isInterface = classContext.getJavaClass().isInterface();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                lastPCs = null;
+                branchTargets = null;
+                trimLocations = null;
+                staticConstants = null;
+            }
+        });
     }
 
     /**
@@ -29,6 +29,7 @@ import org.apache.bcel.classfile.LocalVariableTable;
 import org.apache.bcel.classfile.Method;
 import org.apache.bcel.generic.Type;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -71,16 +72,18 @@ public class SloppyClassReflection extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            refClasses = new HashSet<>();
-            refClasses.add(classContext.getJavaClass().getClassName());
-            state = State.COLLECT;
-            super.visitClassContext(classContext);
-            state = State.SEEN_NOTHING;
-            super.visitClassContext(classContext);
-        } finally {
-            refClasses = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                refClasses = new HashSet<>();
+                refClasses.add(classContext.getJavaClass().getClassName());
+                state = State.COLLECT;
+                super.visitClassContext(classContext);
+                state = State.SEEN_NOTHING;
+                super.visitClassContext(classContext);
+            } finally {
+                refClasses = null;
+            }
+        });
     }
 
     /**
@@ -27,7 +27,9 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.StopOpcodeParsingException;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
 
@@ -68,7 +70,7 @@ public class SluggishGui extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public SluggishGui(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
@@ -79,29 +81,31 @@ public class SluggishGui extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            guiInterfaces = new HashSet<>();
-            JavaClass cls = classContext.getJavaClass();
-            JavaClass[] infs = cls.getAllInterfaces();
-            for (JavaClass inf : infs) {
-                String name = inf.getClassName();
-                if ((name.startsWith("java.awt.") || name.startsWith("javax.swing.")) && name.endsWith("Listener")) {
-                    guiInterfaces.add(inf);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                guiInterfaces = new HashSet<>();
+                JavaClass cls = classContext.getJavaClass();
+                JavaClass[] infs = cls.getAllInterfaces();
+                for (JavaClass inf : infs) {
+                    String name = inf.getClassName();
+                    if ((name.startsWith("java.awt.") || name.startsWith("javax.swing.")) && name.endsWith("Listener")) {
+                        guiInterfaces.add(inf);
+                    }
                 }
-            }
 
-            if (!guiInterfaces.isEmpty()) {
-                listenerCode = new LinkedHashMap<>();
-                expensiveThisCalls = new HashSet<>();
-                super.visitClassContext(classContext);
+                if (!guiInterfaces.isEmpty()) {
+                    listenerCode = new LinkedHashMap<>();
+                    expensiveThisCalls = new HashSet<>();
+                    super.visitClassContext(classContext);
+                }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            } finally {
+                guiInterfaces = null;
+                listenerCode = null;
+                expensiveThisCalls = null;
             }
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        } finally {
-            guiInterfaces = null;
-            listenerCode = null;
-            expensiveThisCalls = null;
-        }
+        });
     }
 
     /**
@@ -26,6 +26,7 @@ import org.apache.bcel.Const;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.QMethod;
 import com.mebigfatguy.fbcontrib.utils.ToString;
@@ -77,47 +78,49 @@ public class SpoiledChildInterfaceImplementor implements Detector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-
-            if (cls.isAbstract() || cls.isInterface()) {
-                return;
-            }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
 
-            if (Values.DOTTED_JAVA_LANG_OBJECT.equals(cls.getSuperclassName())) {
-                return;
-            }
+                if (cls.isAbstract() || cls.isInterface()) {
+                    return;
+                }
 
-            JavaClass[] infs = cls.getInterfaces();
-            if (infs.length > 0) {
-                Set<QMethod> clsMethods = buildMethodSet(cls);
-                for (JavaClass inf : infs) {
-                    Set<QMethod> infMethods = buildMethodSet(inf);
-                    if (!infMethods.isEmpty()) {
-                        infMethods.removeAll(clsMethods);
+                if (Values.DOTTED_JAVA_LANG_OBJECT.equals(cls.getSuperclassName())) {
+                    return;
+                }
 
+                JavaClass[] infs = cls.getInterfaces();
+                if (infs.length > 0) {
+                    Set<QMethod> clsMethods = buildMethodSet(cls);
+                    for (JavaClass inf : infs) {
+                        Set<QMethod> infMethods = buildMethodSet(inf);
                         if (!infMethods.isEmpty()) {
-                            JavaClass superCls = cls.getSuperClass();
-                            filterSuperInterfaceMethods(inf, infMethods, superCls);
-                            if (!infMethods.isEmpty() && !superCls.implementationOf(inf)) {
-                                int priority = AnalysisContext.currentAnalysisContext().isApplicationClass(superCls) ? NORMAL_PRIORITY : LOW_PRIORITY;
-                                BugInstance bi = new BugInstance(this, BugType.SCII_SPOILED_CHILD_INTERFACE_IMPLEMENTOR.name(), priority).addClass(cls)
-                                        .addString("Implementing interface: " + inf.getClassName()).addString("Methods:");
-                                for (QMethod methodInfo : infMethods) {
-                                    bi.addString('\t' + methodInfo.toString());
+                            infMethods.removeAll(clsMethods);
+
+                            if (!infMethods.isEmpty()) {
+                                JavaClass superCls = cls.getSuperClass();
+                                filterSuperInterfaceMethods(inf, infMethods, superCls);
+                                if (!infMethods.isEmpty() && !superCls.implementationOf(inf)) {
+                                    int priority = AnalysisContext.currentAnalysisContext().isApplicationClass(superCls) ? NORMAL_PRIORITY : LOW_PRIORITY;
+                                    BugInstance bi = new BugInstance(this, BugType.SCII_SPOILED_CHILD_INTERFACE_IMPLEMENTOR.name(), priority).addClass(cls)
+                                            .addString("Implementing interface: " + inf.getClassName()).addString("Methods:");
+                                    for (QMethod methodInfo : infMethods) {
+                                        bi.addString('\t' + methodInfo.toString());
+                                    }
+
+                                    bugReporter.reportBug(bi);
+                                    return;
                                 }
-
-                                bugReporter.reportBug(bi);
-                                return;
                             }
                         }
                     }
                 }
-            }
 
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            }
+        });
     }
 
     /**
@@ -16,6 +16,7 @@ import org.apache.bcel.classfile.ConstantClass;
 import org.apache.bcel.classfile.ConstantPool;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -66,14 +67,16 @@ public class StackedTryBlocks extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            if (THROWABLE_CLASS != null) {
-                stack = new OpcodeStack();
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                if (THROWABLE_CLASS != null) {
+                    stack = new OpcodeStack();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                stack = null;
             }
-        } finally {
-            stack = null;
-        }
+        });
     }
 
     /**
@@ -21,11 +21,11 @@ package com.mebigfatguy.fbcontrib.detect;
 import org.apache.bcel.classfile.Code;
 
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.Values;
 
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 
 /**
  * looks for creation of arrays where the contents are Const, or static
@@ -33,7 +33,7 @@ import edu.umd.cs.findbugs.BytecodeScanningDetector;
  * defined as static fields so the method doesn't constantly recreate the array
  * each time it is called.
  */
-public class StaticArrayCreatedInMethod extends BytecodeScanningDetector {
+public class StaticArrayCreatedInMethod extends ScopedBytecodeScanningDetector {
     enum State {
         SEEN_NOTHING, SEEN_ARRAY_SIZE, SEEN_NEWARRAY, SEEN_DUP, SEEN_INDEX, SEEN_LDC, SEEN_INDEX_STORE
     }
@@ -44,7 +44,7 @@ public class StaticArrayCreatedInMethod extends BytecodeScanningDetector {
     private State state;
 
     public StaticArrayCreatedInMethod(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
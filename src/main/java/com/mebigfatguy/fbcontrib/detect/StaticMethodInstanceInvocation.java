@@ -29,6 +29,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.ToString;
@@ -61,14 +62,16 @@ public class StaticMethodInstanceInvocation extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            popStack = new ArrayList<>();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            popStack = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                popStack = new ArrayList<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                popStack = null;
+            }
+        });
     }
 
     /**
@@ -24,6 +24,7 @@ import java.util.Map;
 
 import org.apache.bcel.classfile.Code;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -101,14 +102,16 @@ public class StringifiedTypes extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            toStringStringBuilders = new BitSet();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            toStringStringBuilders = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                toStringStringBuilders = new BitSet();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                toStringStringBuilders = null;
+            }
+        });
     }
 
     @Override
@@ -22,7 +22,9 @@ import org.apache.bcel.classfile.Code;
 
 import com.mebigfatguy.fbcontrib.collect.MethodInfo;
 import com.mebigfatguy.fbcontrib.collect.Statistics;
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.Values;
 
@@ -36,7 +38,8 @@ import edu.umd.cs.findbugs.ba.ClassContext;
 /**
  * looks for conditional expressions where both simple local variable (in)equalities are used along with method calls, where the method calls are done first. By
  * placing the simple local checks first, you eliminate potentially costly calls in some cases. This assumes that the methods called won't have side-effects
- * that are desired. At present it only looks for simple sequences of 'and' based conditions.
+ * that are desired, so calls to collected methods known to modify state are left alone, as are calls to methods known to be cheap. At present it only looks
+ * for simple sequences of 'and' based conditions.
  */
 @CustomUserValue
 public class SuboptimalExpressionOrder extends BytecodeScanningDetector {
@@ -55,7 +58,7 @@ public class SuboptimalExpressionOrder extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public SuboptimalExpressionOrder(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
@@ -66,12 +69,14 @@ public class SuboptimalExpressionOrder extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext clsContext) {
-        try {
-            stack = new OpcodeStack();
-            super.visitClassContext(clsContext);
-        } finally {
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, clsContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                super.visitClassContext(clsContext);
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     /**
@@ -117,10 +122,17 @@ public class SuboptimalExpressionOrder extends BytecodeScanningDetector {
 
                     String clsName = getClassConstantOperand();
                     MethodInfo mi = Statistics.getStatistics().getMethodStatistics(clsName, getNameConstantOperand(), signature);
-                    if ((mi == null) || (mi.getNumBytes() == 0)) {
+                    if (mi.getNumBytes() == 0) {
                         userValue = Values.ONE;
+                    } else if (mi.getModifiesState()) {
+                        // the call's side effects may be the point, so it can't be moved after the local checks
+                        sawMethodWeight = 0;
+                        return;
+                    } else if (mi.isCheap()) {
+                        // no cheaper than the local checks, so it doesn't matter which comes first
+                        return;
                     } else {
-                        userValue = Integer.valueOf(mi.getNumBytes());
+                        userValue = Integer.valueOf(mi.getCost());
                     }
                 break;
 
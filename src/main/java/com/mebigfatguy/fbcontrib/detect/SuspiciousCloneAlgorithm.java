@@ -26,6 +26,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -87,21 +88,23 @@ public class SuspiciousCloneAlgorithm extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        if (cloneableClass == null) {
-            return;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            if (cloneableClass == null) {
+                return;
+            }
 
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            if (cls.implementationOf(cloneableClass)) {
-                stack = new OpcodeStack();
-                super.visitClassContext(classContext);
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                if (cls.implementationOf(cloneableClass)) {
+                    stack = new OpcodeStack();
+                    super.visitClassContext(classContext);
+                }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            } finally {
+                stack = null;
             }
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        } finally {
-            stack = null;
-        }
+        });
     }
 
     /**
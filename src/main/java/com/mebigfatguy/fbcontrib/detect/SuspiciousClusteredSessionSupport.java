@@ -25,6 +25,7 @@ import java.util.regex.Pattern;
 
 import org.apache.bcel.classfile.Code;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -63,16 +64,18 @@ public class SuspiciousClusteredSessionSupport extends BytecodeScanningDetector
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            changedAttributes = new HashMap<>();
-            savedAttributes = new HashMap<>();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            changedAttributes = null;
-            savedAttributes = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                changedAttributes = new HashMap<>();
+                savedAttributes = new HashMap<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                changedAttributes = null;
+                savedAttributes = null;
+            }
+        });
     }
 
     /**
@@ -24,6 +24,7 @@ import org.apache.bcel.Repository;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.StopOpcodeParsingException;
@@ -88,22 +89,24 @@ public class SuspiciousComparatorReturnValues extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            for (CompareSpec entry : compareClasses) {
-                if (cls.implementationOf(entry.getCompareClass())) {
-                    methodInfo = entry.getMethodInfo();
-                    stack = new OpcodeStack();
-                    super.visitClassContext(classContext);
-                    break;
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                for (CompareSpec entry : compareClasses) {
+                    if (cls.implementationOf(entry.getCompareClass())) {
+                        methodInfo = entry.getMethodInfo();
+                        stack = new OpcodeStack();
+                        super.visitClassContext(classContext);
+                        break;
+                    }
                 }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            } finally {
+                methodInfo = null;
+                stack = null;
             }
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        } finally {
-            methodInfo = null;
-            stack = null;
-        }
+        });
     }
 
     /**
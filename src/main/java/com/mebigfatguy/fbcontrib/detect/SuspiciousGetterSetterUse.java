@@ -26,13 +26,12 @@ import com.mebigfatguy.fbcontrib.utils.Values;
 
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 
 /**
  * looks for methods that set a setter with the value obtained from the same
  * bean's complimentary getter. This is usually a typo.
  */
-public class SuspiciousGetterSetterUse extends BytecodeScanningDetector {
+public class SuspiciousGetterSetterUse extends ScopedBytecodeScanningDetector {
 
     private static enum State {
         SEEN_NOTHING, SEEN_ALOAD, SEEN_GETFIELD, SEEN_DUAL_LOADS, SEEN_INVOKEVIRTUAL
@@ -217,5 +216,4 @@ public class SuspiciousGetterSetterUse extends BytecodeScanningDetector {
                     .addMethod(this).addSourceLine(this));
         }
     }
-
 }
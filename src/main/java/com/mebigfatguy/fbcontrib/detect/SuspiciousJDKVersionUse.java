@@ -30,6 +30,7 @@ import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
@@ -41,6 +42,7 @@ import org.apache.bcel.classfile.ClassParser;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -110,6 +112,12 @@ public class SuspiciousJDKVersionUse extends BytecodeScanningDetector {
     private static final Pattern jarPattern;
     private static final String SJVU_JDKHOME = "fb-contrib.sjvu.jdkhome";
 
+    /**
+     * the api of each jdk runtime jar that has been opened. As the jdks don't change, these are shared by all instances, so that a long running process
+     * analyzing many projects only reads each jdk class once
+     */
+    private static final Map<File, JdkApi> jdkApis = new ConcurrentHashMap<>();
+
     static {
         String os = System.getProperty("os.name");
         if (os.toLowerCase(Locale.getDefault()).startsWith("windows")) {
@@ -121,49 +129,47 @@ public class SuspiciousJDKVersionUse extends BytecodeScanningDetector {
     }
 
     private final Map<String, File> versionPaths;
-    private final Map<Integer, Map<String, Set<String>>> validMethodsByVersion;
-    private final Map<String, String> superNames;
-    private final Map<Integer, ZipFile> jdkZips;
+    private final Map<Integer, JdkApi> jdkApisByVersion;
     private File jdksRoot = null;
     private Integer clsMajorVersion;
-    private ZipFile jdkZip;
+    private JdkApi jdkApi;
     private final BugReporter bugReporter;
 
     public SuspiciousJDKVersionUse(BugReporter bugReporter) {
         this.bugReporter = bugReporter;
         versionPaths = new HashMap<>();
-        jdkZips = new HashMap<>();
-        validMethodsByVersion = new HashMap<>();
-        superNames = new HashMap<>();
+        jdkApisByVersion = new HashMap<>();
     }
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            clsMajorVersion = Integer.valueOf(classContext.getJavaClass().getMajor());
-            jdkZip = jdkZips.get(clsMajorVersion);
-            if (jdkZip == null) {
-                File rtJar = getRTJarFile();
-                if (rtJar == null) {
-                    rtJar = getRTJarFromProperty(clsMajorVersion);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                clsMajorVersion = Integer.valueOf(classContext.getJavaClass().getMajor());
+                jdkApi = jdkApisByVersion.get(clsMajorVersion);
+                if (jdkApi == null) {
+                    File rtJar = getRTJarFile();
+                    if (rtJar == null) {
+                        rtJar = getRTJarFromProperty(clsMajorVersion);
+                    }
+                    if (rtJar != null) {
+                        jdkApi = getJdkApi(rtJar);
+                        jdkApisByVersion.put(clsMajorVersion, jdkApi);
+                    }
                 }
-                if (rtJar != null) {
-                    jdkZip = new ZipFile(rtJar);
-                    jdkZips.put(clsMajorVersion, jdkZip);
+
+                if (jdkApi == null) {
+                    return;
                 }
-            }
 
-            if (jdkZip == null) {
-                return;
+                super.visitClassContext(classContext);
+            } catch (IOException ioe) {
+                // Hmm What to do
+            } finally {
+                clsMajorVersion = null;
+                jdkApi = null;
             }
-
-            super.visitClassContext(classContext);
-        } catch (IOException ioe) {
-            // Hmm What to do
-        } finally {
-            clsMajorVersion = null;
-            jdkZip = null;
-        }
+        });
     }
 
     @Override
@@ -181,13 +187,7 @@ public class SuspiciousJDKVersionUse extends BytecodeScanningDetector {
                         return;
                     }
 
-                    Map<String, Set<String>> validMethods = validMethodsByVersion.get(clsMajorVersion);
-                    if (validMethods == null) {
-                        validMethods = new HashMap<>();
-                        validMethodsByVersion.put(clsMajorVersion, validMethods);
-                    }
-
-                    if (!isValid(validMethods, clsName)) {
+                    if (!isValid(clsName)) {
                         bugReporter.reportBug(new BugInstance(this, BugType.SJVU_SUSPICIOUS_JDK_VERSION_USE.name(), HIGH_PRIORITY).addClass(this)
                                 .addMethod(this).addSourceLine(this).addCalledMethod(this));
                     }
@@ -219,12 +219,12 @@ public class SuspiciousJDKVersionUse extends BytecodeScanningDetector {
         }
     }
 
-    private boolean isValid(Map<String, Set<String>> validMethods, String clsName) throws IOException, ClassNotFoundException {
+    private boolean isValid(String clsName) throws IOException, ClassNotFoundException {
 
-        Set<String> methodInfos = validMethods.get(clsName);
+        Set<String> methodInfos = jdkApi.validMethods.get(clsName);
         if (methodInfos == null) {
 
-            ZipEntry ze = jdkZip.getEntry(clsName + ".class");
+            ZipEntry ze = jdkApi.zip.getEntry(clsName + ".class");
             if (ze == null) {
                 if (isJavaXExternal(clsName)) {
                     return true;
@@ -234,20 +234,19 @@ public class SuspiciousJDKVersionUse extends BytecodeScanningDetector {
                         .addSourceLine(this).addClass(clsName));
             } else if (clsName.startsWith("java/")) {
                 JavaClass calledClass = null;
-                try (InputStream is = new BufferedInputStream(jdkZip.getInputStream(ze))) {
+                try (InputStream is = new BufferedInputStream(jdkApi.zip.getInputStream(ze))) {
                     ClassParser parser = new ClassParser(is, clsName);
                     calledClass = parser.parse();
                 }
 
-                superNames.put(clsName, calledClass.getSuperclassName().replace('.', '/'));
+                jdkApi.superNames.put(clsName, calledClass.getSuperclassName().replace('.', '/'));
                 Method[] methods = calledClass.getMethods();
 
                 methodInfos = new HashSet<>(methods.length);
-                validMethods.put(clsName, methodInfos);
-
                 for (Method m : methods) {
                     methodInfos.add(m.getName() + m.getSignature());
                 }
+                jdkApi.validMethods.put(clsName, methodInfos);
             }
         }
 
@@ -260,7 +259,7 @@ public class SuspiciousJDKVersionUse extends BytecodeScanningDetector {
         } else if (Values.SLASHED_JAVA_LANG_OBJECT.equals(clsName)) {
             return false;
         } else {
-            return isValid(validMethods, superNames.get(clsName));
+            return isValid(jdkApi.superNames.get(clsName));
         }
     }
 
@@ -283,7 +282,7 @@ public class SuspiciousJDKVersionUse extends BytecodeScanningDetector {
 
         int lastSlashPos = className.lastIndexOf('/');
         String packageName = className.substring(0, lastSlashPos);
-        ZipEntry ze = jdkZip.getEntry(packageName);
+        ZipEntry ze = jdkApi.zip.getEntry(packageName);
         if (ze != null) {
             return false;
         }
@@ -386,4 +385,40 @@ public class SuspiciousJDKVersionUse extends BytecodeScanningDetector {
 
         return null;
     }
+
+    /**
+     * returns the shared api of a jdk runtime jar, opening the jar if it hasn't been yet
+     *
+     * @param rtJar
+     *            the runtime jar of a jdk
+     * @return the api of that jar
+     * @throws IOException
+     *             if the jar can't be opened
+     */
+    private static JdkApi getJdkApi(File rtJar) throws IOException {
+        JdkApi api = jdkApis.get(rtJar);
+        if (api == null) {
+            synchronized (jdkApis) {
+                api = jdkApis.get(rtJar);
+                if (api == null) {
+                    api = new JdkApi(new ZipFile(rtJar));
+                    jdkApis.put(rtJar, api);
+                }
+            }
+        }
+        return api;
+    }
+
+    /**
+     * the classes of one jdk runtime jar, along with the methods and super class of the ones that have been looked up so far
+     */
+    private static final class JdkApi {
+        final ZipFile zip;
+        final Map<String, Set<String>> validMethods = new ConcurrentHashMap<>();
+        final Map<String, String> superNames = new ConcurrentHashMap<>();
+
+        JdkApi(ZipFile zip) {
+            this.zip = zip;
+        }
+    }
 }
@@ -31,6 +31,7 @@ import org.apache.bcel.classfile.LocalVariable;
 import org.apache.bcel.classfile.LocalVariableTable;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -80,18 +81,20 @@ public class SuspiciousLoopSearch extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            ifBlocks = new ArrayList<>();
-            loadedRegs = new HashMap<>();
-            loopLocations = new BitSet();
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            ifBlocks = null;
-            loadedRegs = null;
-            loopLocations = null;
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                ifBlocks = new ArrayList<>();
+                loadedRegs = new HashMap<>();
+                loopLocations = new BitSet();
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } finally {
+                ifBlocks = null;
+                loadedRegs = null;
+                loopLocations = null;
+                stack = null;
+            }
+        });
     }
 
     /**
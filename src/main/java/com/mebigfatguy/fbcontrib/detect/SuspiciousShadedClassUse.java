@@ -29,9 +29,8 @@ import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
 
 import edu.umd.cs.findbugs.BugInstance;
 import edu.umd.cs.findbugs.BugReporter;
-import edu.umd.cs.findbugs.BytecodeScanningDetector;
 
-public class SuspiciousShadedClassUse extends BytecodeScanningDetector {
+public class SuspiciousShadedClassUse extends ScopedBytecodeScanningDetector {
 
     private static final String SSCU_EXCEPTION_PACKAGES = "fb-contrib.sscu.exceptions";
 
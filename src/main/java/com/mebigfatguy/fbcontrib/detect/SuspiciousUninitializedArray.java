@@ -31,6 +31,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
@@ -92,19 +93,21 @@ public class SuspiciousUninitializedArray extends BytecodeScanningDetector {
 	 */
 	@Override
 	public void visitClassContext(ClassContext classContext) {
-		try {
-			isEnum = classContext.getJavaClass().isEnum();
-			stack = new OpcodeStack();
-			uninitializedRegs = new BitSet();
-			arrayAliases = new HashMap<>();
-			storedUVs = new HashMap<>();
-			super.visitClassContext(classContext);
-		} finally {
-			stack = null;
-			uninitializedRegs = null;
-			arrayAliases = null;
-			storedUVs = null;
-		}
+		AnalysisScope.visitClass(this, classContext, () -> {
+			try {
+				isEnum = classContext.getJavaClass().isEnum();
+				stack = new OpcodeStack();
+				uninitializedRegs = new BitSet();
+				arrayAliases = new HashMap<>();
+				storedUVs = new HashMap<>();
+				super.visitClassContext(classContext);
+			} finally {
+				stack = null;
+				uninitializedRegs = null;
+				arrayAliases = null;
+				storedUVs = null;
+			}
+		});
 	}
 
 	/**
@@ -24,6 +24,7 @@ import org.apache.bcel.Const;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
 
@@ -64,16 +65,18 @@ public class SuspiciousWaitOnConcurrentObject extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            int major = cls.getMajor();
-            if (major >= Const.MAJOR_1_5) {
-                stack = new OpcodeStack();
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                int major = cls.getMajor();
+                if (major >= Const.MAJOR_1_5) {
+                    stack = new OpcodeStack();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                stack = null;
             }
-        } finally {
-            stack = null;
-        }
+        });
     }
 
     /**
@@ -27,7 +27,10 @@ import java.util.Set;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.ConstantFieldref;
 import org.apache.bcel.classfile.ConstantNameAndType;
+import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.CodeProfile;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
@@ -51,6 +54,8 @@ public class SyncCollectionIterators extends BytecodeScanningDetector {
 
     private static final Set<String> mapToSetMethods = UnmodifiableSet.create("keySet", "entrySet", "values");
 
+    private static final BitSet wantedOps = CodeProfile.opcodes(INVOKESTATIC, INVOKEINTERFACE);
+
     enum State {
         SEEN_NOTHING, SEEN_SYNC, SEEN_LOAD
     }
@@ -75,23 +80,38 @@ public class SyncCollectionIterators extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(final ClassContext classContext) {
-        try {
-            memberCollections = new HashSet<>();
-            localCollections = new BitSet();
-            monitorObjects = new ArrayList<>();
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            memberCollections = null;
-            localCollections = null;
-            monitorObjects = null;
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                memberCollections = new HashSet<>();
+                localCollections = new BitSet();
+                monitorObjects = new ArrayList<>();
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } finally {
+                memberCollections = null;
+                localCollections = null;
+                monitorObjects = null;
+                stack = null;
+            }
+        });
+    }
+
+    /**
+     * looks for methods that either build a synchronized collection, or may iterate over one
+     *
+     * @param method
+     *            the context object of the current method
+     * @return if the method calls a static or interface method
+     */
+    private boolean prescreen(Method method) {
+        CodeProfile profile = CodeProfile.get(getClassContext(), method);
+        return (profile != null) && profile.containsAny(wantedOps);
     }
 
     @Override
     public void visitCode(final Code obj) {
-        if (obj.getCode() != null) {
+        Method m = getMethod();
+        if (!AnalysisScope.skipMethod(getClassContext(), m) && prescreen(m)) {
             state = State.SEEN_NOTHING;
             localCollections.clear();
             monitorObjects.clear();
@@ -18,10 +18,22 @@
  */
 package com.mebigfatguy.fbcontrib.detect;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.bcel.Const;
 import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantMethodref;
+import org.apache.bcel.classfile.ConstantNameAndType;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.CodeProfile;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.Values;
 
@@ -40,6 +52,7 @@ public class TailRecursion extends BytecodeScanningDetector {
 
     private BugReporter bugReporter;
     private OpcodeStack stack;
+    private Set<String> selfCalledMethods;
     private int trPCPos;
     private boolean possibleTailRecursion;
     private boolean isStatic;
@@ -51,22 +64,58 @@ public class TailRecursion extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public TailRecursion(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
-     * implements the visitor to create and clear the stack
+     * implements the visitor to create and clear the stack, and to collect the methods of this class that it calls on itself
      *
      * @param classContext
      *            the context object of the currently parsed class
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                selfCalledMethods = collectSelfCalledMethods(classContext.getJavaClass());
+                if (!selfCalledMethods.isEmpty()) {
+                    stack = new OpcodeStack();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                stack = null;
+                selfCalledMethods = null;
+            }
+        });
+    }
+
+    /**
+     * looks for methods that make a virtual call to a method of this class with the same name and signature
+     *
+     * @param method
+     *            the context object of the current method
+     * @return if the method may call itself
+     */
+    private boolean prescreen(Method method) {
+        if (!selfCalledMethods.contains(method.getName() + method.getSignature())) {
+            return false;
+        }
+
+        CodeProfile profile = CodeProfile.get(getClassContext(), method);
+        return (profile != null) && profile.contains(INVOKEVIRTUAL);
+    }
+
+    /**
+     * implements the visitor to skip methods that can't call themselves
+     *
+     * @param obj
+     *            the context object of the currently parsed code block
+     */
+    @Override
+    public void visitCode(Code obj) {
+        Method m = getMethod();
+        if (!AnalysisScope.skipMethod(getClassContext(), m) && prescreen(m)) {
+            super.visitCode(obj);
         }
     }
 
@@ -133,4 +182,26 @@ public class TailRecursion extends BytecodeScanningDetector {
         }
     }
 
+    /**
+     * collects the name and signature of all methods of this class that are referenced from its own constant pool
+     *
+     * @param cls
+     *            the currently parsed class
+     * @return a set of method name + signature strings
+     */
+    private static Set<String> collectSelfCalledMethods(JavaClass cls) {
+        Set<String> selfCalls = new HashSet<>();
+        ConstantPool pool = cls.getConstantPool();
+        String clsName = cls.getClassName().replace('.', '/');
+        for (Constant c : pool.getConstantPool()) {
+            if (c instanceof ConstantMethodref) {
+                ConstantMethodref ref = (ConstantMethodref) c;
+                if (clsName.equals(pool.getConstantString(ref.getClassIndex(), Const.CONSTANT_Class))) {
+                    ConstantNameAndType nameAndType = (ConstantNameAndType) pool.getConstant(ref.getNameAndTypeIndex());
+                    selfCalls.add(nameAndType.getName(pool) + nameAndType.getSignature(pool));
+                }
+            }
+        }
+        return selfCalls;
+    }
 }
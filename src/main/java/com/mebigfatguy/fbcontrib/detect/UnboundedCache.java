@@ -0,0 +1,461 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.Field;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
+import com.mebigfatguy.fbcontrib.utils.ToString;
+import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
+import com.mebigfatguy.fbcontrib.utils.Values;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.BugReporter;
+import edu.umd.cs.findbugs.BytecodeScanningDetector;
+import edu.umd.cs.findbugs.FieldAnnotation;
+import edu.umd.cs.findbugs.OpcodeStack;
+import edu.umd.cs.findbugs.OpcodeStack.CustomUserValue;
+import edu.umd.cs.findbugs.SourceLineAnnotation;
+import edu.umd.cs.findbugs.ba.ClassContext;
+import edu.umd.cs.findbugs.ba.XFactory;
+import edu.umd.cs.findbugs.ba.XField;
+import edu.umd.cs.findbugs.ba.XMethod;
+
+/**
+ * looks for in-process caches that have no way to evict entries, and so grow with the number of distinct keys they see. This includes Guava CacheBuilder and
+ * Caffeine builder chains that are built without a size bound, an expiry or weak or soft references, static maps that memoize values with computeIfAbsent and
+ * never remove them, and LinkedHashMap subclasses used as LRU caches that don't override removeEldestEntry. Unlike {@link PossibleMemoryBloat}, the findings
+ * name the eviction setting that is missing.
+ */
+@CustomUserValue
+public class UnboundedCache extends BytecodeScanningDetector {
+
+    private static final Set<String> builderClasses = UnmodifiableSet.create("com/google/common/cache/CacheBuilder",
+            "com/github/benmanes/caffeine/cache/Caffeine");
+
+    private static final Set<String> sizeBoundingMethods = UnmodifiableSet.create("maximumSize", "maximumWeight");
+
+    private static final Set<String> evictingMethods = UnmodifiableSet.create("expireAfter", "expireAfterAccess", "expireAfterWrite", "softValues",
+            "weakKeys", "weakValues");
+
+    private static final Set<String> buildMethods = UnmodifiableSet.create("build", "buildAsync");
+
+    private static final Set<String> memoizableSigs = UnmodifiableSet.create("Ljava/util/Map;", "Ljava/util/HashMap;", "Ljava/util/concurrent/ConcurrentMap;",
+            "Ljava/util/concurrent/ConcurrentHashMap;");
+
+    /**
+     * map methods that may remove entries, either directly or through the views they return
+     */
+    private static final Set<String> removingMethods = UnmodifiableSet.create("clear", "compute", "computeIfPresent", "entrySet", "keySet", "merge", "remove",
+            "removeIf", "replaceAll", "values");
+
+    private static final Set<String> wrappingMethods = UnmodifiableSet.create("synchronizedMap", "unmodifiableMap");
+
+    private static final String WEAK_HASH_MAP_SIG = "Ljava/util/WeakHashMap;";
+    private static final String LINKED_HASH_MAP = "java.util.LinkedHashMap";
+    private static final String ACCESS_ORDER_CTOR_SIG = "(IFZ)V";
+
+    private final BugReporter bugReporter;
+    private OpcodeStack stack;
+    private String methodName;
+    private Map<XField, FieldAnnotation> memoCandidates;
+    private Map<XField, SourceLineAnnotation> memoizedFields;
+    private Set<XField> evictedFields;
+    private boolean isLinkedHashMapCache;
+    private boolean isAccessOrdered;
+    private boolean removesEntries;
+
+    /**
+     * constructs a UBC detector given the reporter to report bugs on
+     *
+     * @param bugReporter
+     *            the sync of bug reports
+     */
+    public UnboundedCache(BugReporter bugReporter) {
+        this.bugReporter = HotMethods.wrap(bugReporter);
+    }
+
+    /**
+     * implements the visitor to collect the static maps that could hold memoized values, and to see if the class is a LinkedHashMap that can't evict, and
+     * at the end report the maps and LinkedHashMaps that never remove entries
+     *
+     * @param classContext
+     *            the context object of the currently parsed class
+     */
+    @Override
+    public void visitClassContext(ClassContext classContext) {
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                memoCandidates = new HashMap<>();
+                memoizedFields = new HashMap<>();
+                evictedFields = new HashSet<>();
+                isAccessOrdered = false;
+                removesEntries = false;
+
+                JavaClass cls = classContext.getJavaClass();
+                parseFields(cls);
+                isLinkedHashMapCache = LINKED_HASH_MAP.equals(cls.getSuperclassName()) && !declaresRemoveEldestEntry(cls);
+
+                super.visitClassContext(classContext);
+
+                reportMemoizedFields();
+                reportLinkedHashMapCache(cls);
+            } finally {
+                stack = null;
+                memoCandidates = null;
+                memoizedFields = null;
+                evictedFields = null;
+            }
+        });
+    }
+
+    private void parseFields(JavaClass cls) {
+        for (Field f : cls.getFields()) {
+            if (f.isStatic() && memoizableSigs.contains(f.getSignature())) {
+                memoCandidates.put(XFactory.createXField(cls.getClassName(), f.getName(), f.getSignature(), f.isStatic()), FieldAnnotation.fromBCELField(cls, f));
+            }
+        }
+    }
+
+    private static boolean declaresRemoveEldestEntry(JavaClass cls) {
+        for (Method m : cls.getMethods()) {
+            if ("removeEldestEntry".equals(m.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * implements the visitor to collect the method name
+     *
+     * @param obj
+     *            the context object of the currently parsed method
+     */
+    @Override
+    public void visitMethod(Method obj) {
+        methodName = obj.getName();
+    }
+
+    /**
+     * implements the visitor to reset the opcode stack
+     *
+     * @param obj
+     *            the context object of the currently parsed code block
+     */
+    @Override
+    public void visitCode(Code obj) {
+        stack.resetForMethodEntry(this);
+        super.visitCode(obj);
+    }
+
+    /**
+     * implements the visitor to follow cache builder chains, and to record how static maps and the class itself, if it is a LinkedHashMap, are added to
+     * and removed from
+     *
+     * @param seen
+     *            the opcode of the currently parsed instruction
+     */
+    @Override
+    public void sawOpcode(int seen) {
+        Object userValue = null;
+
+        try {
+            stack.precomputation(this);
+
+            switch (seen) {
+                case INVOKESTATIC:
+                    if (builderClasses.contains(getClassConstantOperand()) && "newBuilder".equals(getNameConstantOperand())) {
+                        userValue = new BuilderChain();
+                    } else if ("java/util/Collections".equals(getClassConstantOperand()) && wrappingMethods.contains(getNameConstantOperand())
+                            && (stack.getStackDepth() > 0) && isWeakMap(stack.getStackItem(0))) {
+                        userValue = Boolean.TRUE;
+                    }
+                    markEscapedArguments();
+                break;
+
+                case INVOKEVIRTUAL:
+                case INVOKEINTERFACE:
+                    if (builderClasses.contains(getClassConstantOperand())) {
+                        userValue = sawBuilderMethod();
+                    } else {
+                        sawMapMethod();
+                        markEscapedArguments();
+                    }
+                break;
+
+                case INVOKESPECIAL:
+                    if (isLinkedHashMapCache && Values.CONSTRUCTOR.equals(methodName) && "java/util/LinkedHashMap".equals(getClassConstantOperand())
+                            && Values.CONSTRUCTOR.equals(getNameConstantOperand()) && ACCESS_ORDER_CTOR_SIG.equals(getSigConstantOperand())
+                            && (stack.getStackDepth() > 0) && Integer.valueOf(1).equals(stack.getStackItem(0).getConstant())) {
+                        isAccessOrdered = true;
+                    }
+                    markEscapedArguments();
+                break;
+
+                case INVOKEDYNAMIC:
+                    markEscapedArguments();
+                break;
+
+                case PUTSTATIC:
+                    sawPutStatic();
+                break;
+
+                case ARETURN:
+                    if (stack.getStackDepth() > 0) {
+                        markEvicted(stack.getStackItem(0).getXField());
+                    }
+                break;
+
+                default:
+                break;
+            }
+        } finally {
+            stack.sawOpcode(this, seen);
+            if ((userValue != null) && (stack.getStackDepth() > 0)) {
+                stack.getStackItem(0).setUserValue(userValue);
+            }
+        }
+    }
+
+    /**
+     * records a method called on a cache builder, and reports the build of a builder that was never bounded
+     *
+     * @return the chain the method returns, if it returns the builder
+     */
+    private BuilderChain sawBuilderMethod() {
+        String signature = getSigConstantOperand();
+        int numParms = SignatureUtils.getNumParameters(signature);
+        if (stack.getStackDepth() <= numParms) {
+            return null;
+        }
+
+        Object uv = stack.getStackItem(numParms).getUserValue();
+        if (!(uv instanceof BuilderChain)) {
+            return null;
+        }
+
+        BuilderChain chain = (BuilderChain) uv;
+        String calledMethod = getNameConstantOperand();
+        if (buildMethods.contains(calledMethod)) {
+            if (!chain.isBounded()) {
+                bugReporter.reportBug(new BugInstance(this, BugType.UBC_UNBOUNDED_CACHE_BUILDER.name(), NORMAL_PRIORITY).addClass(this).addMethod(this)
+                        .addSourceLine(this).addString(chain.getMissingSetting()));
+            }
+            return null;
+        }
+
+        chain.sawMethod(calledMethod);
+        return signature.endsWith(")L" + getClassConstantOperand() + ';') ? chain : null;
+    }
+
+    /**
+     * records memoization in, and removal from, static maps, and removal from the class itself, if it is a LinkedHashMap
+     */
+    private void sawMapMethod() {
+        int numParms = SignatureUtils.getNumParameters(getSigConstantOperand());
+        if (stack.getStackDepth() <= numParms) {
+            return;
+        }
+
+        OpcodeStack.Item receiver = stack.getStackItem(numParms);
+        String calledMethod = getNameConstantOperand();
+        if (isLinkedHashMapCache && (receiver.getRegisterNumber() == 0) && !getMethod().isStatic() && removingMethods.contains(calledMethod)) {
+            removesEntries = true;
+        }
+
+        XField field = receiver.getXField();
+        if ((field == null) || !memoCandidates.containsKey(field)) {
+            return;
+        }
+
+        if ("computeIfAbsent".equals(calledMethod)) {
+            if (!memoizedFields.containsKey(field)) {
+                memoizedFields.put(field, SourceLineAnnotation.fromVisitedInstruction(this));
+            }
+        } else if (removingMethods.contains(calledMethod)) {
+            markEvicted(field);
+        }
+    }
+
+    /**
+     * treats static maps passed to other methods as possibly evicted elsewhere, and cache builders passed to other methods as possibly bounded elsewhere
+     */
+    private void markEscapedArguments() {
+        int numParms = SignatureUtils.getNumParameters(getSigConstantOperand());
+        int depth = Math.min(numParms, stack.getStackDepth());
+        for (int i = 0; i < depth; i++) {
+            OpcodeStack.Item itm = stack.getStackItem(i);
+            markEvicted(itm.getXField());
+            Object uv = itm.getUserValue();
+            if (uv instanceof BuilderChain) {
+                ((BuilderChain) uv).markEscaped();
+            }
+        }
+    }
+
+    /**
+     * treats static maps that are reset outside of the static initializer, or that are assigned weak maps, wrappers of weak maps, or views of caches, as
+     * evicted
+     */
+    private void sawPutStatic() {
+        XField field = XFactory.createReferencedXField(this);
+        if (!memoCandidates.containsKey(field)) {
+            return;
+        }
+
+        if (!Values.STATIC_INITIALIZER.equals(methodName)) {
+            markEvicted(field);
+        } else if (stack.getStackDepth() > 0) {
+            OpcodeStack.Item itm = stack.getStackItem(0);
+            XMethod source = itm.getReturnValueOf();
+            if (isWeakMap(itm) || ((source != null) && "asMap".equals(source.getName()))) {
+                markEvicted(field);
+            }
+        }
+    }
+
+    /**
+     * returns whether a stack item is a WeakHashMap, or a synchronized or unmodifiable wrapper of one, which is tagged with a user value of Boolean.TRUE
+     *
+     * @param itm
+     *            the stack item holding a map
+     * @return whether the map evicts entries whose keys are no longer used
+     */
+    private static boolean isWeakMap(OpcodeStack.Item itm) {
+        return WEAK_HASH_MAP_SIG.equals(itm.getSignature()) || Boolean.TRUE.equals(itm.getUserValue());
+    }
+
+    private void markEvicted(XField field) {
+        if ((field != null) && memoCandidates.containsKey(field)) {
+            evictedFields.add(field);
+        }
+    }
+
+    /**
+     * reports static maps that memoize values but never have entries removed. Maps keyed by classes or reflection objects hold at most one entry per loaded
+     * member, and are reported at low priority, as are maps visible outside the class, as their entries may be removed elsewhere.
+     */
+    private void reportMemoizedFields() {
+        for (Map.Entry<XField, SourceLineAnnotation> entry : memoizedFields.entrySet()) {
+            XField field = entry.getKey();
+            if (evictedFields.contains(field)) {
+                continue;
+            }
+
+            int priority = (field.isPrivate() && !hasBoundedKeys(field)) ? NORMAL_PRIORITY : LOW_PRIORITY;
+            bugReporter.reportBug(new BugInstance(this, BugType.UBC_UNBOUNDED_STATIC_MEMOIZATION.name(), priority).addClass(this)
+                    .addField(memoCandidates.get(field)).addSourceLine(entry.getValue()));
+        }
+    }
+
+    private static boolean hasBoundedKeys(XField field) {
+        String genericSig = field.getSourceSignature();
+        if (genericSig == null) {
+            return false;
+        }
+
+        int keyStart = genericSig.indexOf('<') + 1;
+        return (keyStart > 0) && (genericSig.startsWith("Ljava/lang/Class", keyStart) || genericSig.startsWith("Ljava/lang/reflect/", keyStart));
+    }
+
+    /**
+     * reports a LinkedHashMap subclass that doesn't override removeEldestEntry and never removes its own entries, if it is access ordered, or is named as
+     * a cache
+     *
+     * @param cls
+     *            the currently parsed class
+     */
+    private void reportLinkedHashMapCache(JavaClass cls) {
+        if (!isLinkedHashMapCache || removesEntries) {
+            return;
+        }
+
+        int priority;
+        if (isAccessOrdered) {
+            priority = NORMAL_PRIORITY;
+        } else {
+            String name = cls.getClassName().toLowerCase(Locale.ENGLISH);
+            if (!name.contains("cache") && !name.contains("lru")) {
+                return;
+            }
+            priority = LOW_PRIORITY;
+        }
+
+        bugReporter.reportBug(new BugInstance(this, BugType.UBC_LRU_MAP_WITHOUT_REMOVE_ELDEST.name(), priority).addClass(cls));
+    }
+
+    /**
+     * the settings made on a cache builder, shared by the builders returned from each call of a chain, and by the registers the builder is stored in
+     */
+    static class BuilderChain {
+        private boolean sizeBounded;
+        private boolean evicting;
+        private boolean weighed;
+        private boolean escaped;
+
+        void sawMethod(String name) {
+            if (sizeBoundingMethods.contains(name)) {
+                sizeBounded = true;
+            } else if (evictingMethods.contains(name)) {
+                evicting = true;
+            } else if ("weigher".equals(name)) {
+                weighed = true;
+            }
+        }
+
+        void markEscaped() {
+            escaped = true;
+        }
+
+        boolean isBounded() {
+            return sizeBounded || evicting || escaped;
+        }
+
+        /**
+         * returns the builder settings that would bound the cache
+         *
+         * @return the names of the missing settings
+         */
+        String getMissingSetting() {
+            if (weighed) {
+                return "maximumWeight (a weigher is set, but no maximum weight)";
+            }
+            return "maximumSize, or expireAfterAccess/expireAfterWrite";
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.Code;
+
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
+import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.FQMethod;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
+import com.mebigfatguy.fbcontrib.utils.LoopLocation;
+import com.mebigfatguy.fbcontrib.utils.Loops;
+import com.mebigfatguy.fbcontrib.utils.QMethod;
+import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
+import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
+import com.mebigfatguy.fbcontrib.utils.UnmodifiableSet;
+import com.mebigfatguy.fbcontrib.utils.Values;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.BugReporter;
+import edu.umd.cs.findbugs.BytecodeScanningDetector;
+import edu.umd.cs.findbugs.OpcodeStack;
+import edu.umd.cs.findbugs.OpcodeStack.CustomUserValue;
+import edu.umd.cs.findbugs.ba.ClassContext;
+
+/**
+ * looks for streams that are read from or written to a byte at a time, in a loop, where the stream is not wrapped in a buffered stream, and so each call is a
+ * system call. Also looks for loops that copy a stream through a tiny buffer.
+ */
+@CustomUserValue
+public class UnbufferedIO extends BytecodeScanningDetector {
+
+    enum UIOUserValue {
+        RAW_STREAM, SMALL_BUFFER
+    };
+
+    private static final int MIN_COPY_BUFFER_SIZE = 4096;
+
+    private static final String ANY_PARMS = "(*)";
+
+    private static final Set<String> RAW_STREAM_CLASSES = UnmodifiableSet.create(
+    //@formatter:off
+            "java/io/FileInputStream",
+            "java/io/FileOutputStream",
+            "java/io/RandomAccessFile"
+    //@formatter:on
+    );
+
+    /**
+     * streams that add no buffering of their own, so that if they wrap a raw stream, they are themselves raw
+     */
+    private static final Set<String> PASS_THROUGH_CLASSES = UnmodifiableSet.create(
+    //@formatter:off
+            "java/io/DataInputStream",
+            "java/io/DataOutputStream",
+            "java/io/PushbackInputStream",
+            "java/io/SequenceInputStream",
+            "java/util/zip/CheckedInputStream",
+            "java/util/zip/CheckedOutputStream"
+    //@formatter:on
+    );
+
+    private static final Set<FQMethod> RAW_STREAM_FACTORIES = UnmodifiableSet.create(
+    //@formatter:off
+            new FQMethod("java/net/Socket", "getInputStream", ANY_PARMS),
+            new FQMethod("java/net/Socket", "getOutputStream", ANY_PARMS),
+            new FQMethod("java/nio/file/Files", "newInputStream", ANY_PARMS),
+            new FQMethod("java/nio/file/Files", "newOutputStream", ANY_PARMS),
+            new FQMethod("java/nio/channels/Channels", "newInputStream", ANY_PARMS),
+            new FQMethod("java/nio/channels/Channels", "newOutputStream", ANY_PARMS)
+    //@formatter:on
+    );
+
+    private static final Set<QMethod> SINGLE_UNIT_METHODS = UnmodifiableSet.create(
+    //@formatter:off
+            new QMethod("read", "()I"),
+            new QMethod("write", "(I)V"),
+            new QMethod("readByte", "()B"),
+            new QMethod("readUnsignedByte", "()I"),
+            new QMethod("readBoolean", "()Z"),
+            new QMethod("readChar", "()C"),
+            new QMethod("readShort", "()S"),
+            new QMethod("readUnsignedShort", "()I"),
+            new QMethod("readInt", "()I"),
+            new QMethod("readLong", "()J"),
+            new QMethod("readFloat", "()F"),
+            new QMethod("readDouble", "()D"),
+            new QMethod("writeByte", "(I)V"),
+            new QMethod("writeBoolean", "(Z)V"),
+            new QMethod("writeChar", "(I)V"),
+            new QMethod("writeShort", "(I)V"),
+            new QMethod("writeInt", "(I)V"),
+            new QMethod("writeLong", "(J)V"),
+            new QMethod("writeFloat", "(F)V"),
+            new QMethod("writeDouble", "(D)V")
+    //@formatter:on
+    );
+
+    private static final Set<QMethod> BUFFER_READ_METHODS = UnmodifiableSet.create(new QMethod("read", "([B)I"), new QMethod("read", "([BII)I"));
+
+    private static final Set<QMethod> BUFFER_WRITE_METHODS = UnmodifiableSet.create(new QMethod("write", "([B)V"), new QMethod("write", "([BII)V"));
+
+    private final BugReporter bugReporter;
+    private OpcodeStack stack;
+    private List<Integer> singleUnitLocations;
+    /** pc of a read into a small buffer, register of the buffer */
+    private Map<Integer, Integer> smallBufferReads;
+    /** register of a small buffer, pcs of writes from it */
+    private Map<Integer, BitSet> smallBufferWrites;
+    private Loops loops;
+    /** registers holding raw streams, as user values don't survive the merge at the top of loops */
+    private BitSet rawStreamRegisters;
+    private BitSet smallBufferRegisters;
+
+    /**
+     * constructs a UIO detector given the reporter to report bugs on
+     *
+     * @param bugReporter
+     *            the sync of bug reports
+     */
+    public UnbufferedIO(BugReporter bugReporter) {
+        this.bugReporter = HotMethods.wrap(bugReporter);
+    }
+
+    /**
+     * implements the visitor to create and tear down the opcode stack and location collections
+     *
+     * @param clsContext
+     *            the context object of the currently parsed class
+     */
+    @Override
+    public void visitClassContext(ClassContext clsContext) {
+        AnalysisScope.visitClass(this, clsContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                singleUnitLocations = new ArrayList<>();
+                smallBufferReads = new LinkedHashMap<>();
+                smallBufferWrites = new HashMap<>();
+                loops = new Loops();
+                rawStreamRegisters = new BitSet();
+                smallBufferRegisters = new BitSet();
+                super.visitClassContext(clsContext);
+            } finally {
+                stack = null;
+                singleUnitLocations = null;
+                smallBufferReads = null;
+                smallBufferWrites = null;
+                loops = null;
+                rawStreamRegisters = null;
+                smallBufferRegisters = null;
+            }
+        });
+    }
+
+    /**
+     * implements the visitor to reset the opcode stack and collections, and report the io calls that were found in loops, and the reads into small buffers
+     * that are written out again in the same loop
+     *
+     * @param obj
+     *            the currently parsed code block
+     */
+    @Override
+    public void visitCode(Code obj) {
+        stack.resetForMethodEntry(this);
+        singleUnitLocations.clear();
+        smallBufferReads.clear();
+        smallBufferWrites.clear();
+        loops.clear();
+        rawStreamRegisters.clear();
+        smallBufferRegisters.clear();
+        super.visitCode(obj);
+
+        for (Integer pc : singleUnitLocations) {
+            if (loops.isInLoop(pc.intValue())) {
+                bugReporter.reportBug(new BugInstance(this, BugType.UIO_UNBUFFERED_SINGLE_UNIT_IO.name(), NORMAL_PRIORITY).addClass(this).addMethod(this)
+                        .addSourceLine(this, pc.intValue()));
+            }
+        }
+
+        for (Map.Entry<Integer, Integer> read : smallBufferReads.entrySet()) {
+            int pc = read.getKey().intValue();
+            LoopLocation loop = loops.getInnermostLoop(pc);
+            if ((loop != null) && loop.isAnyInLoop(smallBufferWrites.get(read.getValue()))) {
+                bugReporter.reportBug(
+                        new BugInstance(this, BugType.UIO_SMALL_COPY_BUFFER.name(), NORMAL_PRIORITY).addClass(this).addMethod(this).addSourceLine(this, pc));
+            }
+        }
+    }
+
+    /**
+     * implements the visitor to track raw (unbuffered) streams, and small byte buffers through the opcode stack, and record where they are used a unit at a
+     * time
+     *
+     * @param seen
+     *            the currently parsed opcode
+     */
+    @Override
+    public void sawOpcode(int seen) {
+        UIOUserValue userValue = null;
+
+        try {
+            switch (seen) {
+                case INVOKESPECIAL:
+                    userValue = processInvokeSpecial();
+                break;
+
+                case INVOKEVIRTUAL:
+                case INVOKEINTERFACE:
+                    userValue = processInvoke();
+                break;
+
+                case INVOKESTATIC:
+                    userValue = processInvokeStatic();
+                break;
+
+                case NEWARRAY:
+                    if ((getIntConstant() == Const.T_BYTE) && (stack.getStackDepth() > 0)) {
+                        OpcodeStack.Item itm = stack.getStackItem(0);
+                        Object size = itm.getConstant();
+                        if ((size instanceof Integer) && (((Integer) size).intValue() < MIN_COPY_BUFFER_SIZE)) {
+                            userValue = UIOUserValue.SMALL_BUFFER;
+                        }
+                    }
+                break;
+
+                case ASTORE:
+                case ASTORE_0:
+                case ASTORE_1:
+                case ASTORE_2:
+                case ASTORE_3:
+                    if (stack.getStackDepth() > 0) {
+                        OpcodeStack.Item itm = stack.getStackItem(0);
+                        int reg = RegisterUtils.getAStoreReg(this, seen);
+                        rawStreamRegisters.set(reg, itm.getUserValue() == UIOUserValue.RAW_STREAM);
+                        smallBufferRegisters.set(reg, itm.getUserValue() == UIOUserValue.SMALL_BUFFER);
+                    }
+                break;
+
+                default:
+                    loops.sawOpcode(this, seen);
+                break;
+            }
+        } finally {
+            stack.sawOpcode(this, seen);
+            if ((userValue != null) && (stack.getStackDepth() > 0)) {
+                OpcodeStack.Item itm = stack.getStackItem(0);
+                itm.setUserValue(userValue);
+            }
+        }
+    }
+
+    private UIOUserValue processInvokeSpecial() {
+        if (!Values.CONSTRUCTOR.equals(getNameConstantOperand())) {
+            return null;
+        }
+
+        String clsName = getClassConstantOperand();
+        if (RAW_STREAM_CLASSES.contains(clsName)) {
+            return UIOUserValue.RAW_STREAM;
+        }
+
+        if (PASS_THROUGH_CLASSES.contains(clsName)) {
+            int numParms = SignatureUtils.getNumParameters(getSigConstantOperand());
+            if ((numParms > 0) && (stack.getStackDepth() >= numParms)) {
+                OpcodeStack.Item itm = stack.getStackItem(numParms - 1);
+                if (isRawStream(itm)) {
+                    return UIOUserValue.RAW_STREAM;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private UIOUserValue processInvoke() {
+        String clsName = getClassConstantOperand();
+        String methodName = getNameConstantOperand();
+        String signature = getSigConstantOperand();
+
+        if (RAW_STREAM_FACTORIES.contains(new FQMethod(clsName, methodName, ANY_PARMS))) {
+            return UIOUserValue.RAW_STREAM;
+        }
+
+        QMethod m = new QMethod(methodName, signature);
+        if (SINGLE_UNIT_METHODS.contains(m)) {
+            int numParms = SignatureUtils.getNumParameters(signature);
+            if (stack.getStackDepth() > numParms) {
+                OpcodeStack.Item itm = stack.getStackItem(numParms);
+                if (isRawStream(itm)) {
+                    singleUnitLocations.add(Integer.valueOf(getPC()));
+                }
+            }
+        } else if (BUFFER_READ_METHODS.contains(m) || BUFFER_WRITE_METHODS.contains(m)) {
+            int numParms = SignatureUtils.getNumParameters(signature);
+            if (stack.getStackDepth() >= numParms) {
+                int reg = getSmallBufferRegister(stack.getStackItem(numParms - 1));
+                if (reg >= 0) {
+                    if (BUFFER_READ_METHODS.contains(m)) {
+                        smallBufferReads.put(Integer.valueOf(getPC()), Integer.valueOf(reg));
+                    } else {
+                        Integer r = Integer.valueOf(reg);
+                        BitSet writes = smallBufferWrites.get(r);
+                        if (writes == null) {
+                            writes = new BitSet();
+                            smallBufferWrites.put(r, writes);
+                        }
+                        writes.set(getPC());
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private UIOUserValue processInvokeStatic() {
+        FQMethod m = new FQMethod(getClassConstantOperand(), getNameConstantOperand(), ANY_PARMS);
+        if (RAW_STREAM_FACTORIES.contains(m)) {
+            return UIOUserValue.RAW_STREAM;
+        }
+
+        return null;
+    }
+
+    private boolean isRawStream(OpcodeStack.Item itm) {
+        if (itm.getUserValue() == UIOUserValue.RAW_STREAM) {
+            return true;
+        }
+
+        int reg = itm.getRegisterNumber();
+        if ((reg >= 0) && rawStreamRegisters.get(reg)) {
+            return true;
+        }
+
+        String sig = itm.getSignature();
+        if (sig.startsWith(Values.SIG_QUALIFIED_CLASS_PREFIX)) {
+            return RAW_STREAM_CLASSES.contains(SignatureUtils.trimSignature(sig));
+        }
+        return false;
+    }
+
+    /**
+     * returns the register of a small buffer, as copy loops read into and write from a buffer held in a register
+     *
+     * @param itm
+     *            the buffer argument of a read or write
+     * @return the register holding the small buffer, or -1 if it isn't a small buffer in a register
+     */
+    private int getSmallBufferRegister(OpcodeStack.Item itm) {
+        int reg = itm.getRegisterNumber();
+        if ((reg >= 0) && ((itm.getUserValue() == UIOUserValue.SMALL_BUFFER) || smallBufferRegisters.get(reg))) {
+            return reg;
+        }
+        return -1;
+    }
+}
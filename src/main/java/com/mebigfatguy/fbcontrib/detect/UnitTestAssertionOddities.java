@@ -33,6 +33,7 @@ import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -132,22 +133,24 @@ public class UnitTestAssertionOddities extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            clsName = cls.getClassName().replace('.', '/');
-            isTestCaseDerived = (testCaseClass != null) && cls.instanceOf(testCaseClass);
-            isAnnotationCapable = (cls.getMajor() >= 5) && ((testAnnotationClass != null) || (testNGAnnotationClass != null));
-            if (isTestCaseDerived || isAnnotationCapable) {
-                stack = new OpcodeStack();
-                fieldsWithAnnotations = new HashSet<>();
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                clsName = cls.getClassName().replace('.', '/');
+                isTestCaseDerived = (testCaseClass != null) && cls.instanceOf(testCaseClass);
+                isAnnotationCapable = (cls.getMajor() >= 5) && ((testAnnotationClass != null) || (testNGAnnotationClass != null));
+                if (isTestCaseDerived || isAnnotationCapable) {
+                    stack = new OpcodeStack();
+                    fieldsWithAnnotations = new HashSet<>();
+                    super.visitClassContext(classContext);
+                }
+            } catch (ClassNotFoundException cnfe) {
+                bugReporter.reportMissingClass(cnfe);
+            } finally {
+                stack = null;
+                fieldsWithAnnotations = null;
             }
-        } catch (ClassNotFoundException cnfe) {
-            bugReporter.reportMissingClass(cnfe);
-        } finally {
-            stack = null;
-            fieldsWithAnnotations = null;
-        }
+        });
     }
 
     @Override
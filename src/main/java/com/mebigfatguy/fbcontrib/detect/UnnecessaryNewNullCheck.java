@@ -24,6 +24,7 @@ import org.apache.bcel.Const;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.CodeException;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.AttributesUtils;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -54,16 +55,18 @@ public class UnnecessaryNewNullCheck extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            allocationRegs = new BitSet();
-            transitionPoints = new BitSet();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            allocationRegs = null;
-            transitionPoints = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                allocationRegs = new BitSet();
+                transitionPoints = new BitSet();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                allocationRegs = null;
+                transitionPoints = null;
+            }
+        });
     }
 
     @Override
@@ -24,6 +24,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.CodeException;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.TernaryPatcher;
@@ -127,16 +128,18 @@ public class UnnecessaryStoreBeforeReturn extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            branchTargets = new BitSet();
-            catchTargets = new BitSet();
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            branchTargets = null;
-            catchTargets = null;
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                branchTargets = new BitSet();
+                catchTargets = new BitSet();
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } finally {
+                branchTargets = null;
+                catchTargets = null;
+                stack = null;
+            }
+        });
     }
 
     /**
@@ -28,6 +28,7 @@ import java.util.Set;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQField;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
@@ -78,16 +79,18 @@ public class UnrelatedCollectionContents extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(final ClassContext classContext) {
-        try {
-            stack = new OpcodeStack();
-            memberCollections = new HashMap<>();
-            memberSourceLineAnnotations = new HashMap<>();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            memberCollections = null;
-            memberSourceLineAnnotations = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                stack = new OpcodeStack();
+                memberCollections = new HashMap<>();
+                memberSourceLineAnnotations = new HashMap<>();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                memberCollections = null;
+                memberSourceLineAnnotations = null;
+            }
+        });
     }
 
     /**
@@ -29,6 +29,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -66,16 +67,18 @@ public class UnrelatedReturnValues extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            currentClass = classContext.getJavaClass();
-            stack = new OpcodeStack();
-            returnTypes = new HashMap<>();
-            super.visitClassContext(classContext);
-        } finally {
-            currentClass = null;
-            stack = null;
-            returnTypes = null;
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                currentClass = classContext.getJavaClass();
+                stack = new OpcodeStack();
+                returnTypes = new HashMap<>();
+                super.visitClassContext(classContext);
+            } finally {
+                currentClass = null;
+                stack = null;
+                returnTypes = null;
+            }
+        });
     }
 
     /**
@@ -29,6 +29,7 @@ import org.apache.bcel.classfile.ElementValuePair;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.CollectionUtils;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
@@ -87,17 +88,19 @@ public class UnsynchronizedSingletonFieldWrites extends BytecodeScanningDetector
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            if (isSingleton(cls)) {
-                syncBlockBranchResetValues = new HashMap<>();
-                stack = new OpcodeStack();
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                if (isSingleton(cls)) {
+                    syncBlockBranchResetValues = new HashMap<>();
+                    stack = new OpcodeStack();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                syncBlockBranchResetValues = null;
+                stack = null;
             }
-        } finally {
-            syncBlockBranchResetValues = null;
-            stack = null;
-        }
+        });
     }
 
     /**
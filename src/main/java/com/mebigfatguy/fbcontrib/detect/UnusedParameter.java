@@ -30,6 +30,7 @@ import org.apache.bcel.classfile.LocalVariable;
 import org.apache.bcel.classfile.LocalVariableTable;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -77,16 +78,18 @@ public class UnusedParameter extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            unusedParms = new BitSet();
-            regToParm = new HashMap<>();
-            stack = new OpcodeStack();
-            super.visitClassContext(classContext);
-        } finally {
-            stack = null;
-            regToParm = null;
-            unusedParms.clear();
-        }
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                unusedParms = new BitSet();
+                regToParm = new HashMap<>();
+                stack = new OpcodeStack();
+                super.visitClassContext(classContext);
+            } finally {
+                stack = null;
+                regToParm = null;
+                unusedParms.clear();
+            }
+        });
     }
 
     /**
@@ -27,8 +27,10 @@ import org.apache.bcel.Const;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.FQMethod;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
 import com.mebigfatguy.fbcontrib.utils.ToString;
@@ -93,7 +95,7 @@ public class UseCharacterParameterizedMethod extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public UseCharacterParameterizedMethod(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
@@ -104,12 +106,14 @@ public class UseCharacterParameterizedMethod extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(final ClassContext context) {
-        try {
-            stack = new OpcodeStack();
-            super.visitClassContext(context);
-        } finally {
-            stack = null;
-        }
+        AnalysisScope.visitClass(this, context, () -> {
+            try {
+                stack = new OpcodeStack();
+                super.visitClassContext(context);
+            } finally {
+                stack = null;
+            }
+        });
     }
 
     /**
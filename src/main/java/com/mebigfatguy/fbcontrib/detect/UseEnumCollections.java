@@ -28,7 +28,9 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
+import com.mebigfatguy.fbcontrib.utils.HotMethods;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.StopOpcodeParsingException;
@@ -65,7 +67,7 @@ public class UseEnumCollections extends BytecodeScanningDetector {
      *            the sync of bug reports
      */
     public UseEnumCollections(BugReporter bugReporter) {
-        this.bugReporter = bugReporter;
+        this.bugReporter = HotMethods.wrap(bugReporter);
     }
 
     /**
@@ -76,21 +78,23 @@ public class UseEnumCollections extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            if (cls.getMajor() >= Const.MAJOR_1_5) {
-                stack = new OpcodeStack();
-                checkedFields = new HashSet<>();
-                enumRegs = new HashMap<>();
-                enumFields = new HashMap<>();
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                if (cls.getMajor() >= Const.MAJOR_1_5) {
+                    stack = new OpcodeStack();
+                    checkedFields = new HashSet<>();
+                    enumRegs = new HashMap<>();
+                    enumFields = new HashMap<>();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                stack = null;
+                checkedFields = null;
+                enumRegs = null;
+                enumFields = null;
             }
-        } finally {
-            stack = null;
-            checkedFields = null;
-            enumRegs = null;
-            enumFields = null;
-        }
+        });
     }
 
     /**
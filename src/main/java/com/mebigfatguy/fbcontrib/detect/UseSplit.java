@@ -24,6 +24,7 @@ import java.util.Map;
 import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.RegisterUtils;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
@@ -70,17 +71,19 @@ public class UseSplit extends BytecodeScanningDetector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            JavaClass cls = classContext.getJavaClass();
-            if (cls.getMajor() >= MAJOR_1_4) {
-                stack = new OpcodeStack();
-                regValueType = new HashMap<Integer, State>();
-                super.visitClassContext(classContext);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+                if (cls.getMajor() >= MAJOR_1_4) {
+                    stack = new OpcodeStack();
+                    regValueType = new HashMap<Integer, State>();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                stack = null;
+                regValueType = null;
             }
-        } finally {
-            stack = null;
-            regValueType = null;
-        }
+        });
     }
 
     /**
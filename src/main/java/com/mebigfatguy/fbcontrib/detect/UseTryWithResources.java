@@ -28,6 +28,7 @@ import org.apache.bcel.classfile.Code;
 import org.apache.bcel.classfile.CodeException;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.CollectionUtils;
 import com.mebigfatguy.fbcontrib.utils.OpcodeUtils;
@@ -75,25 +76,27 @@ public class UseTryWithResources extends BytecodeScanningDetector {
 
     @Override
     public void visitClassContext(ClassContext classContext) {
+        AnalysisScope.visitClass(this, classContext, () -> {
 
-        if (autoCloseableClass == null) {
-            return;
-        }
+            if (autoCloseableClass == null) {
+                return;
+            }
 
-        try {
-            int majorVersion = classContext.getJavaClass().getMajor();
+            try {
+                int majorVersion = classContext.getJavaClass().getMajor();
 
-            if (majorVersion >= Const.MAJOR_1_7) {
-                stack = new OpcodeStack();
-                finallyBlocks = new HashMap<>();
-                regStoredPCs = new HashMap<>();
-                super.visitClassContext(classContext);
+                if (majorVersion >= Const.MAJOR_1_7) {
+                    stack = new OpcodeStack();
+                    finallyBlocks = new HashMap<>();
+                    regStoredPCs = new HashMap<>();
+                    super.visitClassContext(classContext);
+                }
+            } finally {
+                stack = null;
+                finallyBlocks = null;
+                regStoredPCs = null;
             }
-        } finally {
-            stack = null;
-            finallyBlocks = null;
-            regStoredPCs = null;
-        }
+        });
     }
 
     @Override
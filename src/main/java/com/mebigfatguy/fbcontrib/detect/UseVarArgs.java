@@ -24,6 +24,7 @@ import org.apache.bcel.Const;
 import org.apache.bcel.classfile.JavaClass;
 import org.apache.bcel.classfile.Method;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.SignatureBuilder;
 import com.mebigfatguy.fbcontrib.utils.SignatureUtils;
@@ -58,14 +59,16 @@ public class UseVarArgs extends PreorderVisitor implements Detector {
      */
     @Override
     public void visitClassContext(ClassContext classContext) {
-        try {
-            javaClass = classContext.getJavaClass();
-            if (javaClass.getMajor() >= Const.MAJOR_1_5) {
-                javaClass.accept(this);
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                javaClass = classContext.getJavaClass();
+                if (javaClass.getMajor() >= Const.MAJOR_1_5) {
+                    javaClass.accept(this);
+                }
+            } finally {
+                javaClass = null;
             }
-        } finally {
-            javaClass = null;
-        }
+        });
     }
 
     /**
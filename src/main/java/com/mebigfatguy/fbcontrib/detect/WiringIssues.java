@@ -26,6 +26,7 @@ import org.apache.bcel.classfile.AnnotationEntry;
 import org.apache.bcel.classfile.Field;
 import org.apache.bcel.classfile.JavaClass;
 
+import com.mebigfatguy.fbcontrib.utils.AnalysisScope;
 import com.mebigfatguy.fbcontrib.utils.BugType;
 import com.mebigfatguy.fbcontrib.utils.ToString;
 import com.mebigfatguy.fbcontrib.utils.Values;
@@ -62,52 +63,53 @@ public class WiringIssues extends PreorderVisitor implements Detector {
     @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(value = "SF_SWITCH_NO_DEFAULT", justification = "Only a few cases need special handling")
     @Override
     public void visitClassContext(ClassContext classContext) {
-
-        try {
-            JavaClass cls = classContext.getJavaClass();
-
-            Field[] fields = cls.getFields();
-
-            if (fields.length > 0) {
-
-                Map<WiringType, FieldAnnotation> wiredFields = new HashMap<>();
-                boolean loadedParents = false;
-
-                for (Field field : fields) {
-                    boolean hasAutowired = false;
-                    String qualifier = "";
-                    for (AnnotationEntry entry : field.getAnnotationEntries()) {
-                        switch (entry.getAnnotationType()) {
-                            case SPRING_AUTOWIRED:
-                                if (!loadedParents) {
-                                    loadParentAutowireds(cls.getSuperClass(), wiredFields);
-                                    loadedParents = true;
-                                }
-                                hasAutowired = true;
-                            break;
-
-                            case SPRING_QUALIFIER:
-                                qualifier = entry.getElementValuePairs()[0].getValue().stringifyValue();
-                            break;
+        AnalysisScope.visitClass(this, classContext, () -> {
+            try {
+                JavaClass cls = classContext.getJavaClass();
+
+                Field[] fields = cls.getFields();
+
+                if (fields.length > 0) {
+
+                    Map<WiringType, FieldAnnotation> wiredFields = new HashMap<>();
+                    boolean loadedParents = false;
+
+                    for (Field field : fields) {
+                        boolean hasAutowired = false;
+                        String qualifier = "";
+                        for (AnnotationEntry entry : field.getAnnotationEntries()) {
+                            switch (entry.getAnnotationType()) {
+                                case SPRING_AUTOWIRED:
+                                    if (!loadedParents) {
+                                        loadParentAutowireds(cls.getSuperClass(), wiredFields);
+                                        loadedParents = true;
+                                    }
+                                    hasAutowired = true;
+                                break;
+
+                                case SPRING_QUALIFIER:
+                                    qualifier = entry.getElementValuePairs()[0].getValue().stringifyValue();
+                                break;
+                            }
                         }
-                    }
 
-                    if (hasAutowired) {
-                        WiringType wt = new WiringType(field.getSignature(), field.getGenericSignature(), qualifier);
-                        FieldAnnotation existingAnnotation = wiredFields.get(wt);
-                        if (existingAnnotation == null) {
-                            wiredFields.put(wt, FieldAnnotation.fromBCELField(cls.getClassName(), field));
-                        } else {
-                            bugReporter.reportBug(new BugInstance(this, BugType.WI_DUPLICATE_WIRED_TYPES.name(), NORMAL_PRIORITY).addClass(cls)
-                                    .addField(existingAnnotation).addField(FieldAnnotation.fromBCELField(cls, field)));
-                            wiredFields.remove(wt);
+                        if (hasAutowired) {
+                            WiringType wt = new WiringType(field.getSignature(), field.getGenericSignature(), qualifier);
+                            FieldAnnotation existingAnnotation = wiredFields.get(wt);
+                            if (existingAnnotation == null) {
+                                wiredFields.put(wt, FieldAnnotation.fromBCELField(cls.getClassName(), field));
+                            } else {
+                                bugReporter.reportBug(new BugInstance(this, BugType.WI_DUPLICATE_WIRED_TYPES.name(), NORMAL_PRIORITY).addClass(cls)
+                                        .addField(existingAnnotation).addField(FieldAnnotation.fromBCELField(cls, field)));
+                                wiredFields.remove(wt);
+                            }
                         }
                     }
                 }
+            } catch (ClassNotFoundException e) {
+                bugReporter.reportMissingClass(e);
             }
-        } catch (ClassNotFoundException e) {
-            bugReporter.reportMissingClass(e);
-        }
+        });
     }
 
     @Override
@@ -0,0 +1,119 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+
+import edu.umd.cs.findbugs.Detector;
+import edu.umd.cs.findbugs.ba.ClassContext;
+
+/**
+ * decides which classes and methods the reporting detectors look at, leaving out {@link GeneratedClasses generated classes}, and, when only a change is
+ * analyzed, the classes and methods it doesn't touch ({@link ChangedLines}), and, when sampling, the classes outside of the sample ({@link SampledClasses}).
+ * Collectors and the cross class detectors still see everything, as the data they gather from classes that aren't reported on is needed to report on those
+ * that are; but as that means they can't be sampled, they are turned off while sampling.
+ */
+public final class AnalysisScope {
+
+    private AnalysisScope() {
+    }
+
+    /**
+     * returns whether a class-local detector should skip the class being analyzed
+     *
+     * @param classContext
+     *            the context object of the class being analyzed
+     * @return whether the class is out of scope
+     */
+    public static boolean skipClass(ClassContext classContext) {
+        JavaClass cls = classContext.getJavaClass();
+        return isOutOfScope(cls) || !SampledClasses.isSampled(cls.getClassName());
+    }
+
+    /**
+     * runs a class-local detector's work on the class being analyzed, in a {@link DetectorEvents} span, unless the class is out of scope
+     *
+     * @param detector
+     *            the detector doing the work
+     * @param classContext
+     *            the context object of the class being analyzed
+     * @param visit
+     *            the detector's work on the class
+     */
+    public static void visitClass(Detector detector, ClassContext classContext, Runnable visit) {
+        if (!skipClass(classContext)) {
+            DetectorEvents.recordClass(detector, classContext, visit);
+        }
+    }
+
+    /**
+     * classifies a class seen by the first pass, and adds it to the sampling frame if it is in scope
+     *
+     * @param classContext
+     *            the context object of the class being collected
+     * @param numBytes
+     *            the number of bytecode bytes in all of the class's methods
+     */
+    public static void collectClass(ClassContext classContext, int numBytes) {
+        JavaClass cls = classContext.getJavaClass();
+        if (!isOutOfScope(cls)) {
+            SampledClasses.addToFrame(cls.getClassName(), numBytes);
+        }
+    }
+
+    /**
+     * returns whether a detector whose findings only depend on the code of one method should skip that method
+     *
+     * @param classContext
+     *            the context object of the class being analyzed
+     * @param m
+     *            the method about to be visited
+     * @return whether the method is out of scope
+     */
+    public static boolean skipMethod(ClassContext classContext, Method m) {
+        return !ChangedLines.isChanged(classContext.getJavaClass(), m);
+    }
+
+    /**
+     * returns whether a cross class detector should leave a class that has been visited out of its report
+     *
+     * @param clsName
+     *            the dotted or slashed name of the class
+     * @return whether the class is out of scope
+     */
+    public static boolean skipReport(String clsName) {
+        return GeneratedClasses.isGenerated(clsName) || !ChangedLines.isChanged(clsName);
+    }
+
+    /**
+     * returns whether a cross class detector should do nothing at all, because only a sample of the classes is being analyzed
+     *
+     * @param detector
+     *            the cross class detector
+     * @return whether the detector is turned off
+     */
+    public static boolean skipCrossClass(Detector detector) {
+        return SampledClasses.disables(detector);
+    }
+
+    private static boolean isOutOfScope(JavaClass cls) {
+        return (GeneratedClasses.getReason(cls) != null) || !ChangedLines.isChanged(cls);
+    }
+}
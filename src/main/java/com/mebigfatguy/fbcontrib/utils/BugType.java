@@ -74,6 +74,8 @@ public enum BugType {
 	DWI_DELETING_WHILE_ITERATING,
 	DWI_MODIFYING_WHILE_ITERATING,
 
+	EHK_EXPENSIVE_HASH_KEY,
+	EOCM_EXPENSIVE_OBJECT_CREATED_IN_METHOD,
 	EXS_EXCEPTION_SOFTENING_HAS_CHECKED,
 	EXS_EXCEPTION_SOFTENING_NO_CHECKED,
 	EXS_EXCEPTION_SOFTENING_NO_CONSTRAINTS,
@@ -90,6 +92,9 @@ public enum BugType {
 	HES_EXECUTOR_OVERWRITTEN_WITHOUT_SHUTDOWN,
 	HES_LOCAL_EXECUTOR_SERVICE,
 
+	IAB_BOXED_MAP_COUNTER,
+	IAB_BOXING_COMPARATOR_KEY,
+	IAB_BOX_UNBOX_IN_LOOP,
     ICA_INVALID_CONSTANT_ARGUMENT,
 	IICU_INCORRECT_INTERNAL_CLASS_USE,
 	IKNC_INCONSISTENT_HTTP_ATTRIBUTE_CASING,
@@ -110,7 +115,9 @@ public enum BugType {
 	IPU_IMPROPER_PROPERTIES_USE_SETPROPERTY,
 	ISB_EMPTY_STRING_APPENDING,
 	ISB_INEFFICIENT_STRING_BUFFERING,
+	ISB_STRING_CONCATENATION_IN_LOOP,
 	ISB_TOSTRING_APPENDING,
+	ISB_UNSIZED_BUILDER_FILLED_IN_LOOP,
 	ITC_INHERITANCE_TYPE_CHECKING,
 	ITU_INAPPROPRIATE_TOSTRING_USE,
 
@@ -121,6 +128,10 @@ public enum BugType {
 	JPAI_NON_SPECIFIED_TRANSACTION_EXCEPTION_HANDLING,
 	JPAI_TRANSACTION_ON_NON_PUBLIC_METHOD,
 	JPAI_UNNECESSARY_TRANSACTION_EXCEPTION_HANDLING,
+	JTI_COLUMN_LOOKUP_BY_NAME_IN_LOOP,
+	JTI_DEFAULT_FETCH_SIZE,
+	JTI_EXECUTE_UPDATE_IN_LOOP,
+	JTI_PREPARE_STATEMENT_IN_LOOP,
     JVR_JDBC_VENDOR_RELIANCE,
 	JXI_GET_ENDPOINT_CONSUMES_CONTENT,
 	JXI_INVALID_CONTEXT_PARAMETER_TYPE,
@@ -130,6 +141,12 @@ public enum BugType {
 	LEST_LOST_EXCEPTION_STACK_TRACE,
 	LGO_LINGERING_GRAPHICS_OBJECT,
 	LII_LIST_INDEXED_ITERATING,
+	LOIL_ARRAY_LIST_USED_AS_QUEUE,
+	LOIL_COUNTING_QUEUE_SIZE_IN_LOOP,
+	LOIL_LINEAR_REMOVE_IN_LOOP,
+	LOIL_LINEAR_SEARCH_IN_LOOP,
+	LOIL_LINKED_LIST_INDEXED_IN_LOOP,
+	LOIL_STRING_RESCAN_IN_LOOP,
 	LO_APPENDED_STRING_IN_FORMAT_STRING,
 	LO_EMBEDDED_SIMPLE_STRING_FORMAT_IN_FORMAT_STRING,
 	LO_EXCEPTION_WITH_LOGGER_PARMS,
@@ -280,9 +297,14 @@ public enum BugType {
 	UAA_USE_ADD_ALL,
 	UAC_UNNECESSARY_API_CONVERSION_DATE_TO_INSTANT,
 	UAC_UNNECESSARY_API_CONVERSION_FILE_TO_PATH,
+	UBC_LRU_MAP_WITHOUT_REMOVE_ELDEST,
+	UBC_UNBOUNDED_CACHE_BUILDER,
+	UBC_UNBOUNDED_STATIC_MEMOIZATION,
 	UCC_UNRELATED_COLLECTION_CONTENTS,
 	UCPM_USE_CHARACTER_PARAMETERIZED_METHOD,
 	UEC_USE_ENUM_COLLECTIONS,
+	UIO_SMALL_COPY_BUFFER,
+	UIO_UNBUFFERED_SINGLE_UNIT_IO,
     UJM_UNJITABLE_METHOD,
     UMTP_UNBOUND_METHOD_TEMPLATE_PARAMETER,
 	UNNC_UNNECESSARY_NEW_NULL_CHECK,
@@ -0,0 +1,362 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.LineNumber;
+import org.apache.bcel.classfile.LineNumberTable;
+import org.apache.bcel.classfile.Method;
+
+/**
+ * the source lines changed by a patch, for analyzing only the code a change touches. The changes are read from the file named by the fb-contrib.changed.lines
+ * property, which holds either a unified diff (as from git diff), or lines of {@code path:startLine-endLine} (or {@code path:line}). Files are matched to
+ * classes by the class's package and SourceFile attribute, so paths may have any prefix, such as src/main/java/. Methods are matched through their line number
+ * tables, and are always taken to be changed when they have none. Classes without a SourceFile attribute are never changed. When the property is not set, everything is changed.
+ */
+public final class ChangedLines {
+
+    public static final String CHANGED_LINES_PROPERTY = "fb-contrib.changed.lines";
+
+    private static final ThreadLocal<LastClass> lastClass = new ThreadLocal<LastClass>() {
+        @Override
+        protected LastClass initialValue() {
+            return new LastClass();
+        }
+    };
+
+    private static final Set<String> changedClassNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private static volatile Map<String, List<ChangedFile>> changedFiles;
+    private static volatile boolean loaded;
+
+    private ChangedLines() {
+    }
+
+    /**
+     * returns whether only changed code is being analyzed
+     *
+     * @return whether a change set was given
+     */
+    public static boolean isActive() {
+        return getChangedFiles() != null;
+    }
+
+    /**
+     * returns whether any line of a class's source file was changed
+     *
+     * @param cls
+     *            the class to check
+     * @return whether the class was changed, or true if no change set was given
+     */
+    public static boolean isChanged(JavaClass cls) {
+        return !isActive() || (getChangedLines(cls) != null);
+    }
+
+    /**
+     * returns whether a method's lines overlap the changed lines of its source file
+     *
+     * @param cls
+     *            the class that holds the method
+     * @param m
+     *            the method to check
+     * @return whether the method was changed, or true if no change set was given
+     */
+    public static boolean isChanged(JavaClass cls, Method m) {
+        if (!isActive()) {
+            return true;
+        }
+
+        BitSet lines = getChangedLines(cls);
+        if (lines == null) {
+            return false;
+        }
+        if (lines.isEmpty()) {
+            // the file was touched, but which lines is not known
+            return true;
+        }
+
+        Code code = m.getCode();
+        LineNumberTable lnt = (code == null) ? null : code.getLineNumberTable();
+        if ((lnt == null) || (lnt.getTableLength() == 0)) {
+            return true;
+        }
+
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for (LineNumber ln : lnt.getLineNumberTable()) {
+            int line = ln.getLineNumber();
+            first = Math.min(first, line);
+            last = Math.max(last, line);
+        }
+
+        int changedLine = lines.nextSetBit(first);
+        return (changedLine >= 0) && (changedLine <= last);
+    }
+
+    /**
+     * returns whether a class that has already been looked at was changed, for detectors that report on classes after they have been visited
+     *
+     * @param clsName
+     *            the dotted or slashed name of the class
+     * @return whether the class is known to be changed, or true if no change set was given
+     */
+    public static boolean isChanged(String clsName) {
+        return !isActive() || changedClassNames.contains(clsName.replace('/', '.'));
+    }
+
+    /**
+     * forgets the loaded change set, so that it is read again before analyzing another project
+     */
+    public static void clear() {
+        loaded = false;
+        changedFiles = null;
+        changedClassNames.clear();
+        lastClass.remove();
+    }
+
+    private static Map<String, List<ChangedFile>> getChangedFiles() {
+        if (!loaded) {
+            synchronized (ChangedLines.class) {
+                if (!loaded) {
+                    changedFiles = load(System.getProperty(CHANGED_LINES_PROPERTY));
+                    loaded = true;
+                }
+            }
+        }
+        return changedFiles;
+    }
+
+    private static Map<String, List<ChangedFile>> load(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+
+        try (BufferedReader br = Files.newBufferedReader(Paths.get(fileName), StandardCharsets.UTF_8)) {
+            Map<String, List<ChangedFile>> files = parse(br);
+            System.err.println("fb-contrib: analyzing the changed lines of " + files.size() + " file name(s) from " + fileName);
+            return files;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("fb-contrib: failed to read changed lines from " + fileName + ", analyzing everything: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * parses a unified diff or a list of changed line ranges
+     *
+     * @param reader
+     *            the source of the diff or list
+     * @return the changed lines, by the file name part of their path
+     * @throws IOException
+     *             if the diff or list can't be read
+     */
+    static Map<String, List<ChangedFile>> parse(Reader reader) throws IOException {
+        BufferedReader br = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+        Map<String, BitSet> linesByPath = new HashMap<>();
+
+        BitSet lines = null;
+        int newLine = 0;
+        int oldRemaining = 0;
+        int newRemaining = 0;
+        String line;
+        while ((line = br.readLine()) != null) {
+            if ((oldRemaining > 0) || (newRemaining > 0)) {
+                char c = line.isEmpty() ? ' ' : line.charAt(0);
+                if (c == '+') {
+                    if (lines != null) {
+                        lines.set(newLine);
+                    }
+                    newLine++;
+                    newRemaining--;
+                } else if (c == '-') {
+                    if (lines != null) {
+                        // a removal changes the code around the spot it was removed from
+                        lines.set(Math.max(newLine - 1, 0), newLine + 1);
+                    }
+                    oldRemaining--;
+                } else if (c != '\\') {
+                    newLine++;
+                    oldRemaining--;
+                    newRemaining--;
+                }
+            } else if (line.startsWith("+++ ")) {
+                String path = stripDiffPath(line.substring(4));
+                lines = (path == null) ? null : getLines(linesByPath, path);
+            } else if (line.startsWith("@@ ")) {
+                int[] hunk = parseHunkHeader(line);
+                oldRemaining = hunk[0];
+                newLine = hunk[1];
+                newRemaining = hunk[2];
+            } else if (!line.startsWith("--- ") && !line.startsWith("diff ") && !line.startsWith("#")) {
+                int colonPos = line.lastIndexOf(':');
+                if (colonPos > 0) {
+                    try {
+                        String range = line.substring(colonPos + 1).trim();
+                        int dashPos = range.indexOf('-');
+                        int start = Integer.parseInt(dashPos >= 0 ? range.substring(0, dashPos).trim() : range);
+                        int end = (dashPos >= 0) ? Integer.parseInt(range.substring(dashPos + 1).trim()) : start;
+                        getLines(linesByPath, line.substring(0, colonPos).trim()).set(start, end + 1);
+                    } catch (NumberFormatException e) {
+                        // not a line range, but some other header of a diff, such as a patch mail's Date:
+                    }
+                }
+            }
+        }
+
+        Map<String, List<ChangedFile>> files = new HashMap<>();
+        for (Map.Entry<String, BitSet> entry : linesByPath.entrySet()) {
+            String path = entry.getKey();
+            String name = path.substring(path.lastIndexOf('/') + 1);
+            List<ChangedFile> named = files.get(name);
+            if (named == null) {
+                named = new ArrayList<>(1);
+                files.put(name, named);
+            }
+            named.add(new ChangedFile(path, entry.getValue()));
+        }
+        return files;
+    }
+
+    private static BitSet getLines(Map<String, BitSet> linesByPath, String path) {
+        String normalizedPath = path.replace('\\', '/');
+        BitSet lines = linesByPath.get(normalizedPath);
+        if (lines == null) {
+            lines = new BitSet();
+            linesByPath.put(normalizedPath, lines);
+        }
+        return lines;
+    }
+
+    /**
+     * strips the timestamp and the a/ b/ prefixes git adds from the path of a diff's file header
+     *
+     * @param header
+     *            the file header, without the leading +++
+     * @return the path, or null if the file was deleted
+     */
+    private static String stripDiffPath(String header) {
+        int tabPos = header.indexOf('\t');
+        String path = ((tabPos >= 0) ? header.substring(0, tabPos) : header).trim();
+        if ("/dev/null".equals(path)) {
+            return null;
+        }
+        return path.startsWith("b/") ? path.substring(2) : path;
+    }
+
+    /**
+     * parses a hunk header of the form {@code @@ -oldStart,oldCount +newStart,newCount @@}, where counts of 1 may be left out
+     *
+     * @param header
+     *            the hunk header
+     * @return the old count, the new start and the new count
+     */
+    private static int[] parseHunkHeader(String header) {
+        String[] parts = header.split(" ");
+        String[] oldRange = parts[1].substring(1).split(",");
+        String[] newRange = parts[2].substring(1).split(",");
+        return new int[] { (oldRange.length > 1) ? Integer.parseInt(oldRange[1]) : 1, Integer.parseInt(newRange[0]),
+                (newRange.length > 1) ? Integer.parseInt(newRange[1]) : 1 };
+    }
+
+    private static BitSet getChangedLines(JavaClass cls) {
+        LastClass last = lastClass.get();
+        if (last.cls != cls) {
+            last.cls = cls;
+            last.lines = findChangedLines(cls);
+            if (last.lines != null) {
+                changedClassNames.add(cls.getClassName());
+            }
+        }
+        return last.lines;
+    }
+
+    private static BitSet findChangedLines(JavaClass cls) {
+        String sourceFile = cls.getSourceFileName();
+        if ((sourceFile == null) || "<Unknown>".equals(sourceFile)) {
+            // no change can name a class compiled without its source file, such as a shaded or obfuscated library
+            return null;
+        }
+
+        List<ChangedFile> named = changedFiles.get(sourceFile);
+        if (named == null) {
+            return null;
+        }
+
+        String packageName = cls.getPackageName();
+        String relativePath = packageName.isEmpty() ? sourceFile : packageName.replace('.', '/') + '/' + sourceFile;
+        BitSet lines = null;
+        for (ChangedFile file : named) {
+            if (file.path.equals(relativePath) || file.path.endsWith('/' + relativePath)) {
+                if (lines == null) {
+                    lines = (BitSet) file.lines.clone();
+                } else {
+                    lines.or(file.lines);
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * the changed lines of one file
+     */
+    static final class ChangedFile {
+        final String path;
+        final BitSet lines;
+
+        ChangedFile(String path, BitSet lines) {
+            this.path = path;
+            this.lines = lines;
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+
+    /**
+     * the class that was last checked on this thread, and its changed lines
+     */
+    private static final class LastClass {
+        JavaClass cls;
+        BitSet lines;
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+}
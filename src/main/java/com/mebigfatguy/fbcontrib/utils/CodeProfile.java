@@ -0,0 +1,219 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import java.util.BitSet;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.Method;
+
+import edu.umd.cs.findbugs.ba.ClassContext;
+
+/**
+ * a summary of a method's bytecode, holding which opcodes are present, and whether the code branches backwards (that is, has a loop), so that detectors can
+ * cheaply skip methods that can't match what they look for. The opcodes are the bytecode set that the ClassContext keeps for each method, and only the
+ * backward branch is looked for here, in one pass over the code bytes, the first time it is asked for.
+ */
+public final class CodeProfile {
+
+    private static final int[] INSTRUCTION_LENGTHS = new int[256];
+
+    static {
+        for (int op = 0; op < INSTRUCTION_LENGTHS.length; op++) {
+            INSTRUCTION_LENGTHS[op] = 1 + Math.max(0, Const.getNoOfOperands(op));
+        }
+    }
+
+    private final BitSet opcodes;
+    private final Code code;
+    private Boolean backwardBranch;
+
+    /**
+     * builds the profile of a method
+     *
+     * @param opcodes
+     *            the opcodes used by the method
+     * @param code
+     *            the code of the method
+     */
+    CodeProfile(BitSet opcodes, Code code) {
+        this.opcodes = opcodes;
+        this.code = code;
+    }
+
+    /**
+     * returns the profile of a method of the class being analyzed
+     *
+     * @param classContext
+     *            the context object of the class being analyzed
+     * @param method
+     *            the method to profile
+     * @return the profile of the method, or null if the method has no code
+     */
+    public static CodeProfile get(ClassContext classContext, Method method) {
+        BitSet bytecodeSet = classContext.getBytecodeSet(method);
+        if (bytecodeSet == null) {
+            return null;
+        }
+        return new CodeProfile(bytecodeSet, method.getCode());
+    }
+
+    /**
+     * builds a bitset of opcodes, for use as the required or wanted opcodes of a detector
+     *
+     * @param ops
+     *            the opcodes to include
+     * @return a bitset of the opcodes
+     */
+    public static BitSet opcodes(int... ops) {
+        BitSet set = new BitSet(Const.JSR_W + 1);
+        for (int op : ops) {
+            set.set(op);
+        }
+        return set;
+    }
+
+    /**
+     * returns whether the code contains a specific opcode
+     *
+     * @param opcode
+     *            the opcode to look for
+     * @return whether the opcode is used
+     */
+    public boolean contains(int opcode) {
+        return opcodes.get(opcode);
+    }
+
+    /**
+     * returns whether the code contains all of the given opcodes
+     *
+     * @param required
+     *            the opcodes that must all be present
+     * @return whether all are used
+     */
+    public boolean containsAll(BitSet required) {
+        BitSet missing = (BitSet) required.clone();
+        missing.andNot(opcodes);
+        return missing.isEmpty();
+    }
+
+    /**
+     * returns whether the code contains any of the given opcodes
+     *
+     * @param wanted
+     *            the opcodes of which one must be present
+     * @return whether any is used
+     */
+    public boolean containsAny(BitSet wanted) {
+        return opcodes.intersects(wanted);
+    }
+
+    /**
+     * returns whether the code has a branch to an earlier (or the same) instruction, which is how all loops are compiled
+     *
+     * @return whether the code branches backwards
+     */
+    public boolean hasBackwardBranch() {
+        if (backwardBranch == null) {
+            backwardBranch = Boolean.valueOf((code != null) && hasBackwardBranch(code.getCode()));
+        }
+        return backwardBranch.booleanValue();
+    }
+
+    /**
+     * returns whether a block of code bytes has a branch to an earlier (or the same) instruction
+     *
+     * @param code
+     *            the code bytes of a method
+     * @return whether the code branches backwards
+     */
+    static boolean hasBackwardBranch(byte[] code) {
+        int pc = 0;
+        while (pc < code.length) {
+            int op = CodeByteUtils.getbyte(code, pc);
+
+            switch (op) {
+                case Const.TABLESWITCH:
+                case Const.LOOKUPSWITCH: {
+                    int base = (pc + 4) & ~3;
+                    if ((base + 12) > code.length) {
+                        return false;
+                    }
+                    if (getInt(code, base) < 0) {
+                        return true;
+                    }
+                    int count;
+                    int step;
+                    if (op == Const.TABLESWITCH) {
+                        count = (getInt(code, base + 8) - getInt(code, base + 4)) + 1;
+                        base += 12;
+                        step = 4;
+                    } else {
+                        count = getInt(code, base + 4);
+                        base += 12;
+                        step = 8;
+                    }
+                    for (int i = 0; (i < count) && ((base + 4) <= code.length); i++) {
+                        if (getInt(code, base) < 0) {
+                            return true;
+                        }
+                        base += step;
+                    }
+                    pc = (op == Const.TABLESWITCH) ? base : base - 4;
+                }
+                break;
+
+                case Const.WIDE:
+                    pc += ((pc + 1) < code.length) && (CodeByteUtils.getbyte(code, pc + 1) == Const.IINC) ? 6 : 4;
+                break;
+
+                case Const.GOTO_W:
+                case Const.JSR_W:
+                    if (((pc + 5) <= code.length) && (getInt(code, pc + 1) <= 0)) {
+                        return true;
+                    }
+                    pc += 5;
+                break;
+
+                default:
+                    if (isShortBranch(op) && ((pc + 3) <= code.length) && (CodeByteUtils.getshort(code, pc + 1) <= 0)) {
+                        return true;
+                    }
+                    pc += INSTRUCTION_LENGTHS[op];
+                break;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isShortBranch(int op) {
+        return ((op >= Const.IFEQ) && (op <= Const.JSR)) || (op == Const.IFNULL) || (op == Const.IFNONNULL);
+    }
+
+    private static int getInt(byte[] code, int offset) {
+        return (CodeByteUtils.getbyte(code, offset) << 24) | (CodeByteUtils.getbyte(code, offset + 1) << 16) | (CodeByteUtils.getbyte(code, offset + 2) << 8)
+                | CodeByteUtils.getbyte(code, offset + 3);
+    }
+
+    @Override
+    public String toString() {
+        return ToString.build(this);
+    }
+}
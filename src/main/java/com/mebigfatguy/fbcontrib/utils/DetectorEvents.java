@@ -0,0 +1,137 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import org.apache.bcel.classfile.Method;
+
+import edu.umd.cs.findbugs.Detector;
+import edu.umd.cs.findbugs.ba.ClassContext;
+
+/**
+ * Java Flight Recorder events for the work the detectors do on each class and method, and in their reports, so that a recording of a slow analysis shows
+ * which classes and methods it was slow on. The events hold the detector, the class and method, the bytecode length, and the bytes allocated, and are named
+ * com.mebigfatguy.fbcontrib.DetectorClass, DetectorMethod and DetectorReport. Class and method events shorter than a millisecond aren't recorded, unless the
+ * recording's settings lower their threshold.
+ * <p>
+ * The events are off unless fb-contrib.jfr is set to true, as even unrecorded events cost something. When off, each span is a shared object that does
+ * nothing, and no flight recorder class is loaded, so the detectors run the same on a JVM without one.
+ */
+public final class DetectorEvents {
+
+    public static final String JFR_PROPERTY = "fb-contrib.jfr";
+
+    /**
+     * the work of one detector on one class, method or report, which ends when the work does
+     */
+    public interface Span {
+        /**
+         * ends the span, recording its event
+         */
+        void finish();
+    }
+
+    static final Span NO_SPAN = new Span() {
+        @Override
+        public void finish() {
+            // nothing was started
+        }
+    };
+
+    private static final boolean ENABLED = Boolean.getBoolean(JFR_PROPERTY) && isFlightRecorderPresent();
+
+    private DetectorEvents() {
+    }
+
+    /**
+     * returns whether the events are on
+     *
+     * @return whether fb-contrib.jfr is set, and the JVM has a flight recorder
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * runs a detector's work on a class in a span
+     *
+     * @param detector
+     *            the detector doing the work
+     * @param classContext
+     *            the context object of the class being analyzed
+     * @param visit
+     *            the detector's work on the class
+     */
+    public static void recordClass(Detector detector, ClassContext classContext, Runnable visit) {
+        Span span = beginClass(detector, classContext);
+        try {
+            visit.run();
+        } finally {
+            span.finish();
+        }
+    }
+
+    /**
+     * starts the span of a detector's work on a class
+     *
+     * @param detector
+     *            the detector doing the work
+     * @param classContext
+     *            the context object of the class being analyzed
+     * @return the span to end when the detector is done with the class
+     */
+    public static Span beginClass(Detector detector, ClassContext classContext) {
+        return ENABLED ? JfrEvents.beginClass(detector, classContext.getJavaClass()) : NO_SPAN;
+    }
+
+    /**
+     * starts the span of a detector's work on a method
+     *
+     * @param detector
+     *            the detector doing the work
+     * @param clsName
+     *            the name of the class that holds the method
+     * @param method
+     *            the method being analyzed
+     * @return the span to end when the detector is done with the method
+     */
+    public static Span beginMethod(Detector detector, String clsName, Method method) {
+        return ENABLED ? JfrEvents.beginMethod(detector, clsName, method) : NO_SPAN;
+    }
+
+    /**
+     * starts the span of a cross class detector's report
+     *
+     * @param detector
+     *            the detector reporting
+     * @return the span to end when the report is done
+     */
+    public static Span beginReport(Detector detector) {
+        return ENABLED ? JfrEvents.beginReport(detector) : NO_SPAN;
+    }
+
+    private static boolean isFlightRecorderPresent() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException e) {
+            System.err.println("fb-contrib: " + JFR_PROPERTY + " is set, but this JVM has no flight recorder, so no events will be recorded");
+            return false;
+        }
+    }
+}
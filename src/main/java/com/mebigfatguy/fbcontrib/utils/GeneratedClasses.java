@@ -0,0 +1,284 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.regex.Pattern;
+
+import org.apache.bcel.classfile.AnnotationEntry;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+
+import edu.umd.cs.findbugs.ba.AnalysisContext;
+import edu.umd.cs.findbugs.ba.ClassContext;
+
+/**
+ * recognizes generated and proxy classes, such as protobuf and thrift messages, parser generator output, annotation processor output and cglib or byte buddy
+ * proxies, whose findings are of no use, so that detectors can skip them. Only cheap markers are checked, with matchers built once when this class is loaded,
+ * and the answer is kept for the class being analyzed, so the detectors that look at the same class after the first pay only an identity check.
+ * <p>
+ * A class is generated if it
+ * <ul>
+ * <li>is annotated with a class retained annotation named Generated (immutables, lombok, spring aot and the like)</li>
+ * <li>has a SourceFile attribute naming a grammar or interface definition, like Parser.g or messages.proto (fb-contrib.generated.sourcefiles adds globs)</li>
+ * <li>is synthetic, or only has synthetic or bridge methods</li>
+ * <li>extends or implements a known generated code base type, like GeneratedMessageV3 or TBase (fb-contrib.generated.supertypes adds class names)</li>
+ * <li>has a proxy class name, like Foo$$EnhancerByCGLIB$$1 (fb-contrib.generated.classes adds globs)</li>
+ * </ul>
+ * The added globs and names are comma separated, and setting fb-contrib.generated.skip to false turns the check off. Setting fb-contrib.generated.verbose to
+ * true prints how many classes were skipped once the first pass is done.
+ */
+public final class GeneratedClasses {
+
+    public static final String SKIP_PROPERTY = "fb-contrib.generated.skip";
+    public static final String CLASSES_PROPERTY = "fb-contrib.generated.classes";
+    public static final String SOURCE_FILES_PROPERTY = "fb-contrib.generated.sourcefiles";
+    public static final String SUPERTYPES_PROPERTY = "fb-contrib.generated.supertypes";
+    public static final String VERBOSE_PROPERTY = "fb-contrib.generated.verbose";
+
+    /**
+     * the marker that showed a class to be generated
+     */
+    public enum Reason {
+        ANNOTATION, SOURCE_FILE, SYNTHETIC, SUPERTYPE, CLASS_NAME
+    }
+
+    private static final List<String> CLASS_NAME_GLOBS = Arrays.asList("*$$*", "*$ByteBuddy$*", "*$HibernateProxy$*", "*$MockitoMock$*");
+
+    private static final List<String> SOURCE_FILE_GLOBS = Arrays.asList("*.g", "*.g4", "*.jj", "*.jjt", "*.proto", "*.thrift", "*.cup", "*.flex", "*.jflex");
+
+    private static final List<String> SUPERTYPES = Arrays.asList(
+    //@formatter:off
+        "com.google.protobuf.GeneratedMessage",
+        "com.google.protobuf.GeneratedMessage$Builder",
+        "com.google.protobuf.GeneratedMessageV3",
+        "com.google.protobuf.GeneratedMessageV3$Builder",
+        "com.google.protobuf.GeneratedMessageLite",
+        "com.google.protobuf.GeneratedMessageLite$Builder",
+        "org.apache.thrift.TBase",
+        "org.apache.thrift.TEnum",
+        "org.apache.avro.specific.SpecificRecordBase",
+        "org.apache.avro.specific.SpecificRecordBuilderBase"
+    //@formatter:on
+    );
+
+    private static final boolean SKIP = !"false".equalsIgnoreCase(System.getProperty(SKIP_PROPERTY));
+    private static final boolean VERBOSE = Boolean.getBoolean(VERBOSE_PROPERTY);
+    private static final Pattern CLASS_NAMES = compileGlobs(CLASS_NAME_GLOBS, System.getProperty(CLASSES_PROPERTY));
+    private static final Pattern SOURCE_FILES = compileGlobs(SOURCE_FILE_GLOBS, System.getProperty(SOURCE_FILES_PROPERTY));
+    private static final Set<String> SUPERTYPE_NAMES = buildNames(SUPERTYPES, System.getProperty(SUPERTYPES_PROPERTY));
+
+    private static final ThreadLocal<LastClass> lastClass = new ThreadLocal<LastClass>() {
+        @Override
+        protected LastClass initialValue() {
+            return new LastClass();
+        }
+    };
+
+    private static final Set<String> generatedClassNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private static final AtomicIntegerArray skippedCounts = new AtomicIntegerArray(Reason.values().length);
+
+    private GeneratedClasses() {
+    }
+
+    /**
+     * returns whether the class being analyzed is generated, and so should not be reported on
+     *
+     * @param classContext
+     *            the context object of the class being analyzed
+     * @return whether the class is generated
+     */
+    public static boolean isGenerated(ClassContext classContext) {
+        return getReason(classContext.getJavaClass()) != null;
+    }
+
+    /**
+     * returns whether a class already seen in this analysis was found to be generated, for detectors that report on classes after they have been visited
+     *
+     * @param clsName
+     *            the dotted or slashed name of the class
+     * @return whether the class is known to be generated
+     */
+    public static boolean isGenerated(String clsName) {
+        return !generatedClassNames.isEmpty() && generatedClassNames.contains(clsName.replace('/', '.'));
+    }
+
+    /**
+     * returns why a class is generated
+     *
+     * @param cls
+     *            the class to check
+     * @return the first marker found that shows the class to be generated, or null if it isn't
+     */
+    public static Reason getReason(JavaClass cls) {
+        if (!SKIP) {
+            return null;
+        }
+
+        LastClass last = lastClass.get();
+        if (last.cls != cls) {
+            last.cls = cls;
+            last.reason = classify(cls);
+            if ((last.reason != null) && generatedClassNames.add(cls.getClassName()) && AnalysisContext.currentAnalysisContext().isApplicationClass(cls)) {
+                skippedCounts.incrementAndGet(last.reason.ordinal());
+            }
+        }
+        return last.reason;
+    }
+
+    /**
+     * prints how many application classes were skipped as generated, by the marker that showed them to be, if any were and fb-contrib.generated.verbose is
+     * set, and starts counting again
+     */
+    public static void report() {
+        StringBuilder summary = new StringBuilder();
+        int total = 0;
+        for (Reason reason : Reason.values()) {
+            int count = skippedCounts.getAndSet(reason.ordinal(), 0);
+            if (count > 0) {
+                summary.append(summary.length() == 0 ? "" : ", ").append(reason.name().toLowerCase()).append(' ').append(count);
+                total += count;
+            }
+        }
+        if (VERBOSE && (total > 0)) {
+            System.err.println("fb-contrib: skipped " + total + " generated class(es) (" + summary + ')');
+        }
+    }
+
+    /**
+     * forgets the generated classes found, before analyzing another project
+     */
+    public static void clear() {
+        generatedClassNames.clear();
+        for (Reason reason : Reason.values()) {
+            skippedCounts.set(reason.ordinal(), 0);
+        }
+    }
+
+    static Reason classify(JavaClass cls) {
+        for (AnnotationEntry entry : cls.getAnnotationEntries()) {
+            String type = entry.getAnnotationType();
+            if (type.endsWith("/Generated;") || "LGenerated;".equals(type)) {
+                return Reason.ANNOTATION;
+            }
+        }
+
+        String sourceFile = cls.getSourceFileName();
+        if ((sourceFile != null) && SOURCE_FILES.matcher(sourceFile).matches()) {
+            return Reason.SOURCE_FILE;
+        }
+
+        if (cls.isSynthetic() || hasOnlySyntheticMethods(cls)) {
+            return Reason.SYNTHETIC;
+        }
+
+        if (SUPERTYPE_NAMES.contains(cls.getSuperclassName())) {
+            return Reason.SUPERTYPE;
+        }
+        for (String inf : cls.getInterfaceNames()) {
+            if (SUPERTYPE_NAMES.contains(inf)) {
+                return Reason.SUPERTYPE;
+            }
+        }
+
+        if (CLASS_NAMES.matcher(cls.getClassName()).matches()) {
+            return Reason.CLASS_NAME;
+        }
+
+        return null;
+    }
+
+    private static boolean hasOnlySyntheticMethods(JavaClass cls) {
+        Method[] methods = cls.getMethods();
+        if (methods.length == 0) {
+            return false;
+        }
+        for (Method m : methods) {
+            if (!m.isSynthetic()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * builds one pattern that matches any of a set of globs, where * matches any run of characters and ? any one character
+     *
+     * @param globs
+     *            the built in globs
+     * @param userGlobs
+     *            comma separated globs to add, or null
+     * @return the compiled pattern
+     */
+    static Pattern compileGlobs(List<String> globs, String userGlobs) {
+        StringBuilder regex = new StringBuilder();
+        for (String glob : buildNames(globs, userGlobs)) {
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            int start = 0;
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                if ((c == '*') || (c == '?')) {
+                    if (i > start) {
+                        regex.append(Pattern.quote(glob.substring(start, i)));
+                    }
+                    regex.append((c == '*') ? ".*" : ".");
+                    start = i + 1;
+                }
+            }
+            if (start < glob.length()) {
+                regex.append(Pattern.quote(glob.substring(start)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static Set<String> buildNames(List<String> names, String userNames) {
+        Set<String> allNames = new HashSet<>(names);
+        if (userNames != null) {
+            for (String name : userNames.split(",")) {
+                name = name.trim();
+                if (!name.isEmpty()) {
+                    allNames.add(name);
+                }
+            }
+        }
+        return allNames;
+    }
+
+    /**
+     * the class that was last checked on this thread, and what was found
+     */
+    private static final class LastClass {
+        JavaClass cls;
+        Reason reason;
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.BugReporter;
+import edu.umd.cs.findbugs.DelegatingBugReporter;
+import edu.umd.cs.findbugs.MethodAnnotation;
+import edu.umd.cs.findbugs.StringAnnotation;
+
+/**
+ * the methods a profiler found to be hot, for raising the priority of performance findings in them. The methods are read from the file named by the
+ * fb-contrib.hot.methods property, which holds either lines of {@code method,samples} (as a csv export of a profiler's hot methods), or collapsed stacks of
+ * {@code frame;frame;frame samples} (as from async-profiler's collapsed output, or a JFR file converted to it). The count is always the last field of a line.
+ * Frames may be dotted or slashed, and any signature or {@code _[j]} style suffix is dropped, so overloads share their samples. The samples of a collapsed
+ * stack count for every method on it, so a method's samples are those of the stacks it is on. Methods with at least fb-contrib.hot.methods.percent (1 by
+ * default) percent of the samples of the hottest method are hot.
+ * <p>
+ * Detectors that report performance bugs wrap their reporter with {@link #wrap(BugReporter)}, and findings of the PERFORMANCE category whose primary method
+ * is hot have their priority raised by one, and are annotated with the method's sample count. When the property is not set, the reporter is not wrapped.
+ */
+public final class HotMethods {
+
+    public static final String HOT_METHODS_PROPERTY = "fb-contrib.hot.methods";
+    public static final String HOT_PERCENT_PROPERTY = "fb-contrib.hot.methods.percent";
+    public static final String SAMPLES_PROPERTY = "HOT_METHOD_SAMPLES";
+
+    private static final String PERFORMANCE_CATEGORY = "PERFORMANCE";
+    private static final double DEFAULT_HOT_PERCENT = 1.0;
+
+    private static volatile Map<String, Long> hotMethods;
+    private static volatile boolean loaded;
+
+    private HotMethods() {
+    }
+
+    /**
+     * returns whether findings in hot methods are being boosted
+     *
+     * @return whether a hot method list was given
+     */
+    public static boolean isActive() {
+        return getHotMethods() != null;
+    }
+
+    /**
+     * wraps a detector's reporter so that its performance findings in hot methods are boosted, if a hot method list was given
+     *
+     * @param bugReporter
+     *            the reporter passed to the detector's constructor
+     * @return a boosting reporter, or the original reporter if no hot method list was given
+     */
+    public static BugReporter wrap(BugReporter bugReporter) {
+        return isActive() ? new HotMethodBugReporter(bugReporter) : bugReporter;
+    }
+
+    /**
+     * returns the number of profiler samples of a hot method
+     *
+     * @param clsName
+     *            the dotted name of the method's class
+     * @param methodName
+     *            the name of the method
+     * @return the samples of the method, or 0 if it is not hot, or no hot method list was given
+     */
+    public static long getSamples(String clsName, String methodName) {
+        Map<String, Long> methods = getHotMethods();
+        if (methods == null) {
+            return 0L;
+        }
+        Long samples = methods.get(clsName + '.' + methodName);
+        return (samples == null) ? 0L : samples.longValue();
+    }
+
+    /**
+     * forgets the loaded hot methods, so that they are read again before analyzing another project
+     */
+    public static void clear() {
+        loaded = false;
+        hotMethods = null;
+    }
+
+    private static Map<String, Long> getHotMethods() {
+        if (!loaded) {
+            synchronized (HotMethods.class) {
+                if (!loaded) {
+                    hotMethods = load(System.getProperty(HOT_METHODS_PROPERTY));
+                    loaded = true;
+                }
+            }
+        }
+        return hotMethods;
+    }
+
+    private static Map<String, Long> load(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+
+        double percent = DEFAULT_HOT_PERCENT;
+        String percentValue = System.getProperty(HOT_PERCENT_PROPERTY);
+        if (percentValue != null) {
+            try {
+                percent = Double.parseDouble(percentValue);
+            } catch (NumberFormatException e) {
+                System.err.println("fb-contrib: ignoring invalid " + HOT_PERCENT_PROPERTY + " " + percentValue);
+            }
+        }
+
+        try (BufferedReader br = Files.newBufferedReader(Paths.get(fileName), StandardCharsets.UTF_8)) {
+            Map<String, Long> samples = parse(br);
+            int profiled = samples.size();
+            retainHot(samples, percent);
+            System.err.println("fb-contrib: boosting findings in " + samples.size() + " of " + profiled + " profiled method(s) from " + fileName);
+            return samples;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("fb-contrib: failed to read hot methods from " + fileName + ", boosting nothing: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * parses a csv list of methods and samples, or collapsed stacks
+     *
+     * @param reader
+     *            the source of the list or stacks
+     * @return the samples, by dotted class name and method name
+     * @throws IOException
+     *             if the list or stacks can't be read
+     */
+    static Map<String, Long> parse(Reader reader) throws IOException {
+        BufferedReader br = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+        Map<String, Long> samples = new HashMap<>();
+        Set<String> stackMethods = new HashSet<>();
+
+        String line;
+        while ((line = br.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || (line.charAt(0) == '#')) {
+                continue;
+            }
+
+            int countPos = line.length();
+            while ((countPos > 0) && !isSeparator(line.charAt(countPos - 1))) {
+                countPos--;
+            }
+            if (countPos == 0) {
+                continue;
+            }
+
+            long count;
+            try {
+                count = Long.parseLong(unquote(line.substring(countPos)));
+            } catch (NumberFormatException e) {
+                // a header, or a line of some other tool's output
+                continue;
+            }
+
+            int stackEnd = countPos - 1;
+            while ((stackEnd > 0) && isSeparator(line.charAt(stackEnd - 1))) {
+                stackEnd--;
+            }
+
+            stackMethods.clear();
+            for (String frame : line.substring(0, stackEnd).split(";")) {
+                String method = normalizeFrame(frame);
+                // a method that recurses is on the stack more than once, but only ran for the stack's samples
+                if ((method != null) && stackMethods.add(method)) {
+                    Long old = samples.get(method);
+                    samples.put(method, Long.valueOf((old == null) ? count : old.longValue() + count));
+                }
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * removes the methods that have less than a percentage of the samples of the hottest method
+     *
+     * @param samples
+     *            the samples by method, which is trimmed to the hot methods
+     * @param percent
+     *            the percentage of the hottest method's samples a method needs to be hot
+     */
+    static void retainHot(Map<String, Long> samples, double percent) {
+        long max = 0L;
+        for (Long count : samples.values()) {
+            max = Math.max(max, count.longValue());
+        }
+
+        double threshold = (max * percent) / 100.0;
+        Iterator<Long> it = samples.values().iterator();
+        while (it.hasNext()) {
+            long count = it.next().longValue();
+            if ((count <= 0L) || (count < threshold)) {
+                it.remove();
+            }
+        }
+    }
+
+    private static boolean isSeparator(char c) {
+        return (c == ',') || Character.isWhitespace(c);
+    }
+
+    private static String unquote(String field) {
+        String f = field.trim();
+        if ((f.length() >= 2) && (f.charAt(0) == '"') && (f.charAt(f.length() - 1) == '"')) {
+            return f.substring(1, f.length() - 1).trim();
+        }
+        return f;
+    }
+
+    /**
+     * turns a profiler frame into a dotted class name and method name
+     *
+     * @param frame
+     *            the frame, such as {@code com/acme/Foo.bar_[j]} or {@code com.acme.Foo.bar(int)}
+     * @return the class and method name, or null if the frame is not a java method, such as a native or kernel frame
+     */
+    static String normalizeFrame(String frame) {
+        String method = unquote(frame);
+        int parenPos = method.indexOf('(');
+        if (parenPos >= 0) {
+            method = method.substring(0, parenPos);
+        }
+        if (method.endsWith("]")) {
+            int suffixPos = method.lastIndexOf("_[");
+            if (suffixPos >= 0) {
+                method = method.substring(0, suffixPos);
+            }
+        }
+        method = method.trim().replace('/', '.');
+
+        int dotPos = method.lastIndexOf('.');
+        if ((dotPos <= 0) || (dotPos == (method.length() - 1)) || (method.indexOf(' ') >= 0) || (method.indexOf("::") >= 0)) {
+            return null;
+        }
+        return method;
+    }
+
+    /**
+     * a reporter that raises the priority of performance bugs in hot methods
+     */
+    static final class HotMethodBugReporter extends DelegatingBugReporter {
+
+        HotMethodBugReporter(BugReporter delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void reportBug(BugInstance bugInstance) {
+            super.reportBug(boost(bugInstance));
+        }
+
+        /**
+         * returns a boosted copy of a performance bug in a hot method, leaving the original alone, as a result cache may have recorded it
+         *
+         * @param bugInstance
+         *            the bug being reported
+         * @return the boosted copy, or the original bug if it is not a performance bug, or not in a hot method
+         */
+        static BugInstance boost(BugInstance bugInstance) {
+            if (!PERFORMANCE_CATEGORY.equals(bugInstance.getBugPattern().getCategory())) {
+                return bugInstance;
+            }
+
+            MethodAnnotation method = bugInstance.getPrimaryMethod();
+            if (method == null) {
+                return bugInstance;
+            }
+
+            long samples = getSamples(method.getClassName(), method.getMethodName());
+            if (samples == 0L) {
+                return bugInstance;
+            }
+
+            BugInstance hot = (BugInstance) bugInstance.clone();
+            hot.raisePriority();
+            hot.addString("Hot method with " + samples + " profiler samples").describe(StringAnnotation.STRING_MESSAGE);
+            hot.setProperty(SAMPLES_PROPERTY, String.valueOf(samples));
+            return hot;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+
+import edu.umd.cs.findbugs.Detector;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * the flight recorder events behind {@link DetectorEvents}, which are kept apart from it so that nothing here is loaded unless the events are on
+ */
+final class JfrEvents {
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+
+    private static final ThreadLocal<LastClass> lastClass = new ThreadLocal<LastClass>() {
+        @Override
+        protected LastClass initialValue() {
+            return new LastClass();
+        }
+    };
+
+    private JfrEvents() {
+    }
+
+    static DetectorEvents.Span beginClass(Detector detector, JavaClass cls) {
+        ClassEvent event = new ClassEvent();
+        if (!event.isEnabled()) {
+            return DetectorEvents.NO_SPAN;
+        }
+
+        event.className = cls.getClassName();
+        event.bytecodeLength = getBytecodeLength(cls);
+        event.start(detector);
+        return event;
+    }
+
+    static DetectorEvents.Span beginMethod(Detector detector, String clsName, Method method) {
+        MethodEvent event = new MethodEvent();
+        if (!event.isEnabled()) {
+            return DetectorEvents.NO_SPAN;
+        }
+
+        event.className = clsName.replace('/', '.');
+        event.method = method.getName() + method.getSignature();
+        Code code = method.getCode();
+        event.bytecodeLength = (code == null) ? 0 : code.getLength();
+        event.start(detector);
+        return event;
+    }
+
+    static DetectorEvents.Span beginReport(Detector detector) {
+        ReportEvent event = new ReportEvent();
+        if (!event.isEnabled()) {
+            return DetectorEvents.NO_SPAN;
+        }
+
+        event.start(detector);
+        return event;
+    }
+
+    private static int getBytecodeLength(JavaClass cls) {
+        LastClass last = lastClass.get();
+        if (last.cls != cls) {
+            int length = 0;
+            for (Method m : cls.getMethods()) {
+                Code code = m.getCode();
+                if (code != null) {
+                    length += code.getLength();
+                }
+            }
+            last.cls = cls;
+            last.bytecodeLength = length;
+        }
+        return last.bytecodeLength;
+    }
+
+    private static long getAllocatedBytes() {
+        return (ALLOCATION_BEAN == null) ? 0L : ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * the fields and timing common to all the events
+     */
+    abstract static class DetectorEvent extends Event implements DetectorEvents.Span {
+
+        @Label("Detector")
+        String detector;
+
+        @Label("Allocated")
+        @Description("The bytes allocated by the analysis thread")
+        @DataAmount
+        long allocated;
+
+        void start(Detector d) {
+            detector = d.getClass().getSimpleName();
+            allocated = getAllocatedBytes();
+            begin();
+        }
+
+        @Override
+        public void finish() {
+            end();
+            if (shouldCommit()) {
+                allocated = getAllocatedBytes() - allocated;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * a detector's work on a class
+     */
+    @Name("com.mebigfatguy.fbcontrib.DetectorClass")
+    @Label("Detector Class")
+    @Description("The analysis of one class by one fb-contrib detector")
+    @Category("fb-contrib")
+    @StackTrace(false)
+    @Threshold("1 ms")
+    static class ClassEvent extends DetectorEvent {
+
+        @Label("Class")
+        String className;
+
+        @Label("Bytecode Length")
+        @DataAmount
+        int bytecodeLength;
+    }
+
+    /**
+     * a detector's work on a method
+     */
+    @Name("com.mebigfatguy.fbcontrib.DetectorMethod")
+    @Label("Detector Method")
+    @Description("The analysis of one method by one fb-contrib detector")
+    @Category("fb-contrib")
+    @StackTrace(false)
+    @Threshold("1 ms")
+    static class MethodEvent extends DetectorEvent {
+
+        @Label("Class")
+        String className;
+
+        @Label("Method")
+        String method;
+
+        @Label("Bytecode Length")
+        @DataAmount
+        int bytecodeLength;
+    }
+
+    /**
+     * a cross class detector's report
+     */
+    @Name("com.mebigfatguy.fbcontrib.DetectorReport")
+    @Label("Detector Report")
+    @Description("The report of an fb-contrib detector that looks across classes")
+    @Category("fb-contrib")
+    @StackTrace(false)
+    static class ReportEvent extends DetectorEvent {
+        // only the common fields
+    }
+
+    /**
+     * the class whose bytecode length was last computed on this thread
+     */
+    private static final class LastClass {
+        JavaClass cls;
+        int bytecodeLength;
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+}
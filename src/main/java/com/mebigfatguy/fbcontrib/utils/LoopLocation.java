@@ -0,0 +1,70 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import java.util.BitSet;
+
+/**
+ * holds the start and end position of a loop, from the target of a backward branch to the branch itself
+ */
+public final class LoopLocation {
+    private final int startPC;
+    private final int endPC;
+
+    public LoopLocation(int start, int end) {
+        startPC = start;
+        endPC = end;
+    }
+
+    public int getStartPC() {
+        return startPC;
+    }
+
+    public int getEndPC() {
+        return endPC;
+    }
+
+    public int getLength() {
+        return endPC - startPC;
+    }
+
+    public boolean isInLoop(int pc) {
+        return (pc >= startPC) && (pc <= endPC);
+    }
+
+    /**
+     * returns whether any of a set of positions is in the loop
+     *
+     * @param pcs
+     *            the positions, or null if there are none
+     * @return whether one of the positions is in the loop
+     */
+    public boolean isAnyInLoop(BitSet pcs) {
+        if (pcs == null) {
+            return false;
+        }
+        int pc = pcs.nextSetBit(startPC);
+        return (pc >= 0) && (pc <= endPC);
+    }
+
+    @Override
+    public String toString() {
+        return ToString.build(this);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import edu.umd.cs.findbugs.visitclass.DismantleBytecode;
+
+/**
+ * collects the loops of a method as it is scanned, for detectors that report differently on code that runs repeatedly. A loop is found at any backward
+ * branch, so do/while loops, and loops compilers test at the bottom, are found along with the ones that end in a goto.
+ */
+public final class Loops implements Iterable<LoopLocation> {
+
+    private final List<LoopLocation> loops = new ArrayList<>();
+
+    /**
+     * forgets the loops of the previous method
+     */
+    public void clear() {
+        loops.clear();
+    }
+
+    public boolean isEmpty() {
+        return loops.isEmpty();
+    }
+
+    /**
+     * records the loop closed by the current instruction, if it is a branch back to the top of a loop
+     *
+     * @param dbc
+     *            the visitor of the code
+     * @param seen
+     *            the opcode of the currently parsed instruction
+     * @return the loop, or null if the instruction doesn't close a loop
+     */
+    public LoopLocation sawOpcode(DismantleBytecode dbc, int seen) {
+        if (OpcodeUtils.isBranch(seen)) {
+            int branchTarget = dbc.getBranchTarget();
+            int pc = dbc.getPC();
+            if (branchTarget < pc) {
+                LoopLocation loop = new LoopLocation(branchTarget, pc);
+                loops.add(loop);
+                return loop;
+            }
+        }
+        return null;
+    }
+
+    public boolean isInLoop(int pc) {
+        for (LoopLocation loop : loops) {
+            if (loop.isInLoop(pc)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * returns the innermost loop that holds a position, as the shortest one
+     *
+     * @param pc
+     *            the position to look for
+     * @return the innermost loop, or null if the position is not in a loop
+     */
+    public LoopLocation getInnermostLoop(int pc) {
+        LoopLocation innermost = null;
+        for (LoopLocation loop : loops) {
+            if (loop.isInLoop(pc) && ((innermost == null) || (loop.getLength() < innermost.getLength()))) {
+                innermost = loop;
+            }
+        }
+        return innermost;
+    }
+
+    /**
+     * returns the loops ordered from the shortest to the longest, so that inner loops come before the loops that hold them
+     *
+     * @return a new list of the loops, innermost first
+     */
+    public List<LoopLocation> getInnerFirst() {
+        List<LoopLocation> innerFirst = new ArrayList<>(loops);
+        Collections.sort(innerFirst, new Comparator<LoopLocation>() {
+            @Override
+            public int compare(LoopLocation l1, LoopLocation l2) {
+                return Integer.compare(l1.getLength(), l2.getLength());
+            }
+        });
+        return innerFirst;
+    }
+
+    @Override
+    public Iterator<LoopLocation> iterator() {
+        return loops.iterator();
+    }
+
+    @Override
+    public String toString() {
+        return ToString.build(this);
+    }
+}
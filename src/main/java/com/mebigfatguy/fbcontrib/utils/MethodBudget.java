@@ -0,0 +1,174 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.bcel.classfile.Method;
+
+import edu.umd.cs.findbugs.Detector;
+
+/**
+ * a per method limit on how much work a detector may do, so that one pathological method, such as a generated parser or a huge switch based state machine,
+ * can't stall the whole analysis. Work is counted in instructions, which detectors charge as they visit them; when a method goes over its budget,
+ * {@link #charge()} throws a {@link StopOpcodeParsingException} so the detector can abandon the method as it would for any other reason, and the method is
+ * logged and added to the detector's skip summary.
+ * <p>
+ * Both budgets are off by default, so no method is abandoned unless one is set. The instruction budget (fb-contrib.budget.instructions) is deterministic,
+ * and so is what CI runs should rely on. The wall time budget (fb-contrib.budget.millis) is only a watchdog, and is only checked every
+ * {@value #CLOCK_INTERVAL} instructions, so that smaller methods are never abandoned because of a slow or busy machine. Either can be set for one detector by suffixing the property with the
+ * detector's simple class name, as in fb-contrib.budget.instructions.BloatedAssignmentScope. A budget of 0 is unlimited.
+ */
+public final class MethodBudget {
+
+    public static final String INSTRUCTIONS_PROPERTY = "fb-contrib.budget.instructions";
+    public static final String MILLIS_PROPERTY = "fb-contrib.budget.millis";
+    public static final long DEFAULT_INSTRUCTIONS = 0L;
+
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private final String detectorName;
+    private final long maxInstructions;
+    private final long maxNanos;
+    private final List<String> skippedMethods = new ArrayList<>();
+    private int timedOutCount;
+
+    private String className;
+    private Method method;
+    private long instructions;
+    private long deadline;
+    private boolean exceeded;
+
+    /**
+     * creates the budget for a detector, from the budget properties
+     *
+     * @param detector
+     *            the detector whose methods are limited
+     */
+    public MethodBudget(Detector detector) {
+        this(detector.getClass().getSimpleName(), getLimit(INSTRUCTIONS_PROPERTY, detector, DEFAULT_INSTRUCTIONS), getLimit(MILLIS_PROPERTY, detector, 0L));
+    }
+
+    MethodBudget(String detectorName, long maxInstructions, long maxMillis) {
+        this.detectorName = detectorName;
+        this.maxInstructions = maxInstructions;
+        maxNanos = maxMillis * 1000000L;
+    }
+
+    /**
+     * resets the budget for the next method to be visited
+     *
+     * @param clsName
+     *            the name of the class that holds the method
+     * @param m
+     *            the method that is about to be visited
+     */
+    public void start(String clsName, Method m) {
+        className = clsName;
+        method = m;
+        instructions = 0;
+        exceeded = false;
+        if (maxNanos > 0) {
+            deadline = System.nanoTime() + maxNanos;
+        }
+    }
+
+    /**
+     * charges one instruction to the current method
+     *
+     * @throws StopOpcodeParsingException
+     *             if the method is now over budget
+     */
+    public void charge() {
+        charge(1);
+    }
+
+    /**
+     * charges some instructions to the current method
+     *
+     * @param count
+     *            the number of instructions processed
+     * @throws StopOpcodeParsingException
+     *             if the method is now over budget
+     */
+    public void charge(int count) {
+        long before = instructions;
+        instructions += count;
+        if ((maxInstructions > 0) && (instructions > maxInstructions)) {
+            skip(false);
+        }
+        if ((maxNanos > 0) && ((before / CLOCK_INTERVAL) != (instructions / CLOCK_INTERVAL)) && ((System.nanoTime() - deadline) > 0)) {
+            skip(true);
+        }
+    }
+
+    /**
+     * returns whether the current method was abandoned for going over its budget, so that detectors can tell this apart from their own reasons for throwing
+     * {@link StopOpcodeParsingException}
+     *
+     * @return whether the current method went over budget
+     */
+    public boolean isExceeded() {
+        return exceeded;
+    }
+
+    /**
+     * returns the methods abandoned since the last summary, in the order they were abandoned
+     *
+     * @return the descriptions of the abandoned methods
+     */
+    public List<String> getSkippedMethods() {
+        return skippedMethods;
+    }
+
+    /**
+     * logs how many methods were abandoned for going over budget, if any, and starts a new summary
+     */
+    public void report() {
+        if (!skippedMethods.isEmpty()) {
+            System.err.println("fb-contrib: " + detectorName + " skipped " + skippedMethods.size() + " method(s) over budget (" + timedOutCount
+                    + " on time): " + skippedMethods);
+            skippedMethods.clear();
+            timedOutCount = 0;
+        }
+    }
+
+    private void skip(boolean timedOut) {
+        exceeded = true;
+        String methodDesc = className + '.' + method.getName() + method.getSignature();
+        skippedMethods.add(methodDesc);
+        if (timedOut) {
+            timedOutCount++;
+            System.err.println("fb-contrib: " + detectorName + " abandoned " + methodDesc + " after " + (maxNanos / 1000000L) + "ms (" + instructions
+                    + " instructions)");
+        } else {
+            System.err.println("fb-contrib: " + detectorName + " abandoned " + methodDesc + " after " + maxInstructions + " instructions");
+        }
+        throw new StopOpcodeParsingException();
+    }
+
+    private static long getLimit(String property, Detector detector, long defaultLimit) {
+        Long limit = Long.getLong(property + '.' + detector.getClass().getSimpleName());
+        if (limit == null) {
+            limit = Long.getLong(property);
+        }
+        return (limit == null) ? defaultLimit : Math.max(0L, limit.longValue());
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantCP;
+import org.apache.bcel.classfile.ConstantNameAndType;
+import org.apache.bcel.classfile.ConstantPool;
+
+import edu.umd.cs.findbugs.internalAnnotations.SlashedClassName;
+import edu.umd.cs.findbugs.visitclass.DismantleBytecode;
+
+/**
+ * interns the methods that detectors look for as small int ids, and resolves the method reference of an invoke instruction to such an id through a cache of the
+ * constant pool of the class being analyzed. Each Methodref or InterfaceMethodref entry is resolved once per class, so that matching an invoke against a set of
+ * known methods is a BitSet lookup, without building strings or FQMethods for every call.
+ * <p>
+ * Only registered methods get ids, all other references resolve to {@link #NONE}. Two kinds of ids are handed out from the same range: method ids, for class,
+ * name and signature, and member ids, for class and name regardless of signature. The FQMethod of any invoked method is available too, resolved through the
+ * same cache, for collectors that intern methods themselves.
+ */
+public final class MethodRefIds {
+
+    public static final int NONE = -1;
+
+    private static final int UNRESOLVED = 0;
+    private static final int ID_OFFSET = 2;
+
+    private static final Map<FQMethod, Integer> methodIds = new HashMap<>();
+    private static final Map<String, Integer> memberIds = new HashMap<>();
+    private static final List<FQMethod> methods = new ArrayList<>();
+    private static volatile int generation;
+
+    private static final ThreadLocal<PoolIds> poolIds = new ThreadLocal<PoolIds>() {
+        @Override
+        protected PoolIds initialValue() {
+            return new PoolIds();
+        }
+    };
+
+    private MethodRefIds() {
+    }
+
+    /**
+     * registers a method to look for, and returns its id
+     *
+     * @param method
+     *            the fully qualified method
+     * @return the id of the method
+     */
+    public static synchronized int register(FQMethod method) {
+        Integer id = methodIds.get(method);
+        if (id == null) {
+            id = Integer.valueOf(methods.size());
+            methods.add(method);
+            methodIds.put(method, id);
+            generation++;
+        }
+        return id.intValue();
+    }
+
+    /**
+     * registers a class member name to look for, regardless of signature, and returns its id
+     *
+     * @param className
+     *            the slashed name of the class
+     * @param methodName
+     *            the name of the method
+     * @return the id of the member
+     */
+    public static synchronized int registerMember(@SlashedClassName String className, String methodName) {
+        String key = className + '.' + methodName;
+        Integer id = memberIds.get(key);
+        if (id == null) {
+            id = Integer.valueOf(methods.size());
+            methods.add(new FQMethod(className, methodName, ""));
+            memberIds.put(key, id);
+            generation++;
+        }
+        return id.intValue();
+    }
+
+    /**
+     * registers a group of methods, and returns their ids as a bitset
+     *
+     * @param fqMethods
+     *            the methods to register
+     * @return the set of ids of these methods
+     */
+    public static BitSet registerAll(Iterable<FQMethod> fqMethods) {
+        BitSet ids = new BitSet();
+        for (FQMethod method : fqMethods) {
+            ids.set(register(method));
+        }
+        return ids;
+    }
+
+    /**
+     * returns the method registered with an id
+     *
+     * @param id
+     *            a method or member id
+     * @return the registered method; for member ids the signature is empty
+     */
+    public static synchronized FQMethod getMethod(int id) {
+        return methods.get(id);
+    }
+
+    /**
+     * returns the registered method id of the method invoked by the current instruction
+     *
+     * @param dbc
+     *            the visitor positioned on an instruction
+     * @return the method id, or NONE if the instruction isn't a method invoke, or the method isn't registered
+     */
+    public static int getMethodId(DismantleBytecode dbc) {
+        int cpIndex = getInvokeIndex(dbc);
+        return (cpIndex < 0) ? NONE : poolIds.get().getIds(dbc.getConstantPool(), cpIndex)[0];
+    }
+
+    /**
+     * returns the registered member id of the method invoked by the current instruction
+     *
+     * @param dbc
+     *            the visitor positioned on an instruction
+     * @return the member id, or NONE if the instruction isn't a method invoke, or the class member isn't registered
+     */
+    public static int getMemberId(DismantleBytecode dbc) {
+        int cpIndex = getInvokeIndex(dbc);
+        return (cpIndex < 0) ? NONE : poolIds.get().getIds(dbc.getConstantPool(), cpIndex)[1];
+    }
+
+    /**
+     * returns the method invoked by the current instruction, whether it is registered or not. The same FQMethod is returned for each invoke of a constant pool
+     * entry, for as long as the class is being analyzed.
+     *
+     * @param dbc
+     *            the visitor positioned on an instruction
+     * @return the invoked method, or null if the instruction isn't a method invoke
+     */
+    public static FQMethod getInvokedMethod(DismantleBytecode dbc) {
+        int cpIndex = getInvokeIndex(dbc);
+        return (cpIndex < 0) ? null : poolIds.get().getMethod(dbc.getConstantPool(), cpIndex);
+    }
+
+    /**
+     * returns whether the method invoked by the current instruction is one of a set of registered methods
+     *
+     * @param dbc
+     *            the visitor positioned on an instruction
+     * @param methodIds
+     *            the ids of the methods to look for
+     * @return whether the invoked method is in the set
+     */
+    public static boolean isMethodIn(DismantleBytecode dbc, BitSet methodIds) {
+        int id = getMethodId(dbc);
+        return (id != NONE) && methodIds.get(id);
+    }
+
+    /**
+     * returns whether the class member invoked by the current instruction is one of a set of registered members
+     *
+     * @param dbc
+     *            the visitor positioned on an instruction
+     * @param memberIds
+     *            the ids of the members to look for
+     * @return whether the invoked member is in the set
+     */
+    public static boolean isMemberIn(DismantleBytecode dbc, BitSet memberIds) {
+        int id = getMemberId(dbc);
+        return (id != NONE) && memberIds.get(id);
+    }
+
+    private static int getInvokeIndex(DismantleBytecode dbc) {
+        switch (dbc.getOpcode()) {
+            case Const.INVOKEVIRTUAL:
+            case Const.INVOKESPECIAL:
+            case Const.INVOKESTATIC:
+            case Const.INVOKEINTERFACE:
+                Code code = dbc.getCode();
+                return CodeByteUtils.getshort(code.getCode(), dbc.getPC() + 1) & 0xFFFF;
+
+            default:
+                return -1;
+        }
+    }
+
+    private static FQMethod resolve(ConstantPool pool, int cpIndex) {
+        Constant c = pool.getConstant(cpIndex);
+        if (!(c instanceof ConstantCP)) {
+            return null;
+        }
+
+        ConstantCP ref = (ConstantCP) c;
+        ConstantNameAndType nameAndType = (ConstantNameAndType) pool.getConstant(ref.getNameAndTypeIndex());
+        return new FQMethod(pool.getConstantString(ref.getClassIndex(), Const.CONSTANT_Class), nameAndType.getName(pool), nameAndType.getSignature(pool));
+    }
+
+    private static synchronized int[] lookUp(FQMethod method) {
+        if (method == null) {
+            return new int[] { NONE, NONE };
+        }
+
+        Integer methodId = methodIds.get(method);
+        Integer memberId = memberIds.get(method.getClassName() + '.' + method.getMethodName());
+        return new int[] { (methodId == null) ? NONE : methodId.intValue(), (memberId == null) ? NONE : memberId.intValue() };
+    }
+
+    /**
+     * the resolved methods and ids of the constant pool of the class being analyzed, dropped as soon as another constant pool is used, or methods are
+     * registered
+     */
+    private static final class PoolIds {
+        private ConstantPool pool;
+        private int poolGeneration;
+        private FQMethod[] methodsByIndex;
+        private int[] methodIdsByIndex;
+        private int[] memberIdsByIndex;
+        private final int[] ids = new int[2];
+
+        int[] getIds(ConstantPool constantPool, int cpIndex) {
+            resolveEntry(constantPool, cpIndex);
+            ids[0] = methodIdsByIndex[cpIndex] - ID_OFFSET;
+            ids[1] = memberIdsByIndex[cpIndex] - ID_OFFSET;
+            return ids;
+        }
+
+        FQMethod getMethod(ConstantPool constantPool, int cpIndex) {
+            resolveEntry(constantPool, cpIndex);
+            return methodsByIndex[cpIndex];
+        }
+
+        private void resolveEntry(ConstantPool constantPool, int cpIndex) {
+            if ((constantPool != pool) || (poolGeneration != generation)) {
+                pool = constantPool;
+                poolGeneration = generation;
+                int length = constantPool.getLength();
+                if ((methodIdsByIndex == null) || (methodIdsByIndex.length < length)) {
+                    methodsByIndex = new FQMethod[length];
+                    methodIdsByIndex = new int[length];
+                    memberIdsByIndex = new int[length];
+                } else {
+                    Arrays.fill(methodsByIndex, null);
+                    Arrays.fill(methodIdsByIndex, UNRESOLVED);
+                    Arrays.fill(memberIdsByIndex, UNRESOLVED);
+                }
+            }
+
+            if (methodIdsByIndex[cpIndex] == UNRESOLVED) {
+                FQMethod method = resolve(constantPool, cpIndex);
+                int[] resolved = lookUp(method);
+                methodsByIndex[cpIndex] = method;
+                methodIdsByIndex[cpIndex] = resolved[0] + ID_OFFSET;
+                memberIdsByIndex[cpIndex] = resolved[1] + ID_OFFSET;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return ToString.build(this);
+        }
+    }
+}
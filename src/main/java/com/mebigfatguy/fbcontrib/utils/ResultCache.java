@@ -0,0 +1,543 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.bcel.classfile.Constant;
+import org.apache.bcel.classfile.ConstantClass;
+import org.apache.bcel.classfile.ConstantNameAndType;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.Field;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+
+import edu.umd.cs.findbugs.BugAnnotation;
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.BugProperty;
+import edu.umd.cs.findbugs.BugReporter;
+import edu.umd.cs.findbugs.DelegatingBugReporter;
+import edu.umd.cs.findbugs.Detector;
+import edu.umd.cs.findbugs.Plugin;
+import edu.umd.cs.findbugs.Version;
+import edu.umd.cs.findbugs.ba.AnalysisContext;
+import edu.umd.cs.findbugs.ba.ClassContext;
+import edu.umd.cs.findbugs.ba.XClass;
+import edu.umd.cs.findbugs.classfile.CheckedAnalysisException;
+import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+import edu.umd.cs.findbugs.classfile.DescriptorFactory;
+import edu.umd.cs.findbugs.classfile.Global;
+import edu.umd.cs.findbugs.classfile.IAnalysisCache;
+import edu.umd.cs.findbugs.classfile.analysis.ClassData;
+
+/**
+ * a disk cache of the bugs that per-class detectors report, so that unchanged classes are not analyzed again on later runs. It is enabled by setting the
+ * fb-contrib.resultcache system property to a directory. Results are keyed by a digest of the class file bytes, the class files of the application classes
+ * it refers to and of their application super types, the code of the plugin, the SpotBugs and fb-contrib versions and the configuration properties the
+ * detector names, so any of those changing is a miss.
+ * <p>
+ * Only detectors whose reports depend on nothing but the class being visited, the classes it names, and library types that don't change between runs may
+ * use the cache; detectors that keep state from one class to the next, or report in {@code report()}, must not. A detector opts in by wrapping its reporter in the constructor, and
+ * bracketing its class visit:
+ *
+ * <pre>
+ * this.bugReporter = ResultCache.wrap(this, bugReporter);
+ * ...
+ * if (ResultCache.replay(bugReporter, classContext)) {
+ *     return;
+ * }
+ * ... analyze the class ...
+ * ResultCache.store(bugReporter);
+ * </pre>
+ *
+ * If the analysis throws, store is never reached, and the partial results are discarded on the next replay. As cache entries are deserialized, the cache
+ * directory must not be writable by untrusted users.
+ */
+public final class ResultCache {
+
+    public static final String RESULT_CACHE_PROPERTY = "fb-contrib.resultcache";
+
+    private static final String PLUGIN_ID = "com.mebigfatguy.fbcontrib";
+    private static final int FORMAT_VERSION = 1;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final Map<String, byte[]> codeDigests = new ConcurrentHashMap<>();
+
+    private ResultCache() {
+    }
+
+    /**
+     * wraps a detector's reporter so that its per-class results can be cached, if the cache is enabled
+     *
+     * @param detector
+     *            the detector that reports to the reporter
+     * @param bugReporter
+     *            the reporter passed to the detector's constructor
+     * @param configProperties
+     *            the system properties that change what the detector reports
+     * @return a caching reporter, or the original reporter if the cache is disabled
+     */
+    public static BugReporter wrap(Detector detector, BugReporter bugReporter, String... configProperties) {
+        String dir = System.getProperty(RESULT_CACHE_PROPERTY);
+        if ((dir == null) || dir.isEmpty()) {
+            return bugReporter;
+        }
+
+        return new CachingBugReporter(bugReporter, new File(dir, detector.getClass().getSimpleName()), keyPrefix(detector, configProperties));
+    }
+
+    /**
+     * starts the analysis of a class, replaying the cached results for it if there are any
+     *
+     * @param bugReporter
+     *            the (possibly) wrapped reporter of the detector
+     * @param classContext
+     *            the class about to be analyzed
+     * @return whether the results were replayed, and the class should not be analyzed
+     */
+    public static boolean replay(BugReporter bugReporter, ClassContext classContext) {
+        if (bugReporter instanceof CachingBugReporter) {
+            return ((CachingBugReporter) bugReporter).replay(classContext);
+        }
+        return false;
+    }
+
+    /**
+     * saves the results recorded since the last replay, once the class has been analyzed successfully
+     *
+     * @param bugReporter
+     *            the (possibly) wrapped reporter of the detector
+     */
+    public static void store(BugReporter bugReporter) {
+        if (bugReporter instanceof CachingBugReporter) {
+            ((CachingBugReporter) bugReporter).store();
+        }
+    }
+
+    /**
+     * writes a list of bugs in the cache entry format
+     *
+     * @param os
+     *            the stream to write to
+     * @param bugs
+     *            the bugs to write
+     * @throws IOException
+     *             if the stream can't be written
+     */
+    static void write(OutputStream os, List<BugInstance> bugs) throws IOException {
+        ObjectOutputStream oos = new ObjectOutputStream(os);
+        oos.writeInt(FORMAT_VERSION);
+        oos.writeInt(bugs.size());
+        for (BugInstance bug : bugs) {
+            oos.writeUTF(bug.getType());
+            oos.writeInt(bug.getPriority());
+            oos.writeUTF((bug.getDetectorFactory() == null) ? "" : bug.getDetectorFactory().getFullName());
+
+            List<? extends BugAnnotation> annotations = bug.getAnnotations();
+            oos.writeInt(annotations.size());
+            for (BugAnnotation annotation : annotations) {
+                oos.writeObject(annotation);
+            }
+
+            List<BugProperty> properties = new ArrayList<>();
+            Iterator<BugProperty> it = bug.propertyIterator();
+            while (it.hasNext()) {
+                properties.add(it.next());
+            }
+            oos.writeInt(properties.size());
+            for (BugProperty property : properties) {
+                oos.writeUTF(property.getName());
+                oos.writeUTF(property.getValue());
+            }
+        }
+        oos.flush();
+    }
+
+    /**
+     * reads a list of bugs in the cache entry format
+     *
+     * @param is
+     *            the stream to read from
+     * @return the bugs read
+     * @throws IOException
+     *             if the stream can't be read, or isn't a cache entry
+     */
+    static List<BugInstance> read(InputStream is) throws IOException {
+        ObjectInputStream ois = new AnnotationInputStream(is);
+        if (ois.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unknown result cache format");
+        }
+
+        int count = ois.readInt();
+        List<BugInstance> bugs = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                String type = ois.readUTF();
+                int priority = ois.readInt();
+                String detectorName = ois.readUTF();
+
+                BugInstance bug = new BugInstance(type, priority);
+                if (!detectorName.isEmpty()) {
+                    bug.adjustForDetector(detectorName);
+                    bug.setPriority(priority);
+                }
+
+                int annotationCount = ois.readInt();
+                for (int a = 0; a < annotationCount; a++) {
+                    bug.add((BugAnnotation) ois.readObject());
+                }
+
+                int propertyCount = ois.readInt();
+                for (int p = 0; p < propertyCount; p++) {
+                    bug.setProperty(ois.readUTF(), ois.readUTF());
+                }
+                bugs.add(bug);
+            }
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Invalid result cache entry", e);
+        }
+        return bugs;
+    }
+
+    private static byte[] keyPrefix(Detector detector, String... configProperties) {
+        MessageDigest md = newDigest();
+        updateString(md, Version.VERSION_STRING);
+        Plugin plugin = Plugin.getByPluginId(PLUGIN_ID);
+        updateString(md, (plugin == null) ? "" : plugin.getVersion());
+        updateString(md, detector.getClass().getName());
+        md.update(getCodeDigest(detector.getClass()));
+        for (String property : configProperties) {
+            updateString(md, property);
+            updateString(md, String.valueOf(System.getProperty(property)));
+        }
+        return md.digest();
+    }
+
+    /**
+     * returns a digest of the jar, or class directory, the detector was loaded from, so that a change to the detector, or to any helper it uses, is a miss
+     *
+     * @param detectorClass
+     *            the class of the detector
+     * @return the digest of the code of the plugin
+     */
+    private static byte[] getCodeDigest(Class<?> detectorClass) {
+        CodeSource source = detectorClass.getProtectionDomain().getCodeSource();
+        URL location = (source == null) ? null : source.getLocation();
+        String key = (location == null) ? detectorClass.getName() : location.toString();
+        byte[] digest = codeDigests.get(key);
+        if (digest == null) {
+            MessageDigest md = newDigest();
+            try {
+                if (location == null) {
+                    try (InputStream is = detectorClass.getResourceAsStream(detectorClass.getSimpleName() + ".class")) {
+                        updateStream(md, is);
+                    }
+                } else {
+                    Path root = new File(location.toURI()).toPath();
+                    if (Files.isDirectory(root)) {
+                        List<Path> files;
+                        try (Stream<Path> paths = Files.walk(root)) {
+                            files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                        }
+                        for (Path file : files) {
+                            updateString(md, root.relativize(file).toString());
+                            try (InputStream is = Files.newInputStream(file)) {
+                                updateStream(md, is);
+                            }
+                        }
+                    } else {
+                        try (InputStream is = Files.newInputStream(root)) {
+                            updateStream(md, is);
+                        }
+                    }
+                }
+            } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+                // unreadable code still yields a usable key, that at least holds the versions
+            }
+            digest = md.digest();
+            codeDigests.put(key, digest);
+        }
+        return digest;
+    }
+
+    /**
+     * adds to a key the class files of the application classes a class names, and of their application super types, as detectors look these up to decide
+     * what to report
+     *
+     * @param md
+     *            the digest of the key
+     * @param cls
+     *            the class being analyzed
+     */
+    private static void updateReferencedClasses(MessageDigest md, JavaClass cls) {
+        AnalysisContext context = AnalysisContext.currentAnalysisContext();
+        IAnalysisCache cache = Global.getAnalysisCache();
+        Map<String, byte[]> referenced = new TreeMap<>();
+        Deque<String> pending = new ArrayDeque<>(referencedClasses(cls));
+        while (!pending.isEmpty()) {
+            String name = pending.pop();
+            if (referenced.containsKey(name)) {
+                continue;
+            }
+            ClassDescriptor desc = DescriptorFactory.createClassDescriptor(name);
+            if ((context == null) || !context.isApplicationClass(desc)) {
+                continue;
+            }
+
+            try {
+                referenced.put(name, cache.getClassAnalysis(ClassData.class, desc).getData());
+                XClass xcls = cache.getClassAnalysis(XClass.class, desc);
+                if (xcls.getSuperclassDescriptor() != null) {
+                    pending.push(xcls.getSuperclassDescriptor().getClassName());
+                }
+                for (ClassDescriptor infDesc : xcls.getInterfaceDescriptorList()) {
+                    pending.push(infDesc.getClassName());
+                }
+            } catch (CheckedAnalysisException e) {
+                // a class that can't be found is keyed as missing, so that it showing up later is a miss
+                referenced.put(name, new byte[0]);
+            }
+        }
+
+        for (Map.Entry<String, byte[]> entry : referenced.entrySet()) {
+            updateString(md, entry.getKey());
+            md.update(entry.getValue());
+        }
+    }
+
+    /**
+     * returns the slashed names of the classes a class names in its constant pool, and in the signatures of its fields and methods
+     *
+     * @param cls
+     *            the class to look at
+     * @return the sorted names of the classes it refers to
+     */
+    static Set<String> referencedClasses(JavaClass cls) {
+        Set<String> names = new TreeSet<>();
+        ConstantPool pool = cls.getConstantPool();
+        for (Constant c : pool.getConstantPool()) {
+            if (c instanceof ConstantClass) {
+                addClassNames(names, ((ConstantClass) c).getBytes(pool));
+            } else if (c instanceof ConstantNameAndType) {
+                addClassNames(names, ((ConstantNameAndType) c).getSignature(pool));
+            }
+        }
+        for (Field f : cls.getFields()) {
+            addClassNames(names, f.getSignature());
+        }
+        for (Method m : cls.getMethods()) {
+            addClassNames(names, m.getSignature());
+        }
+        return names;
+    }
+
+    private static void addClassNames(Set<String> names, String nameOrSignature) {
+        if (nameOrSignature.indexOf(';') < 0) {
+            if (!nameOrSignature.startsWith("[") && !nameOrSignature.startsWith("(")) {
+                names.add(nameOrSignature);
+            }
+            return;
+        }
+
+        int start = nameOrSignature.indexOf('L');
+        while (start >= 0) {
+            int end = nameOrSignature.indexOf(';', start);
+            if (end < 0) {
+                break;
+            }
+            names.add(nameOrSignature.substring(start + 1, end));
+            start = nameOrSignature.indexOf('L', end);
+        }
+    }
+
+    private static void updateStream(MessageDigest md, InputStream is) throws IOException {
+        if (is == null) {
+            return;
+        }
+        byte[] buffer = new byte[8192];
+        int len = is.read(buffer);
+        while (len >= 0) {
+            md.update(buffer, 0, len);
+            len = is.read(buffer);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void updateString(MessageDigest md, String s) {
+        md.update(s.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0x0F];
+            hex[(2 * i) + 1] = HEX_DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * a reporter that records the bugs reported while a class is analyzed, and writes them to the cache when the analysis completes
+     */
+    static final class CachingBugReporter extends DelegatingBugReporter {
+
+        private final File cacheDir;
+        private final byte[] keyPrefix;
+        private File entry;
+        private List<BugInstance> recorded;
+
+        CachingBugReporter(BugReporter delegate, File cacheDir, byte[] keyPrefix) {
+            super(delegate);
+            this.cacheDir = cacheDir;
+            this.keyPrefix = keyPrefix;
+        }
+
+        @Override
+        public void reportBug(BugInstance bugInstance) {
+            if (recorded != null) {
+                recorded.add(bugInstance);
+            }
+            super.reportBug(bugInstance);
+        }
+
+        boolean replay(ClassContext classContext) {
+            entry = null;
+            recorded = null;
+
+            byte[] classBytes;
+            try {
+                classBytes = Global.getAnalysisCache().getClassAnalysis(ClassData.class, classContext.getClassDescriptor()).getData();
+            } catch (CheckedAnalysisException e) {
+                return false;
+            }
+
+            MessageDigest md = newDigest();
+            md.update(keyPrefix);
+            md.update(classBytes);
+            updateReferencedClasses(md, classContext.getJavaClass());
+            String key = toHex(md.digest());
+            File candidate = new File(new File(cacheDir, key.substring(0, 2)), key);
+
+            if (candidate.isFile()) {
+                try (InputStream is = new BufferedInputStream(new FileInputStream(candidate))) {
+                    for (BugInstance bug : read(is)) {
+                        super.reportBug(bug);
+                    }
+                    return true;
+                } catch (IOException e) {
+                    AnalysisContext.logError("Ignoring unreadable result cache entry " + candidate, e);
+                }
+            }
+
+            entry = candidate;
+            recorded = new ArrayList<>();
+            return false;
+        }
+
+        void store() {
+            if (entry == null) {
+                return;
+            }
+
+            try {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                write(baos, recorded);
+
+                File dir = entry.getParentFile();
+                if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+                    throw new IOException("Can't create result cache directory " + dir);
+                }
+                File temp = File.createTempFile(entry.getName(), ".tmp", dir);
+                try (OutputStream os = new BufferedOutputStream(new FileOutputStream(temp))) {
+                    baos.writeTo(os);
+                }
+                Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                AnalysisContext.logError("Failed writing result cache entry " + entry, e);
+            } finally {
+                entry = null;
+                recorded = null;
+            }
+        }
+    }
+
+    /**
+     * an object stream that only resolves the classes a cache entry may hold, namely SpotBugs' annotations, and the jdk types they are made of
+     */
+    static final class AnnotationInputStream extends ObjectInputStream {
+
+        AnnotationInputStream(InputStream is) throws IOException {
+            super(is);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            while (name.startsWith("[")) {
+                name = name.substring(1);
+            }
+            if ((name.length() == 1) || name.startsWith("Ledu.umd.cs.findbugs.") || name.startsWith("edu.umd.cs.findbugs.") || name.startsWith("java.lang.")
+                    || name.startsWith("Ljava.lang.")) {
+                return super.resolveClass(desc);
+            }
+            throw new InvalidClassException(desc.getName(), "not allowed in a result cache entry");
+        }
+    }
+}
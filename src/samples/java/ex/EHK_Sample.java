@@ -0,0 +1,115 @@
+package ex;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class EHK_Sample {
+
+    private final Map<URL, String> pageCache = new HashMap<>();
+    private final Set<LazyKey> lazyKeys = new HashSet<>();
+    private final Map<GridKey, Integer> cells = new HashMap<>();
+
+    public String getPage(URL u) {
+        return pageCache.get(u);
+    }
+
+    public void addLazy(LazyKey k) {
+        lazyKeys.add(k);
+    }
+
+    public void putCell(GridKey k, int v) {
+        cells.put(k, Integer.valueOf(v));
+    }
+
+    public int countPaths(List<List<String>> paths) {
+        Map<List<String>, Integer> pathCounts = new HashMap<>();
+        for (List<String> p : paths) {
+            pathCounts.merge(p, Integer.valueOf(1), Integer::sum);
+        }
+        return pathCounts.size();
+    }
+
+    public boolean hasTags(Map<TaggedKey, String> byTags, TaggedKey k) {
+        return byTags.containsKey(k);
+    }
+
+    public String fpStringKey(Map<String, String> m, String k) {
+        return m.get(k);
+    }
+
+    public boolean fpGoodKey(Set<GoodKey> s, GoodKey k) {
+        return s.contains(k);
+    }
+
+    public int fpSortedPaths(List<List<String>> paths, Comparator<List<String>> byLength) {
+        Map<List<String>, Integer> sorted = new TreeMap<>(byLength);
+        for (List<String> p : paths) {
+            sorted.put(p, Integer.valueOf(p.size()));
+        }
+        return sorted.size();
+    }
+
+    static class LazyKey {
+        private String name;
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof LazyKey) && Objects.equals(name, ((LazyKey) o).name);
+        }
+    }
+
+    static class GridKey {
+        private Object[][] cells;
+
+        @Override
+        public int hashCode() {
+            return Arrays.deepHashCode(cells);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof GridKey) && Arrays.deepEquals(cells, ((GridKey) o).cells);
+        }
+    }
+
+    static class TaggedKey {
+        private List<String> tags;
+
+        @Override
+        public int hashCode() {
+            return tags.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof TaggedKey) && tags.equals(((TaggedKey) o).tags);
+        }
+    }
+
+    static class GoodKey {
+        private int id;
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof GoodKey) && (id == ((GoodKey) o).id);
+        }
+    }
+}
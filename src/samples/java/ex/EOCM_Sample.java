@@ -0,0 +1,64 @@
+package ex;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+public class EOCM_Sample {
+
+    private static final Pattern CACHED = Pattern.compile("[a-z]+");
+    private static final String DATE_FORMAT = "yyyy-MM-dd";
+
+    private DocumentBuilderFactory dbf;
+
+    public EOCM_Sample() {
+        dbf = DocumentBuilderFactory.newInstance();
+    }
+
+    public boolean isWord(String s) {
+        return Pattern.compile("[a-z]+").matcher(s).matches();
+    }
+
+    public String format(LocalDate d) {
+        DateTimeFormatter fmt = DateTimeFormatter.ofPattern(DATE_FORMAT);
+        return d.format(fmt);
+    }
+
+    public List<String> formatAll(List<LocalDate> dates) {
+        List<String> formatted = new ArrayList<>(dates.size());
+        for (LocalDate d : dates) {
+            formatted.add(d.format(DateTimeFormatter.ofPattern("MM/dd/yyyy")));
+        }
+        return formatted;
+    }
+
+    public byte[] digest(byte[] data) throws NoSuchAlgorithmException {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        return md.digest(data);
+    }
+
+    public DocumentBuilderFactory getFactory() {
+        if (dbf == null) {
+            dbf = DocumentBuilderFactory.newInstance();
+        }
+        return dbf;
+    }
+
+    public boolean fpCached(String s) {
+        return CACHED.matcher(s).matches();
+    }
+
+    public boolean fpDynamicPattern(String regex, String s) {
+        return Pattern.compile(regex).matcher(s).matches();
+    }
+
+    public Pattern fpFactoryMethod() {
+        return Pattern.compile("[0-9]+");
+    }
+}
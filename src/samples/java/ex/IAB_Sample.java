@@ -0,0 +1,93 @@
+package ex;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class IAB_Sample {
+
+    private final Map<String, Integer> hits = new HashMap<>();
+
+    public void incrementAll(List<Integer> values) {
+        for (int i = 0; i < values.size(); i++) {
+            values.set(i, values.get(i) + 1);
+        }
+    }
+
+    public Long sum(List<Long> values) {
+        Long total = 0L;
+        for (Long v : values) {
+            total += v;
+        }
+        return total;
+    }
+
+    public Map<String, Integer> countWords(List<String> words) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String w : words) {
+            counts.put(w, counts.getOrDefault(w, 0) + 1);
+        }
+        return counts;
+    }
+
+    public void hit(String page) {
+        if (hits.containsKey(page)) {
+            hits.put(page, hits.get(page) + 1);
+        }
+    }
+
+    public void sortByAge(List<Person> people) {
+        people.sort(Comparator.comparing(Person::getAge));
+    }
+
+    public void sortByNameThenWeight(List<Person> people) {
+        people.sort(Comparator.comparing(Person::getName).thenComparing(Person::getWeight));
+    }
+
+    public void fpSortByName(List<Person> people) {
+        people.sort(Comparator.comparing(Person::getName));
+    }
+
+    public void fpSortByAgeInt(List<Person> people) {
+        people.sort(Comparator.comparingInt(Person::getAge));
+    }
+
+    public Map<String, Integer> fpMerge(List<String> words) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String w : words) {
+            counts.merge(w, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    public int fpPrimitiveSum(int[] values) {
+        int total = 0;
+        for (int v : values) {
+            total += v;
+        }
+        return total;
+    }
+
+    public void fpDifferentKey(Map<String, Integer> m, String a, String b) {
+        m.put(a, m.get(b) + 1);
+    }
+
+    static class Person {
+        private String name;
+        private int age;
+        private double weight;
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+    }
+}
@@ -1,4 +1,6 @@
 package ex;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -128,4 +130,57 @@ public class ISB_Sample {
         return 1 + s.toString();
     }
 
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    public String testUnsizedBuilderInCountedLoop(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < bytes.length; i++) {
+            sb.append(HEX[(bytes[i] >> 4) & 0x0F]).append(HEX[bytes[i] & 0x0F]).append(':');
+        }
+        return sb.toString();
+    }
+
+    public List<String> testUnsizedBuilderAllocatedInLoop(byte[][] rows) {
+        List<String> lines = new ArrayList<>();
+        for (byte[] row : rows) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < row.length; i++) {
+                sb.append(HEX[(row[i] >> 4) & 0x0F]).append(HEX[row[i] & 0x0F]);
+            }
+            lines.add(sb.toString());
+        }
+        return lines;
+    }
+
+    public List<String> fpUnsizedBuilderFilledOncePerIteration(int[] ids) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < ids.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append('#').append(ids[i]);
+            keys.add(sb.toString());
+        }
+        return keys;
+    }
+
+    public String fpUnsizedBuilderOfVariablePieces(String[] names) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            sb.append(',').append(names[i]);
+        }
+        return sb.toString();
+    }
+
+    public String fpConcatOutsideLoop(String a, String b) {
+        String s = a;
+        s += b;
+        return s;
+    }
+
+    public String fpSizedBuilderInCountedLoop(String[] names) {
+        StringBuilder sb = new StringBuilder(names.length * 16);
+        for (int i = 0; i < names.length; i++) {
+            sb.append(names[i]).append(',');
+        }
+        return sb.toString();
+    }
 }
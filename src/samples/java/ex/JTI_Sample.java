@@ -0,0 +1,97 @@
+package ex;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JTI_Sample {
+
+    public void insertAll(Connection c, List<String> names) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("insert into people (name) values (?)")) {
+            for (String name : names) {
+                ps.setString(1, name);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    public void deleteAll(Connection c, List<Integer> ids) throws SQLException {
+        for (Integer id : ids) {
+            try (PreparedStatement ps = c.prepareStatement("delete from people where id = ?")) {
+                ps.setInt(1, id.intValue());
+                ps.execute();
+            }
+        }
+    }
+
+    public void deleteFrom(Connection c, List<String> tables) throws SQLException {
+        for (String table : tables) {
+            try (PreparedStatement ps = c.prepareStatement("delete from " + table)) {
+                ps.execute();
+            }
+        }
+    }
+
+    public List<String> allNames(Connection c) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement("select name from people"); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    public List<String> allPeople(Statement s) throws SQLException {
+        List<String> people = new ArrayList<>();
+        s.setFetchSize(500);
+        try (ResultSet rs = s.executeQuery("select * from people")) {
+            while (rs.next()) {
+                people.add(rs.getString("FIRST") + rs.getString("LAST") + rs.getString("STREET") + rs.getString("CITY") + rs.getInt("AGE"));
+            }
+        }
+        return people;
+    }
+
+    public void fpInsertAllBatched(Connection c, List<String> names) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("insert into people (name) values (?)")) {
+            for (String name : names) {
+                ps.setString(1, name);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    public List<String> fpNamesWithFetchSize(Connection c) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement("select name from people")) {
+            ps.setFetchSize(1000);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+
+    public String fpSingleRow(Connection c, int id) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("select name from people where id = ?")) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString("NAME") : null;
+            }
+        }
+    }
+
+    public int fpUpdateOnce(Connection c) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("update people set age = age + 1")) {
+            return ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package ex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class LOIL_Sample {
+
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+
+    public List<String> dedupe(List<String> words) {
+        List<String> unique = new ArrayList<>();
+        for (String w : words) {
+            if (!unique.contains(w)) {
+                unique.add(w);
+            }
+        }
+        return unique;
+    }
+
+    public int countShared(String[] a, List<String> b) {
+        int shared = 0;
+        for (String s : a) {
+            if (b.indexOf(s) >= 0) {
+                shared++;
+            }
+        }
+        return shared;
+    }
+
+    public void removeAllOf(Collection<String> items, List<String> toRemove) {
+        for (String r : toRemove) {
+            items.remove(r);
+        }
+    }
+
+    public void removeBad(List<String> items, Collection<String> bad) {
+        for (String b : bad) {
+            items.remove(b);
+        }
+    }
+
+    public void drain(ArrayList<Runnable> tasks) {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    public void prependAll(List<String> list, String[] items) {
+        for (String item : items) {
+            list.add(0, item);
+        }
+    }
+
+    public int sumLengths(LinkedList<String> list) {
+        int total = 0;
+        for (int i = 0; i < list.size(); i++) {
+            total += list.get(i).length();
+        }
+        return total;
+    }
+
+    public int sumLengthsDeclaredAsList() {
+        List<String> list = new LinkedList<>();
+        list.add("a");
+        int total = 0;
+        for (int i = 0; i < list.size(); i++) {
+            total += list.get(i).length();
+        }
+        return total;
+    }
+
+    public void waitForWork() {
+        while (pending.size() > 0) {
+            System.out.println(pending.poll());
+        }
+    }
+
+    public List<String> split(String s) {
+        List<String> parts = new ArrayList<>();
+        int comma;
+        while ((comma = s.indexOf(',')) >= 0) {
+            parts.add(s.substring(0, comma));
+            s = s.substring(comma + 1);
+        }
+        parts.add(s);
+        return parts;
+    }
+
+    public String stripLeadingSlashes(String path) {
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        return path;
+    }
+
+    public List<String> fpDedupeWithSet(List<String> words) {
+        Set<String> seen = new HashSet<>();
+        List<String> unique = new ArrayList<>();
+        for (String w : words) {
+            if (seen.add(w)) {
+                unique.add(w);
+            }
+        }
+        return unique;
+    }
+
+    public boolean fpContainsOnce(List<String> words, String w) {
+        return words.contains(w);
+    }
+
+    public void fpDrainDeque(ArrayDeque<Runnable> tasks) {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    public void fpRemoveLast(List<String> list) {
+        while (list.size() > 10) {
+            list.remove(list.size() - 1);
+        }
+    }
+
+    public void fpDrainLinkedList(LinkedList<Runnable> tasks) {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    public String fpPopLinkedListTail(LinkedList<String> stack, int depth) {
+        String top = null;
+        while (stack.size() > depth) {
+            top = stack.get(stack.size() - 1);
+            stack.remove(stack.size() - 1);
+        }
+        return top;
+    }
+
+    public int fpSumArrayList(ArrayList<String> list) {
+        int total = 0;
+        for (int i = 0; i < list.size(); i++) {
+            total += list.get(i).length();
+        }
+        return total;
+    }
+
+    public void fpQueueIsEmpty() {
+        while (!pending.isEmpty()) {
+            System.out.println(pending.poll());
+        }
+    }
+
+    public List<String> fpTrimEach(List<String> lines) {
+        List<String> trimmed = new ArrayList<>();
+        for (String line : lines) {
+            line = line.substring(1);
+            trimmed.add(line);
+        }
+        return trimmed;
+    }
+
+    public List<String> fpSplitWithPosition(String s) {
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        int comma;
+        while ((comma = s.indexOf(',', start)) >= 0) {
+            parts.add(s.substring(start, comma));
+            start = comma + 1;
+        }
+        parts.add(s.substring(start));
+        return parts;
+    }
+}
@@ -0,0 +1,134 @@
+package ex;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+public class UBC_Sample {
+
+    private static final Map<String, Integer> LENGTHS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, String> NAMES = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> EVICTED = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> WEAK = Collections.synchronizedMap(new WeakHashMap<String, Integer>());
+    private static final Map<String, String> VIEW = CacheBuilder.newBuilder().maximumSize(100).<String, String> build().asMap();
+
+    private final Cache<String, String> unbounded = CacheBuilder.newBuilder().recordStats().build();
+    private final Cache<String, byte[]> weighed = CacheBuilder.newBuilder().weigher((String k, byte[] v) -> v.length).build();
+
+    public LoadingCache<String, Integer> lengths() {
+        return CacheBuilder.newBuilder().concurrencyLevel(4).build(new CacheLoader<String, Integer>() {
+            @Override
+            public Integer load(String key) {
+                return Integer.valueOf(key.length());
+            }
+        });
+    }
+
+    public int length(String s) {
+        return LENGTHS.computeIfAbsent(s, String::length).intValue();
+    }
+
+    public String name(Class<?> c) {
+        return NAMES.computeIfAbsent(c, Class::getName);
+    }
+
+    public int evicted(String s) {
+        return EVICTED.computeIfAbsent(s, String::length).intValue();
+    }
+
+    public void evict(String s) {
+        EVICTED.remove(s);
+    }
+
+    public int weak(String s) {
+        return WEAK.computeIfAbsent(s, String::length).intValue();
+    }
+
+    public String view(String s) {
+        return VIEW.computeIfAbsent(s, String::trim);
+    }
+
+    public Cache<String, String> fpBounded() {
+        return CacheBuilder.newBuilder().maximumSize(1000).build();
+    }
+
+    public Cache<String, String> fpExpiring() {
+        return CacheBuilder.newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).build();
+    }
+
+    public Cache<String, String> fpBoundedLater(boolean small) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+        if (small) {
+            builder.maximumSize(10);
+        } else {
+            builder.maximumSize(10000);
+        }
+        return builder.build();
+    }
+
+    public Cache<String, String> fpConfigured() {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+        configure(builder);
+        return builder.build();
+    }
+
+    private static void configure(CacheBuilder<Object, Object> builder) {
+        builder.softValues();
+    }
+
+    static class LruCache<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        LruCache() {
+            super(16, 0.75f, true);
+        }
+    }
+
+    static class ResultCache<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    static class FPBoundedLruCache<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+        private final int max;
+
+        FPBoundedLruCache(int max) {
+            super(16, 0.75f, true);
+            this.max = max;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > max;
+        }
+    }
+
+    static class FPOrderedProperties<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    static class FPTrimmingCache<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        FPTrimmingCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V old = super.put(key, value);
+            if (size() > 100) {
+                remove(keySet().iterator().next());
+            }
+            return old;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ex;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class UIO_Sample {
+
+    public int countBytes(File f) throws IOException {
+        try (FileInputStream fis = new FileInputStream(f)) {
+            int count = 0;
+            while (fis.read() >= 0) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    public void writeAll(File f, byte[] data) throws IOException {
+        try (FileOutputStream fos = new FileOutputStream(f)) {
+            for (byte b : data) {
+                fos.write(b);
+            }
+        }
+    }
+
+    public long sumInts(File f, int count) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(f))) {
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += dis.readInt();
+            }
+            return sum;
+        }
+    }
+
+    public void echo(Socket s) throws IOException {
+        InputStream is = s.getInputStream();
+        OutputStream os = s.getOutputStream();
+        int c;
+        while ((c = is.read()) >= 0) {
+            os.write(c);
+        }
+    }
+
+    public void copy(InputStream is, OutputStream os) throws IOException {
+        byte[] buffer = new byte[512];
+        int len;
+        while ((len = is.read(buffer)) >= 0) {
+            os.write(buffer, 0, len);
+        }
+    }
+
+    public byte[] fpSlurp(Path p) throws IOException {
+        return Files.readAllBytes(p);
+    }
+
+    public int fpBuffered(File f) throws IOException {
+        try (InputStream is = new BufferedInputStream(new FileInputStream(f))) {
+            int count = 0;
+            while (is.read() >= 0) {
+                count++;
+            }
+            return count;
+        }
+    }
+
+    public void fpBigBuffer(InputStream is, OutputStream os) throws IOException {
+        byte[] buffer = new byte[8192];
+        int len;
+        while ((len = is.read(buffer)) >= 0) {
+            os.write(buffer, 0, len);
+        }
+    }
+
+    public long fpChecksum(InputStream is) throws IOException {
+        byte[] buffer = new byte[512];
+        long sum = 0;
+        int len;
+        while ((len = is.read(buffer)) >= 0) {
+            for (int i = 0; i < len; i++) {
+                sum += buffer[i];
+            }
+        }
+        return sum;
+    }
+
+    public int fpSingleRead(File f) throws IOException {
+        try (FileInputStream fis = new FileInputStream(f)) {
+            return fis.read();
+        }
+    }
+}
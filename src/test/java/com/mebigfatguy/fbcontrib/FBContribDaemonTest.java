@@ -0,0 +1,57 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.annotations.Test;
+
+public class FBContribDaemonTest {
+
+    @Test
+    public void shouldAcceptAnalysisOptions() throws IOException {
+        File output = File.createTempFile("fbdaemon", ".xml");
+        try {
+            FBContribDaemon.checkOptions(new String[] { "-low", "-xml:withMessages", "-output", output.getPath(), "app.jar" });
+        } finally {
+            output.delete();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shouldRefuseHelp() {
+        FBContribDaemon.checkOptions(new String[] { "-low", "-help" });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shouldRefuseVersion() {
+        FBContribDaemon.checkOptions(new String[] { "-version" });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shouldRefuseReadingStandardInput() {
+        FBContribDaemon.checkOptions(new String[] { "-xargs" });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void shouldRefuseUnwritableOutput() {
+        FBContribDaemon.checkOptions(new String[] { "-output", new File("no-such-dir", "out.xml").getAbsolutePath(), "app.jar" });
+    }
+}
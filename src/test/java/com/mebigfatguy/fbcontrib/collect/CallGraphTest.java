@@ -0,0 +1,156 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.collect;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.mebigfatguy.fbcontrib.utils.FQMethod;
+
+public class CallGraphTest {
+
+    private Statistics statistics;
+    private CallGraph graph;
+
+    @BeforeMethod
+    public void setUp() {
+        statistics = Statistics.getStatistics();
+        statistics.clear();
+        graph = new CallGraph();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        statistics.clear();
+    }
+
+    private int collect(String cls, String name, boolean modifiesState, boolean cheap) {
+        MethodInfo mi = statistics.addMethodStatistics(cls, name, "()V", 1, 10, 0);
+        mi.setModifiesState(modifiesState);
+        mi.setCheap(cheap);
+        return graph.getMethodId(new FQMethod(cls, name, "()V"));
+    }
+
+    private int costing(String cls, String name, int cost, int flags) {
+        int id = collect(cls, name, false, false);
+        MethodInfo mi = info(cls, name);
+        mi.setCost(cost);
+        mi.setCostFlags(flags);
+        return id;
+    }
+
+    private int foreign(String cls, String name) {
+        return graph.getMethodId(new FQMethod(cls, name, "()V"));
+    }
+
+    private MethodInfo info(String cls, String name) {
+        return statistics.getMethodStatistics(cls, name, "()V");
+    }
+
+    @Test
+    public void shouldSpreadStateModificationAcrossClasses() {
+        int a = collect("p/A", "a", false, false);
+        int b = collect("p/B", "b", false, false);
+        int c = collect("p/C", "c", true, false);
+        int d = collect("p/D", "d", false, false);
+        int e = collect("p/E", "e", false, false);
+        int f = collect("p/F", "f", false, false);
+        int g = collect("p/G", "g", false, false);
+        // b and c are inherited by A and B, so they are called on this
+        graph.addCall(a, b, true, true, 1);
+        graph.addCall(b, c, true, true, 1);
+        graph.addCall(d, foreign("p/Base", "inherited"), true, true, 1);
+        graph.addCall(e, foreign("java/lang/Object", "toString"), false, true, 1);
+        graph.addCall(f, c, false, true, 1);
+        graph.addCall(g, foreign("java/lang/Math", "abs"), true, false, 1);
+
+        graph.propagate(statistics);
+
+        assertTrue(info("p/A", "a").getModifiesState());
+        assertTrue(info("p/B", "b").getModifiesState());
+        assertTrue(info("p/D", "d").getModifiesState());
+        assertFalse(info("p/E", "e").getModifiesState());
+        assertFalse(info("p/F", "f").getModifiesState());
+        // an uncollected static method modifies no state a collected class holds
+        assertFalse(info("p/G", "g").getModifiesState());
+
+        // what the graph assumes of methods that weren't collected is what the statistics report
+        assertTrue(info("p/Base", "inherited").getModifiesState());
+        assertTrue(info("java/lang/Object", "toString").getModifiesState());
+    }
+
+    @Test
+    public void shouldOnlyKeepMethodsCheapThatCallCheapMethods() {
+        int getter = collect("p/A", "getter", false, true);
+        int field = collect("p/B", "field", false, true);
+        int wrapper = collect("p/A", "wrapper", false, true);
+        int looping = collect("p/C", "looping", false, false);
+        int recursive = collect("p/D", "recursive", false, true);
+        int external = collect("p/E", "external", false, true);
+        graph.addCall(getter, field, false, true, 1);
+        graph.addCall(wrapper, looping, false, true, 1);
+        graph.addCall(recursive, recursive, true, true, 1);
+        graph.addCall(external, foreign("java/lang/Math", "abs"), true, false, 1);
+
+        graph.propagate(statistics);
+
+        assertTrue(info("p/A", "getter").isCheap());
+        assertTrue(info("p/B", "field").isCheap());
+        assertFalse(info("p/A", "wrapper").isCheap());
+        assertFalse(info("p/D", "recursive").isCheap());
+        assertFalse(info("p/E", "external").isCheap());
+    }
+
+    @Test
+    public void shouldAddCalleeCostsToCallers() {
+        int read = costing("p/A", "read", 20, MethodInfo.DOES_IO);
+        int caller = costing("p/B", "caller", 5, 0);
+        int looping = costing("p/C", "looping", 5, MethodInfo.HAS_LOOPS);
+        int external = costing("p/D", "external", 5, 0);
+        int even = costing("p/E", "even", 3, 0);
+        int odd = costing("p/E", "odd", 3, 0);
+        int loopsElsewhere = costing("p/F", "loopsElsewhere", 50, MethodInfo.HAS_LOOPS);
+        graph.addCall(caller, read, false, true, 1);
+        graph.addCall(looping, read, false, true, CallGraph.LOOP_FACTOR);
+        graph.addCall(external, foreign("java/lang/Object", "hashCode"), false, true, 1);
+        graph.addCall(loopsElsewhere, looping, false, true, 1);
+        graph.addCall(loopsElsewhere, read, false, true, 0);
+        graph.addCall(even, odd, true, true, 1);
+        graph.addCall(odd, even, true, true, 1);
+
+        graph.propagate(statistics);
+
+        assertEquals(info("p/A", "read").getCost(), 20);
+        assertEquals(info("p/B", "caller").getCost(), 25);
+        assertTrue(info("p/B", "caller").hasCostFlags(MethodInfo.DOES_IO));
+        assertEquals(info("p/C", "looping").getCost(), 205);
+        assertTrue(info("p/C", "looping").hasCostFlags(MethodInfo.DOES_IO));
+        assertTrue(info("p/C", "looping").hasCostFlags(MethodInfo.HAS_LOOPS));
+        assertEquals(info("p/D", "external").getCost(), 15);
+        assertFalse(info("p/D", "external").hasCostFlags(MethodInfo.DOES_IO));
+        assertEquals(info("p/E", "even").getCost(), 30);
+        assertEquals(info("p/E", "odd").getCost(), 30);
+        assertEquals(info("p/F", "loopsElsewhere").getCost(), 255);
+    }
+}
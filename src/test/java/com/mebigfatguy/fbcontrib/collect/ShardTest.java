@@ -0,0 +1,182 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.collect;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.mebigfatguy.fbcontrib.utils.FQMethod;
+
+public class ShardTest {
+
+    private static final String LIST_SIG = "()Ljava/util/List;";
+    private static final String VOID_SIG = "()V";
+    private static final List<String> CHAIN = Arrays.asList("a", "b", "c");
+
+    private Statistics statistics;
+    private File dir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        statistics = Statistics.getStatistics();
+        statistics.clear();
+        Shard.setCollectedCalls(statistics, new CallGraph());
+        dir = Files.createTempDirectory("shards").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        statistics.clear();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private File collect(String name, ImmutabilityType... imTypes) {
+        statistics.clear();
+        for (int i = 0; i < imTypes.length; i++) {
+            statistics.addImmutabilityStatus("p/A", "list" + i, LIST_SIG, imTypes[i]);
+        }
+
+        File file = new File(dir, name);
+        System.setProperty(Shard.SHARD_OUT_PROPERTY, file.getPath());
+        try {
+            Shard.save();
+        } finally {
+            System.clearProperty(Shard.SHARD_OUT_PROPERTY);
+        }
+        return file;
+    }
+
+    private void load(String name, File first, File second) throws IOException {
+        Shard shard = Shard.read(first);
+        shard.merge(Shard.read(second));
+        File file = new File(dir, name);
+        shard.write(file);
+
+        System.setProperty(Shard.SHARD_IN_PROPERTY, file.getPath());
+        try {
+            Shard.loadMergedStatistics(statistics);
+        } finally {
+            System.clearProperty(Shard.SHARD_IN_PROPERTY);
+        }
+    }
+
+    private ImmutabilityType[] merge(String name, File first, File second, int count) throws IOException {
+        load(name, first, second);
+
+        ImmutabilityType[] imTypes = new ImmutabilityType[count];
+        for (int i = 0; i < count; i++) {
+            imTypes[i] = statistics.getMethodStatistics("p/A", "list" + i, LIST_SIG).getImmutabilityType();
+        }
+        return imTypes;
+    }
+
+    @Test
+    public void shouldMergeImmutabilityTheSameInEitherOrder() throws IOException {
+        File a = collect("a.shard", ImmutabilityType.IMMUTABLE, ImmutabilityType.UNKNOWN, ImmutabilityType.IMMUTABLE, ImmutabilityType.MUTABLE);
+        File b = collect("b.shard", ImmutabilityType.IMMUTABLE, ImmutabilityType.POSSIBLY_IMMUTABLE, ImmutabilityType.POSSIBLY_IMMUTABLE,
+                ImmutabilityType.IMMUTABLE);
+
+        ImmutabilityType[] expected = { ImmutabilityType.IMMUTABLE, ImmutabilityType.POSSIBLY_IMMUTABLE, ImmutabilityType.POSSIBLY_IMMUTABLE,
+                ImmutabilityType.POSSIBLY_IMMUTABLE };
+        assertEquals(merge("ab.shard", a, b, expected.length), expected);
+        assertEquals(merge("ba.shard", b, a, expected.length), expected);
+    }
+
+    /**
+     * adds the methods of the chain p/A.a() calls p/B.b() in a loop, which calls p/C.c(), both statically, with the statistics of their own code, where only
+     * c modifies state, and returns the calls between them that belong to the given methods
+     */
+    private CallGraph addChain(String... names) {
+        CallGraph callGraph = new CallGraph();
+        for (String name : names) {
+            MethodInfo mi = statistics.addMethodStatistics("p/" + name.toUpperCase(), name, VOID_SIG, 0, 20, 1);
+            mi.setModifiesState("c".equals(name));
+            mi.setCheap(!"c".equals(name));
+            mi.setCost(5 + CHAIN.indexOf(name));
+
+            int next = CHAIN.indexOf(name) + 1;
+            if (next < CHAIN.size()) {
+                String callee = CHAIN.get(next);
+                callGraph.addCall(callGraph.getMethodId(chainMethod(name)), callGraph.getMethodId(chainMethod(callee)), true, false,
+                        "a".equals(name) ? CallGraph.LOOP_FACTOR : 1);
+            }
+        }
+        return callGraph;
+    }
+
+    private static FQMethod chainMethod(String name) {
+        return new FQMethod("p/" + name.toUpperCase(), name, VOID_SIG);
+    }
+
+    private File collectSlice(String name, String... names) {
+        statistics.clear();
+        CallGraph callGraph = addChain(names);
+        Shard.setCollectedCalls(statistics, callGraph);
+        callGraph.propagate(statistics);
+
+        File file = new File(dir, name);
+        System.setProperty(Shard.SHARD_OUT_PROPERTY, file.getPath());
+        try {
+            Shard.save();
+        } finally {
+            System.clearProperty(Shard.SHARD_OUT_PROPERTY);
+        }
+        return file;
+    }
+
+    private String describeChain() {
+        StringBuilder sb = new StringBuilder();
+        for (String name : CHAIN) {
+            MethodInfo mi = statistics.findMethodStatistics(chainMethod(name));
+            sb.append(name).append(": modifiesState=").append(mi.getModifiesState()).append(", cheap=").append(mi.isCheap()).append(", cost=")
+                    .append(mi.getCost()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void shouldPropagateThroughSlicesAsASingleRunDoes() throws IOException {
+        statistics.clear();
+        addChain("a", "b", "c").propagate(statistics);
+        String single = describeChain();
+
+        File ac = collectSlice("ac.shard", "a", "c");
+        File b = collectSlice("b.shard", "b");
+
+        load("acb.shard", ac, b);
+        assertEquals(describeChain(), single);
+        load("bac.shard", b, ac);
+        assertEquals(describeChain(), single);
+    }
+}
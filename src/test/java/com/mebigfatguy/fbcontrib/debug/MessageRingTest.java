@@ -0,0 +1,101 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.debug;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class MessageRingTest {
+
+    @Test
+    public void shouldKeepOrderAndRefuseWhenFull() {
+        MessageRing<Integer> ring = new MessageRing<>(3);
+        assertEquals(ring.capacity(), 4);
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                assertTrue(ring.offer(Integer.valueOf(i)));
+            }
+            assertFalse(ring.offer(Integer.valueOf(4)));
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals(ring.poll(), Integer.valueOf(i));
+            }
+            assertNull(ring.poll());
+        }
+    }
+
+    @Test
+    public void shouldDeliverEachAcceptedMessageOnce() throws InterruptedException {
+        final MessageRing<Integer> ring = new MessageRing<>(64);
+        final int producers = 4;
+        final int perProducer = 20000;
+        final AtomicInteger accepted = new AtomicInteger();
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int base = p * perProducer;
+            threads[p] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        if (ring.offer(Integer.valueOf(base + i))) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            threads[p].start();
+        }
+
+        boolean[] seen = new boolean[producers * perProducer];
+        int[] last = new int[producers];
+        Arrays.fill(last, -1);
+        int taken = 0;
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread t : threads) {
+                running |= t.isAlive();
+            }
+            Integer message;
+            while ((message = ring.poll()) != null) {
+                int value = message.intValue();
+                assertFalse(seen[value]);
+                seen[value] = true;
+                // each producer's messages come out in the order it added them
+                assertTrue((value % perProducer) > last[value / perProducer]);
+                last[value / perProducer] = value % perProducer;
+                taken++;
+            }
+        }
+
+        for (Thread t : threads) {
+            t.join();
+        }
+        assertEquals(taken, accepted.get());
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import edu.umd.cs.findbugs.FindBugs;
+import edu.umd.cs.findbugs.FindBugs2;
+import edu.umd.cs.findbugs.Plugin;
+import edu.umd.cs.findbugs.TextUICommandLine;
+
+public class FusedOpcodeStackScannerTest {
+
+    private static final String PLUGIN_ID = "com.mebigfatguy.fbcontrib";
+    private static final String FUSIBLE_DETECTORS = "CollectStatistics,BackportReusePublicIdentifiers,CommonsStringBuilderToString,NeedlessAutoboxing";
+
+    @Test
+    public void shouldReportTheSameFusedAsUnfused() throws Exception {
+        File samples = new File(ex.NAB_Sample.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        List<String> unfused = analyze(samples, false);
+        List<String> fused = analyze(samples, true);
+
+        assertFalse(unfused.isEmpty());
+        assertEquals(fused, unfused);
+    }
+
+    /**
+     * analyzes the samples with the fusible detectors, and returns the sorted report lines
+     */
+    private static List<String> analyze(File samples, boolean fused) throws Exception {
+        addPlugin();
+        String oldFused = System.getProperty(FusedOpcodeStackScanner.FUSED_PROPERTY);
+        System.setProperty(FusedOpcodeStackScanner.FUSED_PROPERTY, String.valueOf(fused));
+        Path output = Files.createTempFile("fb-contrib-fused", ".txt");
+        FindBugs2 engine = new FindBugs2();
+        try {
+            TextUICommandLine commandLine = new TextUICommandLine();
+            FindBugs.processCommandLine(commandLine,
+                    new String[] { "-quiet", "-low", "-visitors", FUSIBLE_DETECTORS, "-output", output.toString(), samples.getPath() }, engine);
+            engine.execute();
+            engine.getBugReporter().finish();
+
+            List<String> reports = new ArrayList<>(Files.readAllLines(output, StandardCharsets.UTF_8));
+            Collections.sort(reports);
+            return reports;
+        } finally {
+            engine.dispose();
+            Files.deleteIfExists(output);
+            if (oldFused == null) {
+                System.clearProperty(FusedOpcodeStackScanner.FUSED_PROPERTY);
+            } else {
+                System.setProperty(FusedOpcodeStackScanner.FUSED_PROPERTY, oldFused);
+            }
+        }
+    }
+
+    /**
+     * adds fb-contrib as a plugin, from the classes on the class path, as the command line only takes plugin jars
+     */
+    private static synchronized void addPlugin() throws Exception {
+        if (Plugin.getByPluginId(PLUGIN_ID) == null) {
+            Plugin.addCustomPlugin(NeedlessAutoboxing.class.getProtectionDomain().getCodeSource().getLocation(),
+                    FusedOpcodeStackScannerTest.class.getClassLoader());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.detect;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.testng.annotations.Test;
+
+import com.mebigfatguy.fbcontrib.utils.BugType;
+
+import edu.umd.cs.findbugs.FindBugs;
+import edu.umd.cs.findbugs.FindBugs2;
+import edu.umd.cs.findbugs.Plugin;
+import edu.umd.cs.findbugs.TextUICommandLine;
+
+public class InefficientStringBufferingTest {
+
+    private static final String PLUGIN_ID = "com.mebigfatguy.fbcontrib";
+    private static final String CONCAT_CLASS = "IndyConcat";
+
+    /**
+     * the samples are compiled for 1.8, where javac concatenates with StringBuilder chains, so the indy concatenation of Java 9 is generated here
+     */
+    @Test
+    public void shouldReportIndyConcatenationInLoop() throws Exception {
+        String report = analyze(true);
+
+        assertTrue(report.contains("type=\"" + BugType.ISB_STRING_CONCATENATION_IN_LOOP.name() + "\""), report);
+    }
+
+    @Test
+    public void shouldNotReportIndyConcatenationOutsideLoop() throws Exception {
+        String report = analyze(false);
+
+        assertFalse(report.contains("type=\"" + BugType.ISB_STRING_CONCATENATION_IN_LOOP.name() + "\""), report);
+    }
+
+    /**
+     * analyzes a generated class with just the ISB detector, and returns the xml report
+     *
+     * @param inLoop
+     *            whether the concatenation is done in a loop
+     */
+    private static String analyze(boolean inLoop) throws Exception {
+        addPlugin();
+        Path classes = Files.createTempDirectory("fb-contrib-isb");
+        Path classFile = classes.resolve(CONCAT_CLASS + ".class");
+        Path output = Files.createTempFile("fb-contrib-isb", ".xml");
+        Files.write(classFile, generateConcatClass(inLoop));
+        FindBugs2 engine = new FindBugs2();
+        try {
+            TextUICommandLine commandLine = new TextUICommandLine();
+            FindBugs.processCommandLine(commandLine, new String[] { "-quiet", "-low", "-xml", "-visitors", "InefficientStringBuffering", "-output",
+                    output.toString(), classes.toString() }, engine);
+            engine.execute();
+            engine.getBugReporter().finish();
+
+            return new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+        } finally {
+            engine.dispose();
+            Files.deleteIfExists(output);
+            Files.deleteIfExists(classFile);
+            Files.deleteIfExists(classes);
+        }
+    }
+
+    /**
+     * generates a Java 9 class whose join method concatenates with invokedynamic, as javac would for
+     *
+     * <pre>
+     * public static String join(String[] parts) {
+     *     String s = "";
+     *     for (int i = 0; i &lt; parts.length; i++) {
+     *         s = s + parts[i];
+     *     }
+     *     return s;
+     * }
+     * </pre>
+     *
+     * or, outside a loop, <code>s = s + parts[0]</code>
+     *
+     * @param inLoop
+     *            whether to concatenate in a loop
+     * @return the class file bytes
+     */
+    private static byte[] generateConcatClass(boolean inLoop) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_9, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, CONCAT_CLASS, null, "java/lang/Object", null);
+
+        Handle concatFactory = new Handle(Opcodes.H_INVOKESTATIC, "java/lang/invoke/StringConcatFactory", "makeConcatWithConstants",
+                "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/String;[Ljava/lang/Object;)"
+                        + "Ljava/lang/invoke/CallSite;",
+                false);
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "join", "([Ljava/lang/String;)Ljava/lang/String;", null, null);
+        mv.visitCode();
+        mv.visitLdcInsn("");
+        mv.visitVarInsn(Opcodes.ASTORE, 1);
+
+        Label test = new Label();
+        Label end = new Label();
+        if (inLoop) {
+            mv.visitInsn(Opcodes.ICONST_0);
+            mv.visitVarInsn(Opcodes.ISTORE, 2);
+            mv.visitLabel(test);
+            mv.visitVarInsn(Opcodes.ILOAD, 2);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitInsn(Opcodes.ARRAYLENGTH);
+            mv.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+        }
+
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        if (inLoop) {
+            mv.visitVarInsn(Opcodes.ILOAD, 2);
+        } else {
+            mv.visitInsn(Opcodes.ICONST_0);
+        }
+        mv.visitInsn(Opcodes.AALOAD);
+        mv.visitInvokeDynamicInsn("makeConcatWithConstants", "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;", concatFactory, "\u0001\u0001");
+        mv.visitVarInsn(Opcodes.ASTORE, 1);
+
+        if (inLoop) {
+            mv.visitIincInsn(2, 1);
+            mv.visitJumpInsn(Opcodes.GOTO, test);
+            mv.visitLabel(end);
+        }
+
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * adds fb-contrib as a plugin, from the classes on the class path, as the command line only takes plugin jars
+     */
+    private static synchronized void addPlugin() throws Exception {
+        if (Plugin.getByPluginId(PLUGIN_ID) == null) {
+            Plugin.addCustomPlugin(InefficientStringBuffering.class.getProtectionDomain().getCodeSource().getLocation(),
+                    InefficientStringBufferingTest.class.getClassLoader());
+        }
+    }
+}
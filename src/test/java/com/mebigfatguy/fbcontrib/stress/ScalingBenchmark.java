@@ -0,0 +1,205 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.stress;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import com.mebigfatguy.fbcontrib.detect.BloatedAssignmentScope;
+import com.mebigfatguy.fbcontrib.detect.FindClassCircularDependencies;
+import com.mebigfatguy.fbcontrib.detect.OverlyConcreteParameter;
+
+import edu.umd.cs.findbugs.FindBugs;
+import edu.umd.cs.findbugs.FindBugs2;
+import edu.umd.cs.findbugs.Plugin;
+import edu.umd.cs.findbugs.PluginException;
+import edu.umd.cs.findbugs.TextUICommandLine;
+import edu.umd.cs.findbugs.log.Profiler;
+
+/**
+ * measures how the time detectors take grows with the size of pathological classes from {@link SyntheticCorpus}. Each curve runs one detector, after
+ * CollectStatistics, over classes of growing size, and reports, for each size, the time spent in the detector's class visits, the time of the whole
+ * analysis, the time of the analysis with CollectStatistics alone, and the growth exponent between that size and the one before, so an exponent near 1 is
+ * linear, and near 2 quadratic. The exponent is of the class visits, except for detectors that do their work in their report, which isn't profiled, where it
+ * is of the time the detector adds to the analysis. The curves are printed, and written as csv files to target/benchmark.
+ * <p>
+ * This is slow, so it is skipped unless fb-contrib.benchmark is set to true, as with
+ * {@code mvn test -Dtest=ScalingBenchmark -Dfb-contrib.benchmark=true}. Each size is analyzed fb-contrib.benchmark.repeat times, 3 by default, and the
+ * fastest run is kept. The method budget is off, unless fb-contrib.budget.instructions is set, so that the curves show how the detectors themselves grow.
+ * SpotBugs only runs first pass detectors on classes of more than 1000 methods, constructor included, so no curve goes past that.
+ */
+public class ScalingBenchmark {
+
+    static final String BENCHMARK_PROPERTY = "fb-contrib.benchmark";
+    static final String REPEAT_PROPERTY = "fb-contrib.benchmark.repeat";
+
+    private static boolean pluginAdded;
+
+    /**
+     * the generation of one set of classes of a given size
+     */
+    interface Shape {
+        void generate(SyntheticCorpus corpus, int size) throws IOException;
+    }
+
+    @Test
+    public void benchmarkBloatedAssignmentScope() throws Exception {
+        checkEnabled();
+        curve("bas-long-method", BloatedAssignmentScope.class, false, new int[] { 4096, 8192, 16384, 32768, SyntheticCorpus.MAX_CODE_LENGTH },
+                (corpus, size) -> corpus.longMethod("Long", size, 200));
+        curve("bas-nested-blocks", BloatedAssignmentScope.class, false, new int[] { 16, 32, 64, 128, 256 },
+                (corpus, size) -> corpus.nestedBlocks("Nested", size));
+        curve("bas-tableswitch", BloatedAssignmentScope.class, false, new int[] { 1000, 2000, 4000, 8000 },
+                (corpus, size) -> corpus.tableSwitch("Switch", size));
+    }
+
+    @Test
+    public void benchmarkFindClassCircularDependencies() throws Exception {
+        checkEnabled();
+        curve("fccd-cycle-length", FindClassCircularDependencies.class, true, new int[] { 100, 200, 400, 800, 1600 },
+                (corpus, size) -> corpus.cycles("Cycle", 1, size));
+        curve("fccd-cycle-count", FindClassCircularDependencies.class, true, new int[] { 50, 100, 200, 400, 800 },
+                (corpus, size) -> corpus.cycles("Cycle", size, 4));
+    }
+
+    @Test
+    public void benchmarkOverlyConcreteParameter() throws Exception {
+        checkEnabled();
+        curve("ocp-methods", OverlyConcreteParameter.class, false, new int[] { 125, 250, 500, 999 }, (corpus, size) -> corpus.manyMethods("Many", size));
+        curve("ocp-hierarchy-depth", OverlyConcreteParameter.class, false, new int[] { 8, 16, 32, 64, 128 },
+                (corpus, size) -> corpus.hierarchy("Deep", size, 100));
+    }
+
+    private static void checkEnabled() {
+        if (!Boolean.getBoolean(BENCHMARK_PROPERTY)) {
+            throw new SkipException("set " + BENCHMARK_PROPERTY + " to true to run the scaling benchmark");
+        }
+    }
+
+    private static void curve(String name, Class<?> detector, boolean worksInReport, int[] sizes, Shape shape) throws Exception {
+        int repeat = Integer.getInteger(REPEAT_PROPERTY, 3).intValue();
+        List<String> rows = new ArrayList<>(sizes.length + 1);
+        rows.add("size,classes,detector ms,analysis ms,baseline ms,exponent");
+
+        double lastSize = 0.0;
+        double lastMillis = 0.0;
+        boolean warm = false;
+        for (int size : sizes) {
+            Path dir = Files.createTempDirectory("fb-contrib-" + name);
+            try {
+                SyntheticCorpus corpus = new SyntheticCorpus(dir.toFile());
+                shape.generate(corpus, size);
+                if (!warm) {
+                    analyze(dir, detector);
+                    warm = true;
+                }
+
+                long bestDetector = Long.MAX_VALUE;
+                long bestAnalysis = Long.MAX_VALUE;
+                long bestBaseline = Long.MAX_VALUE;
+                for (int r = 0; r < repeat; r++) {
+                    long[] times = analyze(dir, detector);
+                    bestDetector = Math.min(bestDetector, times[0]);
+                    bestAnalysis = Math.min(bestAnalysis, times[1]);
+                    bestBaseline = Math.min(bestBaseline, analyze(dir, null)[1]);
+                }
+
+                double millis = (worksInReport ? (bestAnalysis - bestBaseline) : bestDetector) / 1.0E6;
+                String exponent = ((lastSize > 0.0) && (lastMillis > 0.0) && (millis > 0.0))
+                        ? String.format(Locale.ROOT, "%.2f", Math.log(millis / lastMillis) / Math.log(size / lastSize))
+                        : "";
+                rows.add(String.format(Locale.ROOT, "%d,%d,%.1f,%.1f,%.1f,%s", size, corpus.getClassNames().size(), bestDetector / 1.0E6, bestAnalysis / 1.0E6,
+                        bestBaseline / 1.0E6, exponent));
+                lastSize = size;
+                lastMillis = millis;
+            } finally {
+                delete(dir);
+            }
+        }
+
+        System.out.println("===== " + name + " (" + detector.getSimpleName() + ") =====");
+        for (String row : rows) {
+            System.out.println(row);
+        }
+        File out = new File("target/benchmark");
+        if (out.isDirectory() || out.mkdirs()) {
+            Files.write(new File(out, name + ".csv").toPath(), rows, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * analyzes the classes of a directory with CollectStatistics and one detector, or with CollectStatistics alone if the detector is null
+     *
+     * @return the nanoseconds spent in the detector's class visits, and in the whole analysis
+     */
+    private static long[] analyze(Path dir, Class<?> detector) throws Exception {
+        addPlugin();
+        Path output = Files.createTempFile("fb-contrib-benchmark", ".txt");
+        FindBugs2 engine = new FindBugs2();
+        try {
+            TextUICommandLine commandLine = new TextUICommandLine();
+            String visitors = (detector == null) ? "CollectStatistics" : "CollectStatistics," + detector.getSimpleName();
+            FindBugs.processCommandLine(commandLine, new String[] { "-quiet", "-low", "-visitors", visitors, "-output", output.toString(), dir.toString() },
+                    engine);
+
+            long start = System.nanoTime();
+            engine.execute();
+            long analysis = System.nanoTime() - start;
+
+            Profiler profiler = engine.getBugReporter().getProjectStats().getProfiler();
+            return new long[] { (detector == null) ? 0L : profiler.getProfile(detector).getTotalTime(), analysis };
+        } finally {
+            engine.dispose();
+            Files.deleteIfExists(output);
+        }
+    }
+
+    /**
+     * adds fb-contrib as a plugin, from the classes on the class path, as the command line only takes plugin jars
+     */
+    private static synchronized void addPlugin() throws URISyntaxException, MalformedURLException, PluginException {
+        if (!pluginAdded) {
+            URL location = BloatedAssignmentScope.class.getProtectionDomain().getCodeSource().getLocation();
+            Plugin.addCustomPlugin(location, ScalingBenchmark.class.getClassLoader());
+            pluginAdded = true;
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+}
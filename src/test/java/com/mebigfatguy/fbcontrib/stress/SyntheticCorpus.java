@@ -0,0 +1,410 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.stress;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.generic.ArrayType;
+import org.apache.bcel.generic.BranchInstruction;
+import org.apache.bcel.generic.ClassGen;
+import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.FieldGen;
+import org.apache.bcel.generic.GOTO;
+import org.apache.bcel.generic.IF_ICMPLE;
+import org.apache.bcel.generic.InstructionConst;
+import org.apache.bcel.generic.InstructionFactory;
+import org.apache.bcel.generic.InstructionHandle;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.ObjectType;
+import org.apache.bcel.generic.PUSH;
+import org.apache.bcel.generic.TABLESWITCH;
+import org.apache.bcel.generic.Type;
+
+/**
+ * generates class files of a given size and shape, for measuring how detectors scale. Each shape is one family of classes, parameterized by the size that
+ * the detectors are expected to be sensitive to: the bytecode length of a method, the nesting depth of try and synchronized blocks, the number of cases of a
+ * switch, the depth of a class and interface hierarchy, the length of dependency cycles, and the number of methods of a class. The classes are java 5 class
+ * files, so they need no stack map frames, and are written to the directory given, in the synthetic package.
+ */
+final class SyntheticCorpus {
+
+    static final String PACKAGE = "synthetic";
+
+    /** the largest code length of a method, less room for the prologue and epilogue */
+    static final int MAX_CODE_LENGTH = 65535 - 16;
+
+    private static final int FIRST_LOCAL = 4;
+    private static final int MAX_LOCALS = 250;
+    private static final int MAX_SWITCH_BODIES = 1024;
+
+    private final File directory;
+    private final List<String> classNames = new ArrayList<>();
+
+    /**
+     * creates a generator that writes to the given directory
+     *
+     * @param directory
+     *            the root directory of the generated class files
+     */
+    SyntheticCorpus(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * returns the dotted names of all the classes generated so far
+     *
+     * @return the class names
+     */
+    List<String> getClassNames() {
+        return classNames;
+    }
+
+    /**
+     * generates a class with one static method as long as asked, made of units that each assign a local at the method's top level, and use it in a
+     * conditional block after. The locals are reused round robin, so each is assigned many times.
+     *
+     * @param name
+     *            the simple name of the class
+     * @param codeLength
+     *            the approximate length in bytes of the method's code, up to {@link #MAX_CODE_LENGTH}
+     * @param locals
+     *            the number of distinct locals assigned, up to 250
+     * @return the generated class
+     */
+    JavaClass longMethod(String name, int codeLength, int locals) throws IOException {
+        String clsName = PACKAGE + '.' + name;
+        ClassGen cg = newClass(clsName, "java.lang.Object");
+        ConstantPoolGen cp = cg.getConstantPool();
+        InstructionFactory factory = new InstructionFactory(cg);
+        addSink(cg);
+
+        int localCount = Math.max(1, Math.min(locals, MAX_LOCALS));
+        InstructionList il = new InstructionList();
+        MethodGen mg = new MethodGen(Const.ACC_PUBLIC | Const.ACC_STATIC, Type.INT, new Type[] { Type.INT }, new String[] { "p" }, "run", clsName, il, cp);
+
+        InstructionHandle[] firstStores = new InstructionHandle[localCount];
+        // each unit is iload_0, sipush, iadd, istore, iload_0, sipush, if_icmple, iload, invokestatic, nop: 20 bytes
+        int units = Math.max(1, (Math.min(codeLength, MAX_CODE_LENGTH) - 8) / 20);
+        for (int u = 0; u < units; u++) {
+            int local = u % localCount;
+            int reg = FIRST_LOCAL + local;
+            int constant = 1000 + (u % 30000);
+
+            InstructionHandle start = il.append(InstructionConst.ILOAD_0);
+            mg.addLineNumber(start, u + 1);
+            il.append(new PUSH(cp, constant));
+            il.append(InstructionConst.IADD);
+            InstructionHandle store = il.append(InstructionFactory.createStore(Type.INT, reg));
+            if (firstStores[local] == null) {
+                firstStores[local] = store;
+            }
+            il.append(InstructionConst.ILOAD_0);
+            il.append(new PUSH(cp, constant));
+            BranchInstruction skip = new IF_ICMPLE(null);
+            il.append(skip);
+            il.append(InstructionFactory.createLoad(Type.INT, reg));
+            il.append(factory.createInvoke(clsName, "sink", Type.VOID, new Type[] { Type.INT }, Const.INVOKESTATIC));
+            skip.setTarget(il.append(InstructionConst.NOP));
+        }
+        il.append(InstructionConst.ILOAD_0);
+        InstructionHandle end = il.append(InstructionConst.IRETURN);
+
+        for (int local = 0; local < localCount; local++) {
+            if (firstStores[local] != null) {
+                mg.addLocalVariable("v" + local, Type.INT, FIRST_LOCAL + local, firstStores[local].getNext(), end);
+            }
+        }
+        addMethod(cg, mg);
+        return write(cg);
+    }
+
+    /**
+     * generates a class with one method that nests synchronized blocks and try/catch blocks, alternating, to the depth asked, each with its own exception
+     * handler.
+     *
+     * @param name
+     *            the simple name of the class
+     * @param depth
+     *            the number of nested blocks
+     * @return the generated class
+     */
+    JavaClass nestedBlocks(String name, int depth) throws IOException {
+        String clsName = PACKAGE + '.' + name;
+        ClassGen cg = newClass(clsName, "java.lang.Object");
+        ConstantPoolGen cp = cg.getConstantPool();
+        InstructionFactory factory = new InstructionFactory(cg);
+        addSink(cg);
+
+        InstructionList il = new InstructionList();
+        MethodGen mg = new MethodGen(Const.ACC_PUBLIC, Type.VOID, new Type[] { Type.OBJECT, Type.INT }, new String[] { "lock", "p" }, "run", clsName, il, cp);
+        emitNested(il, mg, factory, clsName, 0, depth);
+        il.append(InstructionConst.RETURN);
+        addMethod(cg, mg);
+        return write(cg);
+    }
+
+    private static void emitNested(InstructionList il, MethodGen mg, InstructionFactory factory, String clsName, int level, int depth) {
+        if (level == depth) {
+            il.append(InstructionConst.ILOAD_2);
+            il.append(factory.createInvoke(clsName, "sink", Type.VOID, new Type[] { Type.INT }, Const.INVOKESTATIC));
+            return;
+        }
+
+        int monitorReg = 3 + (2 * level);
+        int throwableReg = monitorReg + 1;
+        GOTO toAfter = new GOTO(null);
+        if ((level & 1) == 0) {
+            // synchronized (lock) { ... }, as javac compiles it
+            il.append(InstructionConst.ALOAD_1);
+            il.append(InstructionConst.DUP);
+            il.append(InstructionFactory.createStore(Type.OBJECT, monitorReg));
+            InstructionHandle start = il.append(InstructionConst.MONITORENTER);
+            emitNested(il, mg, factory, clsName, level + 1, depth);
+            il.append(InstructionFactory.createLoad(Type.OBJECT, monitorReg));
+            InstructionHandle end = il.append(InstructionConst.MONITOREXIT);
+            il.append(toAfter);
+            InstructionHandle handler = il.append(InstructionFactory.createStore(Type.OBJECT, throwableReg));
+            il.append(InstructionFactory.createLoad(Type.OBJECT, monitorReg));
+            il.append(InstructionConst.MONITOREXIT);
+            il.append(InstructionFactory.createLoad(Type.OBJECT, throwableReg));
+            il.append(InstructionConst.ATHROW);
+            mg.addExceptionHandler(start.getNext(), end, handler, null);
+        } else {
+            // try { ... } catch (RuntimeException e) { sink(p); }
+            InstructionHandle start = il.append(InstructionConst.NOP);
+            emitNested(il, mg, factory, clsName, level + 1, depth);
+            InstructionHandle end = il.append(toAfter);
+            InstructionHandle handler = il.append(InstructionFactory.createStore(Type.OBJECT, throwableReg));
+            il.append(InstructionConst.ILOAD_2);
+            il.append(factory.createInvoke(clsName, "sink", Type.VOID, new Type[] { Type.INT }, Const.INVOKESTATIC));
+            mg.addExceptionHandler(start, end, handler, new ObjectType("java.lang.RuntimeException"));
+        }
+        toAfter.setTarget(il.append(InstructionConst.NOP));
+    }
+
+    /**
+     * generates a class with one method made of a tableswitch over the cases asked, each returning its own constant. Past 1024
+     * cases, cases share their bodies, so that the method stays small beside its table.
+     *
+     * @param name
+     *            the simple name of the class
+     * @param cases
+     *            the number of cases, up to 8000, as BCEL keeps the length of an instruction in a short
+     * @return the generated class
+     */
+    JavaClass tableSwitch(String name, int cases) throws IOException {
+        String clsName = PACKAGE + '.' + name;
+        ClassGen cg = newClass(clsName, "java.lang.Object");
+        ConstantPoolGen cp = cg.getConstantPool();
+
+        InstructionList il = new InstructionList();
+        MethodGen mg = new MethodGen(Const.ACC_PUBLIC | Const.ACC_STATIC, Type.INT, new Type[] { Type.INT }, new String[] { "p" }, "run", clsName, il, cp);
+
+        InstructionList bodies = new InstructionList();
+        int bodyCount = Math.min(cases, MAX_SWITCH_BODIES);
+        InstructionHandle[] bodyStarts = new InstructionHandle[bodyCount];
+        for (int b = 0; b < bodyCount; b++) {
+            bodyStarts[b] = bodies.append(new PUSH(cp, 1000 + b));
+            bodies.append(InstructionConst.IRETURN);
+        }
+        InstructionHandle defaultStart = bodies.append(InstructionConst.ICONST_M1);
+        bodies.append(InstructionConst.IRETURN);
+
+        int[] match = new int[cases];
+        InstructionHandle[] targets = new InstructionHandle[cases];
+        for (int c = 0; c < cases; c++) {
+            match[c] = c;
+            targets[c] = bodyStarts[c % bodyCount];
+        }
+        il.append(InstructionConst.ILOAD_0);
+        il.append(new TABLESWITCH(match, targets, defaultStart));
+        il.append(bodies);
+
+        addMethod(cg, mg);
+        return write(cg);
+    }
+
+    /**
+     * generates a chain of interfaces, each extending the one before and adding a method, a chain of classes as deep, each extending the one before and
+     * implementing the next interface, and a user class whose methods take the deepest class, but only call the methods of the first interface on it.
+     *
+     * @param prefix
+     *            the prefix of the simple names of the classes
+     * @param depth
+     *            the number of classes, and of interfaces, in the chains
+     * @param userMethods
+     *            the number of methods of the user class
+     * @return the generated classes
+     */
+    List<JavaClass> hierarchy(String prefix, int depth, int userMethods) throws IOException {
+        List<JavaClass> classes = new ArrayList<>(2 * depth + 1);
+        for (int d = 0; d < depth; d++) {
+            String ifName = PACKAGE + '.' + prefix + 'I' + d;
+            ClassGen ig = new ClassGen(ifName, "java.lang.Object", prefix + ".java", Const.ACC_PUBLIC | Const.ACC_INTERFACE | Const.ACC_ABSTRACT,
+                    (d == 0) ? new String[0] : new String[] { PACKAGE + '.' + prefix + 'I' + (d - 1) });
+            ig.setMajor(Const.MAJOR_1_5);
+            ig.addMethod(new MethodGen(Const.ACC_PUBLIC | Const.ACC_ABSTRACT, Type.VOID, Type.NO_ARGS, new String[0], "m" + d, ifName, null,
+                    ig.getConstantPool()).getMethod());
+            classes.add(write(ig));
+        }
+
+        for (int d = 0; d < depth; d++) {
+            String clsName = PACKAGE + '.' + prefix + 'C' + d;
+            ClassGen cg = new ClassGen(clsName, (d == 0) ? "java.lang.Object" : PACKAGE + '.' + prefix + 'C' + (d - 1), prefix + ".java", Const.ACC_PUBLIC
+                    | Const.ACC_SUPER, new String[] { PACKAGE + '.' + prefix + 'I' + d });
+            cg.setMajor(Const.MAJOR_1_5);
+            addConstructor(cg);
+            // the methods of the interfaces before are implemented by the superclasses
+            InstructionList il = new InstructionList();
+            il.append(InstructionConst.RETURN);
+            addMethod(cg, new MethodGen(Const.ACC_PUBLIC, Type.VOID, Type.NO_ARGS, new String[0], "m" + d, clsName, il, cg.getConstantPool()));
+            classes.add(write(cg));
+        }
+
+        String userName = PACKAGE + '.' + prefix + "User";
+        ClassGen ug = newClass(userName, "java.lang.Object");
+        InstructionFactory factory = new InstructionFactory(ug);
+        ObjectType deepest = new ObjectType(PACKAGE + '.' + prefix + 'C' + (depth - 1));
+        for (int m = 0; m < userMethods; m++) {
+            InstructionList il = new InstructionList();
+            il.append(InstructionConst.ALOAD_1);
+            il.append(factory.createInvoke(deepest.getClassName(), "m0", Type.VOID, Type.NO_ARGS, Const.INVOKEVIRTUAL));
+            il.append(InstructionConst.ALOAD_1);
+            il.append(factory.createInvoke(deepest.getClassName(), "m0", Type.VOID, Type.NO_ARGS, Const.INVOKEVIRTUAL));
+            il.append(InstructionConst.RETURN);
+            addMethod(ug, new MethodGen(Const.ACC_PUBLIC, Type.VOID, new Type[] { deepest }, new String[] { "c" }, "use" + m, userName, il,
+                    ug.getConstantPool()));
+        }
+        classes.add(write(ug));
+        return classes;
+    }
+
+    /**
+     * generates rings of classes, in which each class depends on the next, through a static field of its type and a call of its static method
+     *
+     * @param prefix
+     *            the prefix of the simple names of the classes
+     * @param rings
+     *            the number of separate rings
+     * @param length
+     *            the number of classes of each ring
+     * @return the generated classes
+     */
+    List<JavaClass> cycles(String prefix, int rings, int length) throws IOException {
+        List<JavaClass> classes = new ArrayList<>(rings * length);
+        for (int r = 0; r < rings; r++) {
+            for (int c = 0; c < length; c++) {
+                String clsName = PACKAGE + '.' + prefix + 'R' + r + '_' + c;
+                String nextName = PACKAGE + '.' + prefix + 'R' + r + '_' + ((c + 1) % length);
+                ClassGen cg = newClass(clsName, "java.lang.Object");
+                InstructionFactory factory = new InstructionFactory(cg);
+                ObjectType next = new ObjectType(nextName);
+
+                cg.addField(new FieldGen(Const.ACC_PRIVATE | Const.ACC_STATIC, next, "next", cg.getConstantPool()).getField());
+                InstructionList il = new InstructionList();
+                il.append(factory.createFieldAccess(clsName, "next", next, Const.GETSTATIC));
+                il.append(InstructionConst.POP);
+                il.append(factory.createInvoke(nextName, "touch", Type.VOID, Type.NO_ARGS, Const.INVOKESTATIC));
+                il.append(InstructionConst.RETURN);
+                addMethod(cg, new MethodGen(Const.ACC_PUBLIC | Const.ACC_STATIC, Type.VOID, Type.NO_ARGS, new String[0], "touch", clsName, il,
+                        cg.getConstantPool()));
+                classes.add(write(cg));
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * generates a class with the methods asked, each taking an ArrayList and a String array, but only using the list as a Collection, and calling the next
+     * method. SpotBugs treats classes of more than 1000 methods as too big, and only runs first pass detectors on them.
+     *
+     * @param name
+     *            the simple name of the class
+     * @param methods
+     *            the number of methods
+     * @return the generated class
+     */
+    JavaClass manyMethods(String name, int methods) throws IOException {
+        String clsName = PACKAGE + '.' + name;
+        ClassGen cg = newClass(clsName, "java.lang.Object");
+        InstructionFactory factory = new InstructionFactory(cg);
+        ObjectType list = new ObjectType("java.util.ArrayList");
+        Type[] argTypes = new Type[] { list, new ArrayType(Type.STRING, 1) };
+
+        for (int m = 0; m < methods; m++) {
+            InstructionList il = new InstructionList();
+            il.append(InstructionConst.ALOAD_1);
+            il.append(factory.createInvoke("java.util.ArrayList", "size", Type.INT, Type.NO_ARGS, Const.INVOKEVIRTUAL));
+            il.append(InstructionConst.POP);
+            if ((m + 1) < methods) {
+                il.append(InstructionConst.ALOAD_0);
+                il.append(InstructionConst.ALOAD_1);
+                il.append(InstructionConst.ALOAD_2);
+                il.append(factory.createInvoke(clsName, "m" + (m + 1), Type.VOID, argTypes, Const.INVOKEVIRTUAL));
+            }
+            il.append(InstructionConst.RETURN);
+            addMethod(cg, new MethodGen(Const.ACC_PUBLIC, Type.VOID, argTypes, new String[] { "l", "a" }, "m" + m, clsName, il, cg.getConstantPool()));
+        }
+        return write(cg);
+    }
+
+    private static ClassGen newClass(String clsName, String superName) {
+        ClassGen cg = new ClassGen(clsName, superName, clsName.substring(clsName.lastIndexOf('.') + 1) + ".java", Const.ACC_PUBLIC | Const.ACC_SUPER,
+                new String[0]);
+        cg.setMajor(Const.MAJOR_1_5);
+        cg.setMinor(0);
+        addConstructor(cg);
+        return cg;
+    }
+
+    private static void addConstructor(ClassGen cg) {
+        cg.addEmptyConstructor(Const.ACC_PUBLIC);
+    }
+
+    private static void addSink(ClassGen cg) {
+        InstructionList il = new InstructionList();
+        il.append(InstructionConst.RETURN);
+        addMethod(cg, new MethodGen(Const.ACC_PRIVATE | Const.ACC_STATIC, Type.VOID, new Type[] { Type.INT }, new String[] { "v" }, "sink",
+                cg.getClassName(), il, cg.getConstantPool()));
+    }
+
+    private static void addMethod(ClassGen cg, MethodGen mg) {
+        mg.setMaxStack();
+        mg.setMaxLocals();
+        cg.addMethod(mg.getMethod());
+    }
+
+    private JavaClass write(ClassGen cg) throws IOException {
+        JavaClass cls = cg.getJavaClass();
+        File file = new File(directory, cls.getClassName().replace('.', File.separatorChar) + ".class");
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Failed to create directory " + parent);
+        }
+        cls.dump(file);
+        classNames.add(cls.getClassName());
+        return cls;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.stress;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.classfile.Method;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SyntheticCorpusTest {
+
+    private Path dir;
+    private SyntheticCorpus corpus;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("fb-contrib-corpus");
+        corpus = new SyntheticCorpus(dir.toFile());
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    private JavaClass read(String clsName) throws IOException {
+        File file = new File(dir.toFile(), clsName.replace('.', File.separatorChar) + ".class");
+        return new ClassParser(file.getPath()).parse();
+    }
+
+    private static Code getCode(JavaClass cls, String methodName) {
+        for (Method m : cls.getMethods()) {
+            if (m.getName().equals(methodName)) {
+                return m.getCode();
+            }
+        }
+        throw new AssertionError("no method " + methodName + " in " + cls.getClassName());
+    }
+
+    @Test
+    public void shouldFillMethodsUpToTheCodeLimit() throws IOException {
+        corpus.longMethod("Long", SyntheticCorpus.MAX_CODE_LENGTH, 200);
+        Code code = getCode(read("synthetic.Long"), "run");
+
+        assertTrue(code.getCode().length <= 65535, "length " + code.getCode().length);
+        assertTrue(code.getCode().length > 65000, "length " + code.getCode().length);
+        assertEquals(code.getMaxLocals(), 204);
+    }
+
+    @Test
+    public void shouldNestBlocksWithTheirHandlers() throws IOException {
+        corpus.nestedBlocks("Nested", 100);
+        Code code = getCode(read("synthetic.Nested"), "run");
+
+        assertEquals(code.getExceptionTable().length, 100);
+        assertEquals(code.getMaxLocals(), 3 + (2 * 100));
+    }
+
+    @Test
+    public void shouldFitEightThousandCasesInOneSwitch() throws IOException {
+        corpus.tableSwitch("Switch", 8000);
+        Code code = getCode(read("synthetic.Switch"), "run");
+
+        assertTrue(code.getCode().length > 32000, "length " + code.getCode().length);
+        assertTrue(code.getCode().length <= 65535, "length " + code.getCode().length);
+    }
+
+    @Test
+    public void shouldChainHierarchiesAndCycles() throws IOException {
+        List<JavaClass> deep = corpus.hierarchy("Deep", 10, 5);
+        assertEquals(deep.size(), 21);
+        JavaClass deepest = read("synthetic.DeepC9");
+        assertEquals(deepest.getSuperclassName(), "synthetic.DeepC8");
+        assertEquals(deepest.getInterfaceNames()[0], "synthetic.DeepI9");
+        assertEquals(read("synthetic.DeepUser").getMethods().length, 6);
+
+        corpus.cycles("Cycle", 3, 7);
+        assertEquals(read("synthetic.CycleR2_6").getFields()[0].getType().toString(), "synthetic.CycleR2_0");
+
+        corpus.manyMethods("Many", 3000);
+        assertEquals(read("synthetic.Many").getMethods().length, 3001);
+        assertEquals(corpus.getClassNames().size(), 21 + 21 + 1);
+    }
+}
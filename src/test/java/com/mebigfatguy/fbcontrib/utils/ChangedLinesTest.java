@@ -0,0 +1,80 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+public class ChangedLinesTest {
+
+    private static BitSet bits(int... lines) {
+        BitSet bs = new BitSet();
+        for (int line : lines) {
+            bs.set(line);
+        }
+        return bs;
+    }
+
+    @Test
+    public void shouldParseUnifiedDiff() throws IOException {
+        String diff = "diff --git a/src/main/java/com/acme/Foo.java b/src/main/java/com/acme/Foo.java\n" + "index 1234567..89abcde 100644\n"
+                + "--- a/src/main/java/com/acme/Foo.java\n" + "+++ b/src/main/java/com/acme/Foo.java\n" + "@@ -10,4 +10,5 @@ public class Foo {\n"
+                + "     int a;\n" + "-    int b;\n" + "+    int c;\n" + "+    int d;\n" + "     int e;\n" + "     int f;\n"
+                + "diff --git a/src/main/java/com/acme/Gone.java b/src/main/java/com/acme/Gone.java\n" + "--- a/src/main/java/com/acme/Gone.java\n"
+                + "+++ /dev/null\n" + "@@ -1,2 +0,0 @@\n" + "-class Gone {\n" + "-}\n";
+
+        Map<String, List<ChangedLines.ChangedFile>> files = ChangedLines.parse(new StringReader(diff));
+
+        assertEquals(files.size(), 1);
+        assertNull(files.get("Gone.java"));
+        List<ChangedLines.ChangedFile> foo = files.get("Foo.java");
+        assertEquals(foo.size(), 1);
+        assertEquals(foo.get(0).path, "src/main/java/com/acme/Foo.java");
+        assertEquals(foo.get(0).lines, bits(10, 11, 12));
+    }
+
+    @Test
+    public void shouldParseLineRanges() throws IOException {
+        String list = "# changed by the last build\n" + "src/main/java/com/acme/Foo.java:5-7\n" + "src\\test\\java\\com\\acme\\Foo.java:20\n"
+                + "com/acme/Bar.java:not-a-line\n";
+
+        Map<String, List<ChangedLines.ChangedFile>> files = ChangedLines.parse(new StringReader(list));
+
+        assertFalse(files.containsKey("Bar.java"));
+        List<ChangedLines.ChangedFile> foo = files.get("Foo.java");
+        assertEquals(foo.size(), 2);
+        for (ChangedLines.ChangedFile file : foo) {
+            if (file.path.startsWith("src/main")) {
+                assertEquals(file.lines, bits(5, 6, 7));
+            } else {
+                assertEquals(file.path, "src/test/java/com/acme/Foo.java");
+                assertEquals(file.lines, bits(20));
+            }
+        }
+    }
+}
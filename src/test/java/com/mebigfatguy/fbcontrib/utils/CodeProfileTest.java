@@ -0,0 +1,77 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.apache.bcel.Const;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class CodeProfileTest {
+
+    private static byte[] code(int... bytes) {
+        byte[] code = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            code[i] = (byte) bytes[i];
+        }
+        return code;
+    }
+
+    @DataProvider(name = "codeToBackwardBranch")
+    public Object[][] codeToBackwardBranch() {
+        return new Object[][] {
+                // iconst_0, ireturn
+                { code(Const.ICONST_0, Const.IRETURN), Boolean.FALSE },
+                // iinc 1 1, goto -3
+                { code(Const.IINC, 1, 1, Const.GOTO, 0xFF, 0xFD), Boolean.TRUE },
+                // iload_1, ifeq +4, iinc 1 1, return
+                { code(Const.ILOAD_1, Const.IFEQ, 0, 6, Const.IINC, 1, 1, Const.RETURN), Boolean.FALSE },
+                // nop, goto_w -1
+                { code(Const.NOP, Const.GOTO_W, 0xFF, 0xFF, 0xFF, 0xFF), Boolean.TRUE },
+                // iload_1, tableswitch (pad 2) default 24, low 0, high 0, offset -1, return
+                { code(Const.ILOAD_1, Const.TABLESWITCH, 0, 0, 0, 0, 0, 24, 0, 0, 0, 0, 0, 0, 0, 0, 0xFF, 0xFF, 0xFF, 0xFF, Const.RETURN), Boolean.TRUE },
+                // lookupswitch (pad 3) default 20, npairs 1, match 7 -> 20, return
+                { code(Const.LOOKUPSWITCH, 0, 0, 0, 0, 0, 0, 20, 0, 0, 0, 1, 0, 0, 0, 7, 0, 0, 0, 20, Const.RETURN), Boolean.FALSE }, };
+    }
+
+    @Test(dataProvider = "codeToBackwardBranch")
+    public void shouldDetectBackwardBranches(byte[] code, Boolean expected) {
+        assertEquals(CodeProfile.hasBackwardBranch(code), expected.booleanValue());
+    }
+
+    @Test
+    public void shouldSkipOperandBytes() {
+        // invokeinterface #0xA7A7 2 0, wide iinc 0xA7A7 0xA7A7, sipush 0xA7A7, return; 0xA7 is goto, so a misread operand would branch backwards
+        assertFalse(CodeProfile.hasBackwardBranch(code(Const.INVOKEINTERFACE, 0xA7, 0xA7, 2, 0, Const.WIDE, Const.IINC, 0xA7, 0xA7, 0xA7, 0xA7, Const.SIPUSH,
+                0xA7, 0xA7, Const.RETURN)));
+    }
+
+    @Test
+    public void shouldMatchRequiredOpcodes() {
+        CodeProfile profile = new CodeProfile(CodeProfile.opcodes(Const.IINC, Const.GOTO), null);
+
+        assertTrue(profile.containsAll(CodeProfile.opcodes(Const.IINC, Const.GOTO)));
+        assertFalse(profile.containsAll(CodeProfile.opcodes(Const.IINC, Const.MONITORENTER)));
+        assertTrue(profile.containsAny(CodeProfile.opcodes(Const.GOTO, Const.GOTO_W)));
+        assertFalse(profile.containsAny(CodeProfile.opcodes(Const.MONITORENTER, Const.MONITOREXIT)));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.generic.AnnotationEntryGen;
+import org.apache.bcel.generic.ClassGen;
+import org.apache.bcel.generic.ElementValuePairGen;
+import org.apache.bcel.generic.ObjectType;
+import org.testng.annotations.Test;
+
+public class GeneratedClassesTest {
+
+    private static ClassGen classGen(String clsName, String superName, String sourceFile, String... interfaces) {
+        return new ClassGen(clsName, superName, sourceFile, Const.ACC_PUBLIC, interfaces);
+    }
+
+    @Test
+    public void shouldMatchGlobs() {
+        Pattern p = GeneratedClasses.compileGlobs(Arrays.asList("*$$*", "*.g?"), " com.acme.Gen* ,");
+        assertTrue(p.matcher("com.acme.Foo$$EnhancerByCGLIB$$1").matches());
+        assertTrue(p.matcher("Sql.g4").matches());
+        assertTrue(p.matcher("com.acme.Generated").matches());
+        assertFalse(p.matcher("com.acme.Foo$1").matches());
+        assertFalse(p.matcher("Sql.g").matches());
+        assertFalse(p.matcher("com.acmeXGen").matches());
+    }
+
+    @Test
+    public void shouldNotFlagPlainClasses() {
+        assertNull(GeneratedClasses.classify(classGen("com.acme.Foo", "java.lang.Object", "Foo.java").getJavaClass()));
+    }
+
+    @Test
+    public void shouldFlagGeneratedMarkers() {
+        ClassGen annotated = classGen("com.acme.ImmutableFoo", "java.lang.Object", "ImmutableFoo.java");
+        annotated.addAnnotationEntry(new AnnotationEntryGen(new ObjectType("org.immutables.value.Generated"), Collections.<ElementValuePairGen> emptyList(),
+                false, annotated.getConstantPool()));
+        assertEquals(GeneratedClasses.classify(annotated.getJavaClass()), GeneratedClasses.Reason.ANNOTATION);
+
+        assertEquals(GeneratedClasses.classify(classGen("com.acme.SqlParser", "java.lang.Object", "Sql.g").getJavaClass()),
+                GeneratedClasses.Reason.SOURCE_FILE);
+
+        ClassGen synthetic = classGen("com.acme.Foo$1", "java.lang.Object", "Foo.java");
+        synthetic.setAccessFlags(Const.ACC_SYNTHETIC);
+        assertEquals(GeneratedClasses.classify(synthetic.getJavaClass()), GeneratedClasses.Reason.SYNTHETIC);
+
+        assertEquals(GeneratedClasses.classify(classGen("com.acme.Msg", "com.google.protobuf.GeneratedMessageV3", "Msg.java").getJavaClass()),
+                GeneratedClasses.Reason.SUPERTYPE);
+        assertEquals(GeneratedClasses.classify(classGen("com.acme.Struct", "java.lang.Object", "Struct.java", "org.apache.thrift.TBase").getJavaClass()),
+                GeneratedClasses.Reason.SUPERTYPE);
+
+        JavaClass proxy = classGen("com.acme.Foo$$EnhancerByCGLIB$$1a2b", "com.acme.Foo", "<generated>").getJavaClass();
+        assertEquals(GeneratedClasses.classify(proxy), GeneratedClasses.Reason.CLASS_NAME);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+public class HotMethodsTest {
+
+    @Test
+    public void shouldParseCsv() throws IOException {
+        String csv = "method,samples\n" + "com.acme.Foo.bar,1200\n" + "\"com.acme.Foo.baz(int, java.lang.String)\", 30\n" + "# a comment\n"
+                + "com.acme.Foo.bar(long),5\n";
+
+        Map<String, Long> samples = HotMethods.parse(new StringReader(csv));
+
+        assertEquals(samples.size(), 2);
+        assertEquals(samples.get("com.acme.Foo.bar"), Long.valueOf(1205));
+        assertEquals(samples.get("com.acme.Foo.baz"), Long.valueOf(30));
+    }
+
+    @Test
+    public void shouldCountCollapsedStacksForEveryMethodOnThem() throws IOException {
+        String stacks = "java/lang/Thread.run_[j];com/acme/Foo.loop_[j];com/acme/Foo.fib_[i];com/acme/Foo.fib_[i];__memmove_avx_unaligned 40\n"
+                + "java/lang/Thread.run_[j];com/acme/Foo$Inner.lambda$go$0_[j];do_syscall_64_[k] 10\n";
+
+        Map<String, Long> samples = HotMethods.parse(new StringReader(stacks));
+
+        assertEquals(samples.size(), 4);
+        assertEquals(samples.get("java.lang.Thread.run"), Long.valueOf(50));
+        assertEquals(samples.get("com.acme.Foo.loop"), Long.valueOf(40));
+        assertEquals(samples.get("com.acme.Foo.fib"), Long.valueOf(40));
+        assertEquals(samples.get("com.acme.Foo$Inner.lambda$go$0"), Long.valueOf(10));
+    }
+
+    @Test
+    public void shouldOnlyRetainMethodsNearTheHottest() throws IOException {
+        Map<String, Long> samples = HotMethods.parse(new StringReader("a.B.hot,1000\na.B.warm,10\na.B.cold,9\na.B.none,0\n"));
+
+        HotMethods.retainHot(samples, 1.0);
+
+        assertEquals(samples.size(), 2);
+        assertEquals(samples.get("a.B.warm"), Long.valueOf(10));
+        assertNull(samples.get("a.B.cold"));
+    }
+
+    @Test
+    public void shouldNormalizeFrames() {
+        assertEquals(HotMethods.normalizeFrame("com/acme/Foo.bar(Ljava/lang/String;)V"), "com.acme.Foo.bar");
+        assertEquals(HotMethods.normalizeFrame("com.acme.Foo.<init>_[1]"), "com.acme.Foo.<init>");
+        assertNull(HotMethods.normalizeFrame("JavaThread::run"));
+        assertNull(HotMethods.normalizeFrame("[unknown]"));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Collections;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.generic.ConstantPoolGen;
+import org.apache.bcel.generic.InstructionList;
+import org.apache.bcel.generic.MethodGen;
+import org.apache.bcel.generic.Type;
+import org.testng.annotations.Test;
+
+public class MethodBudgetTest {
+
+    private static final org.apache.bcel.classfile.Method METHOD = new MethodGen(Const.ACC_PUBLIC, Type.VOID, new Type[] { Type.INT }, new String[] { "i" },
+            "parse", "com.acme.Parser", new InstructionList(), new ConstantPoolGen()).getMethod();
+
+    @Test
+    public void shouldAllowMethodsWithinBudget() {
+        MethodBudget budget = new MethodBudget("Test", 10, 0);
+        budget.start("com.acme.Parser", METHOD);
+        budget.charge(10);
+        assertFalse(budget.isExceeded());
+        assertTrue(budget.getSkippedMethods().isEmpty());
+    }
+
+    @Test
+    public void shouldAbandonMethodsOverBudget() {
+        MethodBudget budget = new MethodBudget("Test", 10, 0);
+        budget.start("com.acme.Parser", METHOD);
+        try {
+            for (int i = 0; i < 11; i++) {
+                budget.charge();
+            }
+            fail("budget was not enforced");
+        } catch (StopOpcodeParsingException e) {
+            assertTrue(budget.isExceeded());
+        }
+        assertEquals(budget.getSkippedMethods(), Collections.singletonList("com.acme.Parser.parse(I)V"));
+
+        budget.start("com.acme.Parser", METHOD);
+        assertFalse(budget.isExceeded());
+        budget.charge(10);
+    }
+
+    @Test
+    public void shouldTreatZeroAsUnlimited() {
+        MethodBudget budget = new MethodBudget("Test", 0, 0);
+        budget.start("com.acme.Parser", METHOD);
+        budget.charge(Integer.MAX_VALUE);
+        budget.charge(Integer.MAX_VALUE);
+        assertFalse(budget.isExceeded());
+    }
+}
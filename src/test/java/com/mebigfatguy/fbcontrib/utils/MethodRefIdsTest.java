@@ -0,0 +1,126 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.Attribute;
+import org.apache.bcel.classfile.Code;
+import org.apache.bcel.classfile.CodeException;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.generic.ConstantPoolGen;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import edu.umd.cs.findbugs.visitclass.DismantleBytecode;
+
+public class MethodRefIdsTest {
+
+    @Mock
+    private DismantleBytecode dbc;
+
+    private ConstantPool pool;
+    private int yieldIndex;
+    private int sleepIndex;
+    private int sizeIndex;
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        ConstantPoolGen cpg = new ConstantPoolGen();
+        yieldIndex = cpg.addMethodref("java/lang/Thread", "yield", "()V");
+        sleepIndex = cpg.addMethodref("java/lang/Thread", "sleep", "(J)V");
+        sizeIndex = cpg.addInterfaceMethodref("java/util/List", "size", "()I");
+        pool = cpg.getFinalConstantPool();
+
+        when(dbc.getConstantPool()).thenReturn(pool);
+        when(dbc.getPC()).thenReturn(Integer.valueOf(0));
+    }
+
+    private void positionOn(int opcode, int cpIndex) {
+        byte[] bytes = { (byte) opcode, (byte) (cpIndex >> 8), (byte) cpIndex, 0, 0 };
+        when(dbc.getOpcode()).thenReturn(Integer.valueOf(opcode));
+        when(dbc.getCode()).thenReturn(new Code(0, bytes.length, 0, 0, bytes, new CodeException[0], new Attribute[0], pool));
+    }
+
+    @Test
+    public void shouldResolveRegisteredMethods() {
+        BitSet ids = MethodRefIds.registerAll(Arrays.asList(new FQMethod("java/lang/Thread", "yield", "()V"), new FQMethod("java/util/List", "size", "()I")));
+
+        positionOn(Const.INVOKESTATIC, yieldIndex);
+        assertTrue(MethodRefIds.isMethodIn(dbc, ids));
+        assertEquals(MethodRefIds.getMethod(MethodRefIds.getMethodId(dbc)), new FQMethod("java/lang/Thread", "yield", "()V"));
+
+        positionOn(Const.INVOKEINTERFACE, sizeIndex);
+        assertTrue(MethodRefIds.isMethodIn(dbc, ids));
+
+        positionOn(Const.INVOKESTATIC, sleepIndex);
+        assertFalse(MethodRefIds.isMethodIn(dbc, ids));
+    }
+
+    @Test
+    public void shouldResolveRegisteredMembersRegardlessOfSignature() {
+        BitSet ids = new BitSet();
+        ids.set(MethodRefIds.registerMember("java/lang/Thread", "sleep"));
+
+        positionOn(Const.INVOKESTATIC, sleepIndex);
+        assertTrue(MethodRefIds.isMemberIn(dbc, ids));
+
+        positionOn(Const.INVOKESTATIC, yieldIndex);
+        assertFalse(MethodRefIds.isMemberIn(dbc, ids));
+    }
+
+    @Test
+    public void shouldNotResolveNonInvokes() {
+        positionOn(Const.GETSTATIC, yieldIndex);
+        assertEquals(MethodRefIds.getMethodId(dbc), MethodRefIds.NONE);
+        assertEquals(MethodRefIds.getMemberId(dbc), MethodRefIds.NONE);
+        assertNull(MethodRefIds.getInvokedMethod(dbc));
+    }
+
+    @Test
+    public void shouldResolveUnregisteredInvokedMethods() {
+        positionOn(Const.INVOKEINTERFACE, sizeIndex);
+        FQMethod size = MethodRefIds.getInvokedMethod(dbc);
+        assertEquals(size, new FQMethod("java/util/List", "size", "()I"));
+        assertSame(MethodRefIds.getInvokedMethod(dbc), size);
+    }
+
+    @Test
+    public void shouldSeeMethodsRegisteredAfterResolving() {
+        positionOn(Const.INVOKESTATIC, sleepIndex);
+        int before = MethodRefIds.getMethodId(dbc);
+
+        int id = MethodRefIds.register(new FQMethod("java/lang/Thread", "sleep", "(J)V"));
+        assertEquals(MethodRefIds.getMethodId(dbc), id);
+        assertTrue((before == MethodRefIds.NONE) || (before == id));
+    }
+}
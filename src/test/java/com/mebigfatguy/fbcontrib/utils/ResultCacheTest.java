@@ -0,0 +1,114 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.bcel.classfile.ClassParser;
+import org.testng.annotations.Test;
+
+import edu.umd.cs.findbugs.BugInstance;
+import edu.umd.cs.findbugs.ClassAnnotation;
+import edu.umd.cs.findbugs.MethodAnnotation;
+import edu.umd.cs.findbugs.Priorities;
+import edu.umd.cs.findbugs.SourceLineAnnotation;
+import edu.umd.cs.findbugs.StringAnnotation;
+
+public class ResultCacheTest {
+
+    private static List<BugInstance> roundTrip(List<BugInstance> bugs) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ResultCache.write(baos, bugs);
+        return ResultCache.read(new ByteArrayInputStream(baos.toByteArray()));
+    }
+
+    @Test
+    public void shouldRoundTripBugs() throws IOException {
+        BugInstance bug = new BugInstance("NP_ALWAYS_NULL", Priorities.NORMAL_PRIORITY);
+        bug.add(new ClassAnnotation("com.acme.Foo"));
+        bug.add(new MethodAnnotation("com.acme.Foo", "bar", "(I)V", false));
+        bug.add(new SourceLineAnnotation("com.acme.Foo", "Foo.java", 10, 12, 4, 9));
+        bug.add(new StringAnnotation("hello"));
+        bug.setProperty("key", "value");
+        BugInstance other = new BugInstance("NP_ALWAYS_NULL", Priorities.LOW_PRIORITY);
+        other.add(new ClassAnnotation("com.acme.Bar"));
+
+        List<BugInstance> read = roundTrip(Arrays.asList(bug, other));
+
+        assertEquals(read.size(), 2);
+        BugInstance copy = read.get(0);
+        assertEquals(copy.getType(), bug.getType());
+        assertEquals(copy.getPriority(), bug.getPriority());
+        assertEquals(new ArrayList<>(copy.getAnnotations()), new ArrayList<>(bug.getAnnotations()));
+        assertEquals(copy.getProperty("key"), "value");
+        assertEquals(copy, bug);
+        assertEquals(read.get(1), other);
+    }
+
+    @Test
+    public void shouldRoundTripNoBugs() throws IOException {
+        assertTrue(roundTrip(Collections.<BugInstance> emptyList()).isEmpty());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void shouldRejectForeignClasses() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeInt(1);
+        oos.writeInt(1);
+        oos.writeUTF("NP_ALWAYS_NULL");
+        oos.writeInt(Priorities.NORMAL_PRIORITY);
+        oos.writeUTF("");
+        oos.writeInt(1);
+        oos.writeObject(new ArrayList<>(Collections.singletonList("not an annotation")));
+        oos.flush();
+
+        ResultCache.read(new ByteArrayInputStream(baos.toByteArray()));
+    }
+
+    @Test
+    public void shouldFindReferencedClasses() throws IOException {
+        Set<String> names;
+        try (InputStream is = ResultCacheTest.class.getResourceAsStream("ResultCacheTest.class")) {
+            names = ResultCache.referencedClasses(new ClassParser(is, "ResultCacheTest.class").parse());
+        }
+
+        assertTrue(names.contains("com/mebigfatguy/fbcontrib/utils/ResultCacheTest"));
+        assertTrue(names.contains("com/mebigfatguy/fbcontrib/utils/ResultCache"));
+        assertTrue(names.contains("edu/umd/cs/findbugs/SourceLineAnnotation"));
+        assertTrue(names.contains("java/io/ByteArrayInputStream"));
+        assertTrue(names.contains("java/util/Set"));
+        for (String name : names) {
+            assertFalse(name.startsWith("[") || name.endsWith(";"), name);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * fb-contrib - Auxiliary detectors for Java programs
+ * Copyright (C) 2005-2017 Dave Brosius
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package com.mebigfatguy.fbcontrib.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+public class SampledClassesTest {
+
+    private static List<String> classes(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add("com.acme.C" + i);
+        }
+        return names;
+    }
+
+    @Test
+    public void shouldSelectDeterministically() {
+        List<String> members = classes(1000);
+        List<String> sample = SampledClasses.select(members, 0.1, 42L, "com.acme#1");
+
+        assertTrue(Math.abs(sample.size() - 100) <= 1);
+        assertEquals(SampledClasses.select(members, 0.1, 42L, "com.acme#1"), sample);
+        assertNotEquals(SampledClasses.select(members, 0.1, 43L, "com.acme#1"), sample);
+        assertTrue(members.containsAll(sample));
+    }
+
+    @Test
+    public void shouldRoundSmallStrataRandomly() {
+        int sampled = 0;
+        for (int i = 0; i < 1000; i++) {
+            sampled += SampledClasses.select(classes(3), 0.1, 7L, "com.acme" + i + "#0").size();
+        }
+        // 0.3 classes per stratum on average
+        assertTrue((sampled > 240) && (sampled < 360), "sampled " + sampled);
+    }
+
+    private static int[] fours(int count) {
+        int[] counts = new int[count];
+        Arrays.fill(counts, 4);
+        return counts;
+    }
+
+    @Test
+    public void shouldEstimateStratifiedTotals() {
+        // a fully sampled stratum is known exactly
+        double[] exact = SampledClasses.estimate(new int[] { 10 }, new int[] { 10 }, new int[][] { { 3, 4 } }, new Random(0L));
+        assertEquals(exact[0], 7.0, 1.0E-9);
+        assertEquals(exact[1], 7.0, 1.0E-9);
+        assertEquals(exact[2], 7.0, 1.0E-9);
+
+        // with nothing found in the sampled classes, up to a Poisson count of 0 may have been missed in the others
+        double[] none = SampledClasses.estimate(new int[] { 10, 100 }, new int[] { 10, 10 }, new int[][] { { 3, 4 }, {} }, new Random(0L));
+        assertEquals(none[0], 7.0, 1.0E-9);
+        assertEquals(none[1], 7.0, 1.0E-9);
+        assertEquals(none[2], 7.0 + 36.7, 0.5);
+
+        // 50 classes with 4 findings of 100 sampled: the resampled means spread as 2 +- 1.96 * sqrt(4 / 100), scaled by 1000 classes
+        double[] spread = SampledClasses.estimate(new int[] { 10, 1000 }, new int[] { 10, 100 }, new int[][] { { 3, 4 }, fours(50) }, new Random(0L));
+        assertEquals(spread[0], 2007.0, 1.0E-9);
+        assertEquals(spread[1], 2007.0 - 392.0, 40.0);
+        assertEquals(spread[2], 2007.0 + 392.0, 40.0);
+
+        // a single finding gives no spread, so the interval is that of a Poisson count of 1
+        double[] rare = SampledClasses.estimate(new int[] { 100 }, new int[] { 10 }, new int[][] { { 1 } }, new Random(0L));
+        assertEquals(rare[0], 10.0, 1.0E-9);
+        assertEquals(rare[1], 1.0, 1.0E-9);
+        assertEquals(rare[2], 55.7, 0.5);
+    }
+
+    @Test
+    public void shouldWidenIntervalsOfBunchedFindings() {
+        // 30 findings in one of 10 sampled classes: a Poisson count of 30 would allow up to about 430, but resampling the class 3 times gives 900
+        double[] bunched = SampledClasses.estimate(new int[] { 100 }, new int[] { 10 }, new int[][] { { 30 } }, new Random(0L));
+        assertEquals(bunched[0], 300.0, 1.0E-9);
+        assertEquals(bunched[1], 30.0, 1.0E-9);
+        assertEquals(bunched[2], 900.0, 1.0E-9);
+
+        // the same findings spread over 10 classes give a tighter interval
+        double[] spread = SampledClasses.estimate(new int[] { 100 }, new int[] { 10 }, new int[][] { { 3, 3, 3, 3, 3, 3, 3, 3, 3, 3 } }, new Random(0L));
+        assertEquals(spread[0], 300.0, 1.0E-9);
+        assertTrue(spread[2] < bunched[2], "upper " + spread[2]);
+    }
+}